@@ -0,0 +1,128 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import com.google.gson.GsonBuilder;
+import com.thoughtworks.go.plugin.api.request.DefaultGoPluginApiRequest;
+import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
+
+/**
+ * Shared inputs for the benchmarks, loaded from the request fixtures used by the unit tests
+ */
+final class BenchmarkFixtures {
+    static final String[] REQUEST_FIXTURES = {
+        "nuget-install-minimal",
+        "nuget-install-envvars",
+        "nuget-pack-minimal",
+        "nuget-config-minimal",
+        "nuget-config-cleanup",
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Read a request fixture
+     * @param name The fixture name, without the directory or `.json` extension
+     * @return The raw request body
+     */
+    static String requestBody(String name) {
+        return TestUtil.readResource("/fixtures/requests/" + name + ".json");
+    }
+
+    /**
+     * Read a request fixture as the untyped Map tree the plugin has historically worked with
+     * @param name The fixture name, without the directory or `.json` extension
+     * @return The parsed request
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> request(String name) {
+        return (Map<String, Object>) new GsonBuilder().create().fromJson(requestBody(name), Object.class);
+    }
+
+    /**
+     * Read a request fixture and replace some of its config values
+     * @param name The fixture name, without the directory or `.json` extension
+     * @param values The config property values to set
+     * @return The parsed and modified request
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> request(String name, Map<String, Object> values) {
+        Map<String, Object> request = request(name);
+        Map<String, Object> config = (Map<String, Object>) request.get("config");
+        values.forEach((property, value) -> ((Map<String, Object>) config.get(property)).put("value", value));
+        return request;
+    }
+
+    /**
+     * Build a plugin API request
+     * @param requestName The request name, e.g. `execute`
+     * @param body The request body, may be null
+     * @return The plugin API request
+     */
+    static DefaultGoPluginApiRequest apiRequest(String requestName, String body) {
+        DefaultGoPluginApiRequest request = new DefaultGoPluginApiRequest("task", "1.0", requestName);
+        request.setRequestBody(body);
+        return request;
+    }
+
+    /**
+     * Write a NuGet executable that exits straight away, so that `execute` measures the plugin rather than NuGet
+     * @param dir The directory to write it to
+     * @return The executable: a shell script, or a batch file on Windows
+     * @throws IOException
+     */
+    static Path noOpNuGet(Path dir) throws IOException {
+        if (System.getProperty("os.name").startsWith("Windows")) {
+            return Files.writeString(dir.resolve("nuget.cmd"), "@exit /b 0\r\n");
+        }
+
+        Path nuget = Files.writeString(dir.resolve("nuget"), "#!/bin/sh\nexit 0\n");
+        nuget.toFile().setExecutable(true);
+        return nuget;
+    }
+
+    /**
+     * Outside of a GoCD agent there is no job console, so give `execute` one that discards everything
+     * @return The console
+     */
+    static JobConsoleLogger discardingConsole() {
+        return new JobConsoleLogger() {
+            @Override
+            public void printLine(String line) {
+            }
+
+            @Override
+            public void readOutputOf(InputStream in) {
+            }
+
+            @Override
+            public void readErrorOf(InputStream in) {
+            }
+
+            @Override
+            public void printEnvironment(Map<String, String> environment) {
+            }
+        };
+    }
+}
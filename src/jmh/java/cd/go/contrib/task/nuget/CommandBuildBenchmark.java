@@ -0,0 +1,78 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building the NuGet command line for every supported command. The install fixture is reused with the
+ * command swapped and every argument filled in, so each command builds its full argument list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommandBuildBenchmark {
+    @Param({"install", "pack", "push", "config", "restore", "setapikey", "add", "delete", "init", "sources", "update"})
+    public String command;
+
+    private final NuGetTaskExecutor executor = new NuGetTaskExecutor();
+    private Context context;
+    private TaskConfig taskConfig;
+
+    @Setup
+    public void setUp() {
+        Map<String, Object> values = new HashMap<>();
+        values.put(TaskPlugin.COMMAND_PROPERTY, command);
+        values.put(TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH, "${GO_PACKAGE_REPONAME_PACKAGENAME_PACKAGE_ID}");
+        values.put(TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH_FROM_ENV, true);
+        values.put(TaskPlugin.ARG_PACKAGE_VERSION, "13.0.3");
+        values.put(TaskPlugin.ARG_KEY, "api-key");
+        values.put(TaskPlugin.ARG_SOURCE, "./packages");
+        values.put(TaskPlugin.ARG_DESTINATION, "./feed");
+        values.put(TaskPlugin.ARG_OPERATION, "list");
+        values.put(TaskPlugin.OPT_SOURCE, "${GO_REPO_REPONAME_PACKAGENAME_REPO_URL}");
+        values.put(TaskPlugin.OPT_SOURCE_FROM_ENV, true);
+        values.put(TaskPlugin.OPT_VERBOSITY, "detailed");
+
+        RequestDecoder.ExecuteRequestBody request = RequestDecoder.decodeExecuteRequest(
+            TaskPlugin.GSON.toJson(BenchmarkFixtures.request("nuget-install-envvars", values)));
+        context = request.getContext();
+        taskConfig = request.getTaskConfig();
+    }
+
+    @Benchmark
+    public ProcessBuilder createNuGetProcessWithOptions() {
+        return executor.createNuGetProcessWithOptions(context, taskConfig);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the single pass {@link EnvVarTemplate} expansion against the previous regex-per-variable implementation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnvVarExpansionBenchmark {
+    @Param({"10", "300"})
+    public int envSize;
+
+    @Param({"./build/${GO_PIPELINE_NAME}/${GO_PIPELINE_COUNTER}/packages", "GO_PACKAGE_ID"})
+    public String text;
+
+    private Map<String, String> contextEnv;
+    private Map<String, String> agentEnv;
+
+    @Setup
+    public void setUp() {
+        contextEnv = new HashMap<>();
+        agentEnv = new HashMap<>();
+        for (int i = 0; i < envSize; i++) {
+            contextEnv.put("GO_MATERIAL_" + i + "_REVISION", "0123456789abcdef" + i);
+            agentEnv.put("AGENT_VAR_" + i, "/opt/agent/value/" + i);
+        }
+        contextEnv.put("GO_PIPELINE_NAME", "nuget-publish");
+        contextEnv.put("GO_PIPELINE_COUNTER", "1234");
+        contextEnv.put("GO_PACKAGE_ID", "Newtonsoft.Json");
+    }
+
+    @Benchmark
+    public String template() {
+        return EnvVarTemplate.compile(text).expand(contextEnv, agentEnv);
+    }
+
+    @Benchmark
+    public String regexPerVariable() {
+        String expanded = text;
+        for (Entry<String, String> entry : contextEnv.entrySet()) {
+            if (entry.getValue() != null) {
+                expanded = expanded.replaceAll("\\$\\{" + entry.getKey() + "\\}", entry.getValue());
+            }
+        }
+        for (Entry<String, String> entry : agentEnv.entrySet()) {
+            if (entry.getValue() != null) {
+                expanded = expanded.replaceAll("\\$\\{" + entry.getKey() + "\\}", entry.getValue());
+            }
+        }
+        return expanded;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures following the packages in a multi-megabyte detailed restore log with the {@link PackageOutputParser}, which
+ * sees every line of NuGet output on its way to the console
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutputParsingBenchmark {
+    @Param({"4"})
+    public int logMegabytes;
+
+    private String[] lines;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+
+        // Lines like a detailed restore of a few thousand packages
+        StringBuilder text = new StringBuilder();
+        int line = 0;
+        while (text.length() < logMegabytes * 1024 * 1024) {
+            String id = "package." + (line / 4);
+            switch (line % 4) {
+                case 0:
+                    text.append("  GET https://api.nuget.org/v3-flatcontainer/").append(id).append("/1.0.0/").append(id).append(".1.0.0.nupkg\n");
+                    break;
+                case 1:
+                    text.append("  OK https://api.nuget.org/v3-flatcontainer/").append(id).append("/1.0.0/").append(id).append(".1.0.0.nupkg ")
+                        .append(random.nextInt(900) + 100).append("ms\n");
+                    break;
+                case 2:
+                    text.append("  CACHE https://api.nuget.org/v3/registration5-gz-semver2/").append(id).append("/index.json\n");
+                    break;
+                default:
+                    text.append("Added package '").append(id).append(".1.0.0' to folder 'packages'\n");
+                    break;
+            }
+            line++;
+        }
+        lines = text.toString().split("\n");
+    }
+
+    @Benchmark
+    public int parse() {
+        PackageOutputParser parser = new PackageOutputParser(Paths.get("does-not-exist"));
+        for (String line : lines) {
+            parser.accept(line);
+        }
+        return parser.getPackages().size();
+    }
+}
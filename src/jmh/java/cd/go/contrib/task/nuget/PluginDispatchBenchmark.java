@@ -0,0 +1,110 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thoughtworks.go.plugin.api.exceptions.UnhandledRequestTypeException;
+import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
+import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
+
+/**
+ * Measures the full {@link TaskPlugin#handle(GoPluginApiRequest)} dispatch for the requests the GoCD server sends
+ * before a job runs. The `execute` benchmark goes through {@link ExecuteRequest} with a NuGet that exits straight away
+ * and a console that discards everything, so it measures the plugin overhead around a NuGet run (decoding, building
+ * the command, spawning and draining) rather than NuGet itself.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PluginDispatchBenchmark {
+    private final TaskPlugin plugin = new TaskPlugin();
+    private GoPluginApiRequest configurationRequest;
+    private GoPluginApiRequest viewRequest;
+    private GoPluginApiRequest iconRequest;
+    private GoPluginApiRequest validateRequest;
+    private GoPluginApiRequest executeRequest;
+    private Path nugetDir;
+    private ExecuteRequest executeHandler;
+
+    @Setup
+    public void setUp() throws IOException {
+        nugetDir = Files.createTempDirectory("nuget-benchmark-");
+        executeHandler = new ExecuteRequest(new NuGetTaskExecutor(BenchmarkFixtures.noOpNuGet(nugetDir).toString()), BenchmarkFixtures.discardingConsole());
+
+        configurationRequest = BenchmarkFixtures.apiRequest("configuration", null);
+        viewRequest = BenchmarkFixtures.apiRequest("view", null);
+        iconRequest = BenchmarkFixtures.apiRequest("go.cd.task.get-icon", null);
+        validateRequest = BenchmarkFixtures.apiRequest("validate", TaskPlugin.GSON.toJson(BenchmarkFixtures.request("nuget-install-minimal").get("config")));
+        executeRequest = BenchmarkFixtures.apiRequest("execute", BenchmarkFixtures.requestBody("nuget-install-minimal"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(nugetDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public GoPluginApiResponse configuration() throws UnhandledRequestTypeException {
+        return plugin.handle(configurationRequest);
+    }
+
+    @Benchmark
+    public GoPluginApiResponse view() throws UnhandledRequestTypeException {
+        return plugin.handle(viewRequest);
+    }
+
+    @Benchmark
+    public GoPluginApiResponse icon() throws UnhandledRequestTypeException {
+        return plugin.handle(iconRequest);
+    }
+
+    @Benchmark
+    public GoPluginApiResponse validate() throws UnhandledRequestTypeException {
+        return plugin.handle(validateRequest);
+    }
+
+    @Benchmark
+    public GoPluginApiResponse execute() {
+        return executeHandler.execute(executeRequest);
+    }
+}
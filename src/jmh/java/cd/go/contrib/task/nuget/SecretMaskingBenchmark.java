@@ -0,0 +1,117 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares masking a multi-megabyte restore log with the {@link SecretMasker} automaton, streamed in 8K chunks as the
+ * output pump reads it and line by line as the console sees it, against a `String.replace` per secret on every line
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecretMaskingBenchmark {
+    private static final int CHUNK_CHARS = 8192;
+
+    @Param({"4", "64"})
+    public int secretCount;
+
+    @Param({"4"})
+    public int logMegabytes;
+
+    private List<String> secrets;
+    private SecretMasker masker;
+    private String log;
+    private String[] lines;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        secrets = new ArrayList<>();
+        for (int i = 0; i < secretCount; i++) {
+            secrets.add("oy2" + Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()));
+        }
+        masker = SecretMasker.of(secrets);
+
+        // Lines like a detailed restore, with a secret echoed now and then
+        StringBuilder text = new StringBuilder();
+        int line = 0;
+        while (text.length() < logMegabytes * 1024 * 1024) {
+            if (line % 500 == 0) {
+                text.append("  Source: https://user:").append(secrets.get(line % secretCount)).append("@feed.example/v3/index.json\n");
+            } else {
+                text.append("  GET https://api.nuget.org/v3-flatcontainer/package.").append(line)
+                    .append("/index.json OK ").append(random.nextInt(900) + 100).append("ms\n");
+            }
+            line++;
+        }
+        log = text.toString();
+        lines = log.split("\n");
+    }
+
+    @Benchmark
+    public int automatonStreamed() {
+        SecretMasker.Stream stream = masker.stream();
+        StringBuilder out = new StringBuilder(log.length());
+        for (int start = 0; start < log.length(); start += CHUNK_CHARS) {
+            stream.write(log.subSequence(start, Math.min(log.length(), start + CHUNK_CHARS)), out);
+        }
+        stream.flush(out);
+        return out.length();
+    }
+
+    @Benchmark
+    public int automatonPerLine() {
+        int length = 0;
+        for (String line : lines) {
+            length += masker.mask(line).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int replacePerSecret() {
+        int length = 0;
+        for (String line : lines) {
+            String masked = line;
+            for (String secret : secrets) {
+                masked = masked.replace(secret, SecretMasker.MASK);
+            }
+            length += masked.length();
+        }
+        return length;
+    }
+}
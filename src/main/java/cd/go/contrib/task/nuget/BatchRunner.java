@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the items of a batch (e.g. every package matched by a push glob) on a bounded pool of worker threads
+ */
+public class BatchRunner {
+    /**
+     * A unit of work in the batch
+     * @param <T> The result of the work
+     */
+    public interface Item<T> {
+        /**
+         * Run the work
+         * @param input The batch input, e.g. a package path
+         * @return The result
+         * @throws InterruptedException
+         */
+        T run(String input) throws InterruptedException;
+    }
+
+    private BatchRunner() {
+    }
+
+    /**
+     * Parse the concurrency property
+     * @param value The property value
+     * @param defaultConcurrency The concurrency to use when the value is blank
+     * @return The concurrency
+     * @throws IllegalArgumentException If the value is not a positive whole number
+     */
+    public static int parseConcurrency(String value, int defaultConcurrency) {
+        if (value == null || value.trim().isEmpty()) {
+            return defaultConcurrency;
+        }
+
+        try {
+            int concurrency = Integer.parseInt(value.trim());
+            if (concurrency > 0) {
+                return concurrency;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Concurrency must be a whole number greater than 0: " + value);
+    }
+
+    /**
+     * Run every input through an item, at most `concurrency` at a time
+     * @param inputs The batch inputs
+     * @param concurrency The most items to run at once
+     * @param item The work to run for each input
+     * @param <T> The result of the work
+     * @return The results, in the order of the inputs
+     * @throws InterruptedException If the batch is interrupted, in which case running items are interrupted too
+     */
+    public static <T> List<T> run(List<String> inputs, int concurrency, Item<T> item) throws InterruptedException {
+        AtomicInteger workers = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrency, inputs.size())), runnable -> {
+            Thread worker = new Thread(runnable, "nuget-batch-" + workers.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (String input : inputs) {
+                futures.add(pool.submit(() -> item.run(input)));
+            }
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof InterruptedException) {
+                        throw (InterruptedException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+            return results;
+        } finally {
+            // Interrupting the workers stops their NuGet processes
+            pool.shutdownNow();
+        }
+    }
+}
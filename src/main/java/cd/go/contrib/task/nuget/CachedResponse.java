@@ -0,0 +1,96 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.function.Supplier;
+
+import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
+import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
+
+/**
+ * An immutable, precomputed response for requests whose answer never changes while the plugin is loaded
+ */
+public class CachedResponse {
+    /**
+     * Builds a response on first use and keeps it, unless it is an error, which is built again on the next use
+     */
+    public static class Holder {
+        private final Supplier<CachedResponse> builder;
+        private volatile CachedResponse response;
+
+        /**
+         * Construct a holder
+         * @param builder Builds the response
+         */
+        public Holder(Supplier<CachedResponse> builder) {
+            this.builder = builder;
+        }
+
+        /**
+         * Get the response, building it if it isn't cached yet
+         * @return A new API response, sharing the cached body
+         */
+        public GoPluginApiResponse toResponse() {
+            CachedResponse cached = response;
+            if (cached == null) {
+                // Requests racing here each build the response, and any of them can be kept
+                cached = builder.get();
+                if (cached.isSuccess()) {
+                    response = cached;
+                }
+            }
+            return cached.toResponse();
+        }
+    }
+
+    private final int responseCode;
+    private final String responseBody;
+
+    /**
+     * Construct a cached response
+     * @param responseCode The response code
+     * @param responseBody The serialized response body
+     */
+    public CachedResponse(int responseCode, String responseBody) {
+        this.responseCode = responseCode;
+        this.responseBody = responseBody;
+    }
+
+    /**
+     * Check whether the response is a success, and so can be kept
+     * @return true if the response code is a success
+     */
+    public boolean isSuccess() {
+        return responseCode == DefaultGoPluginApiResponse.SUCCESS_RESPONSE_CODE;
+    }
+
+    /**
+     * Get the serialized response body
+     * @return The response body
+     */
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    /**
+     * Create an API response from the cached code and body
+     * @return A new API response, sharing the cached body
+     */
+    public GoPluginApiResponse toResponse() {
+        return new DefaultGoPluginApiResponse(responseCode, responseBody);
+    }
+}
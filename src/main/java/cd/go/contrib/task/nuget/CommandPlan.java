@@ -0,0 +1,209 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * The precomputed list of options that apply to a NuGet command. Plans are compiled once per JVM from the
+ * {@link #OPTIONS} registry, so building a command line only visits the options its command can use.
+ */
+public class CommandPlan {
+    /**
+     * Every argument and option the plugin knows about, in the order they are added to the command line
+     */
+    static final List<NuGetOption> OPTIONS = List.of(
+        // Arguments
+        NuGetOption.argument(TaskPlugin.CMDSET_INSTALL_PACK_PUSH_RESTORE_ADD_DELETE_UPDATE, TaskConfig::getArgPackageIdOrFilePath, TaskConfig::isArgPackageIdOrFilePathFromEnv),
+        NuGetOption.argument(Set.of(TaskPlugin.CMD_DELETE), TaskConfig::getArgPackageVersion, TaskConfig::isArgPackageVersionFromEnv),
+        NuGetOption.argument(Set.of(TaskPlugin.CMD_SETAPIKEY), TaskConfig::getArgKey, TaskConfig::isArgKeyFromEnv),
+        NuGetOption.argument(Set.of(TaskPlugin.CMD_INIT), TaskConfig::getArgSource, TaskConfig::isArgSourceFromEnv),
+        NuGetOption.argument(Set.of(TaskPlugin.CMD_INIT), TaskConfig::getArgDestination, TaskConfig::isArgDestinationFromEnv),
+        NuGetOption.argument(Set.of(TaskPlugin.CMD_SOURCES), TaskConfig::getArgOperation, TaskConfig::isArgOperationFromEnv),
+
+        // Global options
+        NuGetOption.constant("-NonInteractive"), // Always add this option to avoid interactive prompts
+        NuGetOption.value("-ConfigFile", null, TaskConfig::getOptConfigFile, TaskConfig::isOptConfigFileFromEnv),
+        NuGetOption.toggle("-ForceEnglishOutput", null, TaskConfig::hasOptForceEnglishOutput),
+        NuGetOption.value("-Verbosity", null, TaskConfig::getOptVerbosity),
+
+        // Command options
+        NuGetOption.value("-Version", TaskPlugin.CMDSET_INSTALL_PACK_UPDATE, TaskConfig::getOptVersion, TaskConfig::isOptVersionFromEnv),
+        NuGetOption.value("-Source", TaskPlugin.CMDSET_INSTALL_PUSH_RESTORE_SETAPIKEY_ADD_DELETE_SOURCES_UPDATE, TaskConfig::getOptSource, TaskConfig::isOptSourceFromEnv),
+        NuGetOption.value("-OutputDirectory", TaskPlugin.CMDSET_INSTALL_PACK_RESTORE, TaskConfig::getOptOutputDirectory, TaskConfig::isOptOutputDirectoryFromEnv),
+        NuGetOption.value("-SolutionDirectory", TaskPlugin.CMDSET_INSTALL_PACK_RESTORE, TaskConfig::getOptSolutionDirectory, TaskConfig::isOptSolutionDirectoryFromEnv),
+
+        NuGetOption.toggle("-ExcludeVersion", Set.of(TaskPlugin.CMD_INSTALL), TaskConfig::hasOptExcludeVersion),
+        NuGetOption.value("-Framework", Set.of(TaskPlugin.CMD_INSTALL), TaskConfig::getOptFramework, TaskConfig::isOptFrameworkFromEnv),
+
+        NuGetOption.value("-BasePath", Set.of(TaskPlugin.CMD_PACK), TaskConfig::getOptBasePath, TaskConfig::isOptBasePathFromEnv),
+        NuGetOption.toggle("-Build", Set.of(TaskPlugin.CMD_PACK), TaskConfig::hasOptBuild),
+        NuGetOption.value("-Exclude", Set.of(TaskPlugin.CMD_PACK), TaskConfig::getOptExclude, TaskConfig::isOptExcludeFromEnv),
+        NuGetOption.toggle("-ExcludeEmptyDirectories", Set.of(TaskPlugin.CMD_PACK), TaskConfig::hasOptExcludeEmptyDirectories),
+        NuGetOption.toggle("-IncludeReferencedProjects", Set.of(TaskPlugin.CMD_PACK), TaskConfig::hasOptIncludeReferencedProjects),
+        NuGetOption.toggle("-InstallPackageToOutputPath", Set.of(TaskPlugin.CMD_PACK), TaskConfig::hasOptInstallPackageToOutputPath),
+        NuGetOption.value("-MinClientVersion", Set.of(TaskPlugin.CMD_PACK), TaskConfig::getOptMinClientVersion, TaskConfig::isOptMinClientVersionFromEnv),
+        NuGetOption.toggle("-NoDefaultExcludes", Set.of(TaskPlugin.CMD_PACK), TaskConfig::hasOptNoDefaultExcludes),
+        NuGetOption.toggle("-NoPackageAnalysis", Set.of(TaskPlugin.CMD_PACK), TaskConfig::hasOptNoPackageAnalysis),
+        NuGetOption.toggle("-OutputFileNamesWithoutVersion", Set.of(TaskPlugin.CMD_PACK), TaskConfig::hasOptOutputFileNamesWithoutVersion),
+        NuGetOption.value("-Properties", Set.of(TaskPlugin.CMD_PACK), TaskConfig::getOptProperties, TaskConfig::isOptPropertiesFromEnv),
+        NuGetOption.value("-Suffix", Set.of(TaskPlugin.CMD_PACK), TaskConfig::getOptSuffix, TaskConfig::isOptSuffixFromEnv),
+        NuGetOption.value("-SymbolPackageFormat", Set.of(TaskPlugin.CMD_PACK), TaskConfig::getOptSymbolPackageFormat),
+        NuGetOption.toggle("-Symbols", Set.of(TaskPlugin.CMD_PACK), TaskConfig::hasOptSymbols),
+        NuGetOption.toggle("-Tool", Set.of(TaskPlugin.CMD_PACK), TaskConfig::hasOptTool),
+
+        NuGetOption.toggle("-DirectDownload", TaskPlugin.CMDSET_INSTALL_RESTORE, TaskConfig::hasOptDirectDownload),
+        NuGetOption.toggle("-DisableParallelProcessing", TaskPlugin.CMDSET_INSTALL_RESTORE, TaskConfig::hasOptDisableParallelProcessing),
+        NuGetOption.toggle("-NoHttpCache", TaskPlugin.CMDSET_INSTALL_RESTORE, TaskConfig::hasOptNoHttpCache),
+        NuGetOption.value("-FallbackSource", TaskPlugin.CMDSET_INSTALL_RESTORE, TaskConfig::getOptFallbackSource, TaskConfig::isOptFallbackSourceFromEnv),
+        NuGetOption.value("-PackageSaveMode", TaskPlugin.CMDSET_INSTALL_RESTORE, TaskConfig::getOptPackageSaveMode),
+        NuGetOption.toggle("-RequireConsent", TaskPlugin.CMDSET_INSTALL_RESTORE, TaskConfig::hasOptRequireConsent),
+
+        NuGetOption.value("-DependencyVersion", TaskPlugin.CMDSET_INSTALL_UPDATE, TaskConfig::getOptDependencyVersion),
+        NuGetOption.toggle("-PreRelease", TaskPlugin.CMDSET_INSTALL_UPDATE, TaskConfig::hasOptPreRelease),
+
+        NuGetOption.value("-MSBuildPath", TaskPlugin.CMDSET_PACK_RESTORE_UPDATE, TaskConfig::getOptMsBuildPath, TaskConfig::isOptMSBuildPathFromEnv),
+        NuGetOption.value("-MSBuildVersion", TaskPlugin.CMDSET_PACK_RESTORE_UPDATE, TaskConfig::getOptMsBuildVersion, TaskConfig::isOptMSBuildVersionFromEnv),
+
+        NuGetOption.value("-PackagesDirectory", TaskPlugin.CMDSET_PACK_RESTORE, TaskConfig::getOptPackagesDirectory, TaskConfig::isOptPackagesDirectoryFromEnv),
+
+        NuGetOption.value("-ApiKey", TaskPlugin.CMDSET_PUSH_DELETE, TaskConfig::getOptApiKey, TaskConfig::isOptApiKeyFromEnv),
+        NuGetOption.toggle("-NoServiceEndpoint", TaskPlugin.CMDSET_PUSH_DELETE, TaskConfig::hasOptNoServiceEndpoint),
+
+        NuGetOption.toggle("-DisableBuffering", Set.of(TaskPlugin.CMD_PUSH), TaskConfig::hasOptDisableBuffering),
+        NuGetOption.toggle("-NoSymbols", Set.of(TaskPlugin.CMD_PUSH), TaskConfig::hasOptNoSymbols),
+        NuGetOption.toggle("-SkipDuplicate", Set.of(TaskPlugin.CMD_PUSH), TaskConfig::hasOptSkipDuplicate),
+        NuGetOption.value("-SymbolSource", Set.of(TaskPlugin.CMD_PUSH), TaskConfig::getOptSymbolSource, TaskConfig::isOptSymbolSourceFromEnv),
+        NuGetOption.value("-SymbolApiKey", Set.of(TaskPlugin.CMD_PUSH), TaskConfig::getOptSymbolApiKey, TaskConfig::isOptSymbolApiKeyFromEnv),
+        NuGetOption.value("-Timeout", Set.of(TaskPlugin.CMD_PUSH), TaskConfig::getOptTimeout, TaskConfig::isOptTimeoutFromEnv),
+
+        NuGetOption.value("-Set", Set.of(TaskPlugin.CMD_CONFIG), TaskConfig::getOptSet, TaskConfig::isOptSetFromEnv),
+        NuGetOption.value("-AsPath", Set.of(TaskPlugin.CMD_CONFIG), TaskConfig::getOptAsPath, TaskConfig::isOptAsPathFromEnv),
+
+        NuGetOption.toggle("-Force", Set.of(TaskPlugin.CMD_RESTORE), TaskConfig::hasOptForce),
+        NuGetOption.toggle("-ForceEvaluate", Set.of(TaskPlugin.CMD_RESTORE), TaskConfig::hasOptForceEvaluate),
+        NuGetOption.value("-LockFilePath", Set.of(TaskPlugin.CMD_RESTORE), TaskConfig::getOptLockFilePath, TaskConfig::isOptLockFilePathFromEnv),
+        NuGetOption.toggle("-LockedMode", Set.of(TaskPlugin.CMD_RESTORE), TaskConfig::hasOptLockedMode),
+        NuGetOption.value("-Project2ProjectTimeOut", Set.of(TaskPlugin.CMD_RESTORE), TaskConfig::getOptProject2ProjectTimeOut, TaskConfig::isOptProject2ProjectTimeOutFromEnv),
+        NuGetOption.toggle("-Recursive", Set.of(TaskPlugin.CMD_RESTORE), TaskConfig::hasOptRecursive),
+        NuGetOption.toggle("-UseLockFile", Set.of(TaskPlugin.CMD_RESTORE), TaskConfig::hasOptUseLockFile),
+
+        NuGetOption.toggle("-Expand", TaskPlugin.CMDSET_ADD_INIT, TaskConfig::hasOptExpand),
+
+        NuGetOption.toggle("-NoPrompt", Set.of(TaskPlugin.CMD_DELETE), TaskConfig::hasOptNoPrompt),
+
+        NuGetOption.toggle("-AllowInsecureConnections", Set.of(TaskPlugin.CMD_SOURCES), TaskConfig::hasOptAllowInsecureConnections),
+        NuGetOption.value("-Format", Set.of(TaskPlugin.CMD_SOURCES), TaskConfig::getOptFormat),
+        NuGetOption.value("-Name", Set.of(TaskPlugin.CMD_SOURCES), TaskConfig::getOptName, TaskConfig::isOptNameFromEnv),
+        NuGetOption.value("-ProtocolVersion", Set.of(TaskPlugin.CMD_SOURCES), TaskConfig::getOptProtocolVersion, TaskConfig::isOptProtocolVersionFromEnv),
+        NuGetOption.value("-Username", Set.of(TaskPlugin.CMD_SOURCES), TaskConfig::getOptUsername, TaskConfig::isOptUsernameFromEnv),
+        NuGetOption.value("-Password", Set.of(TaskPlugin.CMD_SOURCES), TaskConfig::getOptPassword, TaskConfig::isOptPasswordFromEnv),
+        NuGetOption.toggle("-StorePasswordInClearText", Set.of(TaskPlugin.CMD_SOURCES), TaskConfig::hasOptStorePasswordInClearText),
+        NuGetOption.value("-ValidAuthenticationTypes", Set.of(TaskPlugin.CMD_SOURCES), TaskConfig::getOptValidAuthenticationTypes, TaskConfig::isOptValidAuthenticationTypesFromEnv),
+
+        NuGetOption.value("-Id", Set.of(TaskPlugin.CMD_UPDATE), TaskConfig::getOptId, TaskConfig::isOptIdFromEnv),
+        NuGetOption.value("-RepositoryPath", Set.of(TaskPlugin.CMD_UPDATE), TaskConfig::getOptRepositoryPath, TaskConfig::isOptRepositoryPathFromEnv),
+        NuGetOption.toggle("-Safe", Set.of(TaskPlugin.CMD_UPDATE), TaskConfig::hasOptSafe),
+        NuGetOption.value("-FileConflictAction", Set.of(TaskPlugin.CMD_UPDATE), TaskConfig::getOptFileConflictAction),
+        NuGetOption.toggle("-Self", Set.of(TaskPlugin.CMD_UPDATE), TaskConfig::hasOptSelf)
+    );
+
+    /**
+     * Every command the plugin supports
+     */
+    static final List<String> COMMANDS = List.of(
+        TaskPlugin.CMD_INSTALL, TaskPlugin.CMD_PACK, TaskPlugin.CMD_PUSH, TaskPlugin.CMD_CONFIG, TaskPlugin.CMD_RESTORE, TaskPlugin.CMD_SETAPIKEY,
+        TaskPlugin.CMD_ADD, TaskPlugin.CMD_DELETE, TaskPlugin.CMD_INIT, TaskPlugin.CMD_SOURCES, TaskPlugin.CMD_UPDATE
+    );
+
+    private static final Map<String, CommandPlan> PLANS = compileAll();
+
+    /**
+     * Plan for commands the plugin does not know about: only the global options apply
+     */
+    private static final CommandPlan UNKNOWN_COMMAND_PLAN = compile(null);
+
+    private final String command;
+    private final NuGetOption[] options;
+
+    private CommandPlan(String command, NuGetOption[] options) {
+        this.command = command;
+        this.options = options;
+    }
+
+    private static Map<String, CommandPlan> compileAll() {
+        Map<String, CommandPlan> plans = new HashMap<>();
+        for (String command : COMMANDS) {
+            plans.put(command, compile(command));
+        }
+        return Collections.unmodifiableMap(plans);
+    }
+
+    private static CommandPlan compile(String command) {
+        List<NuGetOption> options = new ArrayList<>();
+        for (NuGetOption option : OPTIONS) {
+            if (option.appliesTo(command)) {
+                options.add(option);
+            }
+        }
+        return new CommandPlan(command, options.toArray(new NuGetOption[0]));
+    }
+
+    /**
+     * Get the plan for a command
+     * @param command The NuGet command, e.g. `install`
+     * @return The precompiled plan for the command
+     */
+    public static CommandPlan forCommand(String command) {
+        CommandPlan plan = command == null ? null : PLANS.get(command);
+        return plan != null ? plan : UNKNOWN_COMMAND_PLAN;
+    }
+
+    /**
+     * Get the command this plan was compiled for
+     * @return The NuGet command, or null for the plan used by unknown commands
+     */
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * Get the options that apply to the command, in command line order
+     * @return The applicable options
+     */
+    public List<NuGetOption> getOptions() {
+        return List.of(options);
+    }
+
+    /**
+     * Add the arguments and options for a configuration to a command line
+     * @param cmd The command line to add to, already holding the executable and command
+     * @param taskConfig The task configuration
+     * @param expander Expands environment variables in a value
+     */
+    public void appendTo(List<String> cmd, TaskConfig taskConfig, UnaryOperator<String> expander) {
+        for (NuGetOption option : options) {
+            option.appendTo(cmd, taskConfig, expander);
+        }
+    }
+}
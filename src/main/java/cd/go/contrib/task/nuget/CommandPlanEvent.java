@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when the NuGet command line has been built from its command plan
+ */
+@Name("cd.go.contrib.task.nuget.CommandPlanBuild")
+@Label("Command Plan Build")
+@Description("Building the NuGet command line, including environment variable expansion")
+public class CommandPlanEvent extends NuGetTaskEvent {
+    /**
+     * The number of options in the command plan
+     */
+    @Label("Plan Options")
+    int planOptions;
+
+    /**
+     * The number of arguments on the command line, including the executable
+     */
+    @Label("Arguments")
+    int arguments;
+}
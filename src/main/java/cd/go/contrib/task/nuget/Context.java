@@ -35,6 +35,16 @@ public class Context {
         workingDir = (String) context.get("workingDirectory");
     }
 
+    /**
+     * Construct a context from already decoded values
+     * @param environmentVariables The environment variables
+     * @param workingDir The working directory
+     */
+    public Context(Map<String, String> environmentVariables, String workingDir) {
+        this.environmentVariables = environmentVariables;
+        this.workingDir = workingDir;
+    }
+
     /**
      * Gets the environment variables for the context
      * @return Environment variables
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs restore, pack, push, delete and sources with the dotnet CLI (`dotnet restore`, `dotnet pack`, `dotnet nuget
+ * push` and so on). Each nuget option of a command is translated to its dotnet flag, or is done by dotnet on its own;
+ * any other option that is set makes the command fail with a message naming it, rather than silently doing something
+ * else than nuget would.
+ */
+public class DotnetCliBackend implements NuGetBackend {
+    /**
+     * The backend, which holds no state
+     */
+    static final DotnetCliBackend INSTANCE = new DotnetCliBackend();
+
+    /**
+     * The operations of `nuget sources`, which dotnet runs as `dotnet nuget {operation} source`
+     */
+    static final List<String> SOURCES_OPERATIONS = List.of("add", "remove", "enable", "disable", "update", "list");
+
+    /**
+     * For each command (and each sources operation, e.g. `sources add`), the nuget flags it can be given, mapped to
+     * the dotnet option they translate to, in command line order. A flag mapped to null is done by dotnet on its own,
+     * or is passed as an argument.
+     */
+    private static final Map<String, Map<String, NuGetOption>> TRANSLATIONS = compileAll();
+
+    private DotnetCliBackend() {
+    }
+
+    private static Map<String, Map<String, NuGetOption>> compileAll() {
+        Map<String, Map<String, NuGetOption>> translations = new HashMap<>();
+
+        Map<String, NuGetOption> restore = new LinkedHashMap<>();
+        restore.put("-NonInteractive", null); // dotnet restore only prompts with --interactive
+        restore.put("-Recursive", null); // dotnet restore always restores project references
+        restore.put("-Source", NuGetOption.list("--source", null, TaskConfig::getOptSource, TaskConfig::isOptSourceFromEnv));
+        restore.put("-PackagesDirectory", NuGetOption.value("--packages", null, DotnetCliBackend::getPackagesDirectory, DotnetCliBackend::isPackagesDirectoryFromEnv));
+        restore.put("-OutputDirectory", null); // The same as -PackagesDirectory for restore
+        restore.put("-ConfigFile", NuGetOption.value("--configfile", null, TaskConfig::getOptConfigFile, TaskConfig::isOptConfigFileFromEnv));
+        restore.put("-Verbosity", NuGetOption.value("--verbosity", null, TaskConfig::getOptVerbosity));
+        restore.put("-NoHttpCache", NuGetOption.toggle("--no-http-cache", null, TaskConfig::hasOptNoHttpCache));
+        restore.put("-DisableParallelProcessing", NuGetOption.toggle("--disable-parallel", null, TaskConfig::hasOptDisableParallelProcessing));
+        restore.put("-Force", NuGetOption.toggle("--force", null, TaskConfig::hasOptForce));
+        restore.put("-ForceEvaluate", NuGetOption.toggle("--force-evaluate", null, TaskConfig::hasOptForceEvaluate));
+        restore.put("-UseLockFile", NuGetOption.toggle("--use-lock-file", null, TaskConfig::hasOptUseLockFile));
+        restore.put("-LockedMode", NuGetOption.toggle("--locked-mode", null, TaskConfig::hasOptLockedMode));
+        restore.put("-LockFilePath", NuGetOption.value("--lock-file-path", null, TaskConfig::getOptLockFilePath, TaskConfig::isOptLockFilePathFromEnv));
+        translations.put(TaskPlugin.CMD_RESTORE, restore);
+
+        Map<String, NuGetOption> pack = new LinkedHashMap<>();
+        pack.put("-NonInteractive", null); // dotnet pack only prompts with --interactive
+        pack.put("-Build", null); // dotnet pack always builds
+        pack.put("-IncludeReferencedProjects", null); // dotnet pack always makes project references dependencies
+        pack.put("-OutputDirectory", NuGetOption.value("--output", null, TaskConfig::getOptOutputDirectory, TaskConfig::isOptOutputDirectoryFromEnv));
+        pack.put("-Verbosity", NuGetOption.value("--verbosity", null, TaskConfig::getOptVerbosity));
+        pack.put("-Suffix", NuGetOption.value("--version-suffix", null, TaskConfig::getOptSuffix, TaskConfig::isOptSuffixFromEnv));
+        pack.put("-Symbols", NuGetOption.toggle("--include-symbols", null, TaskConfig::hasOptSymbols));
+        pack.put("-Version", NuGetOption.attached("-p:PackageVersion=", null, TaskConfig::getOptVersion, TaskConfig::isOptVersionFromEnv));
+        pack.put("-SymbolPackageFormat", NuGetOption.attached("-p:SymbolPackageFormat=", null, TaskConfig::getOptSymbolPackageFormat, null));
+        pack.put("-NoPackageAnalysis", NuGetOption.toggle("-p:NoPackageAnalysis=true", null, TaskConfig::hasOptNoPackageAnalysis));
+        pack.put("-Properties", NuGetOption.attached("-p:", null, TaskConfig::getOptProperties, TaskConfig::isOptPropertiesFromEnv));
+        translations.put(TaskPlugin.CMD_PACK, pack);
+
+        Map<String, NuGetOption> push = new LinkedHashMap<>();
+        push.put("-NonInteractive", null); // dotnet nuget push only prompts with --interactive
+        push.put("-Source", NuGetOption.value("--source", null, TaskConfig::getOptSource, TaskConfig::isOptSourceFromEnv));
+        push.put("-ApiKey", NuGetOption.value("--api-key", null, TaskConfig::getOptApiKey, TaskConfig::isOptApiKeyFromEnv));
+        push.put("-SymbolSource", NuGetOption.value("--symbol-source", null, TaskConfig::getOptSymbolSource, TaskConfig::isOptSymbolSourceFromEnv));
+        push.put("-SymbolApiKey", NuGetOption.value("--symbol-api-key", null, TaskConfig::getOptSymbolApiKey, TaskConfig::isOptSymbolApiKeyFromEnv));
+        push.put("-Timeout", NuGetOption.value("--timeout", null, TaskConfig::getOptTimeout, TaskConfig::isOptTimeoutFromEnv));
+        push.put("-DisableBuffering", NuGetOption.toggle("--disable-buffering", null, TaskConfig::hasOptDisableBuffering));
+        push.put("-NoSymbols", NuGetOption.toggle("--no-symbols", null, TaskConfig::hasOptNoSymbols));
+        push.put("-SkipDuplicate", NuGetOption.toggle("--skip-duplicate", null, TaskConfig::hasOptSkipDuplicate));
+        push.put("-NoServiceEndpoint", NuGetOption.toggle("--no-service-endpoint", null, TaskConfig::hasOptNoServiceEndpoint));
+        push.put("-ForceEnglishOutput", NuGetOption.toggle("--force-english-output", null, TaskConfig::hasOptForceEnglishOutput));
+        translations.put(TaskPlugin.CMD_PUSH, push);
+
+        Map<String, NuGetOption> delete = new LinkedHashMap<>();
+        delete.put("-NonInteractive", NuGetOption.constant("--non-interactive"));
+        delete.put("-NoPrompt", null); // Already --non-interactive
+        delete.put("-Source", NuGetOption.value("--source", null, TaskConfig::getOptSource, TaskConfig::isOptSourceFromEnv));
+        delete.put("-ApiKey", NuGetOption.value("--api-key", null, TaskConfig::getOptApiKey, TaskConfig::isOptApiKeyFromEnv));
+        delete.put("-NoServiceEndpoint", NuGetOption.toggle("--no-service-endpoint", null, TaskConfig::hasOptNoServiceEndpoint));
+        delete.put("-ForceEnglishOutput", NuGetOption.toggle("--force-english-output", null, TaskConfig::hasOptForceEnglishOutput));
+        translations.put(TaskPlugin.CMD_DELETE, delete);
+
+        for (String operation : SOURCES_OPERATIONS) {
+            Map<String, NuGetOption> sources = new LinkedHashMap<>();
+            sources.put("-NonInteractive", null); // dotnet nuget never prompts for sources
+            switch (operation) {
+                case "add":
+                case "update":
+                    if (operation.equals("add")) {
+                        sources.put("-Source", null); // The argument of add
+                        sources.put("-Name", NuGetOption.value("--name", null, TaskConfig::getOptName, TaskConfig::isOptNameFromEnv));
+                    } else {
+                        sources.put("-Name", null); // The argument of update
+                        sources.put("-Source", NuGetOption.value("--source", null, TaskConfig::getOptSource, TaskConfig::isOptSourceFromEnv));
+                    }
+                    sources.put("-Username", NuGetOption.value("--username", null, TaskConfig::getOptUsername, TaskConfig::isOptUsernameFromEnv));
+                    sources.put("-Password", NuGetOption.value("--password", null, TaskConfig::getOptPassword, TaskConfig::isOptPasswordFromEnv));
+                    sources.put("-StorePasswordInClearText", NuGetOption.toggle("--store-password-in-clear-text", null, TaskConfig::hasOptStorePasswordInClearText));
+                    sources.put("-ValidAuthenticationTypes", NuGetOption.value("--valid-authentication-types", null, TaskConfig::getOptValidAuthenticationTypes,
+                        TaskConfig::isOptValidAuthenticationTypesFromEnv));
+                    sources.put("-ProtocolVersion", NuGetOption.value("--protocol-version", null, TaskConfig::getOptProtocolVersion, TaskConfig::isOptProtocolVersionFromEnv));
+                    sources.put("-AllowInsecureConnections", NuGetOption.toggle("--allow-insecure-connections", null, TaskConfig::hasOptAllowInsecureConnections));
+                    break;
+                case "list":
+                    sources.put("-Format", NuGetOption.value("--format", null, TaskConfig::getOptFormat));
+                    break;
+                default:
+                    sources.put("-Name", null); // The argument of remove, enable and disable
+                    break;
+            }
+            sources.put("-ConfigFile", NuGetOption.value("--configfile", null, TaskConfig::getOptConfigFile, TaskConfig::isOptConfigFileFromEnv));
+            translations.put(TaskPlugin.CMD_SOURCES + " " + operation, sources);
+        }
+
+        return Collections.unmodifiableMap(translations);
+    }
+
+    private static String getPackagesDirectory(TaskConfig taskConfig) {
+        String packagesDir = taskConfig.getOptPackagesDirectory();
+        return packagesDir != null && !packagesDir.isEmpty() ? packagesDir : taskConfig.getOptOutputDirectory();
+    }
+
+    private static boolean isPackagesDirectoryFromEnv(TaskConfig taskConfig) {
+        String packagesDir = taskConfig.getOptPackagesDirectory();
+        return packagesDir != null && !packagesDir.isEmpty() ? taskConfig.isOptPackagesDirectoryFromEnv() : taskConfig.isOptOutputDirectoryFromEnv();
+    }
+
+    @Override
+    public String getName() {
+        return DOTNET;
+    }
+
+    @Override
+    public String getExecutable() {
+        return "dotnet";
+    }
+
+    @Override
+    public void checkSupported(TaskConfig taskConfig) {
+        String command = taskConfig.getCommand();
+        if (TaskPlugin.CMD_SOURCES.equals(command)) {
+            if (taskConfig.isArgOperationFromEnv()) {
+                // The operation is only known once it is expanded
+                return;
+            }
+            checkOptions(taskConfig, sourcesOperation(taskConfig.getArgOperation()));
+            return;
+        }
+
+        checkOptions(taskConfig, command);
+        if (TaskPlugin.CMD_PACK.equals(command) && !taskConfig.isArgPackageIdOrFilePathFromEnv()) {
+            checkProject(taskConfig.getArgPackageIdOrFilePath());
+        }
+    }
+
+    @Override
+    public List<String> commandLine(String executable, TaskConfig taskConfig, UnaryOperator<String> expander) {
+        String command = taskConfig.getCommand();
+        String translated = command;
+        List<String> cmd = new ArrayList<>();
+        cmd.add(executable);
+
+        String argument = resolve(taskConfig.getArgPackageIdOrFilePath(), taskConfig.isArgPackageIdOrFilePathFromEnv(), expander);
+        if (TaskPlugin.CMD_RESTORE.equals(command)) {
+            cmd.add("restore");
+            addArgument(cmd, argument);
+        } else if (TaskPlugin.CMD_PACK.equals(command)) {
+            checkProject(argument);
+            cmd.add("pack");
+            addArgument(cmd, argument);
+        } else if (TaskPlugin.CMD_PUSH.equals(command)) {
+            cmd.addAll(List.of("nuget", "push"));
+            addArgument(cmd, argument);
+        } else if (TaskPlugin.CMD_DELETE.equals(command)) {
+            cmd.addAll(List.of("nuget", "delete"));
+            addArgument(cmd, argument);
+            addArgument(cmd, resolve(taskConfig.getArgPackageVersion(), taskConfig.isArgPackageVersionFromEnv(), expander));
+        } else if (TaskPlugin.CMD_SOURCES.equals(command)) {
+            translated = sourcesOperation(resolve(taskConfig.getArgOperation(), taskConfig.isArgOperationFromEnv(), expander));
+            String operation = translated.substring(translated.indexOf(' ') + 1);
+            cmd.addAll(List.of("nuget", operation, "source"));
+            if (operation.equals("add")) {
+                addRequired(cmd, resolve(taskConfig.getOptSource(), taskConfig.isOptSourceFromEnv(), expander), "dotnet nuget add source needs -Source");
+            } else if (!operation.equals("list")) {
+                addRequired(cmd, resolve(taskConfig.getOptName(), taskConfig.isOptNameFromEnv(), expander), "dotnet nuget " + operation + " source needs -Name");
+            }
+        }
+
+        for (NuGetOption option : checkOptions(taskConfig, translated).values()) {
+            if (option != null) {
+                option.appendTo(cmd, taskConfig, expander);
+            }
+        }
+        return cmd;
+    }
+
+    /**
+     * Check that every nuget option set for a command has a dotnet translation
+     * @param taskConfig The task configuration
+     * @param translated The command, or `sources {operation}`
+     * @return The translations of the command's options
+     * @throws IllegalArgumentException Naming the command, or the options without a translation
+     */
+    private static Map<String, NuGetOption> checkOptions(TaskConfig taskConfig, String translated) {
+        Map<String, NuGetOption> translations = translated == null ? null : TRANSLATIONS.get(translated);
+        if (translations == null) {
+            throw new IllegalArgumentException(String.format(
+                "The dotnet backend can't run `nuget %s`, only restore, pack, push, delete and sources. Use the nuget backend for it.", translated));
+        }
+
+        List<String> untranslated = new ArrayList<>();
+        for (NuGetOption option : CommandPlan.forCommand(taskConfig.getCommand()).getOptions()) {
+            if (option.isSet(taskConfig) && !translations.containsKey(option.getFlag())) {
+                untranslated.add(option.getFlag());
+            }
+        }
+        if (!untranslated.isEmpty()) {
+            throw new IllegalArgumentException(String.format(
+                "The dotnet backend can't run `nuget %s` with %s. Use the nuget backend for it.", translated, String.join(", ", untranslated)));
+        }
+        return translations;
+    }
+
+    /**
+     * Translate a `nuget sources` operation
+     * @param operation The operation, e.g. `Add`
+     * @return `sources {operation}`, e.g. `sources add`
+     * @throws IllegalArgumentException If dotnet has no such operation
+     */
+    private static String sourcesOperation(String operation) {
+        String lower = operation == null ? "" : operation.trim().toLowerCase(Locale.ROOT);
+        if (!SOURCES_OPERATIONS.contains(lower)) {
+            throw new IllegalArgumentException(String.format(
+                "The dotnet backend can't run `nuget sources %s`, only %s.", operation, String.join(", ", SOURCES_OPERATIONS)));
+        }
+        return TaskPlugin.CMD_SOURCES + " " + lower;
+    }
+
+    private static void checkProject(String project) {
+        if (project != null && project.trim().toLowerCase(Locale.ROOT).endsWith(".nuspec")) {
+            throw new IllegalArgumentException(String.format(
+                "The dotnet backend only packs SDK projects, not %s. Use the nuget backend for it.", project.trim()));
+        }
+    }
+
+    private static String resolve(String value, boolean fromEnv, UnaryOperator<String> expander) {
+        return value != null && fromEnv ? expander.apply(value) : value;
+    }
+
+    private static void addArgument(List<String> cmd, String argument) {
+        if (argument != null && !argument.isEmpty()) {
+            cmd.add(argument);
+        }
+    }
+
+    private static void addRequired(List<String> cmd, String argument, String message) {
+        if (argument == null || argument.trim().isEmpty()) {
+            throw new IllegalArgumentException(message);
+        }
+        cmd.add(argument);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when a command line value has been expanded from environment variables. Only lengths are recorded, since
+ * expanded values may be secrets.
+ */
+@Name("cd.go.contrib.task.nuget.EnvExpansion")
+@Label("Env Expansion")
+@Description("Expanding environment variables in a NuGet argument or option value")
+public class EnvExpansionEvent extends NuGetTaskEvent {
+    /**
+     * The length of the value before expansion
+     */
+    @Label("Input Length")
+    int inputLength;
+
+    /**
+     * The length of the value after expansion
+     */
+    @Label("Output Length")
+    int outputLength;
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A text template containing `${NAME}` environment variable references, parsed once into
+ * literal and variable segments so that it can be expanded in a single pass.
+ */
+public class EnvVarTemplate {
+    private static final String VAR_START = "${";
+    private static final char VAR_END = '}';
+
+    private final String text;
+    private final String[] segments;
+    private final boolean[] isVariable;
+
+    private EnvVarTemplate(String text, List<String> segments, List<Boolean> isVariable) {
+        this.text = text;
+        this.segments = segments.toArray(new String[0]);
+        this.isVariable = new boolean[isVariable.size()];
+        for (int i = 0; i < this.isVariable.length; i++) {
+            this.isVariable[i] = isVariable.get(i);
+        }
+    }
+
+    /**
+     * Parse a text into a template
+     * @param text The text to parse, e.g. `./build/${GO_PIPELINE_NAME}/packages`
+     * @return The parsed template
+     */
+    public static EnvVarTemplate compile(String text) {
+        List<String> segments = new ArrayList<>();
+        List<Boolean> isVariable = new ArrayList<>();
+
+        int position = 0;
+        int length = text.length();
+        while (position < length) {
+            int start = text.indexOf(VAR_START, position);
+            int end = start < 0 ? -1 : text.indexOf(VAR_END, start + VAR_START.length());
+
+            if (end < 0) {
+                segments.add(text.substring(position));
+                isVariable.add(false);
+                break;
+            }
+
+            if (start > position) {
+                segments.add(text.substring(position, start));
+                isVariable.add(false);
+            }
+
+            segments.add(text.substring(start + VAR_START.length(), end));
+            isVariable.add(true);
+            position = end + 1;
+        }
+
+        return new EnvVarTemplate(text, segments, isVariable);
+    }
+
+    /**
+     * Get the text this template was parsed from
+     * @return The original text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Does this template reference any variables?
+     * @return true if at least one `${NAME}` reference was found, false otherwise
+     */
+    public boolean hasVariables() {
+        for (boolean variable : isVariable) {
+            if (variable) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Expand the template in a single pass. Each `${NAME}` is looked up in the primary map first, then in the
+     * fallback map. Unknown references are left as-is, and resolved values are inserted literally.
+     * @param primary The variables to look up first (e.g. the task context environment), may be null
+     * @param fallback The variables to look up when the primary has no value (e.g. the agent environment), may be null
+     * @return The expanded text
+     */
+    public String expand(Map<String, String> primary, Map<String, String> fallback) {
+        if (segments.length == 1 && !isVariable[0]) {
+            return text;
+        }
+
+        StringBuilder expanded = new StringBuilder(text.length() + 32);
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if (!isVariable[i]) {
+                expanded.append(segment);
+                continue;
+            }
+
+            String value = lookup(primary, fallback, segment);
+            if (value != null) {
+                expanded.append(value);
+            } else {
+                expanded.append(VAR_START).append(segment).append(VAR_END);
+            }
+        }
+        return expanded.toString();
+    }
+
+    /**
+     * Look up a variable in the merged view of two maps, without copying either of them
+     * @param primary The variables to look up first, may be null
+     * @param fallback The variables to look up when the primary has no value, may be null
+     * @param name The variable name
+     * @return The variable value, or null if neither map has a value
+     */
+    static String lookup(Map<String, String> primary, Map<String, String> fallback, String name) {
+        String value = primary == null ? null : primary.get(name);
+        if (value == null && fallback != null) {
+            value = fallback.get(name);
+        }
+        return value;
+    }
+}
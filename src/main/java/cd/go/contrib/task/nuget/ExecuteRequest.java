@@ -16,9 +16,6 @@
 
 package cd.go.contrib.task.nuget;
 
-import java.util.Map;
-
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
@@ -28,18 +25,45 @@ import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
  * Class handler for GoPluginApiRequest
  */
 public class ExecuteRequest {
+    private final NuGetTaskExecutor executor;
+    private final JobConsoleLogger console;
+
+    /**
+     * Construct a handler that runs NuGet from the PATH and writes to the job console
+     */
+    public ExecuteRequest() {
+        this(new NuGetTaskExecutor(), null);
+    }
+
+    /**
+     * Construct a handler with its own executor and console, e.g. for tests
+     * @param executor The executor of the NuGet task
+     * @param console The console to write to, or null for the job console
+     */
+    ExecuteRequest(NuGetTaskExecutor executor, JobConsoleLogger console) {
+        this.executor = executor;
+        this.console = console;
+    }
+
     /**
      * This function receives the GoPluginApiRequest from the server, then invokes the NuGetTaskExecutor
      * @param request The API request from the GoCD Server that contains the configuration and context for the NuGet execution
      * @return The result of the NuGet execution, including the response code and any output from the NuGet script
      */
     public GoPluginApiResponse execute(GoPluginApiRequest request) {
-        NuGetTaskExecutor executor = new NuGetTaskExecutor();
-        Map executionRequest = (Map) new GsonBuilder().create().fromJson(request.requestBody(), Object.class);
-        Map config = (Map) executionRequest.get("config");
-        Map context = (Map) executionRequest.get("context");
+        PhaseTimings timings = new PhaseTimings();
+
+        RequestDecodeEvent decodeEvent = new RequestDecodeEvent();
+        decodeEvent.begin();
+        long startedAt = System.nanoTime();
+        RequestDecoder.ExecuteRequestBody executionRequest = RequestDecoder.decodeExecuteRequest(request.requestBody());
+        timings.record(PhaseTimings.Phase.DECODE, startedAt);
+        decodeEvent.command = executionRequest.getTaskConfig().getCommand();
+        decodeEvent.requestLength = request.requestBody().length();
+        decodeEvent.commit();
 
-        Result result = executor.execute(new TaskConfig(config), new Context(context), JobConsoleLogger.getConsoleLogger());
+        Result result = executor.execute(executionRequest.getTaskConfig(), executionRequest.getContext(),
+            console != null ? console : JobConsoleLogger.getConsoleLogger(), timings);
         return new DefaultGoPluginApiResponse(result.responseCode(), TaskPlugin.GSON.toJson(result.toMap()));
     }
 }
@@ -25,6 +25,12 @@ import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
  * Class handler to get the configured task in a pipeline config
  */
 public class GetConfigRequest {
+    /**
+     * The configuration never changes while the plugin is loaded, so it is built once, on first use
+     */
+    private static final CachedResponse.Holder RESPONSE = new CachedResponse.Holder(() ->
+        new CachedResponse(DefaultGoPluginApiResponse.SUCCESS_RESPONSE_CODE, TaskPlugin.GSON.toJson(new GetConfigRequest().buildConfig())));
+
     private int addConfigPropertyIndex = 0;
 
     private void addConfigProperty(HashMap<String, Object> config, String propertyName, String displayName) {
@@ -76,6 +82,14 @@ public class GetConfigRequest {
      * @return A GoPluginApiResponse containing the configuration properties for the NuGet task
      */
     public GoPluginApiResponse execute() {
+        return RESPONSE.toResponse();
+    }
+
+    /**
+     * Build the configuration properties for the NuGet task
+     * @return The configuration properties, keyed by property name
+     */
+    private HashMap<String, Object> buildConfig() {
         HashMap<String, Object> config = new HashMap<>();
 
         // Main command
@@ -193,7 +207,28 @@ public class GetConfigRequest {
         this.addConfigProperty(config, TaskPlugin.OPT_ID_FROM_ENV, "optId Is Env Var?");
         this.addConfigProperty(config, TaskPlugin.OPT_REPOSITORY_PATH_FROM_ENV, "optRepositoryPath Is Env Var?");
 
-
-        return DefaultGoPluginApiResponse.success(TaskPlugin.GSON.toJson(config));
+        // Plugin settings
+        this.addConfigProperty(config, TaskPlugin.TASK_TIMEOUT, "Task Timeout (seconds)");
+        this.addConfigProperty(config, TaskPlugin.TASK_IDLE_TIMEOUT, "Task Idle Timeout (seconds)");
+        this.addConfigProperty(config, TaskPlugin.TASK_CONCURRENCY, "Task Concurrency");
+        this.addConfigProperty(config, TaskPlugin.TASK_INCREMENTAL_RESTORE, "Incremental Restore");
+        this.addConfigProperty(config, TaskPlugin.TASK_SNAPSHOT_CACHE, "Snapshot Cache Directory");
+        this.addConfigProperty(config, TaskPlugin.TASK_SNAPSHOT_CACHE_MAX_SIZE, "Snapshot Cache Max Size (MB)");
+        this.addConfigProperty(config, TaskPlugin.TASK_FEED_PROXY_CACHE, "Feed Proxy Cache Directory");
+        this.addConfigProperty(config, TaskPlugin.TASK_FEED_PROXY_CACHE_MAX_SIZE, "Feed Proxy Cache Max Size (MB)");
+        this.addConfigProperty(config, TaskPlugin.TASK_HEDGE_DELAY, "Hedge Delay (ms)");
+        this.addConfigProperty(config, TaskPlugin.TASK_HTTP_PUSH, "HTTP Push");
+        this.addConfigProperty(config, TaskPlugin.TASK_JAVA_PACK, "Java Pack");
+        this.addConfigProperty(config, TaskPlugin.TASK_PACK_AND_PUSH, "Pack And Push");
+        this.addConfigProperty(config, TaskPlugin.TASK_PUSH_CONCURRENCY, "Push Concurrency");
+        this.addConfigProperty(config, TaskPlugin.TASK_STEPS, "Steps");
+        this.addConfigProperty(config, TaskPlugin.TASK_RESTORE_SHARDS, "Restore Shards");
+        this.addConfigProperty(config, TaskPlugin.TASK_LOG_FILE, "Log File");
+        this.addConfigProperty(config, TaskPlugin.TASK_LOG_TAIL_LINES, "Log Tail Lines");
+        this.addConfigProperty(config, TaskPlugin.TASK_LOG_BUFFER_SIZE, "Log Buffer Size");
+        this.addConfigProperty(config, TaskPlugin.TASK_PACKAGES_FILE, "Packages File");
+        this.addConfigProperty(config, TaskPlugin.TASK_BACKEND, "Backend");
+
+        return config;
     }
 }
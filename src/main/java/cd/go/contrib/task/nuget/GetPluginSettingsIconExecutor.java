@@ -20,7 +20,6 @@ import java.util.Base64;
 import java.util.HashMap;
 
 import com.thoughtworks.go.plugin.api.response.DefaultGoApiResponse;
-import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
 
 /**
@@ -28,11 +27,24 @@ import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
  * It appears that this is not presently supported for task pugins...
  */
 public class GetPluginSettingsIconExecutor {
+    /**
+     * The icon never changes while the plugin is loaded, so the response is built once, on first use, and again if it failed
+     */
+    private static final CachedResponse.Holder RESPONSE = new CachedResponse.Holder(GetPluginSettingsIconExecutor::buildResponse);
+
     /**
      * This function runs on the server, to get the icon for the NuGet Task Plugin
      * @return A GoPluginApiResponse containing the icon for the NuGet Task Plugin
      */
     public GoPluginApiResponse execute() {
+        return RESPONSE.toResponse();
+    }
+
+    /**
+     * Build the response holding the Base64 encoded icon
+     * @return The response to cache
+     */
+    private static CachedResponse buildResponse() {
         int responseCode = DefaultGoApiResponse.SUCCESS_RESPONSE_CODE;
         HashMap<String, String> view = new HashMap<>();
         view.put("content_type", "image/svg+xml");
@@ -44,6 +56,6 @@ public class GetPluginSettingsIconExecutor {
             view.put("exception", errorMessage);
             TaskPlugin.LOGGER.error(errorMessage, e);
         }
-        return new DefaultGoPluginApiResponse(responseCode, TaskPlugin.GSON.toJson(view));
+        return new CachedResponse(responseCode, TaskPlugin.GSON.toJson(view));
     }
 }
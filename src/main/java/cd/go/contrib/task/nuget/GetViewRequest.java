@@ -19,18 +19,30 @@ package cd.go.contrib.task.nuget;
 import java.util.HashMap;
 
 import com.thoughtworks.go.plugin.api.response.DefaultGoApiResponse;
-import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
 
 /**
  * Class handler to get the configuration settings screen for a NuGet Task in a pipeline
  */
 public class GetViewRequest {
+    /**
+     * The template never changes while the plugin is loaded, so the response is built once, on first use, and again if it failed
+     */
+    private static final CachedResponse.Holder RESPONSE = new CachedResponse.Holder(GetViewRequest::buildResponse);
+
     /**
      * This function runs on the server, to get the configuration settings screen for a NuGet Task in a pipeline
      * @return A GoPluginApiResponse containing the HTML template for the NuGet task configuration
      */
     public GoPluginApiResponse execute() {
+        return RESPONSE.toResponse();
+    }
+
+    /**
+     * Build the response holding the HTML template
+     * @return The response to cache
+     */
+    private static CachedResponse buildResponse() {
         int responseCode = DefaultGoApiResponse.SUCCESS_RESPONSE_CODE;
         HashMap<String, String> view = new HashMap<>();
         view.put("displayValue", "NuGet");
@@ -42,7 +54,8 @@ public class GetViewRequest {
             view.put("exception", errorMessage);
             TaskPlugin.LOGGER.error(errorMessage, e);
         }
-        TaskPlugin.LOGGER.info(TaskPlugin.GSON.toJson(view));
-        return new DefaultGoPluginApiResponse(responseCode, TaskPlugin.GSON.toJson(view));
+        String responseBody = TaskPlugin.GSON.toJson(view);
+        TaskPlugin.LOGGER.debug("Built the task view response (" + responseBody.length() + " characters)");
+        return new CachedResponse(responseCode, responseBody);
     }
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Pushes packages to a NuGet v3 source with the JDK's HTTP client rather than the nuget CLI, which saves starting the
+ * CLI (and on Linux, mono) for every push. The package is streamed from disk inside the same multipart body NuGet sends,
+ * so it is never loaded into memory. Only sources with a service index are supported; the caller falls back to the CLI
+ * for everything else. Redirects of an upload are followed by hand, so that the API key is never sent to another origin.
+ */
+public class HttpPushEngine {
+    /**
+     * NuGet's default push timeout
+     */
+    static final int DEFAULT_TIMEOUT_SECONDS = 300;
+
+    private static final String PACKAGE_PUBLISH = "PackagePublish/2.0.0";
+    private static final String SYMBOL_PACKAGE_PUBLISH = "SymbolPackagePublish/4.9.0";
+
+    /**
+     * The most redirects followed for one upload
+     */
+    private static final int MAX_REDIRECTS = 5;
+
+    private final HttpClient client;
+    private final HttpClient uploadClient;
+    private final Duration timeout;
+    private final Map<String, Map<String, String>> serviceIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * The outcome of one upload
+     */
+    public static class Upload {
+        private final Path file;
+        private final String url;
+        private final int statusCode;
+        private final long bytes;
+        private final long millis;
+
+        Upload(Path file, String url, int statusCode, long bytes, long millis) {
+            this.file = file;
+            this.url = url;
+            this.statusCode = statusCode;
+            this.bytes = bytes;
+            this.millis = millis;
+        }
+
+        /**
+         * Was the upload rejected because the source already has the package, and that was allowed?
+         * @return true if the package was skipped as a duplicate, false if it was pushed
+         */
+        public boolean isSkippedDuplicate() {
+            return statusCode == 409;
+        }
+
+        /**
+         * Summarize the upload for a task result
+         * @return The file, URL, status code, size and duration
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> upload = new LinkedHashMap<>();
+            upload.put("file", file.toString());
+            upload.put("url", url);
+            upload.put("statusCode", statusCode);
+            upload.put("skippedDuplicate", isSkippedDuplicate());
+            upload.put("bytes", bytes);
+            upload.put("millis", millis);
+            return upload;
+        }
+    }
+
+    /**
+     * Create an engine
+     * @param timeout How long each request may take
+     */
+    public HttpPushEngine(Duration timeout) {
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(timeout)
+            .build();
+        // The JDK copies every request header onto a redirect, wherever it goes, so uploads never follow one by themselves
+        this.uploadClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(timeout)
+            .build();
+    }
+
+    /**
+     * Can the engine push to a source?
+     * @param source The -Source option
+     * @return true for an HTTP(S) v3 service index, false for anything else (e.g. a folder, a v2 feed or no source)
+     */
+    public static boolean supports(String source) {
+        if (source == null || source.trim().isEmpty()) {
+            return false;
+        }
+        try {
+            URI uri = URI.create(source.trim());
+            return ("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))
+                && uri.getPath() != null && uri.getPath().endsWith("/index.json");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parse the -Timeout option
+     * @param value The option value, in seconds
+     * @return The timeout
+     * @throws IllegalArgumentException If the value is not a positive whole number
+     */
+    public static Duration parseTimeout(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Duration.ofSeconds(DEFAULT_TIMEOUT_SECONDS);
+        }
+
+        try {
+            long seconds = Long.parseLong(value.trim());
+            if (seconds > 0) {
+                return Duration.ofSeconds(seconds);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Push timeout must be a whole number of seconds greater than 0: " + value);
+    }
+
+    /**
+     * Push a package
+     * @param file The .nupkg
+     * @param source The v3 source
+     * @param apiKey The API key, or null
+     * @param skipDuplicate Whether a package the source already has is skipped rather than failing the push
+     * @return The outcome
+     * @throws IOException If the source can't be reached or rejects the package
+     * @throws InterruptedException
+     */
+    public Upload push(Path file, String source, String apiKey, boolean skipDuplicate) throws IOException, InterruptedException {
+        return upload(file, resourceOf(source, PACKAGE_PUBLISH), apiKey, skipDuplicate);
+    }
+
+    /**
+     * Push a symbols package
+     * @param file The .snupkg
+     * @param source The v3 source, which must publish symbol packages
+     * @param apiKey The API key, or null
+     * @param skipDuplicate Whether a package the source already has is skipped rather than failing the push
+     * @return The outcome
+     * @throws IOException If the source can't be reached, does not publish symbols or rejects the package
+     * @throws InterruptedException
+     */
+    public Upload pushSymbols(Path file, String source, String apiKey, boolean skipDuplicate) throws IOException, InterruptedException {
+        return upload(file, resourceOf(source, SYMBOL_PACKAGE_PUBLISH), apiKey, skipDuplicate);
+    }
+
+    /**
+     * Upload a package in the multipart body NuGet sends, streaming it from disk. A redirect that keeps the method (307
+     * or 308) is followed, without the API key if it leads to another origin.
+     */
+    private Upload upload(Path file, String url, String apiKey, boolean skipDuplicate) throws IOException, InterruptedException {
+        String boundary = UUID.randomUUID().toString();
+        byte[] preamble = ("--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"package\"; filename=\"package.nupkg\"\r\n"
+            + "Content-Type: application/octet-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] epilogue = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        long bytes = Files.size(file);
+
+        URI target = URI.create(url);
+        String key = apiKey;
+        long started = System.nanoTime();
+        HttpResponse<String> response;
+        for (int redirects = 0; ; redirects++) {
+            HttpRequest.Builder request = HttpRequest.newBuilder(target)
+                .timeout(timeout)
+                .header("Content-Type", "multipart/form-data; boundary=\"" + boundary + "\"")
+                .header("X-NuGet-Protocol-Version", "4.1.0")
+                .PUT(HttpRequest.BodyPublishers.concat(
+                    HttpRequest.BodyPublishers.ofByteArray(preamble),
+                    HttpRequest.BodyPublishers.ofFile(file),
+                    HttpRequest.BodyPublishers.ofByteArray(epilogue)));
+            if (key != null && !key.isEmpty()) {
+                request.header("X-NuGet-ApiKey", key);
+            }
+
+            response = uploadClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            String location = response.headers().firstValue("Location").orElse(null);
+            if ((response.statusCode() != 307 && response.statusCode() != 308) || location == null || redirects == MAX_REDIRECTS) {
+                break;
+            }
+            URI next = target.resolve(location);
+            if (!isSameOrigin(target, next)) {
+                key = null;
+            }
+            target = next;
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        int status = response.statusCode();
+        if ((status >= 200 && status < 300) || (status == 409 && skipDuplicate)) {
+            return new Upload(file, target.toString(), status, bytes, millis);
+        }
+        throw new IOException(String.format("Response status code does not indicate success: %d pushing %s to %s%s",
+            status, file.getFileName(), target, response.body().isEmpty() ? "" : " (" + response.body().trim() + ")"));
+    }
+
+    /**
+     * Do two URLs have the same scheme, host and port?
+     */
+    private static boolean isSameOrigin(URI from, URI to) {
+        return from.getScheme().equalsIgnoreCase(to.getScheme())
+            && from.getHost() != null && from.getHost().equalsIgnoreCase(to.getHost())
+            && portOf(from) == portOf(to);
+    }
+
+    private static int portOf(URI uri) {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    /**
+     * Find a resource in a source's service index, loading it once per engine
+     */
+    private String resourceOf(String source, String type) throws IOException, InterruptedException {
+        Map<String, String> resources = serviceIndexes.get(source);
+        if (resources == null) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(source)).timeout(timeout).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException(String.format("Could not load the service index %s: status code %d", source, response.statusCode()));
+            }
+            resources = new LinkedHashMap<>();
+            try {
+                JsonElement index = JsonParser.parseString(response.body());
+                JsonElement list = index.isJsonObject() ? index.getAsJsonObject().get("resources") : null;
+                if (list instanceof JsonArray) {
+                    for (JsonElement resource : (JsonArray) list) {
+                        if (resource instanceof JsonObject && ((JsonObject) resource).has("@id") && ((JsonObject) resource).has("@type")) {
+                            resources.putIfAbsent(((JsonObject) resource).get("@type").getAsString(), ((JsonObject) resource).get("@id").getAsString());
+                        }
+                    }
+                }
+            } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+                throw new IOException("Could not read the service index " + source + ": " + e.getMessage(), e);
+            }
+            serviceIndexes.put(source, resources);
+        }
+
+        String url = resources.get(type);
+        if (url == null) {
+            throw new IOException(String.format("%s has no %s resource", source, type));
+        }
+        return url;
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
+
+/**
+ * A job console that writes everything to a gzip compressed log file (e.g. to upload as an artifact), and only passes
+ * on a condensed view of the NuGet output: warnings, errors, a heartbeat while the output is hidden, and the last lines
+ * of output when the execution fails. The plugin's own messages are always passed on. Compression runs on its own
+ * thread, behind a buffer that holds at most a set amount of output; when it is full, the output waits.
+ */
+public class LogFileConsoleLogger extends JobConsoleLogger implements ProcessOutputSink {
+    /**
+     * The default number of output lines shown when the execution fails
+     */
+    static final int DEFAULT_TAIL_LINES = 50;
+
+    /**
+     * The default ceiling of output waiting to be compressed, in megabytes
+     */
+    static final long DEFAULT_BUFFER_MEGABYTES = 8;
+
+    /**
+     * How often a heartbeat is shown while output is hidden
+     */
+    static final long HEARTBEAT_MILLIS = 30_000;
+
+    /**
+     * Output lines that are always shown, e.g. `WARNING: ...`, `warning NU1603: ...` or `Failed to download ...`
+     */
+    private static final Pattern WARNING_OR_ERROR = Pattern.compile("\\b(warn(ing)?|errors?|failed|failure)\\b|\\bNU\\d{4}\\b",
+        Pattern.CASE_INSENSITIVE);
+
+    private final JobConsoleLogger console;
+    private final Path logFile;
+    private final Path partial;
+    private final int tailLines;
+    private final long maxBufferedBytes;
+    private final long heartbeatNanos;
+    private final Writer writer;
+    private final Thread compressor;
+
+    private final ArrayDeque<String> buffered = new ArrayDeque<>();
+    private long bufferedBytes;
+    private long peakBufferedBytes;
+    private long waitedNanos;
+    private boolean closed;
+    private volatile IOException failure;
+
+    private final ArrayDeque<String> tail = new ArrayDeque<>();
+    private long outputLines;
+    private long shownLines;
+    private long lastShownAt = System.nanoTime();
+
+    /**
+     * Open a log file and start compressing into it
+     * @param console The job console to pass the condensed view on to
+     * @param logFile The gzip log file, replaced when the log is finished
+     * @param tailLines The number of output lines to show when the execution fails
+     * @param maxBufferedBytes The most output, in bytes, waiting to be compressed
+     * @param heartbeatMillis How often to show a heartbeat while output is hidden
+     * @throws IOException If the log file can't be created
+     */
+    public LogFileConsoleLogger(JobConsoleLogger console, Path logFile, int tailLines, long maxBufferedBytes, long heartbeatMillis) throws IOException {
+        super();
+        this.console = console;
+        this.logFile = logFile;
+        this.tailLines = tailLines;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+
+        Path parent = logFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        partial = Files.createTempFile(parent, "." + logFile.getFileName(), ".partial");
+        writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024), StandardCharsets.UTF_8));
+
+        compressor = new Thread(this::compress, "nuget-log-" + logFile.getFileName());
+        compressor.setDaemon(true);
+        compressor.start();
+    }
+
+    /**
+     * Parse the tail lines property
+     * @param value The property value
+     * @return The number of lines, or the default if the value is blank
+     * @throws IllegalArgumentException If the value is not a whole, non-negative number
+     */
+    public static int parseTailLines(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_TAIL_LINES;
+        }
+
+        try {
+            int lines = Integer.parseInt(value.trim());
+            if (lines >= 0) {
+                return lines;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Log tail lines must be a whole number, or 0 for none: " + value);
+    }
+
+    /**
+     * Parse the log buffer size property
+     * @param value The property value, in megabytes
+     * @return The size in bytes
+     * @throws IllegalArgumentException If the value is not a positive whole number
+     */
+    public static long parseBufferSize(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_BUFFER_MEGABYTES * 1024 * 1024;
+        }
+
+        try {
+            long megabytes = Long.parseLong(value.trim());
+            if (megabytes > 0 && megabytes <= Long.MAX_VALUE / (1024 * 1024)) {
+                return megabytes * 1024 * 1024;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Log buffer size must be a whole number of megabytes greater than 0: " + value);
+    }
+
+    @Override
+    public void printLine(String line) {
+        log(line);
+        console.printLine(line);
+    }
+
+    @Override
+    public void printOutputLine(String line, boolean stderr) {
+        log(line);
+
+        boolean show;
+        long lines;
+        synchronized (tail) {
+            outputLines++;
+            lines = outputLines;
+            if (tailLines > 0) {
+                if (tail.size() == tailLines) {
+                    tail.removeFirst();
+                }
+                tail.addLast(line);
+            }
+
+            show = stderr || WARNING_OR_ERROR.matcher(line).find();
+            if (show) {
+                shownLines++;
+                lastShownAt = System.nanoTime();
+            } else if (System.nanoTime() - lastShownAt >= heartbeatNanos) {
+                lastShownAt = System.nanoTime();
+                console.printLine(String.format("NuGet output: %d lines so far, written to %s", lines, logFile));
+            }
+        }
+
+        if (show) {
+            ProcessOutputSink.print(console, line, stderr);
+        }
+    }
+
+    @Override
+    public SecretMasker getOutputMasker() {
+        return ProcessOutputSink.outputMasker(console);
+    }
+
+    @Override
+    public void printEnvironment(Map<String, String> environment) {
+        console.printEnvironment(environment);
+    }
+
+    /**
+     * Hand a line to the compressor, waiting while the buffer is full
+     * @param line The line
+     */
+    private void log(String line) {
+        // Roughly what the line takes up in memory
+        long size = 2L * line.length() + 40;
+        synchronized (buffered) {
+            if (closed) {
+                return;
+            }
+            long waitingSince = System.nanoTime();
+            while (bufferedBytes > 0 && bufferedBytes + size > maxBufferedBytes && failure == null) {
+                try {
+                    buffered.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            waitedNanos += System.nanoTime() - waitingSince;
+            buffered.addLast(line);
+            bufferedBytes += size;
+            peakBufferedBytes = Math.max(peakBufferedBytes, bufferedBytes);
+            buffered.notifyAll();
+        }
+    }
+
+    private void compress() {
+        List<String> lines = new ArrayList<>();
+        while (true) {
+            synchronized (buffered) {
+                while (buffered.isEmpty() && !closed) {
+                    try {
+                        buffered.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (buffered.isEmpty()) {
+                    return;
+                }
+                lines.addAll(buffered);
+                buffered.clear();
+            }
+
+            long size = 0;
+            try {
+                for (String line : lines) {
+                    if (failure == null) {
+                        writer.write(line);
+                        writer.write('\n');
+                    }
+                    size += 2L * line.length() + 40;
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            lines.clear();
+
+            synchronized (buffered) {
+                // Only now is the memory free again
+                bufferedBytes -= size;
+                buffered.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Finish the log: show the last lines of output if the execution failed, then compress what is left and move the
+     * log file into place. Lines printed afterwards are only passed on.
+     * @param success Whether the execution succeeded
+     * @return The log statistics: file, lines, bytes, peak buffered bytes and how long output waited for the compressor
+     * @throws InterruptedException
+     */
+    public Map<String, Object> finish(boolean success) throws InterruptedException {
+        List<String> shownTail;
+        long lines;
+        long shown;
+        synchronized (tail) {
+            shownTail = new ArrayList<>(tail);
+            lines = outputLines;
+            shown = shownLines;
+        }
+        if (!success && !shownTail.isEmpty()) {
+            printLine(String.format("NuGet output: the last %d of %d lines", shownTail.size(), lines));
+            shownTail.forEach(console::printLine);
+        }
+
+        synchronized (buffered) {
+            closed = true;
+            buffered.notifyAll();
+        }
+        compressor.join();
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("file", logFile.toString());
+        statistics.put("lines", lines);
+        statistics.put("shownLines", shown);
+        statistics.put("peakBufferedBytes", peakBufferedBytes);
+        statistics.put("waitedMillis", TimeUnit.NANOSECONDS.toMillis(waitedNanos));
+        try {
+            writer.close();
+            if (failure != null) {
+                throw failure;
+            }
+            Files.move(partial, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            statistics.put("compressedBytes", Files.size(logFile));
+            console.printLine(String.format("NuGet output: %d lines written to %s", lines, logFile));
+        } catch (IOException e) {
+            partial.toFile().delete();
+            statistics.put("error", e.getMessage());
+            console.printLine("NuGet output could not be written to " + logFile + ": " + e.getMessage());
+        }
+        return statistics;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.Map;
+
+import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
+
+/**
+ * A job console that masks secrets in every line written to it, including the `Launching command:` line with the full
+ * NuGet command line. The process output is masked by the {@link OutputPump} before it's split into lines, which asks
+ * for the masker through {@link #getOutputMasker()}.
+ */
+public class MaskingConsoleLogger extends JobConsoleLogger implements ProcessOutputSink {
+    private final JobConsoleLogger console;
+    private final SecretMasker masker;
+
+    /**
+     * Construct a masking console
+     * @param console The job console to write to
+     * @param masker Masks the secrets of the execution
+     */
+    public MaskingConsoleLogger(JobConsoleLogger console, SecretMasker masker) {
+        super();
+        this.console = console;
+        this.masker = masker;
+    }
+
+    @Override
+    public void printLine(String line) {
+        console.printLine(masker.mask(line));
+    }
+
+    /**
+     * The pump has already masked the process output
+     * @param line The line, labelled and prefixed the way it is shown
+     * @param stderr Whether the line was written to stderr
+     */
+    @Override
+    public void printOutputLine(String line, boolean stderr) {
+        ProcessOutputSink.print(console, line, stderr);
+    }
+
+    @Override
+    public SecretMasker getOutputMasker() {
+        return masker;
+    }
+
+    /**
+     * The agent masks the secure environment variables it prints itself
+     * @param environment The environment
+     */
+    @Override
+    public void printEnvironment(Map<String, String> environment) {
+        console.printEnvironment(environment);
+    }
+}
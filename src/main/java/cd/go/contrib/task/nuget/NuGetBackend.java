@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Turns a task configuration into the command line of the CLI that runs it: `nuget` itself, or `dotnet`, which starts
+ * faster than nuget.exe under mono and restores SDK projects natively
+ */
+public interface NuGetBackend {
+    /**
+     * The nuget CLI, which runs every command
+     */
+    String NUGET = "nuget";
+
+    /**
+     * The dotnet CLI, which runs restore, pack (of SDK projects), push, delete and sources
+     */
+    String DOTNET = "dotnet";
+
+    /**
+     * Get a backend by name
+     * @param name The task's backend property
+     * @return The backend, or the nuget CLI if the name is blank
+     * @throws IllegalArgumentException If there is no such backend
+     */
+    static NuGetBackend forName(String name) {
+        String trimmed = name == null ? "" : name.trim();
+        if (trimmed.isEmpty() || trimmed.equals(NUGET)) {
+            return NuGetCliBackend.INSTANCE;
+        }
+        if (trimmed.equals(DOTNET)) {
+            return DotnetCliBackend.INSTANCE;
+        }
+        throw new IllegalArgumentException("Backend must be one of [" + NUGET + ", " + DOTNET + "]: " + name);
+    }
+
+    /**
+     * Get the backend's name
+     * @return The name, as set in the task's backend property
+     */
+    String getName();
+
+    /**
+     * Get the executable to launch when the executor isn't given one
+     * @return The executable, looked up on the path
+     */
+    String getExecutable();
+
+    /**
+     * Check that the backend can run a configuration, as far as it can be told before environment variables are
+     * expanded
+     * @param taskConfig The task configuration
+     * @throws IllegalArgumentException Naming the command or options the backend can't run
+     */
+    void checkSupported(TaskConfig taskConfig);
+
+    /**
+     * Build the command line for a configuration
+     * @param executable The executable to launch
+     * @param taskConfig The task configuration
+     * @param expander Expands environment variables in a value
+     * @return The command line
+     * @throws IllegalArgumentException Naming the command or options the backend can't run
+     */
+    List<String> commandLine(String executable, TaskConfig taskConfig, UnaryOperator<String> expander);
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs every command with the nuget CLI, with the options of its {@link CommandPlan}
+ */
+public class NuGetCliBackend implements NuGetBackend {
+    /**
+     * The backend, which holds no state
+     */
+    static final NuGetCliBackend INSTANCE = new NuGetCliBackend();
+
+    private NuGetCliBackend() {
+    }
+
+    @Override
+    public String getName() {
+        return NUGET;
+    }
+
+    @Override
+    public String getExecutable() {
+        return "nuget";
+    }
+
+    @Override
+    public void checkSupported(TaskConfig taskConfig) {
+        // Every command and option is nuget's own
+    }
+
+    @Override
+    public List<String> commandLine(String executable, TaskConfig taskConfig, UnaryOperator<String> expander) {
+        String command = taskConfig.getCommand();
+        List<String> cmd = new ArrayList<>();
+        cmd.add(executable);
+        cmd.add(command);
+        CommandPlan.forCommand(command).appendTo(cmd, taskConfig, expander);
+        return cmd;
+    }
+}
@@ -0,0 +1,879 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A caching NuGet v3 feed proxy that listens on localhost for the lifetime of one NuGet process. Sources are rewritten
+ * to point at the proxy, and every absolute URL of an upstream origin in the JSON it serves (i.e. the resources of the
+ * service index and the links between registration pages) is rewritten too, so all of NuGet's requests come through it.
+ * Metadata is cached on disk and revalidated with its ETag or Last-Modified date the first time it is asked for; package
+ * blobs are immutable and served straight from disk. The cache is evicted least recently used first when the proxy
+ * closes. Sources that need credentials can't use the proxy, as NuGet only sends them to the URL they are configured for.
+ */
+public class NuGetFeedProxy implements AutoCloseable {
+    /**
+     * The size the cache is evicted down to when none is configured
+     */
+    static final long DEFAULT_MAX_MEGABYTES = 4096;
+
+    /**
+     * NuGet's own HTTP timeout
+     */
+    private static final Duration UPSTREAM_TIMEOUT = Duration.ofSeconds(100);
+
+    private static final String ORIGIN_PREFIX = "/o/";
+
+    /**
+     * How many latencies of a source must be recorded before its hedge delay adapts to them
+     */
+    static final int MIN_ADAPTIVE_SAMPLES = 20;
+
+    /**
+     * The shortest adapted hedge delay, so a fast source is not raced on every request
+     */
+    static final long MIN_HEDGE_DELAY_MILLIS = 5;
+
+    /**
+     * The latencies of each hedged source, kept for as long as the plugin is loaded so the hedge delay keeps adapting
+     * from one task to the next
+     */
+    private static final Map<String, LatencyHistogram> LATENCIES = new ConcurrentHashMap<>();
+
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final HttpClient client;
+    private final String address;
+    private final List<String> origins = new ArrayList<>();
+    private final Set<String> revalidated = ConcurrentHashMap.newKeySet();
+    private final List<HedgedSource> hedgedSources = new CopyOnWriteArrayList<>();
+    private volatile long hedgeDelayMillis;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong metadataHits = new AtomicLong();
+    private final AtomicLong metadataRevalidated = new AtomicLong();
+    private final AtomicLong metadataMisses = new AtomicLong();
+    private final AtomicLong packageHits = new AtomicLong();
+    private final AtomicLong packageMisses = new AtomicLong();
+    private final AtomicLong bytesFromCache = new AtomicLong();
+    private final AtomicLong upstreamErrors = new AtomicLong();
+    private final AtomicLong hedgedRequests = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private int evicted;
+
+    /**
+     * A cached metadata response, as stored on disk
+     */
+    private static class CachedMetadata {
+        String url;
+        String etag;
+        String lastModified;
+        String contentType;
+        String body;
+        transient int status;
+        transient boolean fromCache;
+    }
+
+    /**
+     * A source whose requests are raced against the other hedged sources
+     */
+    private static class HedgedSource {
+        final String url;
+        final Map<String, String> resources;
+        final LatencyHistogram latency;
+
+        HedgedSource(String url, Map<String, String> resources, LatencyHistogram latency) {
+            this.url = url;
+            this.resources = resources;
+            this.latency = latency;
+        }
+    }
+
+    /**
+     * Where one request of a race goes
+     */
+    private static class Target {
+        final String url;
+        final LatencyHistogram latency;
+
+        Target(String url, LatencyHistogram latency) {
+            this.url = url;
+            this.latency = latency;
+        }
+
+        void record(long startedNanos, HttpResponse<?> response) {
+            if (latency != null && isUsable(response)) {
+                latency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos));
+            }
+        }
+    }
+
+    private NuGetFeedProxy(Path cacheDir, long maxBytes) throws IOException {
+        this.cacheDir = cacheDir;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(cacheDir.resolve("metadata"));
+        Files.createDirectories(cacheDir.resolve("packages"));
+
+        AtomicInteger threads = new AtomicInteger();
+        workers = Executors.newCachedThreadPool(runnable -> {
+            Thread worker = new Thread(runnable, "nuget-feed-proxy-" + threads.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+        client = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(UPSTREAM_TIMEOUT)
+            .executor(workers)
+            .build();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(workers);
+        address = "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Start a proxy on a free port on localhost
+     * @param cacheDir Where the metadata and packages are cached
+     * @param maxBytes The size the cache is evicted down to when the proxy closes
+     * @return The running proxy
+     * @throws IOException
+     */
+    public static NuGetFeedProxy start(Path cacheDir, long maxBytes) throws IOException {
+        NuGetFeedProxy proxy = new NuGetFeedProxy(cacheDir, maxBytes);
+        proxy.server.start();
+        return proxy;
+    }
+
+    /**
+     * Parse the max size property
+     * @param value The property value, in megabytes
+     * @return The size in bytes
+     * @throws IllegalArgumentException If the value is not a positive whole number
+     */
+    public static long parseMaxSize(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_MAX_MEGABYTES * 1024 * 1024;
+        }
+
+        try {
+            long megabytes = Long.parseLong(value.trim());
+            if (megabytes > 0 && megabytes <= Long.MAX_VALUE / (1024 * 1024)) {
+                return megabytes * 1024 * 1024;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Feed proxy cache max size must be a whole number of megabytes greater than 0: " + value);
+    }
+
+    /**
+     * Parse the hedge delay property
+     * @param value The property value, in milliseconds
+     * @return The delay, or -1 if requests are not raced
+     * @throws IllegalArgumentException If the value is not a whole number
+     */
+    public static long parseHedgeDelay(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+
+        try {
+            long delay = Long.parseLong(value.trim());
+            if (delay >= 0) {
+                return delay;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Hedge delay must be a whole number of milliseconds, or blank for none: " + value);
+    }
+
+    /**
+     * Get the address the proxy listens on
+     * @return The address, e.g. `http://127.0.0.1:50123`
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Point the v3 HTTP sources of a -Source or -FallbackSource value at the proxy
+     * @param sources The sources, separated by semicolons
+     * @return The sources with every v3 HTTP source rewritten, and the others (e.g. local folders) left as they are
+     */
+    public String rewriteSources(String sources) {
+        List<String> rewritten = new ArrayList<>();
+        for (String source : sources.split(";")) {
+            String trimmed = source.trim();
+            URI uri = parse(trimmed);
+            if (uri != null && uri.getPath() != null && uri.getPath().endsWith("/index.json")) {
+                rewritten.add(rewrite(trimmed, origin(uri)));
+            } else {
+                rewritten.add(source);
+            }
+        }
+        return String.join(";", rewritten);
+    }
+
+    /**
+     * Race requests across sources: a request for a resource of one source also goes to the same resource of the others
+     * when the first is slow or fails, and the first usable response wins
+     * @param sources The v3 sources, in order of preference
+     * @param hedgeDelayMillis How long a source gets before the others are raced, at most
+     * @return The sources that are hedged, i.e. those whose service index could be loaded
+     * @throws InterruptedException
+     */
+    public List<String> hedge(List<String> sources, long hedgeDelayMillis) throws InterruptedException {
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        for (String source : sources) {
+            URI uri = parse(source.trim());
+            if (uri == null || uri.getPath() == null || !uri.getPath().endsWith("/index.json")) {
+                continue;
+            }
+            try {
+                CachedMetadata index = fetchMetadata(source.trim());
+                Map<String, String> resources = index.status == 200 ? resourcesOf(index.body) : Map.of();
+                if (!resources.isEmpty()) {
+                    rewriteBody(index.body);
+                    hedgedSources.add(new HedgedSource(source.trim(), resources, LATENCIES.computeIfAbsent(source.trim(), url -> new LatencyHistogram())));
+                }
+            } catch (IOException e) {
+                // Not hedged, NuGet will report the source itself
+                upstreamErrors.incrementAndGet();
+            }
+        }
+        return hedgedSources.stream().map(source -> source.url).collect(Collectors.toList());
+    }
+
+    /**
+     * Get what the proxy has served so far
+     * @return The request, hit and miss counters
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("requests", requests.get());
+        statistics.put("metadataHits", metadataHits.get());
+        statistics.put("metadataRevalidated", metadataRevalidated.get());
+        statistics.put("metadataMisses", metadataMisses.get());
+        statistics.put("packageHits", packageHits.get());
+        statistics.put("packageMisses", packageMisses.get());
+        statistics.put("bytesFromCache", bytesFromCache.get());
+        statistics.put("upstreamErrors", upstreamErrors.get());
+        statistics.put("evicted", evicted);
+        if (!hedgedSources.isEmpty()) {
+            statistics.put("hedgedRequests", hedgedRequests.get());
+            statistics.put("hedgeWins", hedgeWins.get());
+            Map<String, Object> sources = new LinkedHashMap<>();
+            for (HedgedSource source : hedgedSources) {
+                Map<String, Object> latency = source.latency.toMap();
+                latency.put("hedgeDelay", hedgeDelayOf(source.latency));
+                sources.put(source.url, latency);
+            }
+            statistics.put("sources", sources);
+        }
+        return statistics;
+    }
+
+    /**
+     * Stop the proxy and evict the cache down to its size limit
+     * @throws IOException If the cache could not be evicted
+     */
+    @Override
+    public void close() throws IOException {
+        server.stop(0);
+        workers.shutdownNow();
+        evicted = evict();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            String upstream = upstreamOf(exchange.getRequestURI());
+            String method = exchange.getRequestMethod();
+            if (upstream == null) {
+                send(exchange, 404, "text/plain", "Not a proxied source".getBytes(StandardCharsets.UTF_8));
+            } else if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                send(exchange, 405, "text/plain", ("The feed proxy does not support " + method).getBytes(StandardCharsets.UTF_8));
+            } else if (isPackage(upstream)) {
+                servePackage(exchange, upstream);
+            } else if (isMetadata(upstream)) {
+                serveMetadata(exchange, upstream);
+            } else {
+                HttpResponse<byte[]> response = fetch(upstream, Map.of(), HttpResponse.BodyHandlers::ofByteArray);
+                send(exchange, response.statusCode(), response.headers().firstValue("Content-Type").orElse(null), decode(response));
+            }
+        } catch (IOException e) {
+            upstreamErrors.incrementAndGet();
+            send(exchange, 502, "text/plain", ("The feed proxy could not reach the source: " + e.getMessage()).getBytes(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void serveMetadata(HttpExchange exchange, String upstream) throws IOException, InterruptedException {
+        CachedMetadata metadata = fetchMetadata(upstream);
+        if (metadata.status != 200) {
+            send(exchange, metadata.status, metadata.contentType, metadata.body.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        byte[] body = rewriteBody(metadata.body).getBytes(StandardCharsets.UTF_8);
+        if (metadata.fromCache) {
+            bytesFromCache.addAndGet(body.length);
+        }
+        send(exchange, 200, metadata.contentType, body);
+    }
+
+    /**
+     * Get metadata from the cache, revalidating it once per proxy, or from the source
+     * @param upstream The upstream URL
+     * @return The metadata, with the status and body of the source's response if it could not be cached
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private CachedMetadata fetchMetadata(String upstream) throws IOException, InterruptedException {
+        Path entry = cacheDir.resolve("metadata").resolve(hash(upstream) + ".json");
+        CachedMetadata cached = readMetadata(entry);
+        if (cached != null && revalidated.contains(upstream)) {
+            metadataHits.incrementAndGet();
+            return touch(entry, cached);
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (cached != null && cached.etag != null) {
+            headers.put("If-None-Match", cached.etag);
+        } else if (cached != null && cached.lastModified != null) {
+            headers.put("If-Modified-Since", cached.lastModified);
+        }
+
+        HttpResponse<byte[]> response;
+        try {
+            response = fetch(upstream, headers, HttpResponse.BodyHandlers::ofByteArray);
+        } catch (IOException e) {
+            if (cached == null) {
+                throw e;
+            }
+            // Better stale metadata than a failed restore
+            upstreamErrors.incrementAndGet();
+            metadataHits.incrementAndGet();
+            return touch(entry, cached);
+        }
+
+        if (response.statusCode() == 304 && cached != null) {
+            metadataRevalidated.incrementAndGet();
+            revalidated.add(upstream);
+            return touch(entry, cached);
+        }
+
+        CachedMetadata fetched = new CachedMetadata();
+        fetched.url = upstream;
+        fetched.etag = response.headers().firstValue("ETag").orElse(null);
+        fetched.lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        fetched.contentType = response.headers().firstValue("Content-Type").orElse("application/json");
+        fetched.body = new String(decode(response), StandardCharsets.UTF_8);
+        fetched.status = response.statusCode();
+        if (fetched.status == 200) {
+            writeAtomically(entry, TaskPlugin.GSON.toJson(fetched).getBytes(StandardCharsets.UTF_8));
+            metadataMisses.incrementAndGet();
+            revalidated.add(upstream);
+        }
+        return fetched;
+    }
+
+    private static CachedMetadata touch(Path entry, CachedMetadata cached) throws IOException {
+        Files.setLastModifiedTime(entry, FileTime.from(Instant.now()));
+        cached.status = 200;
+        cached.fromCache = true;
+        return cached;
+    }
+
+    private void servePackage(HttpExchange exchange, String upstream) throws IOException, InterruptedException {
+        String name = upstream.substring(upstream.lastIndexOf('/') + 1);
+        Path blob = cacheDir.resolve("packages").resolve(hash(upstream) + name.substring(name.lastIndexOf('.')));
+        if (Files.isRegularFile(blob)) {
+            packageHits.incrementAndGet();
+            Files.setLastModifiedTime(blob, FileTime.from(Instant.now()));
+            bytesFromCache.addAndGet(Files.size(blob));
+        } else {
+            // Every source raced gets its own download, and only the winner's is kept
+            List<Path> downloads = new CopyOnWriteArrayList<>();
+            try {
+                HttpResponse<Path> response = fetch(upstream, Map.of(), () -> {
+                    try {
+                        Path download = Files.createTempFile(blob.getParent(), ".download-", ".tmp");
+                        downloads.add(download);
+                        return HttpResponse.BodyHandlers.ofFile(download);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (response.statusCode() != 200) {
+                    send(exchange, response.statusCode(), response.headers().firstValue("Content-Type").orElse(null), Files.readAllBytes(response.body()));
+                    return;
+                }
+                // Packages never change, so whichever concurrent download lands last is as good as the first
+                Files.move(response.body(), blob, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                packageMisses.incrementAndGet();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                for (Path download : downloads) {
+                    deleteQuietly(download);
+                }
+            }
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(200, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(200, Files.size(blob));
+        try (OutputStream body = exchange.getResponseBody()) {
+            Files.copy(blob, body);
+        }
+    }
+
+    /**
+     * Send a request to its source, racing the equivalent request to the other hedged sources if it is slow or fails
+     * @param upstream The upstream URL
+     * @param headers Extra request headers
+     * @param bodyHandler Creates the body handler of each request
+     * @param <T> The response body type
+     * @return The first usable response, or the first source's response if none was usable
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private <T> HttpResponse<T> fetch(String upstream, Map<String, String> headers, Supplier<HttpResponse.BodyHandler<T>> bodyHandler) throws IOException, InterruptedException {
+        List<Target> targets = targetsOf(upstream);
+        if (targets.size() == 1) {
+            HttpRequest.Builder request = request(upstream);
+            headers.forEach(request::header);
+            long started = System.nanoTime();
+            HttpResponse<T> response = client.send(request.build(), bodyHandler.get());
+            targets.get(0).record(started, response);
+            return response;
+        }
+        return new Race<>(targets, headers, bodyHandler).run();
+    }
+
+    /**
+     * Get the URLs a request can be sent to: its own, then the same resource on every other hedged source
+     * @param upstream The upstream URL
+     * @return The targets, in the order they are tried
+     */
+    private List<Target> targetsOf(String upstream) {
+        HedgedSource owner = null;
+        String ownerBase = null;
+        String type = null;
+        for (HedgedSource source : hedgedSources) {
+            for (Map.Entry<String, String> resource : source.resources.entrySet()) {
+                String base = resource.getValue();
+                if (upstream.startsWith(base) && (ownerBase == null || base.length() > ownerBase.length())) {
+                    owner = source;
+                    ownerBase = base;
+                    type = resource.getKey();
+                }
+            }
+        }
+        if (owner == null) {
+            return List.of(new Target(upstream, null));
+        }
+
+        String path = upstream.substring(ownerBase.length());
+        List<Target> targets = new ArrayList<>();
+        targets.add(new Target(upstream, owner.latency));
+        for (HedgedSource source : hedgedSources) {
+            String base = source.resources.get(type);
+            if (source != owner && base != null) {
+                targets.add(new Target(base + path, source.latency));
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Get how long to wait for a source before racing the others: the configured delay, or the source's 95th percentile
+     * latency once there are enough samples and it is shorter
+     * @param latency The latencies of the source
+     * @return The hedge delay in milliseconds
+     */
+    long hedgeDelayOf(LatencyHistogram latency) {
+        if (latency == null || latency.getCount() < MIN_ADAPTIVE_SAMPLES) {
+            return hedgeDelayMillis;
+        }
+        return Math.min(hedgeDelayMillis, Math.max(MIN_HEDGE_DELAY_MILLIS, latency.getPercentile(95)));
+    }
+
+    private static boolean isUsable(HttpResponse<?> response) {
+        return response.statusCode() == 200 || response.statusCode() == 304;
+    }
+
+    /**
+     * One request raced across sources. The first source gets a head start of its hedge delay; if it is still pending
+     * after that, or fails sooner, the request goes to every other source too. The first usable response wins and the
+     * other requests are cancelled.
+     */
+    private class Race<T> {
+        private final List<Target> targets;
+        private final Map<String, String> headers;
+        private final Supplier<HttpResponse.BodyHandler<T>> bodyHandler;
+        private final CompletableFuture<HttpResponse<T>> winner = new CompletableFuture<>();
+        private final List<CompletableFuture<HttpResponse<T>>> attempts = new CopyOnWriteArrayList<>();
+        private final Object[] failures;
+        private int failed;
+        private boolean hedged;
+
+        Race(List<Target> targets, Map<String, String> headers, Supplier<HttpResponse.BodyHandler<T>> bodyHandler) {
+            this.targets = targets;
+            this.headers = headers;
+            this.bodyHandler = bodyHandler;
+            this.failures = new Object[targets.size()];
+        }
+
+        HttpResponse<T> run() throws IOException, InterruptedException {
+            launch(0);
+            CompletableFuture.delayedExecutor(hedgeDelayOf(targets.get(0).latency), TimeUnit.MILLISECONDS, workers).execute(this::hedge);
+            try {
+                return winner.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } else if (cause instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) cause).getCause();
+                }
+                throw new IOException(cause);
+            } finally {
+                for (CompletableFuture<HttpResponse<T>> attempt : attempts) {
+                    attempt.cancel(true);
+                }
+            }
+        }
+
+        private synchronized void hedge() {
+            if (winner.isDone() || hedged) {
+                return;
+            }
+            hedged = true;
+            hedgedRequests.incrementAndGet();
+            for (int i = 1; i < targets.size(); i++) {
+                launch(i);
+            }
+        }
+
+        private void launch(int index) {
+            Target target = targets.get(index);
+            HttpRequest.Builder request = request(target.url);
+            headers.forEach(request::header);
+            long started = System.nanoTime();
+            CompletableFuture<HttpResponse<T>> attempt;
+            try {
+                attempt = client.sendAsync(request.build(), bodyHandler.get());
+            } catch (RuntimeException e) {
+                attempt = CompletableFuture.failedFuture(e);
+            }
+            attempts.add(attempt);
+            attempt.whenComplete((response, error) -> settle(index, started, response, error));
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized void settle(int index, long started, HttpResponse<T> response, Throwable error) {
+            if (response != null && isUsable(response)) {
+                targets.get(index).record(started, response);
+                if (winner.complete(response) && index > 0) {
+                    hedgeWins.incrementAndGet();
+                }
+                return;
+            }
+
+            failures[index] = response != null ? response : error;
+            if (index == 0) {
+                // Don't wait out the hedge delay for a source that has already failed
+                hedge();
+            }
+            if (++failed == targets.size()) {
+                // No source had it, so answer as the first source did (e.g. a 404 for an unknown package)
+                for (Object failure : failures) {
+                    if (failure instanceof HttpResponse) {
+                        winner.complete((HttpResponse<T>) failure);
+                        return;
+                    }
+                }
+                winner.completeExceptionally((Throwable) failures[0]);
+            }
+        }
+    }
+
+    /**
+     * Rewrite the upstream URLs in a metadata body to point at the proxy, registering the origins of a service index
+     * @param body The upstream body
+     * @return The body as the proxy serves it
+     */
+    private String rewriteBody(String body) {
+        for (String id : resourcesOf(body).values()) {
+            register(origin(URI.create(id)));
+        }
+
+        String rewritten = body;
+        List<String> known;
+        synchronized (origins) {
+            known = new ArrayList<>(origins);
+        }
+        for (int i = 0; i < known.size(); i++) {
+            rewritten = rewritten.replace("\"" + known.get(i) + "/", "\"" + address + ORIGIN_PREFIX + i + "/");
+        }
+        return rewritten;
+    }
+
+    /**
+     * Get the resources of a service index
+     * @param body The body of a metadata response
+     * @return The HTTP URL of each resource type, ending with a slash; empty if the body is not a service index
+     */
+    private static Map<String, String> resourcesOf(String body) {
+        Map<String, String> resources = new LinkedHashMap<>();
+        try {
+            JsonElement json = JsonParser.parseString(body);
+            if (json.isJsonObject() && json.getAsJsonObject().get("resources") instanceof JsonArray) {
+                for (JsonElement resource : json.getAsJsonObject().getAsJsonArray("resources")) {
+                    JsonElement id = resource.isJsonObject() ? ((JsonObject) resource).get("@id") : null;
+                    JsonElement type = resource.isJsonObject() ? ((JsonObject) resource).get("@type") : null;
+                    URI uri = id != null && id.isJsonPrimitive() ? parse(id.getAsString()) : null;
+                    if (uri != null && type != null && type.isJsonPrimitive()) {
+                        String url = id.getAsString();
+                        resources.putIfAbsent(type.getAsString(), url.endsWith("/") ? url : url + "/");
+                    }
+                }
+            }
+        } catch (JsonParseException | IllegalStateException e) {
+            // Not JSON, so not a service index
+        }
+        return resources;
+    }
+
+    private String rewrite(String url, String origin) {
+        return address + ORIGIN_PREFIX + register(origin) + url.substring(origin.length());
+    }
+
+    private int register(String origin) {
+        synchronized (origins) {
+            int index = origins.indexOf(origin);
+            if (index < 0) {
+                origins.add(origin);
+                index = origins.size() - 1;
+            }
+            return index;
+        }
+    }
+
+    private String upstreamOf(URI requestUri) {
+        String path = requestUri.getRawPath();
+        int slash = path.indexOf('/', ORIGIN_PREFIX.length());
+        if (!path.startsWith(ORIGIN_PREFIX) || slash < 0) {
+            return null;
+        }
+
+        String origin;
+        try {
+            int index = Integer.parseInt(path.substring(ORIGIN_PREFIX.length(), slash));
+            synchronized (origins) {
+                origin = index < origins.size() ? origins.get(index) : null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        String query = requestUri.getRawQuery();
+        return origin == null ? null : origin + path.substring(slash) + (query == null ? "" : "?" + query);
+    }
+
+    private HttpRequest.Builder request(String upstream) {
+        return HttpRequest.newBuilder(URI.create(upstream)).timeout(UPSTREAM_TIMEOUT).GET();
+    }
+
+    private static boolean isPackage(String upstream) {
+        String path = URI.create(upstream).getPath().toLowerCase(Locale.ROOT);
+        return path.endsWith(".nupkg") || path.endsWith(".snupkg") || path.endsWith(".nuspec");
+    }
+
+    private static boolean isMetadata(String upstream) {
+        return URI.create(upstream).getPath().toLowerCase(Locale.ROOT).endsWith(".json");
+    }
+
+    private static URI parse(String url) {
+        try {
+            URI uri = URI.create(url);
+            return ("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme())) && uri.getRawAuthority() != null ? uri : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String origin(URI uri) {
+        return uri.getScheme() + "://" + uri.getRawAuthority();
+    }
+
+    /**
+     * Get a response body, decompressing it if the source compressed it (e.g. nuget.org's gzipped registrations)
+     * @param response The upstream response
+     * @return The body
+     * @throws IOException
+     */
+    private static byte[] decode(HttpResponse<byte[]> response) throws IOException {
+        if (!response.headers().firstValue("Content-Encoding").orElse("").equalsIgnoreCase("gzip")) {
+            return response.body();
+        }
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            return gzip.readAllBytes();
+        }
+    }
+
+    private static CachedMetadata readMetadata(Path entry) {
+        try {
+            return Files.isRegularFile(entry) ? TaskPlugin.GSON.fromJson(Files.readString(entry), CachedMetadata.class) : null;
+        } catch (IOException | JsonParseException e) {
+            // A damaged entry is refetched
+            return null;
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        if (contentType != null) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+        }
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // A cancelled download may still be writing it on Windows; it is cleaned up when the cache is evicted
+        }
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(file.getParent(), ".write-", ".tmp");
+        try {
+            Files.write(temp, content);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static String hash(String url) {
+        return RestoreFingerprint.toHex(RestoreFingerprint.sha256().digest(url.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Delete the least recently used entries until the cache is within its size limit
+     * @return The number of entries deleted
+     * @throws IOException
+     */
+    private int evict() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> metadata = Files.list(cacheDir.resolve("metadata")); Stream<Path> packages = Files.list(cacheDir.resolve("packages"))) {
+            entries = Stream.concat(metadata, packages).collect(Collectors.toList());
+        }
+        // Leftovers of downloads that lost a race and could not be deleted at the time
+        Instant stale = Instant.now().minus(Duration.ofHours(1));
+        for (Path entry : entries) {
+            if (entry.getFileName().toString().startsWith(".") && Files.getLastModifiedTime(entry).toInstant().isBefore(stale)) {
+                deleteQuietly(entry);
+            }
+        }
+        entries.removeIf(entry -> entry.getFileName().toString().startsWith("."));
+        Map<Path, Long> sizes = new LinkedHashMap<>();
+        Map<Path, FileTime> lastUsed = new LinkedHashMap<>();
+        for (Path entry : entries) {
+            sizes.put(entry, Files.size(entry));
+            lastUsed.put(entry, Files.getLastModifiedTime(entry));
+        }
+        entries.sort(Comparator.comparing(lastUsed::get));
+
+        long total = sizes.values().stream().mapToLong(Long::longValue).sum();
+        int count = 0;
+        for (Path entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (Files.deleteIfExists(entry)) {
+                count++;
+            }
+            total -= sizes.get(entry);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Describes a single NuGet command line argument or option: which commands it applies to, where its value comes from
+ * in the {@link TaskConfig}, and whether that value may be expanded from environment variables.
+ */
+public class NuGetOption {
+    /**
+     * How an option is rendered on the command line
+     */
+    public enum Kind {
+        /**
+         * A positional argument, always added for the commands it applies to
+         */
+        ARGUMENT,
+        /**
+         * A flag followed by a value, added when the value is set
+         */
+        VALUE,
+        /**
+         * A flag on its own, added when it is switched on
+         */
+        SWITCH,
+        /**
+         * A flag on its own, always added
+         */
+        CONSTANT,
+        /**
+         * A flag followed by each of the `;` separated values, e.g. `--source a --source b`
+         */
+        LIST,
+        /**
+         * A flag and its value in one argument, e.g. `-p:PackageVersion=1.0.0`
+         */
+        ATTACHED
+    }
+
+    private final Kind kind;
+    private final String flag;
+    private final Set<String> commands;
+    private final Function<TaskConfig, String> value;
+    private final Predicate<TaskConfig> fromEnv;
+    private final Predicate<TaskConfig> enabled;
+
+    private NuGetOption(Kind kind, String flag, Set<String> commands, Function<TaskConfig, String> value, Predicate<TaskConfig> fromEnv, Predicate<TaskConfig> enabled) {
+        this.kind = kind;
+        this.flag = flag;
+        this.commands = commands;
+        this.value = value;
+        this.fromEnv = fromEnv;
+        this.enabled = enabled;
+    }
+
+    /**
+     * A positional argument
+     * @param commands The commands it applies to
+     * @param value Gets the argument value
+     * @param fromEnv Whether the value should be expanded from environment variables
+     * @return The option descriptor
+     */
+    static NuGetOption argument(Set<String> commands, Function<TaskConfig, String> value, Predicate<TaskConfig> fromEnv) {
+        return new NuGetOption(Kind.ARGUMENT, null, commands, value, fromEnv, null);
+    }
+
+    /**
+     * A flag with a value that may be expanded from environment variables
+     * @param flag The flag, e.g. `-Source`
+     * @param commands The commands it applies to, or null for every command
+     * @param value Gets the option value
+     * @param fromEnv Whether the value should be expanded from environment variables
+     * @return The option descriptor
+     */
+    static NuGetOption value(String flag, Set<String> commands, Function<TaskConfig, String> value, Predicate<TaskConfig> fromEnv) {
+        return new NuGetOption(Kind.VALUE, flag, commands, value, fromEnv, null);
+    }
+
+    /**
+     * A flag with a value that is always used literally
+     * @param flag The flag, e.g. `-Verbosity`
+     * @param commands The commands it applies to, or null for every command
+     * @param value Gets the option value
+     * @return The option descriptor
+     */
+    static NuGetOption value(String flag, Set<String> commands, Function<TaskConfig, String> value) {
+        return new NuGetOption(Kind.VALUE, flag, commands, value, null, null);
+    }
+
+    /**
+     * A flag that is added when it is switched on
+     * @param flag The flag, e.g. `-Recursive`
+     * @param commands The commands it applies to, or null for every command
+     * @param enabled Whether the flag is switched on
+     * @return The option descriptor
+     */
+    static NuGetOption toggle(String flag, Set<String> commands, Predicate<TaskConfig> enabled) {
+        return new NuGetOption(Kind.SWITCH, flag, commands, null, null, enabled);
+    }
+
+    /**
+     * A flag that is always added
+     * @param flag The flag, e.g. `-NonInteractive`
+     * @return The option descriptor
+     */
+    static NuGetOption constant(String flag) {
+        return new NuGetOption(Kind.CONSTANT, flag, null, null, null, null);
+    }
+
+    /**
+     * A flag repeated for each of the `;` separated values of an option
+     * @param flag The flag, e.g. `--source`
+     * @param commands The commands it applies to, or null for every command
+     * @param value Gets the option value
+     * @param fromEnv Whether the value should be expanded from environment variables
+     * @return The option descriptor
+     */
+    static NuGetOption list(String flag, Set<String> commands, Function<TaskConfig, String> value, Predicate<TaskConfig> fromEnv) {
+        return new NuGetOption(Kind.LIST, flag, commands, value, fromEnv, null);
+    }
+
+    /**
+     * A flag with its value attached, that may be expanded from environment variables
+     * @param flag The flag up to the value, e.g. `-p:PackageVersion=`
+     * @param commands The commands it applies to, or null for every command
+     * @param value Gets the option value
+     * @param fromEnv Whether the value should be expanded from environment variables, or null to use it literally
+     * @return The option descriptor
+     */
+    static NuGetOption attached(String flag, Set<String> commands, Function<TaskConfig, String> value, Predicate<TaskConfig> fromEnv) {
+        return new NuGetOption(Kind.ATTACHED, flag, commands, value, fromEnv, null);
+    }
+
+    /**
+     * Get how this option is rendered
+     * @return The option kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Get the flag
+     * @return The flag, e.g. `-Source`, or null for positional arguments
+     */
+    public String getFlag() {
+        return flag;
+    }
+
+    /**
+     * Does this option apply to a command?
+     * @param command The NuGet command
+     * @return true if the option should be considered for the command, false otherwise
+     */
+    public boolean appliesTo(String command) {
+        return commands == null || (command != null && commands.contains(command));
+    }
+
+    /**
+     * Can this option's value be expanded from environment variables?
+     * @return true if the value is expanded when its `*FromEnv` property is set, false otherwise
+     */
+    public boolean isEnvExpandable() {
+        return fromEnv != null;
+    }
+
+    /**
+     * Is this option set in a configuration, i.e. would it add a flag to the command line?
+     * @param taskConfig The task configuration
+     * @return true for constant flags, switched on flags and flags with a value, false otherwise (and for arguments)
+     */
+    boolean isSet(TaskConfig taskConfig) {
+        switch (kind) {
+            case ARGUMENT:
+                return false;
+            case CONSTANT:
+                return true;
+            case SWITCH:
+                return enabled.test(taskConfig);
+            default:
+                String resolved = value.apply(taskConfig);
+                return resolved != null && !resolved.isEmpty();
+        }
+    }
+
+    /**
+     * Expand a raw value from environment variables, if this option is configured to
+     * @param taskConfig The task configuration
+     * @param raw The raw value
+     * @param expander Expands environment variables in a value
+     * @return The value to put on the command line
+     */
+    private String expand(TaskConfig taskConfig, String raw, UnaryOperator<String> expander) {
+        return fromEnv != null && fromEnv.test(taskConfig) ? expander.apply(raw) : raw;
+    }
+
+    /**
+     * Add this option to a command line
+     * @param cmd The command line to add to
+     * @param taskConfig The task configuration
+     * @param expander Expands environment variables in a value
+     */
+    void appendTo(List<String> cmd, TaskConfig taskConfig, UnaryOperator<String> expander) {
+        switch (kind) {
+            case ARGUMENT:
+                cmd.add(expand(taskConfig, value.apply(taskConfig), expander));
+                break;
+            case CONSTANT:
+                cmd.add(flag);
+                break;
+            case SWITCH:
+                if (enabled.test(taskConfig)) {
+                    cmd.add(flag);
+                }
+                break;
+            case LIST:
+                String listed = value.apply(taskConfig);
+                if (listed != null && !listed.isEmpty()) {
+                    for (String item : expand(taskConfig, listed, expander).split(";")) {
+                        if (!item.trim().isEmpty()) {
+                            cmd.add(flag);
+                            cmd.add(item.trim());
+                        }
+                    }
+                }
+                break;
+            case ATTACHED:
+                String attached = value.apply(taskConfig);
+                if (attached != null && !attached.isEmpty()) {
+                    cmd.add(flag + expand(taskConfig, attached, expander));
+                }
+                break;
+            default:
+                String resolved = value.apply(taskConfig);
+                if (resolved != null && !resolved.isEmpty()) {
+                    cmd.add(flag);
+                    cmd.add(expand(taskConfig, resolved, expander));
+                }
+                break;
+        }
+    }
+}
@@ -16,11 +16,21 @@
 
 package cd.go.contrib.task.nuget;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
 
@@ -28,31 +38,62 @@ import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
  * Main NuGet Task Executor
  */
 public class NuGetTaskExecutor {
+    /**
+     * The longest to wait for the process output to be read after the process exits
+     */
+    private static final long DRAIN_TIMEOUT_MILLIS = 2000;
+
+    /**
+     * How many packages a push glob uploads at once, unless configured otherwise
+     */
+    static final int DEFAULT_PUSH_CONCURRENCY = 4;
+
     private final Map<String, String> envMap = System.getenv();
+    private final String executable;
+
+    /**
+     * Construct an executor that runs the executable of each task's backend (`nuget` or `dotnet`) from the path
+     */
+    public NuGetTaskExecutor() {
+        this(null);
+    }
+
+    /**
+     * Construct an executor that runs a specific NuGet executable, whatever the backend
+     * @param executable The executable to launch (e.g. a stub script in tests), or null for the backend's own
+     */
+    NuGetTaskExecutor(String executable) {
+        this.executable = executable;
+    }
+
+    /**
+     * Expand environment variables in a command line value, recording the expansion as an {@link EnvExpansionEvent}
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param command The NuGet command the value is for
+     * @param text The value to expand
+     * @return The expanded value
+     */
+    private String expandEnvVars(Context taskContext, String command, String text) {
+        EnvExpansionEvent expansionEvent = new EnvExpansionEvent();
+        expansionEvent.begin();
+
+        String expanded = expandEnvVars(taskContext, text);
+
+        expansionEvent.command = command;
+        expansionEvent.inputLength = text == null ? 0 : text.length();
+        expansionEvent.outputLength = expanded == null ? 0 : expanded.length();
+        expansionEvent.commit();
+        return expanded;
+    }
 
     private String expandEnvVars(Context taskContext, String text) {
         Map<String, String> contextEnvMap = taskContext.getEnvironmentVariables();
 
-        String expanded = text;
-        for (Entry<String, String> entry : contextEnvMap.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-            if (value != null) {
-                expanded = expanded.replaceAll("\\$\\{" + key + "\\}", value);
-            }
-        }
-
-        for (Entry<String, String> entry : envMap.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-            if (value != null) {
-                expanded = expanded.replaceAll("\\$\\{" + key + "\\}", value);
-            }
-        }
+        String expanded = EnvVarTemplate.compile(text).expand(contextEnvMap, envMap);
 
         // If no replacements have been made, attempt to see if the entire text string is an env var
         if (text.equals(expanded)) {
-            String contextEnvVar = taskContext.getEnvironmentVariable(text);
+            String contextEnvVar = contextEnvMap == null ? null : contextEnvMap.get(text);
 
             if (contextEnvVar != null && !contextEnvVar.isEmpty())
                 expanded = contextEnvVar;
@@ -72,460 +113,1188 @@ public class NuGetTaskExecutor {
      * @return A Result object indicating the success or failure of the NuGet execution, along with any relevant messages
      */
     public Result execute(TaskConfig taskConfig, Context taskContext, JobConsoleLogger console) {
+        return execute(taskConfig, taskContext, console, new PhaseTimings());
+    }
+
+    /**
+     * Execution handler, adding to timings that were started by the caller (e.g. while decoding the request)
+     * @param taskConfig The configuration for the NuGet task, including the executable path, mode, file, command, and execution policy
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @param timings Receives the time spent in each phase of the execution
+     * @return A Result object indicating the success or failure of the NuGet execution, along with any relevant messages and timings
+     */
+    public Result execute(TaskConfig taskConfig, Context taskContext, JobConsoleLogger console, PhaseTimings timings) {
+        SecretMasker masker = SecretMasker.none();
+        LogFileConsoleLogger log = null;
+        Result result = null;
+        try {
+            PackageOutputParser packages = null;
+            try {
+                masker = secretMasker(taskContext, taskConfig);
+                log = openLog(taskContext, taskConfig, console);
+                if (log != null) {
+                    console = log;
+                }
+                String workingDir = taskContext.getWorkingDir();
+                packages = new PackageOutputParser(workingDir == null ? Paths.get("") : Paths.get(workingDir));
+                console = new ParsingConsoleLogger(console, packages);
+                if (!masker.isEmpty()) {
+                    console = new MaskingConsoleLogger(console, masker);
+                }
+
+                if (isSteps(taskConfig)) {
+                    result = runSteps(taskContext, taskConfig, console);
+                } else {
+                    result = dispatch(taskContext, taskConfig, console, timings);
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                String errorMessage = masker.mask("NuGet execution failed: " + e.getMessage());
+                console.printLine(errorMessage);
+                result = new Result(false, errorMessage);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // Re-interrupt the thread
+                String errorMessage = masker.mask("NuGet execution was interrupted: " + e.getMessage());
+                console.printLine(errorMessage);
+                result = new Result(false, errorMessage);
+            }
+
+            console.printLine(timings.summary());
+            result = result.withDetail("timings", timings.toMap());
+            if (packages != null) {
+                reportPackages(taskContext, taskConfig, packages, console, result);
+            }
+        } finally {
+            // Finish the log even if the execution threw, so its compressor thread stops and the partial file is moved into place
+            if (log != null) {
+                try {
+                    Map<String, Object> stats = log.finish(result != null && result.isSuccess());
+                    if (result != null) {
+                        result = result.withDetail("log", stats);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Add the packages found in the output to the result, and write them to the task's packages file if it has one
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @param packages The packages found in the output
+     * @param console The job console, which is told where the packages were written
+     * @param result The result of the execution
+     */
+    private void reportPackages(Context taskContext, TaskConfig taskConfig, PackageOutputParser packages, JobConsoleLogger console, Result result) {
+        List<Map<String, Object>> found = packages.getPackages();
+        if (!found.isEmpty()) {
+            result.withDetail("packages", found);
+        }
+
+        String packagesFile = taskConfig.getTaskPackagesFile();
+        if (packagesFile == null || packagesFile.trim().isEmpty()) {
+            return;
+        }
+        Path file = inWorkingDir(taskContext, EnvVarTemplate.compile(packagesFile.trim()).expand(taskContext.getEnvironmentVariables(), envMap));
         try {
-            return runCommand(taskContext, taskConfig, console);
+            packages.save(file);
+            console.printLine(String.format("NuGet packages: %d written to %s", found.size(), file));
         } catch (IOException e) {
-            String errorMessage = "NuGet execution failed: " + e.getMessage();
-            console.printLine(errorMessage);
-            return new Result(false, errorMessage);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt(); // Re-interrupt the thread
-            String errorMessage = "NuGet execution was interrupted: " + e.getMessage();
-            console.printLine(errorMessage);
-            return new Result(false, errorMessage);
+            console.printLine("NuGet packages could not be written to " + file + ": " + e.getMessage());
         }
     }
 
     /**
-     * Run the NuGet process
+     * Open the log file of an execution, if the task has one
      * @param taskContext The runtime context for the task, including environment variables and working directory
-     * @param taskConfig The configuration for the NuGet task, including the executable path, mode, file, command, and execution policy
+     * @param taskConfig The configuration for the NuGet task
+     * @param console The job console, which is told if the log file can't be opened
+     * @return The console writing to the log file, or null to print all output to the job console
+     */
+    private LogFileConsoleLogger openLog(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console) {
+        String logFile = taskConfig.getTaskLogFile();
+        if (logFile == null || logFile.trim().isEmpty()) {
+            return null;
+        }
+
+        try {
+            return new LogFileConsoleLogger(console,
+                inWorkingDir(taskContext, EnvVarTemplate.compile(logFile.trim()).expand(taskContext.getEnvironmentVariables(), envMap)),
+                LogFileConsoleLogger.parseTailLines(taskConfig.getTaskLogTailLines()),
+                LogFileConsoleLogger.parseBufferSize(taskConfig.getTaskLogBufferSize()),
+                LogFileConsoleLogger.HEARTBEAT_MILLIS);
+        } catch (IOException | IllegalArgumentException e) {
+            console.printLine("NuGet output can't be written to a log file, printing it all: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Compile the secrets of an execution, to mask them in the console: the API keys, password and key argument of the
+     * task and of each of its steps (as configured, and as expanded from the environment), and the environment
+     * variables whose names look like they hold secrets
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @return The masker, which masks nothing if there are no secrets
+     */
+    SecretMasker secretMasker(Context taskContext, TaskConfig taskConfig) {
+        List<TaskConfig> configs = new ArrayList<>();
+        configs.add(taskConfig);
+        if (isSteps(taskConfig)) {
+            try {
+                StepGraph.parse(taskConfig.getTaskSteps()).getSteps().forEach(step -> configs.add(step.configure(taskConfig)));
+            } catch (IllegalArgumentException e) {
+                // Reported when the steps run
+            }
+        }
+
+        List<String> secrets = new ArrayList<>();
+        for (TaskConfig config : configs) {
+            addSecret(secrets, taskContext, config.getArgKey(), config.isArgKeyFromEnv());
+            addSecret(secrets, taskContext, config.getOptApiKey(), config.isOptApiKeyFromEnv());
+            addSecret(secrets, taskContext, config.getOptSymbolApiKey(), config.isOptSymbolApiKeyFromEnv());
+            addSecret(secrets, taskContext, config.getOptPassword(), config.isOptPasswordFromEnv());
+        }
+        Map<String, String> environment = taskContext.getEnvironmentVariables();
+        if (environment != null) {
+            environment.forEach((name, value) -> {
+                if (SecretMasker.isSecretName(name)) {
+                    secrets.add(value);
+                }
+            });
+        }
+        return SecretMasker.of(secrets);
+    }
+
+    private void addSecret(List<String> secrets, Context taskContext, String value, boolean fromEnv) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        secrets.add(value);
+        if (fromEnv) {
+            secrets.add(expandEnvVars(taskContext, value));
+        }
+    }
+
+    /**
+     * Run the task's command the way its configuration asks for
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task, or for one of its steps
      * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @param timings Receives the time spent in each phase of the execution
      * @return A Result object indicating the success or failure of the NuGet execution, along with any relevant messages
      * @throws IOException
      * @throws InterruptedException
      */
-    private Result runCommand(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console) throws IOException, InterruptedException {
-        ProcessBuilder nuget = createNuGetProcessWithOptions(taskContext, taskConfig);
-        console.printLine("Launching command: " + nuget.command());
-        Map<String, String> environment = taskContext.getEnvironmentVariables();
-        nuget.environment().putAll(environment);
-        console.printEnvironment(nuget.environment());
+    private Result dispatch(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console, PhaseTimings timings) throws IOException, InterruptedException {
+        if (isPackAndPush(taskConfig)) {
+            return runPackAndPush(taskContext, taskConfig, console);
+        } else if (isBatch(taskConfig)) {
+            return runBatch(taskContext, taskConfig, console);
+        } else if (isShardedRestore(taskConfig)) {
+            return runShardedRestore(taskContext, taskConfig, console);
+        } else if (isIncrementalRestore(taskConfig)) {
+            return runIncrementalRestore(taskContext, taskConfig, console, timings);
+        }
+        return runPackageCommand(taskContext, taskConfig, console, timings);
+    }
 
-        Process nugetProcess = nuget.start();
+    /**
+     * Should the execution run a list of steps instead of a single command?
+     * @param taskConfig The configuration for the NuGet task
+     * @return true if the steps property is set, false otherwise
+     */
+    private boolean isSteps(TaskConfig taskConfig) {
+        String steps = taskConfig.getTaskSteps();
+        return steps != null && !steps.trim().isEmpty();
+    }
 
-        console.readErrorOf(nugetProcess.getErrorStream());
-        console.readOutputOf(nugetProcess.getInputStream());
+    /**
+     * Run each step of the task once the steps it depends on have succeeded, with steps that don't depend on each other
+     * running in parallel. The request is decoded and the environment printed once for all of them.
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task, which each step changes some properties of
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @return An aggregated Result, successful only if every step succeeded, with the status of each step
+     * @throws InterruptedException
+     */
+    private Result runSteps(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console) throws InterruptedException {
+        StepGraph graph = StepGraph.parse(taskConfig.getTaskSteps());
+        int concurrency = BatchRunner.parseConcurrency(taskConfig.getTaskConcurrency(), Runtime.getRuntime().availableProcessors());
+
+        console.printLine(String.format("Running %d NuGet steps, up to %d at a time", graph.getSteps().size(), Math.min(concurrency, graph.getSteps().size())));
+        printEnvironment(taskContext, console);
+
+        TaskConfig baseConfig = taskConfig.withValue(TaskPlugin.TASK_STEPS, null);
+        List<Map<String, Object>> steps = graph.run(concurrency, step -> runStep(taskContext, step.configure(baseConfig), console, step.getId()));
+
+        List<String> failed = steps.stream()
+            .filter(step -> !(Boolean) step.get("success") && !step.containsKey("skipped"))
+            .map(step -> (String) step.get("id"))
+            .collect(Collectors.toList());
+        long skipped = steps.stream().filter(step -> step.containsKey("skipped")).count();
+        String message = failed.isEmpty()
+            ? String.format("NuGet steps complete: ran %d steps.", steps.size())
+            : String.format("NuGet steps failed: %s failed and %d of %d steps were skipped.", String.join(", ", failed), skipped, steps.size());
+        console.printLine(message);
+
+        return new Result(failed.isEmpty(), message).withDetail("steps", steps);
+    }
 
-        int exitCode = nugetProcess.waitFor();
-        nugetProcess.destroy();
+    /**
+     * Run one step of the task
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param stepConfig The configuration for the step
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @param id The step ID, which prefixes the step's output
+     * @return The Result of the step, with its timings
+     * @throws InterruptedException
+     */
+    private Result runStep(Context taskContext, TaskConfig stepConfig, JobConsoleLogger console, String id) throws InterruptedException {
+        JobConsoleLogger stepConsole = new PrefixedConsoleLogger(console, "[" + id + "] ");
+        PhaseTimings stepTimings = new PhaseTimings();
 
-        if (exitCode != 0) {
-            return new Result(false, "NuGet execution failed. Please check the output.");
+        Result result;
+        try {
+            result = dispatch(taskContext, stepConfig, stepConsole, stepTimings);
+        } catch (IOException | IllegalArgumentException e) {
+            String errorMessage = "NuGet execution failed: " + e.getMessage();
+            stepConsole.printLine(errorMessage);
+            result = new Result(false, errorMessage);
         }
+        return result.withDetail("timings", stepTimings.toMap());
+    }
 
-        return new Result(true, "NuGet execution complete.");
+    /**
+     * Should the execution run as a batch, i.e. a push or pack of every file matching a glob or list?
+     * @param taskConfig The configuration for the NuGet task
+     * @return true if the file argument of a push or pack is a glob or a list, false otherwise
+     */
+    private boolean isBatch(TaskConfig taskConfig) {
+        String argument = taskConfig.getArgPackageIdOrFilePath();
+        return TaskPlugin.CMDSET_BATCH.contains(taskConfig.getCommand()) && (PathGlob.isGlob(argument) || PathGlob.isList(argument));
     }
 
     /**
-     * Helper function to create the NuGet process
-     * @param taskConfig The configuration for the NuGet task, including the executable path, mode, file, command, and execution policy
-     * @param taskContext The runtime context for the task, including environment variables and working directory
-     * @return A ProcessBuilder configured with the NuGet command and options
+     * Should the execution pack and then push every package as soon as it is packed?
+     * @param taskConfig The configuration for the NuGet task
+     * @return true for a pack with pack and push enabled, false otherwise
      */
-    ProcessBuilder createNuGetProcessWithOptions(Context taskContext, TaskConfig taskConfig) {
-        List<String> cmd = new ArrayList<>();
-        cmd.add("nuget");
+    private boolean isPackAndPush(TaskConfig taskConfig) {
+        return TaskPlugin.CMD_PACK.equals(taskConfig.getCommand()) && taskConfig.hasTaskPackAndPush();
+    }
 
+    /**
+     * Pack every file matching the file argument and push each package as soon as it is packed. Packs and pushes run on
+     * their own worker pools, joined by a queue of packages that makes the packs wait when the pushes fall behind.
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task, whose file argument is a file, glob or list
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @return An aggregated Result, successful only if every pack and push succeeded, with the status of each
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    @SuppressWarnings("unchecked")
+    private Result runPackAndPush(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console) throws IOException, InterruptedException {
         String command = taskConfig.getCommand();
-        cmd.add(command);
+        String pattern = resolveValue(taskContext, command, taskConfig.getArgPackageIdOrFilePath(), taskConfig.isArgPackageIdOrFilePathFromEnv());
+        int packConcurrency = BatchRunner.parseConcurrency(taskConfig.getTaskConcurrency(), Runtime.getRuntime().availableProcessors());
+        int pushConcurrency = BatchRunner.parseConcurrency(taskConfig.getTaskPushConcurrency(), DEFAULT_PUSH_CONCURRENCY);
 
-        // Handle arguments based on the command
-        if (TaskPlugin.CMDSET_INSTALL_PACK_PUSH_RESTORE_ADD_DELETE_UPDATE.contains(command)) {
-            String packageIdOrFilePath = taskConfig.getArgPackageIdOrFilePath();
-            cmd.add(taskConfig.isArgPackageIdOrFilePathFromEnv() ? expandEnvVars(taskContext, packageIdOrFilePath) : packageIdOrFilePath);
+        // Check the timeouts up front rather than in every item
+        checkTimeouts(taskConfig);
 
-            // The `delete` command has an extra argument
-            if (TaskPlugin.CMD_DELETE.equals(command)) {
-                cmd.add(taskConfig.isArgPackageVersionFromEnv() ? expandEnvVars(taskContext, taskConfig.getArgPackageVersion()) : taskConfig.getArgPackageVersion());
-            }
-        } else if (TaskPlugin.CMD_SETAPIKEY.equals(command)) {
-            cmd.add(taskConfig.isArgKeyFromEnv() ? expandEnvVars(taskContext, taskConfig.getArgKey()) : taskConfig.getArgKey());
-        }  else if (TaskPlugin.CMD_INIT.equals(command)) {
-            cmd.add(taskConfig.isArgSourceFromEnv() ? expandEnvVars(taskContext, taskConfig.getArgSource()) : taskConfig.getArgSource());
-            cmd.add(taskConfig.isArgDestinationFromEnv() ? expandEnvVars(taskContext, taskConfig.getArgDestination()) : taskConfig.getArgDestination());
-        } else if (TaskPlugin.CMD_SOURCES.equals(command)) {
-            cmd.add(taskConfig.isArgOperationFromEnv() ? expandEnvVars(taskContext, taskConfig.getArgOperation()) : taskConfig.getArgOperation());
-        }
-
-        // Handle global options
-        cmd.add("-NonInteractive"); // Always add this option to avoid interactive prompts
-
-        String configFile = taskConfig.getOptConfigFile();
-        if (configFile != null && !configFile.isEmpty()) {
-            cmd.add("-ConfigFile");
-            cmd.add(taskConfig.isOptConfigFileFromEnv() ? expandEnvVars(taskContext, configFile) : configFile);
+        List<String> inputs = pattern == null ? List.of() : PathGlob.resolveList(pattern, taskContext.getWorkingDir());
+        String description = pattern == null ? null : pattern.trim().replaceAll("\\s*\\r?\\n\\s*", ", ");
+        if (inputs.isEmpty()) {
+            String errorMessage = "NuGet execution failed: no files match " + description;
+            console.printLine(errorMessage);
+            return new Result(false, errorMessage);
         }
 
-        if (taskConfig.hasOptForceEnglishOutput()) {
-            cmd.add("-ForceEnglishOutput");
+        console.printLine(String.format("Packing %d files matching %s, %d at a time, and pushing each package as soon as it is packed, %d at a time",
+            inputs.size(), description, Math.min(packConcurrency, inputs.size()), pushConcurrency));
+        printEnvironment(taskContext, console);
+
+        TaskConfig pushConfig = taskConfig.withValue(TaskPlugin.COMMAND_PROPERTY, TaskPlugin.CMD_PUSH);
+        PackPushPipeline.Outcome outcome;
+        try (PackStaging staging = new PackStaging(packOutputDir(taskContext, taskConfig))) {
+            // Up to one package per push worker waits in the queue, so a pack waits once the pushes are that far behind
+            outcome = new PackPushPipeline(packConcurrency, pushConcurrency, pushConcurrency).run(inputs,
+                (input, sink) -> {
+                    Map<String, Object> item = runBatchItem(taskContext, taskConfig, console, input, staging);
+                    List<String> outputs = (List<String>) item.get("outputs");
+                    if (outputs != null) {
+                        // nuget push uploads a .snupkg or .symbols.nupkg along with its package
+                        for (String output : withoutBundledSymbols(outputs)) {
+                            if (output.endsWith(".nupkg")) {
+                                sink.put(staging.getOutputDir().resolve(output).toString());
+                            }
+                        }
+                    }
+                    return item;
+                },
+                nupkg -> runBatchItem(taskContext, pushConfig, console, nupkg, null));
         }
 
-        String verbosity = taskConfig.getOptVerbosity();
-        if (verbosity != null && !verbosity.isEmpty()) {
-            cmd.add("-Verbosity");
-            cmd.add(verbosity);
+        List<String> failed = new ArrayList<>();
+        for (List<Map<String, Object>> items : List.of(outcome.getUpstream(), outcome.getDownstream())) {
+            items.stream().filter(item -> !(Boolean) item.get("success")).forEach(item -> failed.add((String) item.get("input")));
         }
+        String message = failed.isEmpty()
+            ? String.format("NuGet pack and push complete: packed %d files and pushed %d packages.", outcome.getUpstream().size(), outcome.getDownstream().size())
+            : String.format("NuGet pack and push failed for %d of %d files and packages: %s", failed.size(),
+                outcome.getUpstream().size() + outcome.getDownstream().size(), String.join(", ", failed));
+        console.printLine(message);
+
+        return new Result(failed.isEmpty(), message)
+            .withDetail("items", outcome.getUpstream())
+            .withDetail("pushes", outcome.getDownstream())
+            .withDetail("pipeline", outcome.getStatistics());
+    }
 
-        // Handle options based on the command
-        if (TaskPlugin.CMDSET_INSTALL_PACK_UPDATE.contains(command)) {
-            String version = taskConfig.getOptVersion();
-            if (version != null && !version.isEmpty()) {
-                cmd.add("-Version");
-                cmd.add(taskConfig.isOptVersionFromEnv() ? expandEnvVars(taskContext, version) : version);
-            }
+    /**
+     * Run the NuGet command once for every file matching the glob or list in the file argument, on a bounded worker pool
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task, whose file argument is a glob or list
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @return An aggregated Result, successful only if every item succeeded, with the status of each item
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private Result runBatch(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console) throws IOException, InterruptedException {
+        String command = taskConfig.getCommand();
+        boolean pack = TaskPlugin.CMD_PACK.equals(command);
+        String pattern = resolveValue(taskContext, command, taskConfig.getArgPackageIdOrFilePath(), taskConfig.isArgPackageIdOrFilePathFromEnv());
+        // Packing is bound by the CPU, pushing by the upload
+        int concurrency = BatchRunner.parseConcurrency(taskConfig.getTaskConcurrency(),
+            pack ? Runtime.getRuntime().availableProcessors() : DEFAULT_PUSH_CONCURRENCY);
+
+        // Check the timeouts up front rather than in every item
+        checkTimeouts(taskConfig);
+
+        List<String> inputs = pattern == null ? List.of() : PathGlob.resolveList(pattern, taskContext.getWorkingDir());
+        if (!pack) {
+            inputs = withoutBundledSymbols(inputs);
         }
-
-        if (TaskPlugin.CMDSET_INSTALL_PUSH_RESTORE_SETAPIKEY_ADD_DELETE_SOURCES_UPDATE.contains(command)) {
-            String source = taskConfig.getOptSource();
-            if (source != null && !source.isEmpty()) {
-                cmd.add("-Source");
-                cmd.add(taskConfig.isOptSourceFromEnv() ? expandEnvVars(taskContext, source) : source);
-            }
+        String description = pattern == null ? null : pattern.trim().replaceAll("\\s*\\r?\\n\\s*", ", ");
+        if (inputs.isEmpty()) {
+            String errorMessage = "NuGet execution failed: no files match " + description;
+            console.printLine(errorMessage);
+            return new Result(false, errorMessage);
         }
 
-        if (TaskPlugin.CMDSET_INSTALL_PACK_RESTORE.contains(command)) {
-            String outputDirectory = taskConfig.getOptOutputDirectory();
-            if (outputDirectory != null && !outputDirectory.isEmpty()) {
-                cmd.add("-OutputDirectory");
-                cmd.add(taskConfig.isOptOutputDirectoryFromEnv() ? expandEnvVars(taskContext, outputDirectory) : outputDirectory);
-            }
+        console.printLine(String.format("Running NuGet %s for %d files matching %s, %d at a time",
+            command, inputs.size(), description, Math.min(concurrency, inputs.size())));
+        printEnvironment(taskContext, console);
 
-            String solutionDirectory = taskConfig.getOptSolutionDirectory();
-            if (solutionDirectory != null && !solutionDirectory.isEmpty()) {
-                cmd.add("-SolutionDirectory");
-                cmd.add(taskConfig.isOptSolutionDirectoryFromEnv() ? expandEnvVars(taskContext, solutionDirectory) : solutionDirectory);
+        List<Map<String, Object>> items;
+        if (pack) {
+            try (PackStaging staging = new PackStaging(packOutputDir(taskContext, taskConfig))) {
+                items = BatchRunner.run(inputs, concurrency, input -> runBatchItem(taskContext, taskConfig, console, input, staging));
             }
+        } else {
+            items = BatchRunner.run(inputs, concurrency, input -> runBatchItem(taskContext, taskConfig, console, input, null));
         }
 
-        if (TaskPlugin.CMD_INSTALL.equals(command)) {
-            if (taskConfig.hasOptExcludeVersion()) {
-                cmd.add("-ExcludeVersion");
-            }
+        List<String> failed = items.stream()
+            .filter(item -> !(Boolean) item.get("success"))
+            .map(item -> (String) item.get("input"))
+            .collect(Collectors.toList());
+        String message = failed.isEmpty()
+            ? String.format("NuGet %s complete for %d files.", command, items.size())
+            : String.format("NuGet %s failed for %d of %d files: %s", command, failed.size(), items.size(), String.join(", ", failed));
+        console.printLine(message);
 
-            String framework = taskConfig.getOptFramework();
-            if (framework != null && !framework.isEmpty()) {
-                cmd.add("-Framework");
-                cmd.add(taskConfig.isOptFrameworkFromEnv() ? expandEnvVars(taskContext, framework) : framework);
-            }
-        }
+        return new Result(failed.isEmpty(), message).withDetail("items", items);
+    }
 
-        if (TaskPlugin.CMD_PACK.equals(command)) {
-            String basePath = taskConfig.getOptBasePath();
-            if (basePath != null && !basePath.isEmpty()) {
-                cmd.add("-BasePath");
-                cmd.add(taskConfig.isOptBasePathFromEnv() ? expandEnvVars(taskContext, basePath) : basePath);
-            }
+    /**
+     * Check the timeouts of a task that runs many NuGet processes, so a bad value fails it before any of them start
+     * @param taskConfig The configuration for the NuGet task
+     * @throws IllegalArgumentException If a timeout isn't a whole number of seconds
+     */
+    private void checkTimeouts(TaskConfig taskConfig) {
+        ProcessWatchdog.parseSeconds(taskConfig.getTaskTimeout());
+        ProcessWatchdog.parseSeconds(taskConfig.getTaskIdleTimeout());
+    }
 
-            if (taskConfig.hasOptBuild()) {
-                cmd.add("-Build");
-            }
+    /**
+     * Print the environment once for a task that runs many NuGet processes, as each of them would be given it
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param console The console logger to print the environment to
+     */
+    private void printEnvironment(Context taskContext, JobConsoleLogger console) {
+        Map<String, String> environment = new HashMap<>(System.getenv());
+        environment.putAll(taskContext.getEnvironmentVariables());
+        console.printEnvironment(environment);
+    }
 
-            String exclude = taskConfig.getOptExclude();
-            if (exclude != null && !exclude.isEmpty()) {
-                cmd.add("-Exclude");
-                cmd.add(taskConfig.isOptExcludeFromEnv() ? expandEnvVars(taskContext, exclude) : exclude);
-            }
+    /**
+     * Get the directory a pack writes its packages to
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @return The -OutputDirectory option, or the working directory as NuGet uses when it is not set
+     */
+    private Path packOutputDir(Context taskContext, TaskConfig taskConfig) {
+        Path outputDir = inWorkingDir(taskContext, resolveValue(taskContext, TaskPlugin.CMD_PACK, taskConfig.getOptOutputDirectory(), taskConfig.isOptOutputDirectoryFromEnv()));
+        if (outputDir == null) {
+            outputDir = inWorkingDir(taskContext, ".");
+        }
+        return outputDir;
+    }
 
-            if (taskConfig.hasOptExcludeEmptyDirectories()) {
-                cmd.add("-ExcludeEmptyDirectories");
-            }
+    /**
+     * Get the value of an argument or option as it is put on the command line
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param command The NuGet command
+     * @param value The configured value
+     * @param fromEnv Whether the value should be expanded from environment variables
+     * @return The value, expanded if configured to be
+     */
+    private String resolveValue(Context taskContext, String command, String value, boolean fromEnv) {
+        return fromEnv && value != null ? expandEnvVars(taskContext, command, value) : value;
+    }
 
-            if (taskConfig.hasOptIncludeReferencedProjects()) {
-                cmd.add("-IncludeReferencedProjects");
-            }
+    /**
+     * Should the execution be a recursive restore split into shards that restore in parallel?
+     * @param taskConfig The configuration for the NuGet task
+     * @return true for a recursive restore with shards set, false otherwise
+     */
+    private boolean isShardedRestore(TaskConfig taskConfig) {
+        String shards = taskConfig.getTaskRestoreShards();
+        return TaskPlugin.CMD_RESTORE.equals(taskConfig.getCommand()) && taskConfig.hasOptRecursive()
+            && shards != null && !shards.trim().isEmpty();
+    }
 
-            if (taskConfig.hasOptInstallPackageToOutputPath()) {
-                cmd.add("-InstallPackageToOutputPath");
-            }
+    /**
+     * Restore every project under the folder (or the solution's folder) in the file argument, split into shards that
+     * are balanced by how long each project took to restore last time. Each shard restores its projects one after
+     * another, so there are at most as many nuget processes as shards. They share the packages folder, which NuGet
+     * locks package by package.
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @return An aggregated Result, successful only if every project restored, with the status of each project and shard
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private Result runShardedRestore(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console) throws IOException, InterruptedException {
+        String command = taskConfig.getCommand();
+        int shardCount = BatchRunner.parseConcurrency(taskConfig.getTaskRestoreShards(), 1);
 
-            String minClientVersion = taskConfig.getOptMinClientVersion();
-            if (minClientVersion != null && !minClientVersion.isEmpty()) {
-                cmd.add("-MinClientVersion");
-                cmd.add(taskConfig.isOptMinClientVersionFromEnv() ? expandEnvVars(taskContext, minClientVersion) : minClientVersion);
-            }
+        // Check the timeouts up front rather than in every project
+        checkTimeouts(taskConfig);
 
-            if (taskConfig.hasOptNoDefaultExcludes()) {
-                cmd.add("-NoDefaultExcludes");
-            }
+        String argument = resolveValue(taskContext, command, taskConfig.getArgPackageIdOrFilePath(), taskConfig.isArgPackageIdOrFilePathFromEnv());
+        Path target = inWorkingDir(taskContext, argument == null || argument.trim().isEmpty() ? "." : argument.trim());
+        boolean solution = Files.isRegularFile(target);
+        Path root = (solution ? target.toAbsolutePath().getParent() : target.toAbsolutePath()).normalize();
 
-            if (taskConfig.hasOptNoPackageAnalysis()) {
-                cmd.add("-NoPackageAnalysis");
-            }
+        RestoreShards restoreShards = RestoreShards.load(root);
+        List<String> projects = restoreShards.discover();
+        if (projects.isEmpty()) {
+            String errorMessage = "NuGet execution failed: no projects found under " + root;
+            console.printLine(errorMessage);
+            return new Result(false, errorMessage);
+        }
+        List<RestoreShards.Shard> shards = restoreShards.partition(projects, shardCount);
+
+        console.printLine(String.format("Restoring %d projects under %s in %d shards", projects.size(), root, shards.size()));
+        printEnvironment(taskContext, console);
+
+        // Every project is restored on its own, so the shards don't restore each other's references again
+        TaskConfig projectConfig = taskConfig.withValue(TaskPlugin.OPT_RECURSIVE, false);
+        Path packagesDir = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getOptPackagesDirectory(), taskConfig.isOptPackagesDirectoryFromEnv()));
+        String solutionDir = taskConfig.getOptSolutionDirectory();
+        if (packagesDir != null) {
+            // Created once up front, rather than by every shard at the same time
+            Files.createDirectories(packagesDir);
+        } else if (solution && (solutionDir == null || solutionDir.trim().isEmpty())
+            && NuGetBackend.forName(taskConfig.getTaskBackend()) == NuGetCliBackend.INSTANCE) {
+            // A packages.config project restored on its own needs to know where the solution keeps its packages (nuget
+            // only: dotnet restores SDK projects, which don't use one)
+            projectConfig = projectConfig
+                .withValue(TaskPlugin.OPT_SOLUTION_DIRECTORY, root.toString())
+                .withValue(TaskPlugin.OPT_SOLUTION_DIRECTORY_FROM_ENV, false);
+        }
 
-            if (taskConfig.hasOptOutputFileNamesWithoutVersion()) {
-                cmd.add("-OutputFileNamesWithoutVersion");
-            }
+        TaskConfig shardConfig = projectConfig;
+        List<String> indexes = shards.stream().map(shard -> String.valueOf(shard.getIndex())).collect(Collectors.toList());
+        List<List<Map<String, Object>>> shardItems = BatchRunner.run(indexes, shards.size(), index -> {
+            List<Map<String, Object>> items = new ArrayList<>();
+            for (String project : shards.get(Integer.parseInt(index)).getProjects()) {
+                long startedAt = System.nanoTime();
+                Map<String, Object> item = runBatchItem(taskContext, shardConfig, console, root.resolve(project).toString(), null);
+                long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                if ((Boolean) item.get("success")) {
+                    restoreShards.record(project, millis);
+                }
+                item.put("shard", Integer.parseInt(index));
+                items.add(item);
+            }
+            return items;
+        });
 
-            String properties = taskConfig.getOptProperties();
-            if (properties != null && !properties.isEmpty()) {
-                cmd.add("-Properties");
-                cmd.add(taskConfig.isOptPropertiesFromEnv() ? expandEnvVars(taskContext, properties) : properties);
-            }
+        try {
+            restoreShards.save();
+        } catch (IOException e) {
+            console.printLine("NuGet restore times could not be saved: " + e.getMessage());
+        }
 
-            String suffix = taskConfig.getOptSuffix();
-            if (suffix != null && !suffix.isEmpty()) {
-                cmd.add("-Suffix");
-                cmd.add(taskConfig.isOptSuffixFromEnv() ? expandEnvVars(taskContext, suffix) : suffix);
-            }
+        List<Map<String, Object>> items = new ArrayList<>();
+        List<Map<String, Object>> shardStatuses = new ArrayList<>();
+        for (RestoreShards.Shard shard : shards) {
+            List<Map<String, Object>> restored = shardItems.get(shard.getIndex());
+            items.addAll(restored);
+
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("shard", shard.getIndex());
+            status.put("projects", shard.getProjects());
+            status.put("estimatedMillis", shard.getEstimatedMillis());
+            status.put("success", restored.stream().allMatch(item -> (Boolean) item.get("success")));
+            shardStatuses.add(status);
+        }
 
-            String symbolPackageFormat = taskConfig.getOptSymbolPackageFormat();
-            if (symbolPackageFormat != null && !symbolPackageFormat.isEmpty()) {
-                cmd.add("-SymbolPackageFormat");
-                cmd.add(symbolPackageFormat);
-            }
+        List<String> failed = items.stream()
+            .filter(item -> !(Boolean) item.get("success"))
+            .map(item -> (String) item.get("input"))
+            .collect(Collectors.toList());
+        String message = failed.isEmpty()
+            ? String.format("NuGet restore complete for %d projects in %d shards.", items.size(), shards.size())
+            : String.format("NuGet restore failed for %d of %d projects: %s", failed.size(), items.size(), String.join(", ", failed));
+        console.printLine(message);
+
+        return new Result(failed.isEmpty(), message)
+            .withDetail("items", items)
+            .withDetail("shards", shardStatuses);
+    }
 
-            if (taskConfig.hasOptSymbols()) {
-                cmd.add("-Symbols");
-            }
+    /**
+     * Should the execution be a restore that is skipped when nothing changed?
+     * @param taskConfig The configuration for the NuGet task
+     * @return true for a restore of a project with incremental restore enabled, false otherwise
+     */
+    private boolean isIncrementalRestore(TaskConfig taskConfig) {
+        String project = taskConfig.getArgPackageIdOrFilePath();
+        return TaskPlugin.CMD_RESTORE.equals(taskConfig.getCommand()) && taskConfig.hasTaskIncrementalRestore()
+            && project != null && !project.trim().isEmpty();
+    }
 
-            if (taskConfig.hasOptTool()) {
-                cmd.add("-Tool");
-            }
+    /**
+     * Run a restore unless its inputs and packages are unchanged since the last successful restore
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @param timings Receives the time spent in each phase of the execution
+     * @return The Result of the restore, or a successful Result if it was skipped
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private Result runIncrementalRestore(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console, PhaseTimings timings) throws IOException, InterruptedException {
+        RestoreFingerprint fingerprint = fingerprintRestore(taskContext, taskConfig);
+        Map<String, Object> incremental = new LinkedHashMap<>();
+
+        if (fingerprint.isUpToDate()) {
+            String message = "NuGet restore skipped: the inputs and packages are unchanged since the last successful restore.";
+            console.printLine(message);
+            incremental.put("skipped", true);
+            incremental.put("inputs", fingerprint.getInputsDigest());
+            return new Result(true, message).withDetail("incremental", incremental);
         }
 
-        if (TaskPlugin.CMDSET_INSTALL_RESTORE.contains(command)) {
-            if (taskConfig.hasOptDirectDownload()) {
-                cmd.add("-DirectDownload");
-            }
-
-            if (taskConfig.hasOptDisableParallelProcessing()) {
-                cmd.add("-DisableParallelProcessing");
-            }
+        Result result = runPackageCommand(taskContext, taskConfig, console, timings);
+        if (result.isSuccess()) {
+            // The restore may have written the lock file, so fingerprint what it left behind
+            fingerprint = fingerprintRestore(taskContext, taskConfig);
+            fingerprint.save();
+        }
 
-            if (taskConfig.hasOptNoHttpCache()) {
-                cmd.add("-NoHttpCache");
-            }
+        incremental.put("skipped", false);
+        incremental.put("inputs", fingerprint.getInputsDigest());
+        return result.withDetail("incremental", incremental);
+    }
 
-            String fallbackSource = taskConfig.getOptFallbackSource();
-            if (fallbackSource != null && !fallbackSource.isEmpty()) {
-                cmd.add("-FallbackSource");
-                cmd.add(taskConfig.isOptFallbackSourceFromEnv() ? expandEnvVars(taskContext, fallbackSource) : fallbackSource);
-            }
+    /**
+     * Run the NuGet command with the engine and caches that apply: the pack fingerprint and built-in packer for a pack,
+     * the HTTP push engine for a push if it is selected, or the snapshot cache for a restore or install if it is configured
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @param timings Receives the time spent in each phase of the execution
+     * @return The Result of the command
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private Result runPackageCommand(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console, PhaseTimings timings) throws IOException, InterruptedException {
+        if (TaskPlugin.CMD_PACK.equals(taskConfig.getCommand())) {
+            return runPack(taskContext, taskConfig, console, timings, null);
+        }
 
-            String packageSaveMode = taskConfig.getOptPackageSaveMode();
-            if (packageSaveMode != null && !packageSaveMode.isEmpty()) {
-                cmd.add("-PackageSaveMode");
-                cmd.add(packageSaveMode);
+        if (TaskPlugin.CMD_PUSH.equals(taskConfig.getCommand()) && taskConfig.hasTaskHttpPush()) {
+            Result pushed = pushOverHttp(taskContext, taskConfig, console, timings);
+            if (pushed != null) {
+                return pushed;
             }
+        }
 
-            if (taskConfig.hasOptRequireConsent()) {
-                cmd.add("-RequireConsent");
-            }
+        String cacheDir = taskConfig.getTaskSnapshotCache();
+        if (!TaskPlugin.CMDSET_INSTALL_RESTORE.contains(taskConfig.getCommand()) || cacheDir == null || cacheDir.trim().isEmpty()) {
+            return runThroughFeedProxy(taskContext, taskConfig, console, timings);
         }
 
-        if (TaskPlugin.CMDSET_INSTALL_UPDATE.contains(command)) {
-            String dependencyVersion = taskConfig.getOptDependencyVersion();
-            if (dependencyVersion != null && !dependencyVersion.isEmpty()) {
-                cmd.add("-DependencyVersion");
-                cmd.add(dependencyVersion);
-            }
+        String command = taskConfig.getCommand();
+        RestoreSnapshotCache cache = new RestoreSnapshotCache(
+            inWorkingDir(taskContext, EnvVarTemplate.compile(cacheDir.trim()).expand(taskContext.getEnvironmentVariables(), envMap)),
+            RestoreSnapshotCache.parseMaxSize(taskConfig.getTaskSnapshotCacheMaxSize()));
+        Path packagesDir = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getOptPackagesDirectory(), taskConfig.isOptPackagesDirectoryFromEnv()));
+        if (packagesDir == null) {
+            packagesDir = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getOptOutputDirectory(), taskConfig.isOptOutputDirectoryFromEnv()));
+        }
+        Path project = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getArgPackageIdOrFilePath(), taskConfig.isArgPackageIdOrFilePathFromEnv()));
+        Path lockFilePath = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getOptLockFilePath(), taskConfig.isOptLockFilePathFromEnv()));
+        Path lockFile = packagesDir == null ? null : RestoreSnapshotCache.findLockFile(
+            project == null ? null : project.toString(), lockFilePath == null ? null : lockFilePath.toString());
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        if (lockFile == null) {
+            console.printLine("NuGet snapshot cache skipped: " + (packagesDir == null
+                ? "set the packages or output directory to cache it"
+                : "there is no lock file or packages.config to key the snapshot by"));
+            snapshot.put("used", false);
+            return runThroughFeedProxy(taskContext, taskConfig, console, timings).withDetail("snapshotCache", snapshot);
+        }
 
-            if (taskConfig.hasOptPreRelease()) {
-                cmd.add("-PreRelease");
+        String key = RestoreSnapshotCache.key(command, lockFile);
+        long extracted;
+        try {
+            extracted = cache.restore(key, packagesDir);
+        } catch (IOException e) {
+            console.printLine("NuGet snapshot cache could not extract snapshot " + key + ": " + e.getMessage());
+            extracted = -1;
+        }
+        console.printLine(extracted < 0
+            ? "NuGet snapshot cache miss for " + lockFile + " (snapshot " + key + ")"
+            : String.format("NuGet snapshot cache hit for %s: extracted %d bytes from snapshot %s", lockFile, extracted, key));
+
+        // NuGet still runs on a hit, to finish the restore (e.g. project.assets.json) without downloading anything
+        Result result = runThroughFeedProxy(taskContext, taskConfig, console, timings);
+
+        boolean published = false;
+        List<String> evicted = List.of();
+        if (result.isSuccess() && extracted < 0) {
+            try {
+                published = cache.publish(key, packagesDir);
+                evicted = cache.evict();
+            } catch (IOException e) {
+                console.printLine("NuGet snapshot cache could not publish snapshot " + key + ": " + e.getMessage());
             }
         }
 
-        if (TaskPlugin.CMDSET_PACK_RESTORE_UPDATE.contains(command)) {
-            String msBuildPath = taskConfig.getOptMsBuildPath();
-            if (msBuildPath != null && !msBuildPath.isEmpty()) {
-                cmd.add("-MSBuildPath");
-                cmd.add(taskConfig.isOptMSBuildPathFromEnv() ? expandEnvVars(taskContext, msBuildPath) : msBuildPath);
-            }
+        snapshot.put("used", true);
+        snapshot.put("key", key);
+        snapshot.put("hit", extracted >= 0);
+        snapshot.put("bytesSaved", Math.max(0, extracted));
+        snapshot.put("published", published);
+        snapshot.put("evicted", evicted);
+        snapshot.put("agentHits", RestoreSnapshotCache.getHits());
+        snapshot.put("agentMisses", RestoreSnapshotCache.getMisses());
+        snapshot.put("agentBytesSaved", RestoreSnapshotCache.getBytesSaved());
+        return result.withDetail("snapshotCache", snapshot);
+    }
 
-            String msBuildVersion = taskConfig.getOptMsBuildVersion();
-            if (msBuildVersion != null && !msBuildVersion.isEmpty()) {
-                cmd.add("-MSBuildVersion");
-                cmd.add(taskConfig.isOptMSBuildVersionFromEnv() ? expandEnvVars(taskContext, msBuildVersion) : msBuildVersion);
+    /**
+     * Pack, unless the package in the output directory was packed from the same inputs. A nuspec is packed with the
+     * built-in packer if it is selected and the options allow, otherwise with the nuget CLI.
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @param timings Receives the time spent in each phase of the execution
+     * @param publishedDir Where the package is moved to after the pack, e.g. from a batch staging folder, or null if it
+     *                     stays in the output directory
+     * @return The Result of the pack
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private Result runPack(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console, PhaseTimings timings, Path publishedDir) throws IOException, InterruptedException {
+        String command = taskConfig.getCommand();
+        long startedAt = System.nanoTime();
+        NuspecPacker packer = nuspecPacker(taskContext, taskConfig);
+        Path outputDir = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getOptOutputDirectory(), taskConfig.isOptOutputDirectoryFromEnv()));
+
+        NuspecPacker.Plan plan = null;
+        PackFingerprint fingerprint = null;
+        if (packer != null && outputDir != null) {
+            try {
+                plan = packer.plan();
+                // The output directory is left out, so a pack staged in a batch has the fingerprint of its published package
+                List<String> argv = new ArrayList<>(createNuGetProcessWithOptions(taskContext, taskConfig.withValue(TaskPlugin.OPT_OUTPUT_DIRECTORY, null)).command());
+                argv.add(taskConfig.hasTaskJavaPack() ? "packer:java" : "packer:cli");
+                fingerprint = PackFingerprint.of(argv, plan, publishedDir == null ? outputDir : publishedDir);
+            } catch (IOException e) {
+                if (taskConfig.hasTaskJavaPack()) {
+                    throw e;
+                }
+                console.printLine("NuGet pack fingerprint skipped: " + e.getMessage());
             }
         }
 
-        if (TaskPlugin.CMDSET_PACK_RESTORE.contains(command)) {
-            String packagesDirectory = taskConfig.getOptPackagesDirectory();
-            if (packagesDirectory != null && !packagesDirectory.isEmpty()) {
-                cmd.add("-PackagesDirectory");
-                cmd.add(taskConfig.isOptPackagesDirectoryFromEnv() ? expandEnvVars(taskContext, packagesDirectory) : packagesDirectory);
-            }
+        Map<String, Object> detail = new LinkedHashMap<>();
+        if (fingerprint != null && fingerprint.isUpToDate()) {
+            timings.record(PhaseTimings.Phase.RUN, startedAt);
+            String message = String.format("NuGet pack skipped: %s was packed from the same inputs.", fingerprint.getPackage());
+            console.printLine(message);
+            detail.put("inputs", fingerprint.getInputsDigest());
+            detail.put("skipped", true);
+            detail.put("package", fingerprint.getPackage().toString());
+            return new Result(true, message).withDetail("packFingerprint", detail);
         }
 
-        if (TaskPlugin.CMDSET_PUSH_DELETE.contains(command)) {
-            String apiKey = taskConfig.getOptApiKey();
-            if (apiKey != null && !apiKey.isEmpty()) {
-                cmd.add("-ApiKey");
-                cmd.add(taskConfig.isOptApiKeyFromEnv() ? expandEnvVars(taskContext, apiKey) : apiKey);
+        Result result = null;
+        if (taskConfig.hasTaskJavaPack()) {
+            if (packer == null) {
+                console.printLine("NuGet Java pack needs a .nuspec without -Build, -Symbols, -Tool or -InstallPackageToOutputPath, packing with the nuget CLI instead");
+            } else {
+                result = packInProcess(taskContext, packer, plan, outputDir, console, timings, startedAt);
             }
+        }
+        if (result == null) {
+            result = runCommand(taskContext, taskConfig, console, timings);
+        }
 
-            if (taskConfig.hasOptNoServiceEndpoint()) {
-                cmd.add("-NoServiceEndpoint");
-            }
+        if (fingerprint == null) {
+            return result;
+        }
+        Path written = outputDir.resolve(fingerprint.getPackage().getFileName());
+        boolean saved = result.isSuccess() && Files.isRegularFile(written);
+        if (saved) {
+            fingerprint.save(written);
         }
+        detail.put("inputs", fingerprint.getInputsDigest());
+        detail.put("skipped", false);
+        detail.put("saved", saved);
+        return result.withDetail("packFingerprint", detail);
+    }
 
-        if (TaskPlugin.CMD_PUSH.equals(command)) {
-            if (taskConfig.hasOptDisableBuffering()) {
-                cmd.add("-DisableBuffering");
-            }
+    /**
+     * Set up the built-in packer for a pack of a nuspec, with the options `nuget pack` would be given
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @return The packer, or null if the argument isn't a nuspec or an option needs the nuget CLI
+     */
+    private NuspecPacker nuspecPacker(Context taskContext, TaskConfig taskConfig) {
+        String command = taskConfig.getCommand();
+        Path nuspec = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getArgPackageIdOrFilePath(), taskConfig.isArgPackageIdOrFilePathFromEnv()));
+        if (nuspec == null || !nuspec.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".nuspec") || !Files.isRegularFile(nuspec)
+            || taskConfig.hasOptBuild() || taskConfig.hasOptSymbols() || taskConfig.hasOptTool() || taskConfig.hasOptInstallPackageToOutputPath()) {
+            return null;
+        }
 
-            if (taskConfig.hasOptNoSymbols()) {
-                cmd.add("-NoSymbols");
-            }
+        String exclude = resolveValue(taskContext, command, taskConfig.getOptExclude(), taskConfig.isOptExcludeFromEnv());
+        return new NuspecPacker(nuspec)
+            .withBasePath(inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getOptBasePath(), taskConfig.isOptBasePathFromEnv())))
+            .withProperties(NuspecPacker.parseProperties(resolveValue(taskContext, command, taskConfig.getOptProperties(), taskConfig.isOptPropertiesFromEnv())))
+            .withExcludes(exclude == null || exclude.trim().isEmpty() ? List.of() : List.of(exclude.split(";")))
+            .withVersion(resolveValue(taskContext, command, taskConfig.getOptVersion(), taskConfig.isOptVersionFromEnv()),
+                resolveValue(taskContext, command, taskConfig.getOptSuffix(), taskConfig.isOptSuffixFromEnv()))
+            .withMinClientVersion(resolveValue(taskContext, command, taskConfig.getOptMinClientVersion(), taskConfig.isOptMinClientVersionFromEnv()))
+            .withSwitches(taskConfig.hasOptExcludeEmptyDirectories(), taskConfig.hasOptNoDefaultExcludes(), taskConfig.hasOptOutputFileNamesWithoutVersion());
+    }
 
-            if (taskConfig.hasOptSkipDuplicate()) {
-                cmd.add("-SkipDuplicate");
-            }
+    /**
+     * Pack a nuspec with the built-in packer, compressing its files in parallel
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param packer The packer
+     * @param plan The plan of the package if it was already read, or null
+     * @param outputDir The output directory, or null for the working directory
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @param timings Receives the time spent in each phase of the execution
+     * @param startedAt When the pack started, from {@link System#nanoTime()}
+     * @return The Result of the pack
+     * @throws IOException If the nuspec is invalid or the package can't be written
+     * @throws InterruptedException
+     */
+    private Result packInProcess(Context taskContext, NuspecPacker packer, NuspecPacker.Plan plan, Path outputDir, JobConsoleLogger console,
+                                 PhaseTimings timings, long startedAt) throws IOException, InterruptedException {
+        if (outputDir == null) {
+            outputDir = inWorkingDir(taskContext, ".");
+        }
 
-            String symbolSource = taskConfig.getOptSymbolSource();
-            if (symbolSource != null && !symbolSource.isEmpty()) {
-                cmd.add("-SymbolSource");
-                cmd.add(taskConfig.isOptSymbolSourceFromEnv() ? expandEnvVars(taskContext, symbolSource) : symbolSource);
-            }
+        console.printLine("Packing with the built-in packer");
+        NuspecPacker.Packed packed = packer.write(plan == null ? packer.plan() : plan, outputDir);
+        timings.record(PhaseTimings.Phase.RUN, startedAt);
 
-            String symbolApiKey = taskConfig.getOptSymbolApiKey();
-            if (symbolApiKey != null && !symbolApiKey.isEmpty()) {
-                cmd.add("-SymbolApiKey");
-                cmd.add(taskConfig.isOptSymbolApiKeyFromEnv() ? expandEnvVars(taskContext, symbolApiKey) : symbolApiKey);
-            }
+        String message = String.format("NuGet pack complete: successfully created package '%s'.", packed.getPath());
+        console.printLine(message);
+        return new Result(true, message).withDetail("javaPack", packed.toMap());
+    }
 
-            String timeout = taskConfig.getOptTimeout();
-            if (timeout != null && !timeout.isEmpty()) {
-                cmd.add("-Timeout");
-                cmd.add(taskConfig.isOptTimeoutFromEnv() ? expandEnvVars(taskContext, timeout) : timeout);
-            }
+    /**
+     * Push a package with the built-in HTTP client, along with its symbols package unless -NoSymbols is set
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @param timings Receives the time spent in each phase of the execution
+     * @return The Result of the push, or null if the HTTP client can't push it and the nuget CLI should
+     * @throws IOException If the source can't be reached or rejects the package
+     * @throws InterruptedException
+     */
+    private Result pushOverHttp(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console, PhaseTimings timings) throws IOException, InterruptedException {
+        String command = taskConfig.getCommand();
+        String source = resolveValue(taskContext, command, taskConfig.getOptSource(), taskConfig.isOptSourceFromEnv());
+        Path file = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getArgPackageIdOrFilePath(), taskConfig.isArgPackageIdOrFilePathFromEnv()));
+        if (!HttpPushEngine.supports(source) || file == null || !Files.isRegularFile(file)) {
+            console.printLine("NuGet HTTP push needs a v3 source and a single package file, pushing with the nuget CLI instead");
+            return null;
         }
 
-        if (TaskPlugin.CMD_CONFIG.equals(command)) {
-            String set = taskConfig.getOptSet();
-            if (set != null && !set.isEmpty()) {
-                cmd.add("-Set");
-                cmd.add(taskConfig.isOptSetFromEnv() ? expandEnvVars(taskContext, set) : set);
-            }
-
-            String asPath = taskConfig.getOptAsPath();
-            if (asPath != null && !asPath.isEmpty()) {
-                cmd.add("-AsPath");
-                cmd.add(taskConfig.isOptAsPathFromEnv() ? expandEnvVars(taskContext, asPath) : asPath);
+        long startedAt = System.nanoTime();
+        String apiKey = resolveValue(taskContext, command, taskConfig.getOptApiKey(), taskConfig.isOptApiKeyFromEnv());
+        boolean skipDuplicate = taskConfig.hasOptSkipDuplicate();
+        HttpPushEngine engine = new HttpPushEngine(HttpPushEngine.parseTimeout(
+            resolveValue(taskContext, command, taskConfig.getOptTimeout(), taskConfig.isOptTimeoutFromEnv())));
+        List<Map<String, Object>> uploads = new ArrayList<>();
+
+        console.printLine(String.format("Pushing %s to %s over HTTP", file.getFileName(), source));
+        HttpPushEngine.Upload upload = engine.push(file, source, apiKey, skipDuplicate);
+        uploads.add(upload.toMap());
+        console.printLine(upload.isSkippedDuplicate() ? "The package already exists on the source, skipped." : "Your package was pushed.");
+
+        String name = file.getFileName().toString();
+        Path symbols = name.endsWith(".nupkg") && !taskConfig.hasOptNoSymbols()
+            ? file.resolveSibling(name.substring(0, name.length() - ".nupkg".length()) + ".snupkg") : null;
+        if (symbols != null && Files.isRegularFile(symbols)) {
+            String symbolSource = resolveValue(taskContext, command, taskConfig.getOptSymbolSource(), taskConfig.isOptSymbolSourceFromEnv());
+            String symbolApiKey = resolveValue(taskContext, command, taskConfig.getOptSymbolApiKey(), taskConfig.isOptSymbolApiKeyFromEnv());
+            symbolSource = symbolSource == null || symbolSource.trim().isEmpty() ? source : symbolSource.trim();
+            if (HttpPushEngine.supports(symbolSource)) {
+                console.printLine(String.format("Pushing %s to %s over HTTP", symbols.getFileName(), symbolSource));
+                upload = engine.pushSymbols(symbols, symbolSource, symbolApiKey == null || symbolApiKey.isEmpty() ? apiKey : symbolApiKey, skipDuplicate);
+                uploads.add(upload.toMap());
+                console.printLine(upload.isSkippedDuplicate() ? "The symbols package already exists on the source, skipped." : "Your symbols package was pushed.");
+            } else {
+                console.printLine("NuGet HTTP push can't push symbols to " + symbolSource + ", skipped " + symbols.getFileName());
             }
         }
+        timings.record(PhaseTimings.Phase.RUN, startedAt);
 
-        if (TaskPlugin.CMD_RESTORE.equals(command)) {
-            if (taskConfig.hasOptForce()) {
-                cmd.add("-Force");
-            }
-
-            if (taskConfig.hasOptForceEvaluate()) {
-                cmd.add("-ForceEvaluate");
-            }
+        String message = String.format("NuGet push complete: pushed %s over HTTP.", name);
+        console.printLine(message);
+        return new Result(true, message).withDetail("httpPush", uploads);
+    }
 
-            String lockFilePath = taskConfig.getOptLockFilePath();
-            if (lockFilePath != null && !lockFilePath.isEmpty()) {
-                cmd.add("-LockFilePath");
-                cmd.add(taskConfig.isOptLockFilePathFromEnv() ? expandEnvVars(taskContext, lockFilePath) : lockFilePath);
-            }
+    /**
+     * Run the NuGet command, through a local caching feed proxy if it is a restore or install and the proxy is configured
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @param timings Receives the time spent in each phase of the execution
+     * @return The Result of the command
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private Result runThroughFeedProxy(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console, PhaseTimings timings) throws IOException, InterruptedException {
+        String cacheDir = taskConfig.getTaskFeedProxyCache();
+        if (!TaskPlugin.CMDSET_INSTALL_RESTORE.contains(taskConfig.getCommand()) || cacheDir == null || cacheDir.trim().isEmpty()) {
+            return runCommand(taskContext, taskConfig, console, timings);
+        }
 
-            if (taskConfig.hasOptLockedMode()) {
-                cmd.add("-LockedMode");
-            }
+        String command = taskConfig.getCommand();
+        String source = resolveValue(taskContext, command, taskConfig.getOptSource(), taskConfig.isOptSourceFromEnv());
+        String fallbackSource = resolveValue(taskContext, command, taskConfig.getOptFallbackSource(), taskConfig.isOptFallbackSourceFromEnv());
+        if ((source == null || source.trim().isEmpty()) && (fallbackSource == null || fallbackSource.trim().isEmpty())) {
+            console.printLine("NuGet feed proxy skipped: set the source to route it through the proxy");
+            return runCommand(taskContext, taskConfig, console, timings);
+        }
 
-            String project2ProjectTimeout = taskConfig.getOptProject2ProjectTimeOut();
-            if (project2ProjectTimeout != null && !project2ProjectTimeout.isEmpty()) {
-                cmd.add("-Project2ProjectTimeOut");
-                cmd.add(taskConfig.isOptProject2ProjectTimeOutFromEnv() ? expandEnvVars(taskContext, project2ProjectTimeout) : project2ProjectTimeout);
-            }
+        long hedgeDelay = NuGetFeedProxy.parseHedgeDelay(taskConfig.getTaskHedgeDelay());
+        NuGetFeedProxy proxy = NuGetFeedProxy.start(
+            inWorkingDir(taskContext, EnvVarTemplate.compile(cacheDir.trim()).expand(taskContext.getEnvironmentVariables(), envMap)),
+            NuGetFeedProxy.parseMaxSize(taskConfig.getTaskFeedProxyCacheMaxSize()));
+        Result result;
+        try {
+            if (hedgeDelay >= 0) {
+                List<String> sources = new ArrayList<>();
+                for (String value : new String[]{source, fallbackSource}) {
+                    if (value != null) {
+                        sources.addAll(List.of(value.split(";")));
+                    }
+                }
+                List<String> hedged = proxy.hedge(sources, hedgeDelay);
+                console.printLine(String.format("NuGet feed proxy racing %d sources after at most %dms: %s", hedged.size(), hedgeDelay, String.join(", ", hedged)));
+            }
+            TaskConfig proxiedConfig = taskConfig;
+            if (source != null && !source.trim().isEmpty()) {
+                proxiedConfig = proxiedConfig.withValue(TaskPlugin.OPT_SOURCE, proxy.rewriteSources(source))
+                    .withValue(TaskPlugin.OPT_SOURCE_FROM_ENV, false);
+            }
+            if (fallbackSource != null && !fallbackSource.trim().isEmpty()) {
+                proxiedConfig = proxiedConfig.withValue(TaskPlugin.OPT_FALLBACK_SOURCE, proxy.rewriteSources(fallbackSource))
+                    .withValue(TaskPlugin.OPT_FALLBACK_SOURCE_FROM_ENV, false);
+            }
+            console.printLine("NuGet feed proxy listening on " + proxy.getAddress());
+            result = runCommand(taskContext, proxiedConfig, console, timings);
+        } finally {
+            proxy.close();
+        }
 
-            if (taskConfig.hasOptRecursive()) {
-                cmd.add("-Recursive");
-            }
+        Map<String, Object> statistics = proxy.getStatistics();
+        console.printLine(String.format("NuGet feed proxy served %d requests: %d metadata hits, %d revalidated, %d misses; %d package hits, %d misses",
+            statistics.get("requests"), statistics.get("metadataHits"), statistics.get("metadataRevalidated"), statistics.get("metadataMisses"),
+            statistics.get("packageHits"), statistics.get("packageMisses")));
+        return result.withDetail("feedProxy", statistics);
+    }
 
-            if (taskConfig.hasOptUseLockFile()) {
-                cmd.add("-UseLockFile");
-            }
+    /**
+     * Resolve a path against the working directory, which NuGet is started in, so the task reads the files NuGet does
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param value The path
+     * @return The resolved path, or null if the value is blank
+     */
+    private Path inWorkingDir(Context taskContext, String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
         }
+        String workingDir = taskContext.getWorkingDir();
+        return workingDir == null ? Paths.get(value) : Paths.get(workingDir).resolve(value);
+    }
 
-        if (TaskPlugin.CMDSET_ADD_INIT.contains(command)) {
-            if (taskConfig.hasOptExpand()) {
-                cmd.add("-Expand");
-            }
+    /**
+     * Fingerprint the inputs of a restore
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @return The fingerprint
+     * @throws IOException
+     */
+    private RestoreFingerprint fingerprintRestore(Context taskContext, TaskConfig taskConfig) throws IOException {
+        String command = taskConfig.getCommand();
+        Path project = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getArgPackageIdOrFilePath(), taskConfig.isArgPackageIdOrFilePathFromEnv()));
+        Path lockFile = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getOptLockFilePath(), taskConfig.isOptLockFilePathFromEnv()));
+        Path configFile = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getOptConfigFile(), taskConfig.isOptConfigFileFromEnv()));
+        Path packagesDir = inWorkingDir(taskContext, resolveValue(taskContext, command, taskConfig.getOptPackagesDirectory(), taskConfig.isOptPackagesDirectoryFromEnv()));
+        return RestoreFingerprint.of(
+            createNuGetProcessWithOptions(taskContext, taskConfig).command(),
+            project == null ? (taskContext.getWorkingDir() == null ? "" : taskContext.getWorkingDir()) : project.toString(),
+            lockFile == null ? null : lockFile.toString(),
+            configFile == null ? null : configFile.toString(),
+            packagesDir == null ? null : packagesDir.toString());
+    }
+
+    /**
+     * Run the NuGet command for one item of a batch, with its own console prefix and timings
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task
+     * @param console The job console shared by the batch
+     * @param input The file to run the command for
+     * @param staging Where a pack writes its packages before they are moved to the output directory, or null for other commands
+     * @return The status of the item
+     * @throws InterruptedException
+     */
+    private Map<String, Object> runBatchItem(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console, String input, PackStaging staging) throws InterruptedException {
+        TaskConfig itemConfig = taskConfig
+            .withValue(TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH, input)
+            .withValue(TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH_FROM_ENV, false);
+        JobConsoleLogger itemConsole = new PrefixedConsoleLogger(console, "[" + Paths.get(input).getFileName() + "] ");
+        PhaseTimings itemTimings = new PhaseTimings();
+        List<String> outputs = null;
+
+        Result result;
+        try {
+            Path stagingDir = null;
+            if (staging != null) {
+                stagingDir = staging.newStagingDir();
+                itemConfig = itemConfig
+                    .withValue(TaskPlugin.OPT_OUTPUT_DIRECTORY, stagingDir.toAbsolutePath().toString())
+                    .withValue(TaskPlugin.OPT_OUTPUT_DIRECTORY_FROM_ENV, false);
+            }
+
+            result = staging == null
+                ? runPackageCommand(taskContext, itemConfig, itemConsole, itemTimings)
+                : runPack(taskContext, itemConfig, itemConsole, itemTimings, staging.getOutputDir().toAbsolutePath());
+
+            if (staging != null && result.isSuccess()) {
+                outputs = staging.publish(input, stagingDir);
+                Object skipped = result.getDetails().get("packFingerprint");
+                if (outputs.isEmpty() && skipped instanceof Map && Boolean.TRUE.equals(((Map<?, ?>) skipped).get("skipped"))) {
+                    // A skipped pack leaves its package where it was published before, and it still has to be pushed
+                    outputs = List.of(Paths.get((String) ((Map<?, ?>) skipped).get("package")).getFileName().toString());
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            String errorMessage = "NuGet execution failed: " + e.getMessage();
+            itemConsole.printLine(errorMessage);
+            result = new Result(false, errorMessage);
         }
 
-        if (TaskPlugin.CMD_DELETE.equals(command)) {
-            if (taskConfig.hasOptNoPrompt()) {
-                cmd.add("-NoPrompt");
-            }
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("input", input);
+        item.put("success", result.isSuccess());
+        item.put("message", result.getMessage());
+        if (outputs != null) {
+            item.put("outputs", outputs);
         }
+        item.putAll(result.getDetails());
+        item.put("timings", itemTimings.toMap());
+        return item;
+    }
 
-        if (TaskPlugin.CMD_SOURCES.equals(command)) {
-            if (taskConfig.hasOptAllowInsecureConnections()) {
-                cmd.add("-AllowInsecureConnections");
-            }
+    /**
+     * `nuget push` uploads `X.symbols.nupkg` along with `X.nupkg`, so don't push the symbols package a second time
+     * @param files The files matched by a glob
+     * @return The files, without symbols packages whose main package is also in the list
+     */
+    static List<String> withoutBundledSymbols(List<String> files) {
+        Set<String> all = new HashSet<>(files);
+        return files.stream()
+            .filter(file -> !(file.endsWith(".symbols.nupkg") && all.contains(file.substring(0, file.length() - ".symbols.nupkg".length()) + ".nupkg")))
+            .collect(Collectors.toList());
+    }
 
-            String format = taskConfig.getOptFormat();
-            if (format != null && !format.isEmpty()) {
-                cmd.add("-Format");
-                cmd.add(format);
-            }
+    /**
+     * Run the NuGet process
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @param taskConfig The configuration for the NuGet task, including the executable path, mode, file, command, and execution policy
+     * @param console The console logger to log output and errors during the execution of the NuGet task
+     * @param timings Receives the time spent in each phase of the execution
+     * @return A Result object indicating the success or failure of the NuGet execution, along with any relevant messages
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private Result runCommand(Context taskContext, TaskConfig taskConfig, JobConsoleLogger console, PhaseTimings timings) throws IOException, InterruptedException {
+        long startedAt = System.nanoTime();
+        ProcessBuilder nuget = createNuGetProcessWithOptions(taskContext, taskConfig);
+        timings.record(PhaseTimings.Phase.BUILD_COMMAND, startedAt);
 
-            String name = taskConfig.getOptName();
-            if (name != null && !name.isEmpty()) {
-                cmd.add("-Name");
-                cmd.add(taskConfig.isOptNameFromEnv() ? expandEnvVars(taskContext, name) : name);
-            }
+        ProcessWatchdog watchdog = new ProcessWatchdog(
+            ProcessWatchdog.parseSeconds(taskConfig.getTaskTimeout()),
+            ProcessWatchdog.parseSeconds(taskConfig.getTaskIdleTimeout()));
+        console.printLine("Launching command: " + nuget.command());
+        Map<String, String> environment = taskContext.getEnvironmentVariables();
+        nuget.environment().putAll(environment);
+        console.printEnvironment(nuget.environment());
 
-            String protocolVersion = taskConfig.getOptProtocolVersion();
-            if (protocolVersion != null && !protocolVersion.isEmpty()) {
-                cmd.add("-ProtocolVersion");
-                cmd.add(taskConfig.isOptProtocolVersionFromEnv() ? expandEnvVars(taskContext, protocolVersion) : protocolVersion);
-            }
+        String command = taskConfig.getCommand();
 
-            String username = taskConfig.getOptUsername();
-            if (username != null && !username.isEmpty()) {
-                cmd.add("-Username");
-                cmd.add(taskConfig.isOptUsernameFromEnv() ? expandEnvVars(taskContext, username) : username);
-            }
+        ProcessSpawnEvent spawnEvent = new ProcessSpawnEvent();
+        spawnEvent.begin();
+        startedAt = System.nanoTime();
+        Process nugetProcess = nuget.start();
+        timings.record(PhaseTimings.Phase.SPAWN, startedAt);
+        spawnEvent.command = command;
+        spawnEvent.pid = nugetProcess.pid();
+        spawnEvent.commit();
+
+        ProcessWatchdog.TrackedStream stderr = watchdog.track(nugetProcess.getErrorStream());
+        ProcessWatchdog.TrackedStream stdout = watchdog.track(nugetProcess.getInputStream());
+        ProcessWatchdog.Timeout timeout = null;
+        OutputPump pump = new OutputPump(console, command);
+
+        ProcessWaitEvent waitEvent = new ProcessWaitEvent();
+        waitEvent.begin();
+        startedAt = System.nanoTime();
+        try {
+            pump.start(stdout, stderr);
 
-            String password = taskConfig.getOptPassword();
-            if (password != null && !password.isEmpty()) {
-                cmd.add("-Password");
-                cmd.add(taskConfig.isOptPasswordFromEnv() ? expandEnvVars(taskContext, password) : password);
+            timeout = watchdog.await(nugetProcess);
+        } finally {
+            // Timed out, interrupted or failed while reading: don't leave the process tree running
+            if (timeout != null || nugetProcess.isAlive()) {
+                ProcessTree.destroy(nugetProcess, ProcessTree.TERMINATION_GRACE);
             }
+            timings.record(PhaseTimings.Phase.RUN, startedAt);
+        }
 
-            if (taskConfig.hasOptStorePasswordInClearText()) {
-                cmd.add("-StorePasswordInClearText");
-            }
+        int exitCode = timeout == null ? nugetProcess.exitValue() : -1;
+        waitEvent.command = command;
+        waitEvent.exitCode = exitCode;
+        waitEvent.timeout = timeout == null ? null : timeout.getLabel();
+        waitEvent.commit();
+
+        // Every line read is written to the console before the result, so the summary comes last
+        StreamDrainEvent drainEvent = new StreamDrainEvent();
+        drainEvent.begin();
+        startedAt = System.nanoTime();
+        boolean drained = pump.await(DRAIN_TIMEOUT_MILLIS);
+        timings.record(PhaseTimings.Phase.DRAIN, startedAt);
+        drainEvent.command = command;
+        drainEvent.exitCode = exitCode;
+        drainEvent.stdoutBytes = stdout.getBytesRead();
+        drainEvent.stderrBytes = stderr.getBytesRead();
+        drainEvent.drained = drained;
+        drainEvent.commit();
+
+        if (!drained) {
+            console.printLine(String.format("NuGet output was still open %dms after the process exited; some lines may follow the result.", DRAIN_TIMEOUT_MILLIS));
+        }
 
-            String validAuthenticationTypes = taskConfig.getOptValidAuthenticationTypes();
-            if (validAuthenticationTypes != null && !validAuthenticationTypes.isEmpty()) {
-                cmd.add("-ValidAuthenticationTypes");
-                cmd.add(taskConfig.isOptValidAuthenticationTypesFromEnv() ? expandEnvVars(taskContext, validAuthenticationTypes) : validAuthenticationTypes);
-            }
+        if (timeout != null) {
+            return timedOut(watchdog, timeout, console).withDetail("output", pump.getStatistics());
         }
 
-        if (TaskPlugin.CMD_UPDATE.equals(command)) {
-            String id = taskConfig.getOptId();
-            if (id != null && !id.isEmpty()) {
-                cmd.add("-Id");
-                cmd.add(taskConfig.isOptIdFromEnv() ? expandEnvVars(taskContext, id) : id);
-            }
+        nugetProcess.destroy();
 
-            String repositoryPath = taskConfig.getOptRepositoryPath();
-            if (repositoryPath != null && !repositoryPath.isEmpty()) {
-                cmd.add("-RepositoryPath");
-                cmd.add(taskConfig.isOptRepositoryPathFromEnv() ? expandEnvVars(taskContext, repositoryPath) : repositoryPath);
-            }
+        if (exitCode != 0) {
+            return new Result(false, "NuGet execution failed. Please check the output.").withDetail("output", pump.getStatistics());
+        }
 
-            if (taskConfig.hasOptSafe()) {
-                cmd.add("-Safe");
-            }
+        return new Result(true, "NuGet execution complete.").withDetail("output", pump.getStatistics());
+    }
 
-            String fileConflictAction = taskConfig.getOptFileConflictAction();
-            if (fileConflictAction != null && !fileConflictAction.isEmpty()) {
-                cmd.add("-FileConflictAction");
-                cmd.add(fileConflictAction);
-            }
+    /**
+     * Build the result for a NuGet process that was stopped by a timeout
+     * @param watchdog The watchdog that timed the process
+     * @param timeout The timeout that fired
+     * @param console The console logger to report the timeout to
+     * @return An unsuccessful Result naming the timeout and how long it waited
+     */
+    private Result timedOut(ProcessWatchdog watchdog, ProcessWatchdog.Timeout timeout, JobConsoleLogger console) {
+        long limitSeconds = watchdog.getLimitSeconds(timeout);
+        long waitedMillis = watchdog.getWaitedMillis();
+        String errorMessage = String.format("NuGet execution timed out: the %s timeout of %ds fired after waiting %dms. The process tree was stopped.",
+            timeout.getLabel(), limitSeconds, waitedMillis);
+        console.printLine(errorMessage);
+
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("type", timeout.getLabel());
+        detail.put("limitSeconds", limitSeconds);
+        detail.put("waitedMillis", waitedMillis);
+        return new Result(false, errorMessage).withDetail("timeout", detail);
+    }
 
-            if (taskConfig.hasOptSelf()) {
-                cmd.add("-Self");
-            }
-        }
+    /**
+     * Helper function to create the NuGet process
+     * @param taskConfig The configuration for the NuGet task, including the executable path, mode, file, command, and execution policy
+     * @param taskContext The runtime context for the task, including environment variables and working directory
+     * @return A ProcessBuilder configured with the NuGet command and options, started in the job's working directory if
+     * it exists
+     * @throws IllegalArgumentException If the task's backend can't run the command or one of its options
+     */
+    ProcessBuilder createNuGetProcessWithOptions(Context taskContext, TaskConfig taskConfig) {
+        CommandPlanEvent planEvent = new CommandPlanEvent();
+        planEvent.begin();
 
-        return new ProcessBuilder(cmd);
+        String command = taskConfig.getCommand();
+        NuGetBackend backend = NuGetBackend.forName(taskConfig.getTaskBackend());
+        List<String> cmd = backend.commandLine(executable != null ? executable : backend.getExecutable(), taskConfig,
+            text -> expandEnvVars(taskContext, command, text));
+
+        CommandPlan plan = CommandPlan.forCommand(command);
+
+        planEvent.command = command;
+        planEvent.planOptions = plan.getOptions().size();
+        planEvent.arguments = cmd.size();
+        planEvent.commit();
+
+        // The task resolves its own paths (globs, fingerprints, caches, pack output) with inWorkingDir, so every command
+        // starts there too, or NuGet and the task would disagree about relative paths. GoCD always creates the directory;
+        // a request that names one that doesn't exist leaves NuGet where the plugin runs, as it always did.
+        ProcessBuilder nuget = new ProcessBuilder(cmd);
+        if (taskContext.getWorkingDir() != null && new File(taskContext.getWorkingDir()).isDirectory()) {
+            nuget.directory(new File(taskContext.getWorkingDir()));
+        }
+        return nuget;
     }
 }
@@ -0,0 +1,831 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Packs a `.nuspec` into a `.nupkg` without the nuget CLI: the files it lists are compressed in parallel and written
+ * into a zip with the Open Packaging Conventions metadata NuGet expects. This covers what `nuget pack` does for a
+ * nuspec on its own; projects, `-Build`, `-Symbols` and `-Tool` still need the CLI.
+ * <p>
+ * Packages are reproducible: every entry gets the earliest zip time, and the OPC part names and relationship IDs are
+ * derived from the manifest rather than random, so identical inputs give byte-identical packages.
+ */
+public class NuspecPacker {
+    static final String MANIFEST_RELATIONSHIP = "http://schemas.microsoft.com/packaging/2010/07/manifest";
+    static final String CORE_PROPERTIES_RELATIONSHIP = "http://schemas.openxmlformats.org/package/2006/relationships/metadata/core-properties";
+    static final String CONTENT_TYPES = "[Content_Types].xml";
+    static final String RELATIONSHIPS = "_rels/.rels";
+    static final String CORE_PROPERTIES_DIR = "package/services/metadata/core-properties/";
+
+    private static final Pattern TOKEN = Pattern.compile("\\$(\\w+)\\$");
+    private static final Pattern VERSION = Pattern.compile("(\\d+(?:\\.\\d+){0,3})(?:-([0-9A-Za-z.-]+))?(?:\\+([0-9A-Za-z.-]+))?");
+    // Files and folders starting with a dot (e.g. .git, .gitignore) and packages are left out unless -NoDefaultExcludes is set
+    private static final List<Pattern> DEFAULT_EXCLUDES = List.of(
+        PathGlob.toRegex("**/.*"), PathGlob.toRegex("**/.*/**"), PathGlob.toRegex("**/*.nupkg"), PathGlob.toRegex("**/*.snupkg"));
+    // NuGet marks an empty folder with an empty file of this name, as zips of packages have no directory entries
+    private static final String EMPTY_FOLDER = "_._";
+    private static final String CONTENT_TYPE = "application/octet";
+
+    private final Path nuspec;
+    private Path basePath;
+    private Map<String, String> properties = Map.of();
+    private List<String> excludes = List.of();
+    private String version;
+    private String suffix;
+    private String minClientVersion;
+    private boolean excludeEmptyDirectories;
+    private boolean noDefaultExcludes;
+    private boolean withoutVersion;
+    private int concurrency = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The package written by a pack
+     */
+    public static class Packed {
+        private final Path path;
+        private final String id;
+        private final String version;
+        private final int files;
+        private final long bytes;
+
+        Packed(Path path, String id, String version, int files, long bytes) {
+            this.path = path;
+            this.id = id;
+            this.version = version;
+            this.files = files;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Get the package file
+         * @return The path of the `.nupkg`
+         */
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * Get the package ID
+         * @return The ID
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Get the normalized package version
+         * @return The version
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Describe the package for the task result
+         * @return The package, file count and size
+         */
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("path", path.toString());
+            map.put("id", id);
+            map.put("version", version);
+            map.put("files", files);
+            map.put("bytes", bytes);
+            return map;
+        }
+    }
+
+    /**
+     * What a pack will write: the manifest as it goes in the package, and the files by package path
+     */
+    public static class Plan {
+        private final String id;
+        private final String version;
+        private final String fileName;
+        private final Element metadata;
+        private final byte[] manifest;
+        private final Map<String, Path> files;
+
+        Plan(String id, String version, String fileName, Element metadata, byte[] manifest, Map<String, Path> files) {
+            this.id = id;
+            this.version = version;
+            this.fileName = fileName;
+            this.metadata = metadata;
+            this.manifest = manifest;
+            this.files = files;
+        }
+
+        /**
+         * Get the file name of the package
+         * @return The name, e.g. `Id.1.0.0.nupkg`
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * Get the manifest as it goes in the package, with its tokens replaced and without its files element
+         * @return The manifest
+         */
+        public byte[] getManifest() {
+            return manifest.clone();
+        }
+
+        /**
+         * Get the files to pack
+         * @return The files by package path, sorted; an empty folder maps to null
+         */
+        public Map<String, Path> getFiles() {
+            return files;
+        }
+    }
+
+    /**
+     * @param nuspec The `.nuspec` to pack
+     */
+    public NuspecPacker(Path nuspec) {
+        this.nuspec = nuspec;
+        this.basePath = nuspec.toAbsolutePath().getParent();
+    }
+
+    /**
+     * Resolve the files of the nuspec against a folder other than the one the nuspec is in, as `-BasePath` does
+     * @param basePath The base folder, or null to keep the nuspec's folder
+     * @return This packer
+     */
+    public NuspecPacker withBasePath(Path basePath) {
+        if (basePath != null) {
+            this.basePath = basePath;
+        }
+        return this;
+    }
+
+    /**
+     * Set the values of the `$token$`s in the nuspec, as `-Properties` does
+     * @param properties The token values; token names are not case sensitive
+     * @return This packer
+     */
+    public NuspecPacker withProperties(Map<String, String> properties) {
+        Map<String, String> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        values.putAll(properties);
+        this.properties = values;
+        return this;
+    }
+
+    /**
+     * Leave out files matching more wildcards, as `-Exclude` does
+     * @param excludes The wildcards, relative to the base folder
+     * @return This packer
+     */
+    public NuspecPacker withExcludes(List<String> excludes) {
+        this.excludes = excludes;
+        return this;
+    }
+
+    /**
+     * Override the version in the nuspec, and its prerelease label, as `-Version` and `-Suffix` do
+     * @param version The version, or null to keep the nuspec's
+     * @param suffix The prerelease label, or null to keep the version's
+     * @return This packer
+     */
+    public NuspecPacker withVersion(String version, String suffix) {
+        this.version = version == null || version.trim().isEmpty() ? null : version.trim();
+        this.suffix = suffix == null || suffix.trim().isEmpty() ? null : suffix.trim();
+        return this;
+    }
+
+    /**
+     * Set the oldest NuGet client that may install the package, as `-MinClientVersion` does
+     * @param minClientVersion The client version, or null to keep the nuspec's
+     * @return This packer
+     */
+    public NuspecPacker withMinClientVersion(String minClientVersion) {
+        this.minClientVersion = minClientVersion == null || minClientVersion.trim().isEmpty() ? null : minClientVersion.trim();
+        return this;
+    }
+
+    /**
+     * Set the `-ExcludeEmptyDirectories`, `-NoDefaultExcludes` and `-OutputFileNamesWithoutVersion` switches
+     * @param excludeEmptyDirectories Leave out folders matched by a wildcard that have no files
+     * @param noDefaultExcludes Keep files and folders starting with a dot, and packages
+     * @param withoutVersion Name the package `id.nupkg` rather than `id.version.nupkg`
+     * @return This packer
+     */
+    public NuspecPacker withSwitches(boolean excludeEmptyDirectories, boolean noDefaultExcludes, boolean withoutVersion) {
+        this.excludeEmptyDirectories = excludeEmptyDirectories;
+        this.noDefaultExcludes = noDefaultExcludes;
+        this.withoutVersion = withoutVersion;
+        return this;
+    }
+
+    /**
+     * Set how many files are compressed at once
+     * @param concurrency The most files to compress at once
+     * @return This packer
+     */
+    public NuspecPacker withConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+        return this;
+    }
+
+    /**
+     * Parse the `-Properties` value
+     * @param value The properties, e.g. `Configuration=Release;Owner=me`
+     * @return The property values, in order
+     * @throws IllegalArgumentException If a property has no name
+     */
+    public static Map<String, String> parseProperties(String value) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        if (value == null) {
+            return properties;
+        }
+        for (String property : value.split(";")) {
+            if (property.trim().isEmpty()) {
+                continue;
+            }
+            int equals = property.indexOf('=');
+            if (equals <= 0 || property.substring(0, equals).trim().isEmpty()) {
+                throw new IllegalArgumentException("Properties must be name=value pairs separated by semicolons: " + property);
+            }
+            properties.put(property.substring(0, equals).trim(), property.substring(equals + 1).trim());
+        }
+        return properties;
+    }
+
+    /**
+     * Pack the nuspec, then check the package the way `nuget verify` reads it
+     * @param outputDir The folder to write the package to
+     * @return The package
+     * @throws IOException If the nuspec is invalid, a file can't be read or the package can't be written
+     * @throws InterruptedException
+     */
+    public Packed pack(Path outputDir) throws IOException, InterruptedException {
+        return write(plan(), outputDir);
+    }
+
+    /**
+     * Read the nuspec and find the files it includes, without writing anything
+     * @return The plan of the package
+     * @throws IOException If the nuspec is invalid or a file it lists doesn't exist
+     */
+    public Plan plan() throws IOException {
+        Document manifest = parse(replaceTokens(Files.readString(nuspec, StandardCharsets.UTF_8)), nuspec.toString());
+        Element metadata = child(manifest.getDocumentElement(), "metadata");
+        if (!"package".equals(manifest.getDocumentElement().getLocalName()) || metadata == null) {
+            throw new IOException(nuspec + " is not a nuspec: it has no package/metadata element");
+        }
+
+        String id = required(metadata, "id");
+        required(metadata, "authors");
+        required(metadata, "description");
+        String packageVersion = normalizeVersion(version == null ? required(metadata, "version") : version, suffix);
+        setText(metadata, "version", packageVersion);
+        if (minClientVersion != null) {
+            metadata.setAttribute("minClientVersion", minClientVersion);
+        }
+
+        Map<String, Path> files = collectFiles(child(manifest.getDocumentElement(), "files"));
+        removeFiles(manifest);
+        String fileName = withoutVersion ? id + ".nupkg" : id + "." + packageVersion.replaceAll("\\+.*$", "") + ".nupkg";
+        return new Plan(id, packageVersion, fileName, metadata, serialize(manifest), files);
+    }
+
+    /**
+     * Write a planned package, then check it the way `nuget verify` reads it
+     * @param plan The plan of the package
+     * @param outputDir The folder to write the package to
+     * @return The package
+     * @throws IOException If a file can't be read or the package can't be written
+     * @throws InterruptedException
+     */
+    public Packed write(Plan plan, Path outputDir) throws IOException, InterruptedException {
+        String nuspecPart = plan.id + ".nuspec";
+        String digest = RestoreFingerprint.toHex(RestoreFingerprint.sha256().digest(plan.manifest));
+        String corePropertiesPart = CORE_PROPERTIES_DIR + digest.substring(0, 32) + ".psmdcp";
+        FileTime time = ParallelZipWriter.ZIP_EPOCH;
+
+        ParallelZipWriter zip = new ParallelZipWriter(Deflater.DEFAULT_COMPRESSION);
+        zip.addBytes(RELATIONSHIPS, relationships(nuspecPart, corePropertiesPart, digest), time);
+        zip.addBytes(nuspecPart, plan.manifest, time);
+        Set<String> parts = new HashSet<>();
+        parts.add(RELATIONSHIPS.toLowerCase(Locale.ROOT));
+        parts.add(nuspecPart.toLowerCase(Locale.ROOT));
+        for (Map.Entry<String, Path> file : plan.files.entrySet()) {
+            String part = partName(file.getKey());
+            if (!parts.add(part.toLowerCase(Locale.ROOT))) {
+                throw new IOException(String.format("%s has more than one file packed to %s", nuspec, file.getKey()));
+            }
+            if (file.getValue() == null) {
+                zip.addBytes(part, new byte[0], time);
+            } else {
+                zip.addFile(part, file.getValue(), time);
+            }
+        }
+        zip.addBytes(corePropertiesPart, coreProperties(plan.metadata, plan.id, plan.version), time);
+        zip.addBytes(CONTENT_TYPES, contentTypes(zip.getNames()), time);
+
+        Files.createDirectories(outputDir);
+        Path target = outputDir.resolve(plan.fileName);
+        long bytes = zip.write(target, concurrency);
+        verify(target);
+        return new Packed(target, plan.id, plan.version, plan.files.size(), bytes);
+    }
+
+    /**
+     * Check that a package has the structure NuGet relies on when it reads one: a readable zip whose entries match their
+     * checksums, a single manifest at the root with an ID and version, and the OPC content types and relationships
+     * @param nupkg The package
+     * @throws IOException Listing everything that is wrong with the package
+     */
+    public static void verify(Path nupkg) throws IOException {
+        List<String> problems = new ArrayList<>();
+        Map<String, byte[]> metadata = new HashMap<>();
+        List<String> names = new ArrayList<>();
+
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(nupkg))) {
+            Set<String> seen = new HashSet<>();
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                String name = entry.getName();
+                names.add(name);
+                if (!seen.add(name.toLowerCase(Locale.ROOT))) {
+                    problems.add("more than one entry is named " + name);
+                }
+                if (name.startsWith("/") || name.contains("\\") || name.equals("..") || name.startsWith("../") || name.contains("/../")) {
+                    problems.add("entry " + name + " is not a relative path inside the package");
+                }
+                // Reading to the end checks the entry's size and CRC
+                byte[] content = zip.readAllBytes();
+                if (name.equals(CONTENT_TYPES) || name.equals(RELATIONSHIPS) || name.startsWith(CORE_PROPERTIES_DIR)
+                    || (!name.contains("/") && name.toLowerCase(Locale.ROOT).endsWith(".nuspec"))) {
+                    metadata.put(name, content);
+                }
+            }
+        } catch (IOException e) {
+            throw new IOException(String.format("%s is not a valid package: %s", nupkg, e.getMessage()), e);
+        }
+
+        try (ZipFile central = new ZipFile(nupkg.toFile())) {
+            List<String> listed = central.stream().map(ZipEntry::getName).collect(Collectors.toList());
+            if (!listed.equals(names)) {
+                problems.add("the central directory doesn't match the entries");
+            }
+        }
+
+        List<String> manifests = names.stream().filter(name -> !name.contains("/") && name.toLowerCase(Locale.ROOT).endsWith(".nuspec")).collect(Collectors.toList());
+        if (manifests.size() != 1) {
+            problems.add(String.format("the package must have one .nuspec at its root, it has %d", manifests.size()));
+        } else {
+            try {
+                Element manifestMetadata = child(parse(new String(metadata.get(manifests.get(0)), StandardCharsets.UTF_8), manifests.get(0)).getDocumentElement(), "metadata");
+                if (manifestMetadata == null || text(manifestMetadata, "id") == null || text(manifestMetadata, "version") == null) {
+                    problems.add(manifests.get(0) + " has no ID or version");
+                }
+            } catch (IOException e) {
+                problems.add(e.getMessage());
+            }
+        }
+
+        if (!metadata.containsKey(CONTENT_TYPES)) {
+            problems.add("the package has no " + CONTENT_TYPES);
+        } else {
+            try {
+                Set<String> extensions = new HashSet<>();
+                Set<String> overrides = new HashSet<>();
+                NodeList types = parse(new String(metadata.get(CONTENT_TYPES), StandardCharsets.UTF_8), CONTENT_TYPES).getDocumentElement().getChildNodes();
+                for (int i = 0; i < types.getLength(); i++) {
+                    if (types.item(i) instanceof Element) {
+                        Element type = (Element) types.item(i);
+                        extensions.add(type.getAttribute("Extension").toLowerCase(Locale.ROOT));
+                        overrides.add(type.getAttribute("PartName").toLowerCase(Locale.ROOT));
+                    }
+                }
+                for (String name : names) {
+                    if (!name.equals(CONTENT_TYPES) && !extensions.contains(extensionOf(name).toLowerCase(Locale.ROOT)) && !overrides.contains("/" + name.toLowerCase(Locale.ROOT))) {
+                        problems.add(CONTENT_TYPES + " has no content type for " + name);
+                    }
+                }
+            } catch (IOException e) {
+                problems.add(e.getMessage());
+            }
+        }
+
+        if (!metadata.containsKey(RELATIONSHIPS)) {
+            problems.add("the package has no " + RELATIONSHIPS);
+        } else {
+            try {
+                Map<String, String> targets = new HashMap<>();
+                NodeList relationships = parse(new String(metadata.get(RELATIONSHIPS), StandardCharsets.UTF_8), RELATIONSHIPS).getDocumentElement().getChildNodes();
+                for (int i = 0; i < relationships.getLength(); i++) {
+                    if (relationships.item(i) instanceof Element) {
+                        Element relationship = (Element) relationships.item(i);
+                        targets.put(relationship.getAttribute("Type"), relationship.getAttribute("Target"));
+                    }
+                }
+                String manifestTarget = targets.get(MANIFEST_RELATIONSHIP);
+                if (manifestTarget == null || manifests.size() != 1 || !manifestTarget.equals("/" + manifests.get(0))) {
+                    problems.add(RELATIONSHIPS + " doesn't point to the manifest");
+                }
+                String coreTarget = targets.get(CORE_PROPERTIES_RELATIONSHIP);
+                if (coreTarget != null && !metadata.containsKey(coreTarget.replaceFirst("^/", ""))) {
+                    problems.add(RELATIONSHIPS + " points to " + coreTarget + ", which is not in the package");
+                }
+            } catch (IOException e) {
+                problems.add(e.getMessage());
+            }
+        }
+
+        if (!problems.isEmpty()) {
+            throw new IOException(String.format("%s is not a valid package: %s", nupkg, String.join("; ", problems)));
+        }
+    }
+
+    /**
+     * Replace the `$token$`s in the nuspec with the property values
+     * @param text The nuspec
+     * @return The nuspec with its tokens replaced
+     * @throws IOException If a token has no value
+     */
+    private String replaceTokens(String text) throws IOException {
+        Matcher matcher = TOKEN.matcher(text);
+        StringBuilder replaced = new StringBuilder();
+        while (matcher.find()) {
+            String value = properties.get(matcher.group(1));
+            if (value == null) {
+                throw new IOException(String.format("The replacement token '%s' in %s has no value, set it in the properties", matcher.group(1), nuspec));
+            }
+            matcher.appendReplacement(replaced, Matcher.quoteReplacement(escapeXml(value)));
+        }
+        matcher.appendTail(replaced);
+        return replaced.toString();
+    }
+
+    /**
+     * Map the files element of the nuspec to the package paths of the files it includes. Without a files element,
+     * everything in the base folder is packed.
+     * @param filesElement The files element, or null
+     * @return The files by package path, sorted; an empty folder maps to null
+     * @throws IOException
+     */
+    private Map<String, Path> collectFiles(Element filesElement) throws IOException {
+        Map<String, Path> files = new TreeMap<>();
+        List<String[]> specs = new ArrayList<>();
+        if (filesElement == null) {
+            specs.add(new String[]{"**", "", ""});
+        } else {
+            NodeList children = filesElement.getChildNodes();
+            for (int i = 0; i < children.getLength(); i++) {
+                if (children.item(i) instanceof Element && "file".equals(children.item(i).getLocalName())) {
+                    Element file = (Element) children.item(i);
+                    specs.add(new String[]{file.getAttribute("src"), file.getAttribute("target"), file.getAttribute("exclude")});
+                }
+            }
+        }
+
+        Path base = basePath.toAbsolutePath().normalize();
+        Path manifestPath = nuspec.toAbsolutePath().normalize();
+        for (String[] spec : specs) {
+            String src = spec[0].replace('\\', '/');
+            String target = spec[1].replace('\\', '/');
+            if (src.trim().isEmpty()) {
+                throw new IOException(nuspec + " has a file element without a src");
+            }
+            List<Pattern> fileExcludes = new ArrayList<>();
+            for (String exclude : (spec[2] + ";" + String.join(";", excludes)).split(";")) {
+                if (!exclude.trim().isEmpty()) {
+                    fileExcludes.add(PathGlob.toRegex(exclude.trim().replace('\\', '/')));
+                }
+            }
+
+            int wildcard = indexOfWildcard(src);
+            if (wildcard < 0) {
+                Path file = base.resolve(src).normalize();
+                if (!Files.isRegularFile(file)) {
+                    throw new IOException(String.format("%s includes %s, which doesn't exist", nuspec, file));
+                }
+                if (!isExcluded(base, file, fileExcludes)) {
+                    files.put(singleFileTarget(target, file.getFileName().toString()), file);
+                }
+                continue;
+            }
+
+            // Matched files keep their path below the part of src without wildcards
+            int lastSlash = src.lastIndexOf('/', wildcard);
+            Path root = base.resolve(lastSlash < 0 ? "" : src.substring(0, lastSlash + 1)).normalize();
+            Pattern matcher = PathGlob.toRegex(src.substring(lastSlash + 1));
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            String prefix = target.isEmpty() || target.endsWith("/") ? target : target + "/";
+            List<Path> matches;
+            try (Stream<Path> walk = Files.walk(root)) {
+                matches = walk.filter(path -> !path.equals(root)).sorted().collect(Collectors.toList());
+            }
+            for (Path path : matches) {
+                String relative = root.relativize(path).toString().replace('\\', '/');
+                if (path.equals(manifestPath) || isExcluded(base, path, fileExcludes)) {
+                    continue;
+                }
+                if (Files.isRegularFile(path) && matcher.matcher(relative).matches()) {
+                    files.put(prefix + relative, path);
+                } else if (!excludeEmptyDirectories && Files.isDirectory(path) && matcher.matcher(relative + "/x").matches() && isEmpty(path)) {
+                    files.put(prefix + relative + "/" + EMPTY_FOLDER, null);
+                }
+            }
+        }
+        return files;
+    }
+
+    private boolean isExcluded(Path base, Path file, List<Pattern> fileExcludes) {
+        String relative = base.relativize(file).toString().replace('\\', '/');
+        for (Pattern exclude : fileExcludes) {
+            if (exclude.matcher(relative).matches()) {
+                return true;
+            }
+        }
+        if (!noDefaultExcludes) {
+            String rooted = "x/" + relative;
+            for (Pattern exclude : DEFAULT_EXCLUDES) {
+                if (exclude.matcher(rooted).matches()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEmpty(Path directory) throws IOException {
+        try (Stream<Path> list = Files.list(directory)) {
+            return list.findAny().isEmpty();
+        }
+    }
+
+    /**
+     * Where a file without wildcards goes: into the target folder, or to the target itself if it names a file with the
+     * same extension, as NuGet renames files that way
+     */
+    private static String singleFileTarget(String target, String fileName) {
+        if (target.isEmpty()) {
+            return fileName;
+        }
+        if (target.endsWith("/")) {
+            return target + fileName;
+        }
+        String extension = extensionOf(fileName);
+        String targetName = target.substring(target.lastIndexOf('/') + 1);
+        if (!extension.isEmpty() && extensionOf(targetName).equalsIgnoreCase(extension)) {
+            return target;
+        }
+        return target + "/" + fileName;
+    }
+
+    private static int indexOfWildcard(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '*' || value.charAt(i) == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Normalize a version the way NuGet names packages: at least three parts, a fourth only if it isn't zero, and
+     * no leading zeros
+     * @param value The version
+     * @param suffix A prerelease label to use instead of the version's, or null
+     * @return The normalized version
+     * @throws IOException If the version is not a valid NuGet version
+     */
+    static String normalizeVersion(String value, String suffix) throws IOException {
+        Matcher matcher = VERSION.matcher(value.trim());
+        if (!matcher.matches()) {
+            throw new IOException("'" + value + "' is not a valid version string");
+        }
+        List<String> parts = new ArrayList<>();
+        for (String part : matcher.group(1).split("\\.")) {
+            parts.add(Long.toString(Long.parseLong(part)));
+        }
+        while (parts.size() < 3) {
+            parts.add("0");
+        }
+        if (parts.size() == 4 && parts.get(3).equals("0")) {
+            parts.remove(3);
+        }
+        String label = suffix != null ? suffix : matcher.group(2);
+        return String.join(".", parts) + (label == null ? "" : "-" + label) + (matcher.group(3) == null ? "" : "+" + matcher.group(3));
+    }
+
+    /**
+     * Escape a package path into an OPC part name, which is a URI path
+     */
+    static String partName(String path) {
+        StringBuilder part = new StringBuilder();
+        for (byte b : path.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || "-._~!$&'()*+,;=:@/".indexOf(c) >= 0) {
+                part.append(c);
+            } else {
+                part.append(String.format("%%%02X", b & 0xFF));
+            }
+        }
+        return part.toString();
+    }
+
+    private static String extensionOf(String name) {
+        String fileName = name.substring(name.lastIndexOf('/') + 1);
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1);
+    }
+
+    private static byte[] relationships(String nuspecPart, String corePropertiesPart, String digest) {
+        return xml("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + relationship(MANIFEST_RELATIONSHIP, "/" + nuspecPart, "R" + digest.substring(32, 48).toUpperCase(Locale.ROOT))
+            + relationship(CORE_PROPERTIES_RELATIONSHIP, "/" + corePropertiesPart, "R" + digest.substring(48, 64).toUpperCase(Locale.ROOT))
+            + "</Relationships>");
+    }
+
+    private static String relationship(String type, String target, String id) {
+        return String.format("<Relationship Type=\"%s\" Target=\"%s\" Id=\"%s\" />", type, escapeXml(target), id);
+    }
+
+    private static byte[] coreProperties(Element metadata, String id, String packageVersion) {
+        StringBuilder properties = new StringBuilder("<coreProperties xmlns:dc=\"http://purl.org/dc/elements/1.1/\" xmlns:dcterms=\"http://purl.org/dc/terms/\""
+            + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" xmlns=\"http://schemas.openxmlformats.org/package/2006/metadata/core-properties\">");
+        properties.append("<dc:creator>").append(escapeXml(text(metadata, "authors"))).append("</dc:creator>");
+        properties.append("<dc:description>").append(escapeXml(text(metadata, "description"))).append("</dc:description>");
+        properties.append("<dc:identifier>").append(escapeXml(id)).append("</dc:identifier>");
+        properties.append("<version>").append(escapeXml(packageVersion)).append("</version>");
+        String tags = text(metadata, "tags");
+        properties.append("<keywords>").append(tags == null ? "" : escapeXml(tags)).append("</keywords>");
+        properties.append("<lastModifiedBy>gocd-nuget-task</lastModifiedBy>");
+        properties.append("</coreProperties>");
+        return xml(properties.toString());
+    }
+
+    private static byte[] contentTypes(List<String> parts) {
+        Map<String, String> defaults = new TreeMap<>();
+        defaults.put("rels", "application/vnd.openxmlformats-package.relationships+xml");
+        defaults.put("psmdcp", "application/vnd.openxmlformats-package.core-properties+xml");
+        List<String> overrides = new ArrayList<>();
+        for (String part : parts) {
+            String extension = extensionOf(part);
+            if (extension.isEmpty()) {
+                overrides.add(part);
+            } else {
+                defaults.putIfAbsent(extension.toLowerCase(Locale.ROOT), CONTENT_TYPE);
+            }
+        }
+
+        StringBuilder types = new StringBuilder("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">");
+        defaults.forEach((extension, type) -> types.append(String.format("<Default Extension=\"%s\" ContentType=\"%s\" />", escapeXml(extension), type)));
+        overrides.forEach(part -> types.append(String.format("<Override PartName=\"/%s\" ContentType=\"%s\" />", escapeXml(part), CONTENT_TYPE)));
+        types.append("</Types>");
+        return xml(types.toString());
+    }
+
+    private static byte[] xml(String body) {
+        return ("<?xml version=\"1.0\" encoding=\"utf-8\"?>" + body).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String escapeXml(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;").replace("'", "&apos;");
+    }
+
+    private static Document parse(String text, String name) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            // Nuspecs don't need a DTD, and refusing one keeps external entities out
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            // Report errors through the exception only, rather than on stderr too
+            builder.setErrorHandler(new DefaultHandler());
+            try (InputStream in = new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))) {
+                return builder.parse(in);
+            }
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException(String.format("%s is not valid XML: %s", name, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * Write the manifest as it goes in the package, with the XML declaration NuGet writes
+     */
+    private static byte[] serialize(Document manifest) throws IOException {
+        try {
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+            StringWriter writer = new StringWriter();
+            transformer.transform(new DOMSource(manifest), new StreamResult(writer));
+            return ("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" + writer).getBytes(StandardCharsets.UTF_8);
+        } catch (TransformerException e) {
+            throw new IOException("Could not write the manifest: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The package lists its files itself, so the manifest inside it has no files element
+     */
+    private static void removeFiles(Document manifest) {
+        Element files = child(manifest.getDocumentElement(), "files");
+        if (files == null) {
+            return;
+        }
+        Node previous = files.getPreviousSibling();
+        if (previous != null && previous.getNodeType() == Node.TEXT_NODE && previous.getTextContent().trim().isEmpty()) {
+            previous.getParentNode().removeChild(previous);
+        }
+        files.getParentNode().removeChild(files);
+    }
+
+    private static Element child(Element parent, String localName) {
+        NodeList children = parent.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (children.item(i) instanceof Element && localName.equals(children.item(i).getLocalName())) {
+                return (Element) children.item(i);
+            }
+        }
+        return null;
+    }
+
+    private static String text(Element parent, String localName) {
+        Element element = child(parent, localName);
+        return element == null || element.getTextContent().trim().isEmpty() ? null : element.getTextContent().trim();
+    }
+
+    private String required(Element metadata, String localName) throws IOException {
+        String value = text(metadata, localName);
+        if (value == null) {
+            throw new IOException(String.format("%s has no %s, which a package must have", nuspec, localName));
+        }
+        return value;
+    }
+
+    private static void setText(Element parent, String localName, String value) {
+        Element element = child(parent, localName);
+        if (element == null) {
+            element = parent.getOwnerDocument().createElementNS(parent.getNamespaceURI(), localName);
+            parent.appendChild(element);
+        }
+        element.setTextContent(value);
+    }
+}
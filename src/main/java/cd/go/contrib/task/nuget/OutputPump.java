@@ -0,0 +1,362 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
+
+/**
+ * Pumps the output of a process into the job console. A reader thread per stream masks the secrets of the console
+ * (see {@link ProcessOutputSink#getOutputMasker()}), splits the output into lines and hands them in batches, through a
+ * queue bounded by batches and by characters, to a single thread that writes them to the console. When the console falls behind a flood of output, the readers wait (and so does the process, once its
+ * pipe is full) rather than the queue growing, and {@link #await(long)} only returns once every line read has been
+ * written.
+ */
+public class OutputPump {
+    /**
+     * The most lines handed over at once
+     */
+    static final int BATCH_LINES = 256;
+
+    /**
+     * The most batches waiting for the console
+     */
+    static final int QUEUE_BATCHES = 64;
+
+    /**
+     * The most characters handed over at once, so that a batch of long lines is handed over early
+     */
+    static final int BATCH_CHARS = 256 * 1024;
+
+    /**
+     * The most characters waiting for the console, about 8 MiB
+     */
+    static final int QUEUE_CHARS = 4 * 1024 * 1024;
+
+    /**
+     * Longer lines are split, so that output without line breaks can't use unbounded memory
+     */
+    static final int MAX_LINE_CHARS = 64 * 1024;
+
+    /**
+     * The label of lines read from stderr, as the job console shows them in a batch
+     */
+    static final String STDERR_LABEL = "STDERR: ";
+
+    /**
+     * Marks the end of one stream in the queue
+     */
+    private static final Batch END = new Batch(false, List.of(), 0);
+
+    private static class Batch {
+        private final boolean stderr;
+        private final List<String> lines;
+        private final int chars;
+
+        Batch(boolean stderr, List<String> lines, int chars) {
+            this.stderr = stderr;
+            this.lines = lines;
+            this.chars = chars;
+        }
+    }
+
+    private final JobConsoleLogger console;
+    private final SecretMasker masker;
+    private final String name;
+    private final int batchLines;
+    private final BlockingQueue<Batch> queue;
+    private final int queueChars;
+    private final Semaphore queuedChars;
+    private final CountDownLatch read = new CountDownLatch(2);
+    private final CountDownLatch written = new CountDownLatch(1);
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong stdoutLines = new AtomicLong();
+    private final AtomicLong stderrLines = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private volatile int peakQueued;
+    private volatile int peakQueuedChars;
+    private long startedAt;
+    private volatile long finishedAt;
+
+    /**
+     * Construct a pump with the default batch and queue sizes
+     * @param console The job console to write to
+     * @param name Names the pump threads, e.g. the NuGet command
+     */
+    public OutputPump(JobConsoleLogger console, String name) {
+        this(console, name, BATCH_LINES, QUEUE_BATCHES, QUEUE_CHARS);
+    }
+
+    /**
+     * Construct a pump
+     * @param console The job console to write to
+     * @param name Names the pump threads, e.g. the NuGet command
+     * @param batchLines The most lines handed over at once
+     * @param queueBatches The most batches waiting for the console
+     * @param queueChars The most characters waiting for the console
+     */
+    OutputPump(JobConsoleLogger console, String name, int batchLines, int queueBatches, int queueChars) {
+        this.console = console;
+        this.masker = ProcessOutputSink.outputMasker(console);
+        this.name = name;
+        this.batchLines = batchLines;
+        this.queue = new ArrayBlockingQueue<>(queueBatches);
+        this.queueChars = queueChars;
+        this.queuedChars = new Semaphore(queueChars);
+    }
+
+    /**
+     * Start reading the process output
+     * @param stdout The process stdout
+     * @param stderr The process stderr
+     */
+    public void start(InputStream stdout, InputStream stderr) {
+        startedAt = System.nanoTime();
+        daemon(() -> read(stdout, false), "stdout").start();
+        daemon(() -> read(stderr, true), "stderr").start();
+        daemon(this::write, "console").start();
+    }
+
+    private Thread daemon(Runnable runnable, String stream) {
+        Thread thread = new Thread(runnable, "nuget-output-" + name + "-" + stream);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private void read(InputStream in, boolean stderr) {
+        Lines lines = new Lines(stderr);
+        // Masked before it's split into lines, so a secret across a split line is masked too
+        SecretMasker.Stream masking = masker.isEmpty() ? null : masker.stream();
+        StringBuilder masked = new StringBuilder();
+        try (Reader reader = new InputStreamReader(new FilterInputStream(in) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    bytes.addAndGet(n);
+                }
+                return n;
+            }
+        }, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[8192];
+            int n;
+            while ((n = reader.read(buffer)) >= 0) {
+                if (masking == null) {
+                    lines.split(CharBuffer.wrap(buffer, 0, n));
+                } else {
+                    masked.setLength(0);
+                    masking.write(CharBuffer.wrap(buffer, 0, n), masked);
+                    lines.split(masked);
+                }
+
+                // Hand over what has been read when the process pauses, so the console doesn't lag behind it
+                if (!reader.ready()) {
+                    lines.handOver();
+                }
+            }
+
+            if (masking != null) {
+                masked.setLength(0);
+                masking.flush(masked);
+                lines.split(masked);
+            }
+            lines.finish();
+        } catch (IOException e) {
+            // The process was stopped and its streams closed under the reader
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            read.countDown();
+        }
+    }
+
+    /**
+     * Splits the output of one stream into lines and hands them over in batches
+     */
+    private class Lines {
+        private final boolean stderr;
+        private final AtomicLong count;
+        private final StringBuilder line = new StringBuilder();
+        private List<String> batch = new ArrayList<>(batchLines);
+        private int batchChars;
+        private boolean lastWasCr;
+
+        Lines(boolean stderr) {
+            this.stderr = stderr;
+            this.count = stderr ? stderrLines : stdoutLines;
+        }
+
+        void split(CharSequence chars) throws InterruptedException {
+            for (int i = 0, length = chars.length(); i < length; i++) {
+                char c = chars.charAt(i);
+                if (c == '\n' && lastWasCr) {
+                    // \r\n ends one line, not two
+                    lastWasCr = false;
+                    continue;
+                }
+                lastWasCr = c == '\r';
+
+                if (c != '\n' && c != '\r') {
+                    line.append(c);
+                    if (line.length() < MAX_LINE_CHARS) {
+                        continue;
+                    }
+                }
+                batch.add(line.toString());
+                batchChars += line.length();
+                line.setLength(0);
+                if (batch.size() >= batchLines || batchChars >= BATCH_CHARS) {
+                    handOver();
+                }
+            }
+        }
+
+        void handOver() throws InterruptedException {
+            if (!batch.isEmpty()) {
+                count.addAndGet(batch.size());
+                batch = OutputPump.this.handOver(stderr, batch, batchChars);
+                batchChars = 0;
+            }
+        }
+
+        void finish() throws InterruptedException {
+            if (line.length() > 0) {
+                batch.add(line.toString());
+                batchChars += line.length();
+            }
+            handOver();
+        }
+    }
+
+    private List<String> handOver(boolean stderr, List<String> batch, int batchChars) throws InterruptedException {
+        // A batch can't take more than the whole budget, or it would wait forever
+        Batch full = new Batch(stderr, batch, Math.min(batchChars, queueChars));
+        long blockedAt = System.nanoTime();
+        boolean blocked = false;
+        if (!queuedChars.tryAcquire(full.chars)) {
+            blocked = true;
+            queuedChars.acquire(full.chars);
+        }
+        if (!queue.offer(full)) {
+            blocked = true;
+            queue.put(full);
+        }
+        if (blocked) {
+            blockedNanos.addAndGet(System.nanoTime() - blockedAt);
+        }
+        batches.incrementAndGet();
+        peakQueued = Math.max(peakQueued, queue.size());
+        peakQueuedChars = Math.max(peakQueuedChars, queueChars - queuedChars.availablePermits());
+        return new ArrayList<>(batchLines);
+    }
+
+    private void write() {
+        try {
+            int ended = 0;
+            while (ended < 2) {
+                Batch batch = queue.take();
+                if (batch == END) {
+                    ended++;
+                    continue;
+                }
+
+                try {
+                    for (String line : batch.lines) {
+                        ProcessOutputSink.print(console, batch.stderr ? STDERR_LABEL + line : line, batch.stderr);
+                    }
+                } catch (RuntimeException e) {
+                    // Keep taking batches, so the readers and the process aren't left waiting on a broken console
+                } finally {
+                    queuedChars.release(batch.chars);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            finishedAt = System.nanoTime();
+            written.countDown();
+        }
+    }
+
+    /**
+     * Wait for the streams to be read to the end, then for every line read to be written to the console
+     * @param timeoutMillis The longest to wait for the end of the streams, which a stray child process can hold open
+     * @return true if all output was written, false if the streams did not end in time
+     * @throws InterruptedException
+     */
+    public boolean await(long timeoutMillis) throws InterruptedException {
+        if (!read.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        // The queue is bounded, so there is only ever a little left to write
+        written.await();
+        return true;
+    }
+
+    /**
+     * Get how many lines were read
+     * @return The number of lines from both streams
+     */
+    public long getLines() {
+        return stdoutLines.get() + stderrLines.get();
+    }
+
+    /**
+     * Get the throughput of the pump
+     * @return Lines, bytes and batches pumped, their rates, the most batches and characters that waited for the console
+     * at once, and how long the readers waited for the console
+     */
+    public Map<String, Object> getStatistics() {
+        long end = finishedAt == 0 ? System.nanoTime() : finishedAt;
+        double seconds = Math.max(1, end - startedAt) / 1e9;
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("stdoutLines", stdoutLines.get());
+        statistics.put("stderrLines", stderrLines.get());
+        statistics.put("bytes", bytes.get());
+        statistics.put("batches", batches.get());
+        statistics.put("linesPerSecond", Math.round(getLines() / seconds));
+        statistics.put("bytesPerSecond", Math.round(bytes.get() / seconds));
+        statistics.put("peakQueuedBatches", peakQueued);
+        statistics.put("peakQueuedChars", peakQueuedChars);
+        statistics.put("blockedMillis", TimeUnit.NANOSECONDS.toMillis(blockedNanos.get()));
+        return statistics;
+    }
+}
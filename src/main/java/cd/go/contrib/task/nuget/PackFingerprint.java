@@ -0,0 +1,150 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonParseException;
+
+/**
+ * A fingerprint of everything a pack depends on, kept in a sidecar next to the package so that a pack whose inputs
+ * haven't changed can leave the package alone. The inputs are the command line, the manifest with its tokens
+ * replaced, and the package path and contents of every file the nuspec includes. The sidecar also records the digest
+ * of the package itself, so a package that was replaced or modified is packed again.
+ */
+public class PackFingerprint {
+    /**
+     * Bump when the fingerprint changes meaning, to invalidate existing sidecars
+     */
+    static final int SIDECAR_VERSION = 1;
+
+    /**
+     * Appended to the package file name to name its sidecar
+     */
+    static final String SIDECAR_SUFFIX = ".nuget-task-pack.json";
+
+    private final Path nupkg;
+    private final Path sidecar;
+    private final String inputsDigest;
+
+    private PackFingerprint(Path nupkg, String inputsDigest) {
+        this.nupkg = nupkg;
+        this.sidecar = nupkg.resolveSibling(nupkg.getFileName() + SIDECAR_SUFFIX);
+        this.inputsDigest = inputsDigest;
+    }
+
+    /**
+     * Fingerprint the inputs of a pack
+     * @param command The NuGet command line, without the output directory, and the packer that writes the package
+     * @param plan The plan of the package, which has the manifest and the files it includes
+     * @param outputDir The folder the package is written to
+     * @return The fingerprint
+     * @throws IOException
+     */
+    public static PackFingerprint of(List<String> command, NuspecPacker.Plan plan, Path outputDir) throws IOException {
+        MessageDigest digest = RestoreFingerprint.sha256();
+        digest.update(("argv:" + String.join("\u0000", command) + "\n").getBytes(StandardCharsets.UTF_8));
+        digest.update("manifest:".getBytes(StandardCharsets.UTF_8));
+        digest.update(RestoreFingerprint.sha256().digest(plan.getManifest()));
+        for (Map.Entry<String, Path> file : plan.getFiles().entrySet()) {
+            digest.update(("\nfile:" + file.getKey() + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(file.getValue() == null ? "folder".getBytes(StandardCharsets.UTF_8) : RestoreFingerprint.hashFile(file.getValue()));
+        }
+        return new PackFingerprint(outputDir.resolve(plan.getFileName()), RestoreFingerprint.toHex(digest.digest()));
+    }
+
+    /**
+     * Get the digest of the pack inputs
+     * @return The hex encoded SHA-256 digest
+     */
+    public String getInputsDigest() {
+        return inputsDigest;
+    }
+
+    /**
+     * Get the package the pack writes
+     * @return The package path
+     */
+    public Path getPackage() {
+        return nupkg;
+    }
+
+    /**
+     * Get where the fingerprint of the package is kept
+     * @return The sidecar path, next to the package
+     */
+    public Path getSidecar() {
+        return sidecar;
+    }
+
+    /**
+     * Is the package on disk the one the last successful pack wrote from the same inputs?
+     * @return true if the pack can be skipped, false otherwise
+     * @throws IOException
+     */
+    public boolean isUpToDate() throws IOException {
+        if (!Files.isRegularFile(sidecar) || !Files.isRegularFile(nupkg)) {
+            return false;
+        }
+
+        Map<?, ?> saved;
+        try {
+            saved = TaskPlugin.GSON.fromJson(Files.readString(sidecar, StandardCharsets.UTF_8), Map.class);
+        } catch (JsonParseException e) {
+            return false;
+        }
+
+        return saved != null
+            && saved.get("version") instanceof Number && ((Number) saved.get("version")).intValue() == SIDECAR_VERSION
+            && inputsDigest.equals(saved.get("inputs"))
+            && RestoreFingerprint.toHex(RestoreFingerprint.hashFile(nupkg)).equals(saved.get("package"));
+    }
+
+    /**
+     * Record a successful pack, replacing any previous sidecar atomically
+     * @throws IOException If the package doesn't exist
+     */
+    public void save() throws IOException {
+        save(nupkg);
+    }
+
+    /**
+     * Record a successful pack that wrote the package somewhere else first, e.g. to a staging folder, with the sidecar
+     * next to it so the two are moved together
+     * @param written The package as it was written
+     * @throws IOException If the package doesn't exist
+     */
+    public void save(Path written) throws IOException {
+        Map<String, Object> saved = new LinkedHashMap<>();
+        saved.put("version", SIDECAR_VERSION);
+        saved.put("inputs", inputsDigest);
+        saved.put("package", RestoreFingerprint.toHex(RestoreFingerprint.hashFile(written)));
+
+        Path target = written.resolveSibling(written.getFileName() + SIDECAR_SUFFIX);
+        Path temp = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+        Files.writeString(temp, TaskPlugin.GSON.toJson(saved), StandardCharsets.UTF_8);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs two batches as a pipeline: the first stage (e.g. pack) hands each of its outputs to the second stage (e.g. push)
+ * through a bounded queue as soon as it has it, so the two overlap rather than one waiting for the other to finish.
+ * Each stage has its own worker pool. When the second stage falls behind, the queue fills up and the first stage waits.
+ */
+public class PackPushPipeline {
+    // Tells a downstream worker there is nothing more to take
+    private static final String END = new String("end of pipeline");
+
+    private final int upstreamConcurrency;
+    private final int downstreamConcurrency;
+    private final int queueCapacity;
+
+    /**
+     * Receives the outputs of the first stage
+     */
+    public interface Sink {
+        /**
+         * Hand an output to the second stage, waiting while the queue is full
+         * @param output The output, e.g. a package path
+         * @throws InterruptedException
+         */
+        void put(String output) throws InterruptedException;
+    }
+
+    /**
+     * The first stage, for one input
+     */
+    public interface Upstream {
+        /**
+         * Run the stage
+         * @param input The input, e.g. a nuspec path
+         * @param sink Receives the outputs, e.g. the packages
+         * @return The status of the input
+         * @throws InterruptedException
+         */
+        Map<String, Object> run(String input, Sink sink) throws InterruptedException;
+    }
+
+    /**
+     * What the pipeline did
+     */
+    public static class Outcome {
+        private final List<Map<String, Object>> upstream;
+        private final List<Map<String, Object>> downstream;
+        private final Map<String, Object> statistics;
+
+        Outcome(List<Map<String, Object>> upstream, List<Map<String, Object>> downstream, Map<String, Object> statistics) {
+            this.upstream = upstream;
+            this.downstream = downstream;
+            this.statistics = statistics;
+        }
+
+        /**
+         * Get the status of each input of the first stage
+         * @return The statuses, in the order of the inputs
+         */
+        public List<Map<String, Object>> getUpstream() {
+            return upstream;
+        }
+
+        /**
+         * Get the status of each output the second stage took
+         * @return The statuses, in the order the second stage finished them
+         */
+        public List<Map<String, Object>> getDownstream() {
+            return downstream;
+        }
+
+        /**
+         * Get how the pipeline ran: its concurrency, how long the first stage waited on a full queue, and the wall time
+         * @return The statistics
+         */
+        public Map<String, Object> getStatistics() {
+            return statistics;
+        }
+    }
+
+    /**
+     * @param upstreamConcurrency The most inputs the first stage works on at once
+     * @param downstreamConcurrency The most outputs the second stage works on at once
+     * @param queueCapacity The most outputs waiting for the second stage before the first stage waits
+     */
+    public PackPushPipeline(int upstreamConcurrency, int downstreamConcurrency, int queueCapacity) {
+        this.upstreamConcurrency = Math.max(1, upstreamConcurrency);
+        this.downstreamConcurrency = Math.max(1, downstreamConcurrency);
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * Run every input through the first stage and every output it produces through the second
+     * @param inputs The inputs of the first stage
+     * @param upstream The first stage
+     * @param downstream The second stage
+     * @return What the pipeline did
+     * @throws InterruptedException If the pipeline is interrupted, in which case both stages are interrupted too
+     */
+    public Outcome run(List<String> inputs, Upstream upstream, BatchRunner.Item<Map<String, Object>> downstream) throws InterruptedException {
+        long startedAt = System.nanoTime();
+        BlockingQueue<String> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicLong blockedNanos = new AtomicLong();
+        AtomicInteger queued = new AtomicInteger();
+        List<Map<String, Object>> downstreamResults = Collections.synchronizedList(new ArrayList<>());
+        Sink sink = output -> {
+            long waitingSince = System.nanoTime();
+            queue.put(output);
+            blockedNanos.addAndGet(System.nanoTime() - waitingSince);
+            queued.incrementAndGet();
+        };
+
+        ExecutorService upstreamPool = pool("nuget-pipeline-pack-", Math.min(upstreamConcurrency, Math.max(1, inputs.size())));
+        ExecutorService downstreamPool = pool("nuget-pipeline-push-", downstreamConcurrency);
+        try {
+            List<Future<?>> consumers = new ArrayList<>();
+            for (int i = 0; i < downstreamConcurrency; i++) {
+                consumers.add(downstreamPool.submit(() -> {
+                    for (String output = queue.take(); output != END; output = queue.take()) {
+                        try {
+                            downstreamResults.add(downstream.run(output));
+                        } catch (RuntimeException e) {
+                            // Keep taking, or the first stage would wait on a full queue forever
+                            Map<String, Object> failed = new LinkedHashMap<>();
+                            failed.put("input", output);
+                            failed.put("success", false);
+                            failed.put("message", String.valueOf(e.getMessage()));
+                            downstreamResults.add(failed);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            List<Future<Map<String, Object>>> producers = new ArrayList<>();
+            for (String input : inputs) {
+                producers.add(upstreamPool.submit(() -> upstream.run(input, sink)));
+            }
+            List<Map<String, Object>> upstreamResults = new ArrayList<>();
+            for (Future<Map<String, Object>> producer : producers) {
+                upstreamResults.add(await(producer));
+            }
+
+            for (int i = 0; i < downstreamConcurrency; i++) {
+                queue.put(END);
+            }
+            for (Future<?> consumer : consumers) {
+                await(consumer);
+            }
+
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            statistics.put("packConcurrency", upstreamConcurrency);
+            statistics.put("pushConcurrency", downstreamConcurrency);
+            statistics.put("queueCapacity", queueCapacity);
+            statistics.put("queued", queued.get());
+            statistics.put("packBlockedMillis", TimeUnit.NANOSECONDS.toMillis(blockedNanos.get()));
+            statistics.put("wallMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            return new Outcome(upstreamResults, new ArrayList<>(downstreamResults), statistics);
+        } finally {
+            // Interrupting the workers stops their NuGet processes
+            upstreamPool.shutdownNow();
+            downstreamPool.shutdownNow();
+        }
+    }
+
+    private static ExecutorService pool(String name, int size) {
+        AtomicInteger workers = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, runnable -> {
+            Thread worker = new Thread(runnable, name + workers.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+    }
+
+    private static <T> T await(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Gives every pack of a parallel batch its own output directory, then moves the packages into the shared output
+ * directory. Two packs that produce the same package file are reported instead of silently overwriting each other.
+ */
+public class PackStaging implements AutoCloseable {
+    private final Path outputDir;
+    private final Path stagingRoot;
+    private final AtomicInteger stagingDirs = new AtomicInteger();
+    private final Map<String, String> producedBy = new ConcurrentHashMap<>();
+
+    /**
+     * Create the staging area inside the output directory, so that packages are moved rather than copied
+     * @param outputDir The shared output directory
+     * @throws IOException
+     */
+    public PackStaging(Path outputDir) throws IOException {
+        this.outputDir = Files.createDirectories(outputDir);
+        this.stagingRoot = Files.createTempDirectory(this.outputDir, ".nuget-pack-");
+    }
+
+    /**
+     * Get the shared output directory
+     * @return The directory the packages are moved to
+     */
+    public Path getOutputDir() {
+        return outputDir;
+    }
+
+    /**
+     * Create an output directory for one pack
+     * @return The new, empty directory
+     * @throws IOException
+     */
+    public Path newStagingDir() throws IOException {
+        return Files.createDirectory(stagingRoot.resolve(String.valueOf(stagingDirs.incrementAndGet())));
+    }
+
+    /**
+     * Move the packages of one pack, and their fingerprint sidecars, into the shared output directory
+     * @param input The nuspec or project that was packed
+     * @param stagingDir The output directory of the pack
+     * @return The file names of the packages, in the shared output directory
+     * @throws IOException If a package was already produced by another pack of the batch, or could not be moved
+     */
+    public List<String> publish(String input, Path stagingDir) throws IOException {
+        List<Path> packages;
+        try (Stream<Path> files = Files.list(stagingDir)) {
+            packages = files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+
+        List<String> published = new ArrayList<>();
+        for (Path file : packages) {
+            String name = file.getFileName().toString();
+            String other = producedBy.putIfAbsent(name, input);
+            if (other != null) {
+                throw new IOException(String.format("%s collides with the package of the same name packed from %s", name, other));
+            }
+            Files.move(file, outputDir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            if (!name.endsWith(PackFingerprint.SIDECAR_SUFFIX)) {
+                published.add(name);
+            }
+        }
+        return published;
+    }
+
+    /**
+     * Remove the staging area
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        try (Stream<Path> files = Files.walk(stagingRoot)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Follows NuGet output line by line to find out what happened to each package: which were installed, added to a
+ * packages folder, downloaded, pushed or already on the feed, how big they are and how long their download or upload
+ * took. Lines are not kept, so the memory used depends on the number of packages, which is capped, and not on the
+ * amount of output.
+ */
+public class PackageOutputParser {
+    /**
+     * The most packages followed, beyond which packages are only counted
+     */
+    static final int MAX_PACKAGES = 10_000;
+
+    /**
+     * A package that was downloaded, but not (yet) seen installed
+     */
+    public static final String DOWNLOADED = "downloaded";
+
+    /**
+     * A package that was already in the packages folder
+     */
+    public static final String ALREADY_INSTALLED = "already-installed";
+
+    /**
+     * A package that was installed
+     */
+    public static final String INSTALLED = "installed";
+
+    /**
+     * A package that was added to a packages folder
+     */
+    public static final String ADDED = "added";
+
+    /**
+     * A package that was not pushed, because the feed already has it
+     */
+    public static final String ALREADY_EXISTS = "already-exists";
+
+    /**
+     * A package that was pushed
+     */
+    public static final String PUSHED = "pushed";
+
+    /**
+     * A package file name or folder, e.g. `Newtonsoft.Json.13.0.1`
+     */
+    private static final Pattern ID_VERSION = Pattern.compile("^(.+?)\\.(\\d+(?:\\.\\d+)*(?:-[0-9A-Za-z.-]+)?(?:\\+[0-9A-Za-z.-]+)?)$");
+
+    /**
+     * `Successfully installed 'Newtonsoft.Json 13.0.1' to packages`
+     */
+    private static final Pattern SUCCESSFULLY_INSTALLED = Pattern.compile("^Successfully installed '(\\S+) ([^']+)'(?: to (.+))?");
+
+    /**
+     * `Installed Newtonsoft.Json 13.0.1 from https://api.nuget.org/v3/index.json with content hash ...`
+     */
+    private static final Pattern INSTALLED_FROM = Pattern.compile("^Installed (\\S+) (\\S+) from (\\S+)");
+
+    /**
+     * `Added package 'Newtonsoft.Json.13.0.1' to folder '/agent/pipelines/app/packages'`
+     */
+    private static final Pattern ADDED_PACKAGE = Pattern.compile("^Added package '([^']+)' to folder '([^']+)'");
+
+    /**
+     * `Package "Newtonsoft.Json.13.0.1" is already installed.`
+     */
+    private static final Pattern ALREADY_INSTALLED_PACKAGE = Pattern.compile("^Package \"([^\"]+)\" is already installed");
+
+    /**
+     * `Package 'build/A.1.0.0.nupkg' already exists at feed 'https://nuget.example.com/'.`
+     */
+    private static final Pattern PACKAGE_EXISTS = Pattern.compile("^Package '([^']+)' already exists at feed");
+
+    /**
+     * `Pushing A.1.0.0.nupkg to 'https://nuget.example.com/'...`
+     */
+    private static final Pattern PUSHING = Pattern.compile("^Pushing (.+?\\.s?nupkg) to ");
+
+    /**
+     * `OK https://api.nuget.org/v3-flatcontainer/newtonsoft.json/13.0.1/newtonsoft.json.13.0.1.nupkg 152ms` and
+     * `Created https://nuget.example.com/api/v2/package/ 1234ms`
+     */
+    private static final Pattern TIMING = Pattern.compile("^(\\S+) (\\S+) (\\d+)ms$");
+
+    /**
+     * The package of a v2 download URL: `Packages(Id='{id}',Version='{version}')` or `/package/{id}/{version}`
+     */
+    private static final Pattern V2_DOWNLOAD_URL = Pattern.compile("Packages\\(Id='([^']+)',Version='([^']+)'\\)|/package/([^/]+)/([^/?]+)$",
+        Pattern.CASE_INSENSITIVE);
+
+    /**
+     * What happened to a package
+     */
+    private static class Package {
+        private String id;
+        private final String version;
+        private String outcome;
+        private Long size;
+        private long durationMillis;
+
+        Package(String id, String version) {
+            this.id = id;
+            this.version = version;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("id", id);
+            map.put("version", version);
+            map.put("outcome", outcome);
+            map.put("size", size);
+            map.put("durationMillis", durationMillis);
+            return map;
+        }
+    }
+
+    private final Path workingDirectory;
+    private final Map<String, Package> packages = new LinkedHashMap<>();
+    private final Map<String, Package> pushing = new HashMap<>();
+    private long untracked;
+
+    /**
+     * Construct a parser
+     * @param workingDirectory The directory that relative paths in the output are relative to, to find the sizes of
+     *                         packages
+     */
+    public PackageOutputParser(Path workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * Follow a line of output. Lines may come from several processes at once, told apart by their `[step] ` prefixes.
+     * @param line The line
+     */
+    public synchronized void accept(String line) {
+        // Skip the `[step] ` prefixes, which tell the processes apart, the `STDERR: ` label and the indent
+        int start = 0;
+        while (start < line.length() && line.charAt(start) == '[') {
+            int end = line.indexOf("] ", start);
+            if (end < 0) {
+                break;
+            }
+            start = end + 2;
+        }
+        String process = line.substring(0, start);
+        if (line.startsWith(OutputPump.STDERR_LABEL, start)) {
+            start += OutputPump.STDERR_LABEL.length();
+        }
+        while (start < line.length() && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        String text = line.substring(start);
+
+        int space = text.indexOf(' ');
+        if (space < 0) {
+            return;
+        }
+        Matcher matcher;
+        switch (text.substring(0, space)) {
+            case "Successfully":
+                matcher = SUCCESSFULLY_INSTALLED.matcher(text);
+                if (matcher.find()) {
+                    Package installed = settle(matcher.group(1), matcher.group(2), INSTALLED);
+                    if (installed != null && matcher.group(3) != null) {
+                        measureInFolder(installed, matcher.group(3).trim());
+                    }
+                }
+                break;
+            case "Installed":
+                matcher = INSTALLED_FROM.matcher(text);
+                if (matcher.find()) {
+                    settle(matcher.group(1), matcher.group(2), INSTALLED);
+                }
+                break;
+            case "Added":
+                matcher = ADDED_PACKAGE.matcher(text);
+                if (matcher.find()) {
+                    Matcher idVersion = ID_VERSION.matcher(matcher.group(1));
+                    if (idVersion.matches()) {
+                        measureInFolder(settle(idVersion.group(1), idVersion.group(2), ADDED), matcher.group(2));
+                    }
+                }
+                break;
+            case "Package":
+                matcher = ALREADY_INSTALLED_PACKAGE.matcher(text);
+                if (matcher.find()) {
+                    Matcher idVersion = ID_VERSION.matcher(matcher.group(1));
+                    if (idVersion.matches()) {
+                        settle(idVersion.group(1), idVersion.group(2), ALREADY_INSTALLED);
+                    }
+                    break;
+                }
+                matcher = PACKAGE_EXISTS.matcher(text);
+                if (matcher.find()) {
+                    Package existing = pushed(matcher.group(1));
+                    if (existing != null) {
+                        settle(existing.id, existing.version, ALREADY_EXISTS);
+                    }
+                    pushing.remove(process);
+                }
+                break;
+            case "Pushing":
+                matcher = PUSHING.matcher(text);
+                if (matcher.find()) {
+                    Package pushed = pushed(matcher.group(1));
+                    if (pushed != null) {
+                        pushing.put(process, pushed);
+                    }
+                }
+                break;
+            case "Your":
+                if (text.startsWith("Your package was pushed")) {
+                    Package pushed = pushing.remove(process);
+                    if (pushed != null) {
+                        settle(pushed.id, pushed.version, PUSHED);
+                    }
+                }
+                break;
+            case "Response":
+                // `Response status code does not indicate success: 409 (Conflict - The feed already contains 'A 1.0.0'.)`
+                if (text.contains(": 409 ")) {
+                    Package conflicting = pushing.remove(process);
+                    if (conflicting != null) {
+                        settle(conflicting.id, conflicting.version, ALREADY_EXISTS);
+                    }
+                }
+                break;
+            case "OK":
+            case "Created":
+                matcher = TIMING.matcher(text);
+                if (matcher.find()) {
+                    time(process, matcher.group(1), matcher.group(2), Long.parseLong(matcher.group(3)));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Get the packages followed so far
+     * @return Each package's id, version, outcome, size in bytes (or null if unknown) and download or upload duration,
+     * in the order they were first seen
+     */
+    public synchronized List<Map<String, Object>> getPackages() {
+        List<Map<String, Object>> list = new ArrayList<>(packages.size());
+        packages.values().forEach(p -> list.add(p.toMap()));
+        return list;
+    }
+
+    /**
+     * Get the number of packages seen beyond {@link #MAX_PACKAGES}
+     * @return The number of packages that were not followed
+     */
+    public synchronized long getUntracked() {
+        return untracked;
+    }
+
+    /**
+     * Write the packages to a JSON file, replacing it atomically
+     * @param file The file
+     * @throws IOException If the file can't be written
+     */
+    public void save(Path file) throws IOException {
+        Map<String, Object> saved = new LinkedHashMap<>();
+        saved.put("packages", getPackages());
+        saved.put("untracked", getUntracked());
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, "." + file.getFileName(), ".tmp");
+        Files.writeString(temp, TaskPlugin.GSON.toJson(saved), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Find a package, following it if it is new
+     * @return The package, or null if there are too many to follow
+     */
+    private Package find(String id, String version) {
+        String key = id.toLowerCase(Locale.ROOT) + " " + version.toLowerCase(Locale.ROOT);
+        Package found = packages.get(key);
+        if (found == null) {
+            if (packages.size() >= MAX_PACKAGES) {
+                untracked++;
+                return null;
+            }
+            found = new Package(id, version);
+            packages.put(key, found);
+        }
+        return found;
+    }
+
+    /**
+     * Record an outcome, unless the package already has a more conclusive one
+     * @return The package, or null if there are too many to follow
+     */
+    private Package settle(String id, String version, String outcome) {
+        Package found = find(id, version);
+        if (found == null) {
+            return null;
+        }
+        if (found.outcome == null || found.outcome.equals(DOWNLOADED) || outcome.equals(PUSHED) || outcome.equals(ALREADY_EXISTS)) {
+            found.outcome = outcome;
+        }
+        // Download URLs are lower case, outcome lines have the package's own casing
+        if (!outcome.equals(DOWNLOADED)) {
+            found.id = id;
+        }
+        return found;
+    }
+
+    /**
+     * Find the package of a file being pushed, and its size
+     * @return The package, or null if the file name isn't a package's or there are too many to follow
+     */
+    private Package pushed(String file) {
+        String name = file.substring(Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\')) + 1);
+        Matcher idVersion = ID_VERSION.matcher(name.replaceFirst("(?i)\\.(symbols\\.)?s?nupkg$", ""));
+        if (!idVersion.matches()) {
+            return null;
+        }
+        Package found = find(idVersion.group(1), idVersion.group(2));
+        if (found != null && found.size == null) {
+            found.size = sizeOf(file);
+        }
+        return found;
+    }
+
+    private void time(String process, String status, String url, long millis) {
+        if (status.equals("Created")) {
+            Package pushed = pushing.get(process);
+            if (pushed != null) {
+                pushed.durationMillis += millis;
+            }
+            return;
+        }
+
+        String id;
+        String version;
+        if (url.regionMatches(true, url.length() - ".nupkg".length(), ".nupkg", 0, ".nupkg".length())) {
+            // A v3 flat container: `/{id}/{version}/{id}.{version}.nupkg`
+            int file = url.lastIndexOf('/');
+            int versionStart = file > 0 ? url.lastIndexOf('/', file - 1) : -1;
+            int idStart = versionStart > 0 ? url.lastIndexOf('/', versionStart - 1) : -1;
+            if (idStart < 0) {
+                return;
+            }
+            id = url.substring(idStart + 1, versionStart);
+            version = url.substring(versionStart + 1, file);
+        } else {
+            Matcher matcher = V2_DOWNLOAD_URL.matcher(url);
+            if (!matcher.find()) {
+                return;
+            }
+            int group = matcher.group(1) != null ? 1 : 3;
+            id = matcher.group(group);
+            version = matcher.group(group + 1);
+        }
+
+        Package downloaded = settle(id, version, DOWNLOADED);
+        if (downloaded != null) {
+            downloaded.durationMillis += millis;
+        }
+    }
+
+    /**
+     * Find a package's size in a packages folder, laid out by nuget (`Id.Version/Id.Version.nupkg`) or as a global
+     * packages folder (`id/version/id.version.nupkg`)
+     */
+    private void measureInFolder(Package installed, String folder) {
+        if (installed == null || installed.size != null) {
+            return;
+        }
+        String name = installed.id + "." + installed.version;
+        installed.size = sizeOf(folder + "/" + name + "/" + name + ".nupkg");
+        if (installed.size == null) {
+            String id = installed.id.toLowerCase(Locale.ROOT);
+            String version = installed.version.toLowerCase(Locale.ROOT);
+            installed.size = sizeOf(folder + "/" + id + "/" + version + "/" + id + "." + version + ".nupkg");
+        }
+    }
+
+    private Long sizeOf(String file) {
+        try {
+            Path path = workingDirectory.resolve(file);
+            return Files.isRegularFile(path) ? Files.size(path) : null;
+        } catch (InvalidPathException | IOException e) {
+            return null;
+        }
+    }
+}
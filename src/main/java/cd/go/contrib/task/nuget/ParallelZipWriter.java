@@ -0,0 +1,338 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a zip archive whose entries are compressed in parallel before they are assembled. ZipOutputStream deflates
+ * one entry after another on the calling thread, so this writes the headers, data and central directory itself.
+ * Archives are limited to what a zip without the Zip64 extension can hold: 65535 entries and 4 GB.
+ */
+public class ParallelZipWriter {
+    /**
+     * The earliest time a zip entry can carry, used for reproducible archives
+     */
+    public static final FileTime ZIP_EPOCH = FileTime.from(LocalDateTime.of(1980, 1, 1, 0, 0).atZone(ZoneId.systemDefault()).toInstant());
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int UTF8_NAMES = 0x0800;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+    private static final int MAX_ENTRIES = 0xFFFF;
+    // Larger entries are compressed to a temporary file rather than held in memory until they are written
+    private static final long SPILL_BYTES = 16L * 1024 * 1024;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final int level;
+
+    /**
+     * A zip entry, and once it is compressed, its data
+     */
+    private static class Entry {
+        private final String name;
+        private final Path source;
+        private final byte[] content;
+        private final FileTime modified;
+        private int method;
+        private long crc;
+        private long size;
+        private long compressedSize;
+        private byte[] compressed;
+        private Path spilled;
+        private long offset;
+
+        Entry(String name, Path source, byte[] content, FileTime modified) {
+            this.name = name;
+            this.source = source;
+            this.content = content;
+            this.modified = modified;
+        }
+
+        InputStream open() throws IOException {
+            return source == null ? new ByteArrayInputStream(content) : Files.newInputStream(source);
+        }
+    }
+
+    /**
+     * @param level The deflate level, e.g. {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public ParallelZipWriter(int level) {
+        this.level = level;
+    }
+
+    /**
+     * Add a file, read when the archive is written
+     * @param name The entry name, with `/` separators
+     * @param source The file
+     * @param modified The time to record for the entry
+     * @throws IOException If there is already an entry with the name
+     */
+    public void addFile(String name, Path source, FileTime modified) throws IOException {
+        add(new Entry(name, source, null, modified));
+    }
+
+    /**
+     * Add an entry from memory
+     * @param name The entry name, with `/` separators
+     * @param content The entry content
+     * @param modified The time to record for the entry
+     * @throws IOException If there is already an entry with the name
+     */
+    public void addBytes(String name, byte[] content, FileTime modified) throws IOException {
+        add(new Entry(name, null, content, modified));
+    }
+
+    private void add(Entry entry) throws IOException {
+        if (entries.putIfAbsent(entry.name, entry) != null) {
+            throw new IOException("The archive already has an entry named " + entry.name);
+        }
+    }
+
+    /**
+     * Get the entry names
+     * @return The names, in the order they are written
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * Compress the entries on a pool of workers, then write them into the archive in the order they were added.
+     * The archive is written next to the target and moved into place once it is complete.
+     * @param target The archive to write
+     * @param concurrency The most entries to compress at once
+     * @return The size of the archive
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public long write(Path target, int concurrency) throws IOException, InterruptedException {
+        if (entries.size() > MAX_ENTRIES) {
+            throw new IOException(String.format("%s would have %d entries, more than a zip without Zip64 can hold", target, entries.size()));
+        }
+
+        Path partial = target.resolveSibling("." + target.getFileName() + "-" + UUID.randomUUID());
+        try {
+            try {
+                BatchRunner.run(getNames(), concurrency, name -> {
+                    compress(entries.get(name), partial);
+                    return name;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                long offset = 0;
+                for (Entry entry : entries.values()) {
+                    entry.offset = offset;
+                    byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+                    offset += writeLocalHeader(out, entry, name);
+                    offset += writeData(out, entry);
+                    checkSize(target, offset);
+                }
+
+                long centralDirectory = offset;
+                for (Entry entry : entries.values()) {
+                    offset += writeCentralHeader(out, entry, entry.name.getBytes(StandardCharsets.UTF_8));
+                }
+                checkSize(target, offset);
+
+                writeInt(out, END_OF_CENTRAL_DIRECTORY);
+                writeShort(out, 0);
+                writeShort(out, 0);
+                writeShort(out, entries.size());
+                writeShort(out, entries.size());
+                writeInt(out, offset - centralDirectory);
+                writeInt(out, centralDirectory);
+                writeShort(out, 0);
+                offset += 22;
+                out.flush();
+                Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return offset;
+            }
+        } finally {
+            Files.deleteIfExists(partial);
+            for (Entry entry : entries.values()) {
+                entry.compressed = null;
+                if (entry.spilled != null) {
+                    Files.deleteIfExists(entry.spilled);
+                    entry.spilled = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Deflate an entry, keeping it stored if deflating doesn't make it smaller
+     * @param entry The entry
+     * @param partial The archive being written, next to which large entries are spilled
+     */
+    private void compress(Entry entry, Path partial) {
+        Deflater deflater = new Deflater(level, true);
+        try (InputStream in = entry.open()) {
+            CRC32 crc = new CRC32();
+            long size = entry.source == null ? entry.content.length : Files.size(entry.source);
+            OutputStream sink;
+            ByteArrayOutputStream memory = null;
+            if (size > SPILL_BYTES) {
+                entry.spilled = partial.resolveSibling(partial.getFileName() + "." + UUID.randomUUID());
+                sink = new BufferedOutputStream(Files.newOutputStream(entry.spilled));
+            } else {
+                memory = new ByteArrayOutputStream((int) Math.max(32, size / 2));
+                sink = memory;
+            }
+
+            long read = 0;
+            try (DeflaterOutputStream deflating = new DeflaterOutputStream(sink, deflater, 64 * 1024)) {
+                byte[] buffer = new byte[64 * 1024];
+                for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                    crc.update(buffer, 0, n);
+                    deflating.write(buffer, 0, n);
+                    read += n;
+                }
+            }
+
+            entry.crc = crc.getValue();
+            entry.size = read;
+            entry.compressedSize = deflater.getBytesWritten();
+            if (entry.compressedSize >= read) {
+                // Already compressed, e.g. an assembly inside a zip: store it as is
+                entry.method = STORED;
+                entry.compressedSize = read;
+                if (entry.spilled != null) {
+                    Files.deleteIfExists(entry.spilled);
+                    entry.spilled = null;
+                }
+            } else {
+                entry.method = DEFLATED;
+                entry.compressed = memory == null ? null : memory.toByteArray();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private long writeLocalHeader(OutputStream out, Entry entry, byte[] name) throws IOException {
+        writeInt(out, LOCAL_HEADER);
+        writeShort(out, entry.method == DEFLATED ? 20 : 10);
+        writeShort(out, UTF8_NAMES);
+        writeShort(out, entry.method);
+        writeInt(out, dosTime(entry.modified));
+        writeInt(out, entry.crc);
+        writeInt(out, entry.compressedSize);
+        writeInt(out, entry.size);
+        writeShort(out, name.length);
+        writeShort(out, 0);
+        out.write(name);
+        return 30 + name.length;
+    }
+
+    private long writeData(OutputStream out, Entry entry) throws IOException {
+        if (entry.method == DEFLATED && entry.compressed != null) {
+            out.write(entry.compressed);
+            entry.compressed = null;
+            return entry.compressedSize;
+        }
+
+        try (InputStream in = entry.method == DEFLATED ? Files.newInputStream(entry.spilled) : entry.open()) {
+            long copied = in.transferTo(out);
+            if (copied != entry.compressedSize) {
+                throw new IOException(entry.name + " changed while the archive was written");
+            }
+            return copied;
+        }
+    }
+
+    private long writeCentralHeader(OutputStream out, Entry entry, byte[] name) throws IOException {
+        writeInt(out, CENTRAL_HEADER);
+        writeShort(out, 20);
+        writeShort(out, entry.method == DEFLATED ? 20 : 10);
+        writeShort(out, UTF8_NAMES);
+        writeShort(out, entry.method);
+        writeInt(out, dosTime(entry.modified));
+        writeInt(out, entry.crc);
+        writeInt(out, entry.compressedSize);
+        writeInt(out, entry.size);
+        writeShort(out, name.length);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeShort(out, 0);
+        writeInt(out, 0);
+        writeInt(out, entry.offset);
+        out.write(name);
+        return 46 + name.length;
+    }
+
+    private static void checkSize(Path target, long offset) throws IOException {
+        if (offset > MAX_SIZE) {
+            throw new IOException(target + " would be larger than a zip without Zip64 can hold");
+        }
+    }
+
+    /**
+     * Convert a time to the MS-DOS date and time a zip entry carries, in local time as zip tools expect
+     * @param time The time
+     * @return The date in the high 16 bits and the time in the low 16 bits
+     */
+    static long dosTime(FileTime time) {
+        LocalDateTime local = LocalDateTime.ofInstant(time.toInstant(), ZoneId.systemDefault());
+        if (local.getYear() < 1980) {
+            local = LocalDateTime.of(1980, 1, 1, 0, 0);
+        }
+        long date = ((local.getYear() - 1980) << 9) | (local.getMonthValue() << 5) | local.getDayOfMonth();
+        long clock = (local.getHour() << 11) | (local.getMinute() << 5) | (local.getSecond() >> 1);
+        return (date << 16) | clock;
+    }
+
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(OutputStream out, long value) throws IOException {
+        writeShort(out, (int) (value & 0xFFFF));
+        writeShort(out, (int) ((value >>> 16) & 0xFFFF));
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.Map;
+
+import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
+
+/**
+ * A job console that passes the process output through a {@link PackageOutputParser} on its way to the console
+ */
+public class ParsingConsoleLogger extends JobConsoleLogger implements ProcessOutputSink {
+    private final JobConsoleLogger console;
+    private final PackageOutputParser parser;
+
+    /**
+     * Construct a parsing console
+     * @param console The job console to write to
+     * @param parser Follows the packages in the output
+     */
+    public ParsingConsoleLogger(JobConsoleLogger console, PackageOutputParser parser) {
+        super();
+        this.console = console;
+        this.parser = parser;
+    }
+
+    @Override
+    public void printLine(String line) {
+        console.printLine(line);
+    }
+
+    @Override
+    public void printOutputLine(String line, boolean stderr) {
+        parser.accept(line);
+        ProcessOutputSink.print(console, line, stderr);
+    }
+
+    @Override
+    public SecretMasker getOutputMasker() {
+        return ProcessOutputSink.outputMasker(console);
+    }
+
+    @Override
+    public void printEnvironment(Map<String, String> environment) {
+        console.printEnvironment(environment);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolves file globs such as `build/**&#47;*.nupkg` against the task working directory. Globs always use `/` as the
+ * separator, `**` matches any number of directories (including none), `*` and `?` match within one path segment and
+ * `{a,b}` matches either alternative.
+ */
+public class PathGlob {
+    private static final String GLOB_CHARS = "*?[{";
+
+    private PathGlob() {
+    }
+
+    /**
+     * Does a value contain glob characters?
+     * @param value The value, e.g. an argument
+     * @return true if the value should be resolved as a glob, false if it is a plain path
+     */
+    public static boolean isGlob(String value) {
+        return value != null && indexOfGlob(value) >= 0;
+    }
+
+    /**
+     * Does a value hold a list of paths or globs, one per line?
+     * @param value The value, e.g. an argument
+     * @return true if the value has more than one line, false otherwise
+     */
+    public static boolean isList(String value) {
+        return value != null && value.trim().indexOf('\n') >= 0;
+    }
+
+    /**
+     * Resolve a list of paths and globs, one per line, against the working directory
+     * @param value The list; blank lines are ignored
+     * @param workingDir The working directory, or null for the current directory
+     * @return The paths and glob matches, in the order of the list, without duplicates
+     * @throws IOException
+     */
+    public static List<String> resolveList(String value, String workingDir) throws IOException {
+        Path base = workingDir == null || workingDir.isEmpty() ? Paths.get("") : Paths.get(workingDir);
+        Set<String> paths = new LinkedHashSet<>();
+
+        for (String line : value.split("\\r?\\n")) {
+            String entry = line.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            if (isGlob(entry)) {
+                paths.addAll(resolve(entry, workingDir));
+            } else {
+                paths.add(base.resolve(entry).toString());
+            }
+        }
+
+        return new ArrayList<>(paths);
+    }
+
+    /**
+     * Find every regular file matching a glob
+     * @param glob The glob, relative to the working directory unless it is absolute
+     * @param workingDir The working directory, or null for the current directory
+     * @return The matching paths, sorted, resolved against the working directory
+     * @throws IOException
+     */
+    public static List<String> resolve(String glob, String workingDir) throws IOException {
+        Path base = workingDir == null || workingDir.isEmpty() ? Paths.get("") : Paths.get(workingDir);
+        String normalized = glob.replace('\\', '/');
+
+        // Only walk the directories below the part of the glob without wildcards
+        int firstGlob = indexOfGlob(normalized);
+        int lastSlash = normalized.lastIndexOf('/', firstGlob < 0 ? normalized.length() : firstGlob);
+        Path root = lastSlash < 0 ? base : base.resolve(normalized.substring(0, lastSlash + 1));
+        Pattern matcher = toRegex(normalized.substring(lastSlash + 1));
+
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.walk(root)) {
+            return files
+                .filter(Files::isRegularFile)
+                .filter(file -> matcher.matcher(root.relativize(file).toString().replace('\\', '/')).matches())
+                .map(Path::toString)
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static int indexOfGlob(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (GLOB_CHARS.indexOf(value.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Translate a glob to a regular expression
+     * @param glob The glob
+     * @return The regular expression
+     */
+    static Pattern toRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        boolean inGroup = false;
+
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*':
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        boolean directories = i + 2 < glob.length() && glob.charAt(i + 2) == '/';
+                        regex.append(directories ? "(?:.*/)?" : ".*");
+                        i += directories ? 2 : 1;
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '[':
+                    int close = glob.indexOf(']', i + 1);
+                    if (close < 0) {
+                        regex.append("\\[");
+                    } else {
+                        String set = glob.substring(i + 1, close).replace("\\", "\\\\");
+                        regex.append('[').append(set.startsWith("!") ? "^" + set.substring(1) : set).append(']');
+                        i = close;
+                    }
+                    break;
+                case '{':
+                    regex.append("(?:");
+                    inGroup = true;
+                    break;
+                case '}':
+                    regex.append(inGroup ? ")" : "\\}");
+                    inGroup = false;
+                    break;
+                case ',':
+                    regex.append(inGroup ? "|" : ",");
+                    break;
+                default:
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                    break;
+            }
+        }
+
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Monotonic timings of the phases of a task execution, from decoding the request to draining the process output
+ */
+public class PhaseTimings {
+    /**
+     * A phase of the task execution
+     */
+    public enum Phase {
+        /**
+         * Decoding the execute request
+         */
+        DECODE("decode"),
+        /**
+         * Building the NuGet command line
+         */
+        BUILD_COMMAND("buildCommand"),
+        /**
+         * Starting the NuGet process
+         */
+        SPAWN("spawn"),
+        /**
+         * Waiting for the NuGet process to exit
+         */
+        RUN("run"),
+        /**
+         * Waiting for the remaining process output to be read
+         */
+        DRAIN("drain");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Get the label used in results and console output
+         * @return The label, e.g. `buildCommand`
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private final long createdAt = System.nanoTime();
+    private final long[] nanos = new long[Phase.values().length];
+    private final boolean[] recorded = new boolean[Phase.values().length];
+
+    /**
+     * Record the time spent in a phase, adding to any time already recorded for it
+     * @param phase The phase
+     * @param startedAt When the phase started, from {@link System#nanoTime()}
+     */
+    public void record(Phase phase, long startedAt) {
+        nanos[phase.ordinal()] += System.nanoTime() - startedAt;
+        recorded[phase.ordinal()] = true;
+    }
+
+    /**
+     * Get the time spent in a phase
+     * @param phase The phase
+     * @return The time in nanoseconds, or 0 if the phase was not recorded
+     */
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * Convert the timings to a Map (e.g. to send in a JSON response)
+     * @return The milliseconds spent in each recorded phase, in execution order, followed by the `total`
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> timings = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            if (recorded[phase.ordinal()]) {
+                timings.put(phase.getLabel(), toMillis(nanos[phase.ordinal()]));
+            }
+        }
+        timings.put("total", toMillis(System.nanoTime() - createdAt));
+        return timings;
+    }
+
+    /**
+     * Summarize the timings on one line for the job console
+     * @return The summary, e.g. `NuGet timings: buildCommand 0.051ms, spawn 3.204ms, ..., total 816.502ms`
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder("NuGet timings: ");
+        String separator = "";
+        for (Map.Entry<String, Object> timing : toMap().entrySet()) {
+            summary.append(separator).append(timing.getKey()).append(' ')
+                .append(String.format(Locale.ROOT, "%.3fms", (Double) timing.getValue()));
+            separator = ", ";
+        }
+        return summary.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+}
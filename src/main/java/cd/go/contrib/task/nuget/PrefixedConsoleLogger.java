@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.Map;
+
+import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
+
+/**
+ * A job console for one item of a batch, which prefixes every line (including the process output) with the item
+ * name so that the interleaved output of parallel NuGet processes can still be told apart
+ */
+public class PrefixedConsoleLogger extends JobConsoleLogger implements ProcessOutputSink {
+    private final JobConsoleLogger console;
+    private final String prefix;
+
+    /**
+     * Construct a prefixed console
+     * @param console The job console to write to
+     * @param prefix The prefix for each line, e.g. `[MyPackage.1.0.0.nupkg] `
+     */
+    public PrefixedConsoleLogger(JobConsoleLogger console, String prefix) {
+        super();
+        this.console = console;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void printLine(String line) {
+        // The job console is shared by every item of the batch
+        synchronized (console) {
+            console.printLine(prefix + line);
+        }
+    }
+
+    @Override
+    public void printOutputLine(String line, boolean stderr) {
+        synchronized (console) {
+            ProcessOutputSink.print(console, prefix + line, stderr);
+        }
+    }
+
+    @Override
+    public SecretMasker getOutputMasker() {
+        return ProcessOutputSink.outputMasker(console);
+    }
+
+    /**
+     * The environment is the same for every item, so the batch prints it once instead
+     * @param environment The environment
+     */
+    @Override
+    public void printEnvironment(Map<String, String> environment) {
+    }
+}
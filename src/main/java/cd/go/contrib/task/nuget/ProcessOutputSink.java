@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
+
+/**
+ * A job console that tells the output of the NuGet process apart from the plugin's own messages, e.g. to write the
+ * process output to a file and only show some of it
+ */
+public interface ProcessOutputSink {
+    /**
+     * Print a line of process output
+     * @param line The line, labelled and prefixed the way it is shown
+     * @param stderr Whether the line was written to stderr
+     */
+    void printOutputLine(String line, boolean stderr);
+
+    /**
+     * Get the masker for the process output, which has to be applied before the output is split into lines, so that a
+     * secret across a split is masked too
+     * @return The masker, or one that masks nothing
+     */
+    default SecretMasker getOutputMasker() {
+        return SecretMasker.none();
+    }
+
+    /**
+     * Print a line of process output to a console, as output if the console tells output apart
+     * @param console The job console
+     * @param line The line, labelled and prefixed the way it is shown
+     * @param stderr Whether the line was written to stderr
+     */
+    static void print(JobConsoleLogger console, String line, boolean stderr) {
+        if (console instanceof ProcessOutputSink) {
+            ((ProcessOutputSink) console).printOutputLine(line, stderr);
+        } else {
+            console.printLine(line);
+        }
+    }
+
+    /**
+     * Get the masker for the process output written to a console
+     * @param console The job console
+     * @return The masker, or one that masks nothing if the console doesn't mask
+     */
+    static SecretMasker outputMasker(JobConsoleLogger console) {
+        return console instanceof ProcessOutputSink ? ((ProcessOutputSink) console).getOutputMasker() : SecretMasker.none();
+    }
+}
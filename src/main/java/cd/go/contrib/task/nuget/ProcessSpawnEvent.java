@@ -0,0 +1,35 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when the NuGet process has been started
+ */
+@Name("cd.go.contrib.task.nuget.ProcessSpawn")
+@Label("Process Spawn")
+@Description("Starting the NuGet process")
+public class ProcessSpawnEvent extends NuGetTaskEvent {
+    /**
+     * The process id of the NuGet process
+     */
+    @Label("Process Id")
+    long pid;
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tears down a process together with everything it started (e.g. the `mono` process behind `nuget`)
+ */
+public class ProcessTree {
+    /**
+     * How long the processes get to stop gracefully before they are killed
+     */
+    public static final Duration TERMINATION_GRACE = Duration.ofSeconds(5);
+
+    private ProcessTree() {
+    }
+
+    /**
+     * Stop a process and all of its descendants, escalating from a graceful stop to a forced kill
+     * @param process The root process
+     * @param grace How long to wait for a graceful stop
+     * @return The number of processes that had to be killed forcibly
+     * @throws InterruptedException
+     */
+    public static int destroy(Process process, Duration grace) throws InterruptedException {
+        // Snapshot the tree first: once the root exits, its descendants are re-parented and can no longer be found
+        List<ProcessHandle> tree = new ArrayList<>();
+        process.descendants().forEach(tree::add);
+        tree.add(process.toHandle());
+
+        List<CompletableFuture<ProcessHandle>> exits = new ArrayList<>();
+        for (ProcessHandle handle : tree) {
+            handle.destroy();
+            exits.add(handle.onExit());
+        }
+
+        try {
+            CompletableFuture.allOf(exits.toArray(new CompletableFuture[0])).get(grace.toMillis(), TimeUnit.MILLISECONDS);
+            return 0;
+        } catch (TimeoutException | ExecutionException e) {
+            // Fall through to a forced kill
+        }
+
+        int killed = 0;
+        for (ProcessHandle handle : tree) {
+            if (handle.isAlive()) {
+                // Catch anything the survivors started in the meantime too
+                handle.descendants().forEach(ProcessHandle::destroyForcibly);
+                handle.destroyForcibly();
+                killed++;
+            }
+        }
+        return killed;
+    }
+}
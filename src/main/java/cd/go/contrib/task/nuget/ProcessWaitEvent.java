@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when the NuGet process has exited, or been stopped by a timeout
+ */
+@Name("cd.go.contrib.task.nuget.ProcessWait")
+@Label("Process Wait")
+@Description("Waiting for the NuGet process to exit")
+public class ProcessWaitEvent extends NuGetTaskEvent {
+    /**
+     * The exit code of the process, or -1 if it was stopped
+     */
+    @Label("Exit Code")
+    int exitCode;
+
+    /**
+     * The timeout that stopped the process, if any
+     */
+    @Label("Timeout")
+    String timeout;
+}
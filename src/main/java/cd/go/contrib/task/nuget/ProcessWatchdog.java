@@ -0,0 +1,210 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a running process for the wall-clock and idle output timeouts of a task. The process output streams are
+ * wrapped with {@link #track(InputStream)}, so that whoever reads them also records when the process was last active.
+ */
+public class ProcessWatchdog {
+    /**
+     * The timeout that fired
+     */
+    public enum Timeout {
+        /**
+         * The process ran for longer than the task timeout
+         */
+        WALL_CLOCK("wall-clock"),
+        /**
+         * The process wrote no output for longer than the task idle timeout
+         */
+        IDLE("idle");
+
+        private final String label;
+
+        Timeout(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Get the label used in results and console output
+         * @return The label, e.g. `wall-clock`
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * The longest the watchdog waits on the process before checking for idle output again
+     */
+    private static final long POLL_MILLIS = 250;
+
+    private final long timeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long startedAt;
+    private volatile long lastActivityAt;
+    private long waitedMillis;
+
+    /**
+     * Construct a watchdog, starting the clock now
+     * @param timeoutSeconds The wall-clock timeout in seconds, or 0 for none
+     * @param idleTimeoutSeconds The idle output timeout in seconds, or 0 for none
+     */
+    public ProcessWatchdog(long timeoutSeconds, long idleTimeoutSeconds) {
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.idleTimeoutMillis = TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+        this.startedAt = System.nanoTime();
+        this.lastActivityAt = startedAt;
+    }
+
+    /**
+     * Parse a timeout property
+     * @param value The property value
+     * @return The timeout in seconds, or 0 if the value is blank
+     * @throws IllegalArgumentException If the value is not a whole, non-negative number of seconds
+     */
+    public static long parseSeconds(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return 0;
+        }
+
+        try {
+            long seconds = Long.parseLong(value.trim());
+            if (seconds >= 0) {
+                return seconds;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Timeout must be a whole number of seconds, or 0 for none: " + value);
+    }
+
+    /**
+     * A process output stream that records activity and how many bytes were read
+     */
+    public class TrackedStream extends FilterInputStream {
+        private volatile long bytesRead;
+
+        private TrackedStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead++;
+                lastActivityAt = System.nanoTime();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                bytesRead += n;
+                lastActivityAt = System.nanoTime();
+            }
+            return n;
+        }
+
+        /**
+         * Get how many bytes have been read from the stream
+         * @return The number of bytes read
+         */
+        public long getBytesRead() {
+            return bytesRead;
+        }
+    }
+
+    /**
+     * Wrap a process output stream so that reading from it counts as activity
+     * @param in The process output stream
+     * @return The wrapped stream
+     */
+    public TrackedStream track(InputStream in) {
+        return new TrackedStream(in);
+    }
+
+    /**
+     * Wait for a process to exit or for one of the timeouts to fire
+     * @param process The process to wait for
+     * @return The timeout that fired, or null if the process exited first
+     * @throws InterruptedException
+     */
+    public Timeout await(Process process) throws InterruptedException {
+        if (timeoutMillis == 0 && idleTimeoutMillis == 0) {
+            process.waitFor();
+            return null;
+        }
+
+        while (true) {
+            long now = System.nanoTime();
+            long waitMillis = Long.MAX_VALUE;
+
+            if (timeoutMillis > 0) {
+                long remaining = timeoutMillis - TimeUnit.NANOSECONDS.toMillis(now - startedAt);
+                if (remaining <= 0) {
+                    return fired(Timeout.WALL_CLOCK, now);
+                }
+                waitMillis = remaining;
+            }
+
+            if (idleTimeoutMillis > 0) {
+                long remaining = idleTimeoutMillis - TimeUnit.NANOSECONDS.toMillis(now - lastActivityAt);
+                if (remaining <= 0) {
+                    return fired(Timeout.IDLE, now);
+                }
+                // Output may arrive while waiting, so only wait a little before checking again
+                waitMillis = Math.min(waitMillis, Math.min(remaining, POLL_MILLIS));
+            }
+
+            if (process.waitFor(waitMillis, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Get the limit of a timeout
+     * @param timeout The timeout
+     * @return The limit in seconds
+     */
+    public long getLimitSeconds(Timeout timeout) {
+        return TimeUnit.MILLISECONDS.toSeconds(timeout == Timeout.IDLE ? idleTimeoutMillis : timeoutMillis);
+    }
+
+    /**
+     * Get how long the watchdog waited before its timeout fired
+     * @return The wait in milliseconds
+     */
+    public long getWaitedMillis() {
+        return waitedMillis;
+    }
+
+    private Timeout fired(Timeout timeout, long now) {
+        waitedMillis = TimeUnit.NANOSECONDS.toMillis(now - startedAt);
+        return timeout;
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Decodes GoCD task requests with a streaming reader, straight into a {@link TaskConfig} and {@link Context}.
+ * Only config properties that have a value are kept; everything else is skipped without building a JSON tree.
+ */
+public class RequestDecoder {
+    /**
+     * The decoded body of an `execute` request
+     */
+    public static class ExecuteRequestBody {
+        private final TaskConfig taskConfig;
+        private final Context context;
+
+        ExecuteRequestBody(TaskConfig taskConfig, Context context) {
+            this.taskConfig = taskConfig;
+            this.context = context;
+        }
+
+        /**
+         * Get the task configuration
+         * @return The task configuration
+         */
+        public TaskConfig getTaskConfig() {
+            return taskConfig;
+        }
+
+        /**
+         * Get the runtime context
+         * @return The runtime context
+         */
+        public Context getContext() {
+            return context;
+        }
+    }
+
+    private RequestDecoder() {
+    }
+
+    /**
+     * Decode the body of an `execute` request, i.e. `{"config": {...}, "context": {...}}`
+     * @param requestBody The JSON request body
+     * @return The decoded task configuration and context
+     */
+    public static ExecuteRequestBody decodeExecuteRequest(String requestBody) {
+        try (JsonReader reader = TaskPlugin.GSON.newJsonReader(new StringReader(requestBody))) {
+            Map<String, Object> values = new HashMap<>();
+            Map<String, String> environmentVariables = new LinkedHashMap<>();
+            String workingDir = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("config".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    readConfig(reader, values);
+                } else if ("context".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    workingDir = readContext(reader, environmentVariables);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return new ExecuteRequestBody(new TaskConfig(values::get), new Context(environmentVariables, workingDir));
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonParseException("Could not decode the execute request: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decode the body of a `validate` request, i.e. the task configuration alone
+     * @param requestBody The JSON request body
+     * @return The decoded task configuration
+     */
+    public static TaskConfig decodeTaskConfig(String requestBody) {
+        try (JsonReader reader = TaskPlugin.GSON.newJsonReader(new StringReader(requestBody))) {
+            Map<String, Object> values = new HashMap<>();
+            readConfig(reader, values);
+            return new TaskConfig(values::get);
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonParseException("Could not decode the task configuration: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read the config object, keeping the `value` of each property that has one
+     * @param reader The reader, positioned at the start of the config object
+     * @param values Receives the property values
+     * @throws IOException
+     */
+    private static void readConfig(JsonReader reader, Map<String, Object> values) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String property = reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"value".equals(reader.nextName())) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                switch (reader.peek()) {
+                    case STRING:
+                    case NUMBER:
+                        values.put(property, reader.nextString());
+                        break;
+                    case BOOLEAN:
+                        values.put(property, reader.nextBoolean());
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+
+                // Skip the rest of the property: at a name skipValue skips only the name, so the loop alternates between
+                // names and their values, without materializing either
+                while (reader.hasNext()) {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endObject();
+    }
+
+    /**
+     * Read the context object
+     * @param reader The reader, positioned at the start of the context object
+     * @param environmentVariables Receives the environment variables
+     * @return The working directory
+     * @throws IOException
+     */
+    private static String readContext(JsonReader reader, Map<String, String> environmentVariables) throws IOException {
+        String workingDir = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("workingDirectory".equals(name) && reader.peek() == JsonToken.STRING) {
+                workingDir = reader.nextString();
+            } else if ("environmentVariables".equals(name) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String key = reader.nextName();
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                        environmentVariables.put(key, null);
+                    } else {
+                        environmentVariables.put(key, reader.nextString());
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return workingDir;
+    }
+}
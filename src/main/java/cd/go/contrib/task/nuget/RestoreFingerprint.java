@@ -0,0 +1,246 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.gson.JsonParseException;
+
+/**
+ * A fingerprint of everything a restore depends on, compared against a manifest written after the last successful
+ * restore so that a restore with unchanged inputs can be skipped. The inputs are the command line and the contents of
+ * the project, lock and config files, hashed through memory-mapped I/O. The packages directory is fingerprinted by its
+ * listing (paths, sizes and modification times), which notices removed or replaced packages without reading them.
+ */
+public class RestoreFingerprint {
+    /**
+     * Bump when the fingerprint changes meaning, to invalidate existing manifests
+     */
+    static final int MANIFEST_VERSION = 1;
+
+    /**
+     * The largest region mapped at once while hashing a file
+     */
+    private static final long MAP_CHUNK_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Windows keeps a file locked while any mapping of it is alive (i.e. until the buffer is garbage collected), which
+     * would stop NuGet from rewriting the lock file, so files are streamed there instead
+     */
+    private static final boolean MAP_FILES = !System.getProperty("os.name", "").startsWith("Windows");
+
+    private final Path manifest;
+    private final Path packagesDir;
+    private final String inputsDigest;
+
+    private RestoreFingerprint(Path manifest, Path packagesDir, String inputsDigest) {
+        this.manifest = manifest;
+        this.packagesDir = packagesDir;
+        this.inputsDigest = inputsDigest;
+    }
+
+    /**
+     * Fingerprint the inputs of a restore
+     * @param command The NuGet command line
+     * @param projectPath The project, solution or packages.config being restored, resolved against the working directory
+     * @param lockFilePath The -LockFilePath option, or null to use the lock file and packages.config next to the project
+     * @param configFilePath The -ConfigFile option, or null
+     * @param packagesDirectory The -PackagesDirectory option, or null
+     * @return The fingerprint
+     * @throws IOException
+     */
+    public static RestoreFingerprint of(List<String> command, String projectPath, String lockFilePath, String configFilePath, String packagesDirectory) throws IOException {
+        Path project = Paths.get(projectPath);
+        Path projectDir = Files.isDirectory(project) ? project : project.toAbsolutePath().getParent();
+
+        List<Path> inputs = new ArrayList<>();
+        inputs.add(project);
+        if (isSet(lockFilePath)) {
+            inputs.add(Paths.get(lockFilePath));
+        } else {
+            inputs.add(projectDir.resolve("packages.lock.json"));
+            inputs.add(projectDir.resolve("packages.config"));
+        }
+        if (isSet(configFilePath)) {
+            inputs.add(Paths.get(configFilePath));
+        }
+
+        MessageDigest digest = sha256();
+        digest.update(("argv:" + String.join("\u0000", command) + "\n").getBytes(StandardCharsets.UTF_8));
+        for (Path input : inputs) {
+            digest.update(("file:" + input + "\n").getBytes(StandardCharsets.UTF_8));
+            if (Files.isRegularFile(input)) {
+                digest.update(hashFile(input));
+            } else {
+                digest.update("missing".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        Path manifest = projectDir.resolve("obj").resolve(project.getFileName() + ".nuget-task-restore.json");
+        return new RestoreFingerprint(manifest, isSet(packagesDirectory) ? Paths.get(packagesDirectory) : null, toHex(digest.digest()));
+    }
+
+    /**
+     * Get the digest of the restore inputs
+     * @return The hex encoded SHA-256 digest
+     */
+    public String getInputsDigest() {
+        return inputsDigest;
+    }
+
+    /**
+     * Get where the manifest of the last successful restore is kept
+     * @return The manifest path, in the `obj` directory next to the project
+     */
+    public Path getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Are the inputs and the packages on disk the same as after the last successful restore?
+     * @return true if the restore can be skipped, false otherwise
+     * @throws IOException
+     */
+    public boolean isUpToDate() throws IOException {
+        if (!Files.isRegularFile(manifest)) {
+            return false;
+        }
+
+        Map<?, ?> saved;
+        try {
+            saved = TaskPlugin.GSON.fromJson(Files.readString(manifest, StandardCharsets.UTF_8), Map.class);
+        } catch (JsonParseException e) {
+            return false;
+        }
+
+        return saved != null
+            && saved.get("version") instanceof Number && ((Number) saved.get("version")).intValue() == MANIFEST_VERSION
+            && inputsDigest.equals(saved.get("inputs"))
+            && hashPackages().equals(saved.get("packages"));
+    }
+
+    /**
+     * Record a successful restore, replacing any previous manifest atomically
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        Map<String, Object> saved = new LinkedHashMap<>();
+        saved.put("version", MANIFEST_VERSION);
+        saved.put("inputs", inputsDigest);
+        saved.put("packages", hashPackages());
+
+        Files.createDirectories(manifest.getParent());
+        Path temp = Files.createTempFile(manifest.getParent(), manifest.getFileName().toString(), ".tmp");
+        Files.writeString(temp, TaskPlugin.GSON.toJson(saved), StandardCharsets.UTF_8);
+        Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Hash the contents of a file through memory-mapped I/O
+     * @param file The file
+     * @return The SHA-256 digest of the contents
+     * @throws IOException
+     */
+    static byte[] hashFile(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        if (!MAP_FILES) {
+            try (InputStream in = Files.newInputStream(file)) {
+                byte[] buffer = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, n);
+                }
+            }
+            return digest.digest();
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_CHUNK_BYTES) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_CHUNK_BYTES, size - position));
+                digest.update(region);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Fingerprint the listing of the packages directory
+     * @return The hex encoded SHA-256 digest, or an empty string when there is no packages directory to check
+     * @throws IOException
+     */
+    private String hashPackages() throws IOException {
+        if (packagesDir == null) {
+            return "";
+        }
+        if (!Files.isDirectory(packagesDir)) {
+            return "missing";
+        }
+
+        MessageDigest digest = sha256();
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(packagesDir)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            String entry = packagesDir.relativize(file).toString().replace('\\', '/')
+                + '\u0000' + attributes.size()
+                + '\u0000' + attributes.lastModifiedTime().toMillis() + '\n';
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+        }
+        return toHex(digest.digest());
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.gson.JsonParseException;
+
+/**
+ * Splits a recursive restore into shards of projects that restore in parallel, balanced by how long each project took
+ * to restore the last time. The times are kept in a file in the folder the restore starts from.
+ */
+public class RestoreShards {
+    /**
+     * Bump when the times file changes meaning, to ignore existing files
+     */
+    static final int TIMES_VERSION = 1;
+
+    /**
+     * The name of the file the restore times are kept in
+     */
+    static final String TIMES_FILE = ".nuget-task-restore-times.json";
+
+    /**
+     * The project files a restore is run for
+     */
+    static final Set<String> PROJECT_EXTENSIONS = Set.of(".csproj", ".vbproj", ".fsproj");
+
+    /**
+     * Folders that are never searched for projects
+     */
+    private static final Set<String> SKIPPED_FOLDERS = Set.of("bin", "obj", "node_modules", "packages");
+
+    /**
+     * A shard: the projects one worker restores, one after another
+     */
+    public static class Shard {
+        private final int index;
+        private final List<String> projects = new ArrayList<>();
+        private long estimatedMillis;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Get the position of the shard
+         * @return The index, from 0
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Get the projects in the shard
+         * @return The project paths, relative to the root, longest restore first
+         */
+        public List<String> getProjects() {
+            return projects;
+        }
+
+        /**
+         * Get how long the shard is expected to take
+         * @return The sum of the estimated restore times of its projects, in milliseconds
+         */
+        public long getEstimatedMillis() {
+            return estimatedMillis;
+        }
+    }
+
+    private final Path root;
+    private final Map<String, Long> times = new TreeMap<>();
+
+    private RestoreShards(Path root) {
+        this.root = root;
+    }
+
+    /**
+     * Load the restore times of the projects under a folder
+     * @param root The folder the restore starts from
+     * @return The shards helper, with no times if there are none yet or they can't be read
+     * @throws IOException
+     */
+    public static RestoreShards load(Path root) throws IOException {
+        RestoreShards shards = new RestoreShards(root);
+        Path file = root.resolve(TIMES_FILE);
+        if (!Files.isRegularFile(file)) {
+            return shards;
+        }
+
+        Map<?, ?> saved;
+        try {
+            saved = TaskPlugin.GSON.fromJson(Files.readString(file, StandardCharsets.UTF_8), Map.class);
+        } catch (JsonParseException e) {
+            return shards;
+        }
+        if (saved != null && saved.get("version") instanceof Number && ((Number) saved.get("version")).intValue() == TIMES_VERSION
+                && saved.get("projects") instanceof Map) {
+            ((Map<?, ?>) saved.get("projects")).forEach((project, millis) -> {
+                if (project instanceof String && millis instanceof Number) {
+                    shards.times.put((String) project, ((Number) millis).longValue());
+                }
+            });
+        }
+        return shards;
+    }
+
+    /**
+     * Get the folder the restore starts from
+     * @return The root folder
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Find the projects under the root, skipping hidden, build output and package folders
+     * @return The project paths, relative to the root with `/` separators, in order
+     * @throws IOException
+     */
+    public List<String> discover() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files
+                .filter(Files::isRegularFile)
+                .filter(file -> {
+                    String name = file.getFileName().toString();
+                    return PROJECT_EXTENSIONS.stream().anyMatch(name::endsWith);
+                })
+                .map(root::relativize)
+                .filter(relative -> {
+                    for (int i = 0; i < relative.getNameCount() - 1; i++) {
+                        String folder = relative.getName(i).toString();
+                        if (folder.startsWith(".") || SKIPPED_FOLDERS.contains(folder.toLowerCase(Locale.ROOT))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                })
+                .map(relative -> relative.toString().replace('\\', '/'))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Get how long a project is expected to take to restore
+     * @param project The project path, relative to the root
+     * @return Its last restore time, or the average of the known times (or 1 if none are known) for a new project
+     */
+    public synchronized long estimate(String project) {
+        Long millis = times.get(project);
+        if (millis != null) {
+            return Math.max(1, millis);
+        }
+        return Math.max(1, (long) times.values().stream().mapToLong(Long::longValue).average().orElse(1));
+    }
+
+    /**
+     * Split projects into shards of about the same estimated restore time. The longest project goes first, to the
+     * shard with the least time so far.
+     * @param projects The project paths, relative to the root
+     * @param count The most shards to make
+     * @return The shards, none of them empty
+     */
+    public List<Shard> partition(List<String> projects, int count) {
+        Map<String, Long> estimates = new HashMap<>();
+        projects.forEach(project -> estimates.put(project, estimate(project)));
+        List<String> longestFirst = new ArrayList<>(projects);
+        longestFirst.sort(Comparator.comparing((String project) -> estimates.get(project)).reversed().thenComparing(Comparator.naturalOrder()));
+
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, projects.size()); i++) {
+            shards.add(new Shard(i));
+        }
+        for (String project : longestFirst) {
+            Shard shortest = Collections.min(shards, Comparator.comparingLong(Shard::getEstimatedMillis).thenComparingInt(Shard::getIndex));
+            shortest.projects.add(project);
+            shortest.estimatedMillis += estimates.get(project);
+        }
+        return shards;
+    }
+
+    /**
+     * Record how long a project took to restore
+     * @param project The project path, relative to the root
+     * @param millis The restore time, in milliseconds
+     */
+    public synchronized void record(String project, long millis) {
+        times.put(project, millis);
+    }
+
+    /**
+     * Save the restore times, replacing the file atomically
+     * @throws IOException
+     */
+    public synchronized void save() throws IOException {
+        Map<String, Object> saved = new LinkedHashMap<>();
+        saved.put("version", TIMES_VERSION);
+        saved.put("projects", new TreeMap<>(times));
+
+        Path target = root.resolve(TIMES_FILE);
+        Path temp = Files.createTempFile(root, "." + TIMES_FILE, ".tmp");
+        Files.writeString(temp, TaskPlugin.GSON.toJson(saved), StandardCharsets.UTF_8);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A content-addressed cache of packages folders, kept on a local or shared filesystem. A snapshot is keyed by the
+ * command and the hash of the lock file or packages.config it was restored from, so any agent restoring the same
+ * dependencies can extract it instead of downloading them again. Each snapshot is split into zip shards that are
+ * compressed and extracted in parallel, and is published with an atomic rename so readers never see it half written.
+ * Snapshots are evicted least recently used first once the cache grows past its size limit.
+ */
+public class RestoreSnapshotCache {
+    /**
+     * The size the cache is evicted down to when none is configured
+     */
+    static final long DEFAULT_MAX_MEGABYTES = 10240;
+
+    /**
+     * The most shards a snapshot is split into, and so the most threads compressing or extracting it
+     */
+    static final int SHARDS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Written last into a snapshot, so its presence marks a complete snapshot. Its modification time is when the
+     * snapshot was last used.
+     */
+    private static final String METADATA = "snapshot.json";
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong BYTES_SAVED = new AtomicLong();
+
+    private final Path root;
+    private final long maxBytes;
+
+    /**
+     * Create a cache
+     * @param root The cache directory, created when the first snapshot is published
+     * @param maxBytes The size the cache is evicted down to
+     */
+    public RestoreSnapshotCache(Path root, long maxBytes) {
+        this.root = root;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Parse the max size property
+     * @param value The property value, in megabytes
+     * @return The size in bytes
+     * @throws IllegalArgumentException If the value is not a positive whole number
+     */
+    public static long parseMaxSize(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_MAX_MEGABYTES * 1024 * 1024;
+        }
+
+        try {
+            long megabytes = Long.parseLong(value.trim());
+            if (megabytes > 0 && megabytes <= Long.MAX_VALUE / (1024 * 1024)) {
+                return megabytes * 1024 * 1024;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Snapshot cache max size must be a whole number of megabytes greater than 0: " + value);
+    }
+
+    /**
+     * Find the file that pins the packages of a restore or install
+     * @param projectPath The project, solution or packages.config being restored, resolved against the working directory
+     * @param lockFilePath The -LockFilePath option, or null
+     * @return The lock file or packages.config, or null if there is none to key a snapshot by
+     */
+    public static Path findLockFile(String projectPath, String lockFilePath) {
+        if (lockFilePath != null && !lockFilePath.trim().isEmpty()) {
+            Path lockFile = Paths.get(lockFilePath);
+            return Files.isRegularFile(lockFile) ? lockFile : null;
+        }
+        if (projectPath == null || projectPath.trim().isEmpty()) {
+            return null;
+        }
+
+        Path project = Paths.get(projectPath);
+        if (Files.isRegularFile(project) && project.getFileName().toString().equalsIgnoreCase("packages.config")) {
+            return project;
+        }
+        Path projectDir = Files.isDirectory(project) ? project : project.toAbsolutePath().getParent();
+        for (String name : List.of("packages.lock.json", "packages.config")) {
+            Path candidate = projectDir.resolve(name);
+            if (Files.isRegularFile(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the key of the snapshot for a lock file
+     * @param command The NuGet command, as restore and install lay out the packages folder differently
+     * @param lockFile The lock file or packages.config
+     * @return The hex encoded SHA-256 key
+     * @throws IOException
+     */
+    public static String key(String command, Path lockFile) throws IOException {
+        MessageDigest digest = RestoreFingerprint.sha256();
+        digest.update(("snapshot:" + RestoreFingerprint.MANIFEST_VERSION + ":" + command + "\n").getBytes(StandardCharsets.UTF_8));
+        digest.update(RestoreFingerprint.hashFile(lockFile));
+        return RestoreFingerprint.toHex(digest.digest());
+    }
+
+    /**
+     * Extract a snapshot into a packages folder, if the cache has one
+     * @param key The snapshot key
+     * @param packagesDir The packages folder, created if needed
+     * @return The number of bytes extracted, or -1 on a miss
+     * @throws IOException If the snapshot exists but could not be extracted, which counts as a miss
+     * @throws InterruptedException
+     */
+    public long restore(String key, Path packagesDir) throws IOException, InterruptedException {
+        Path snapshot = root.resolve(key);
+        Path metadata = snapshot.resolve(METADATA);
+        if (!Files.isRegularFile(metadata)) {
+            MISSES.incrementAndGet();
+            return -1;
+        }
+
+        try {
+            Files.setLastModifiedTime(metadata, FileTime.from(Instant.now()));
+            Files.createDirectories(packagesDir);
+            List<String> shards;
+            try (Stream<Path> files = Files.list(snapshot)) {
+                shards = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".zip"))
+                    .sorted()
+                    .collect(Collectors.toList());
+            }
+
+            long bytes = unchecked(() -> BatchRunner.run(shards, SHARDS, shard -> extract(snapshot.resolve(shard), packagesDir)))
+                .stream().mapToLong(Long::longValue).sum();
+            HITS.incrementAndGet();
+            BYTES_SAVED.addAndGet(bytes);
+            return bytes;
+        } catch (IOException e) {
+            MISSES.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Publish a packages folder as a snapshot, unless another restore already has
+     * @param key The snapshot key
+     * @param packagesDir The packages folder
+     * @return true if this call published the snapshot, false if it already existed
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public boolean publish(String key, Path packagesDir) throws IOException, InterruptedException {
+        Path snapshot = root.resolve(key);
+        if (Files.exists(snapshot)) {
+            return false;
+        }
+
+        Files.createDirectories(root);
+        Path staging = Files.createTempDirectory(root, ".publish-");
+        try {
+            List<List<Path>> shards = partition(packagesDir);
+            List<String> indexes = IntStream.range(0, shards.size()).mapToObj(Integer::toString).collect(Collectors.toList());
+            List<Long> sizes = unchecked(() -> BatchRunner.run(indexes, SHARDS, index -> compress(packagesDir, shards.get(Integer.parseInt(index)),
+                staging.resolve(String.format("shard-%03d.zip", Integer.parseInt(index))))));
+
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            metadata.put("version", RestoreFingerprint.MANIFEST_VERSION);
+            metadata.put("key", key);
+            metadata.put("shards", shards.size());
+            metadata.put("bytes", sizes.stream().mapToLong(Long::longValue).sum());
+            Files.write(staging.resolve(METADATA), TaskPlugin.GSON.toJson(metadata).getBytes(StandardCharsets.UTF_8));
+
+            try {
+                Files.move(staging, snapshot, StandardCopyOption.ATOMIC_MOVE);
+                return true;
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // Another agent published the same snapshot first
+                return false;
+            }
+        } finally {
+            if (Files.exists(staging)) {
+                deleteTree(staging);
+            }
+        }
+    }
+
+    /**
+     * Evict the least recently used snapshots until the cache is within its size limit
+     * @return The keys of the evicted snapshots
+     * @throws IOException
+     */
+    public List<String> evict() throws IOException {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+
+        List<Path> snapshots;
+        try (Stream<Path> entries = Files.list(root)) {
+            snapshots = entries.filter(entry -> Files.isRegularFile(entry.resolve(METADATA))).collect(Collectors.toList());
+        }
+        Map<Path, Long> sizes = new LinkedHashMap<>();
+        Map<Path, FileTime> lastUsed = new LinkedHashMap<>();
+        for (Path snapshot : snapshots) {
+            sizes.put(snapshot, sizeOf(snapshot));
+            lastUsed.put(snapshot, Files.getLastModifiedTime(snapshot.resolve(METADATA)));
+        }
+        snapshots.sort(Comparator.comparing(lastUsed::get));
+
+        long total = sizes.values().stream().mapToLong(Long::longValue).sum();
+        List<String> evicted = new ArrayList<>();
+        for (Path snapshot : snapshots) {
+            if (total <= maxBytes) {
+                break;
+            }
+            // Move it out of the way first, so no restore starts extracting a snapshot that is being deleted
+            Path doomed = root.resolve(".evict-" + UUID.randomUUID());
+            try {
+                Files.move(snapshot, doomed, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // Evicted by another agent, or still open for extraction on Windows
+                continue;
+            }
+            deleteTree(doomed);
+            total -= sizes.get(snapshot);
+            evicted.add(snapshot.getFileName().toString());
+        }
+        return evicted;
+    }
+
+    /**
+     * Get the number of snapshot hits since the plugin was loaded
+     * @return The hit count
+     */
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    /**
+     * Get the number of snapshot misses since the plugin was loaded
+     * @return The miss count
+     */
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    /**
+     * Get the number of bytes extracted from snapshots, rather than restored by NuGet, since the plugin was loaded
+     * @return The byte count
+     */
+    public static long getBytesSaved() {
+        return BYTES_SAVED.get();
+    }
+
+    /**
+     * Split the top level entries of a packages folder (i.e. the packages) into shards of about the same size
+     * @param packagesDir The packages folder
+     * @return The entries of each shard
+     * @throws IOException
+     */
+    private static List<List<Path>> partition(Path packagesDir) throws IOException {
+        List<Path> entries;
+        try (Stream<Path> list = Files.list(packagesDir)) {
+            entries = list.sorted().collect(Collectors.toList());
+        }
+        Map<Path, Long> sizes = new LinkedHashMap<>();
+        for (Path entry : entries) {
+            sizes.put(entry, sizeOf(entry));
+        }
+        entries.sort(Comparator.comparing((Path entry) -> sizes.get(entry)).reversed());
+
+        int count = Math.max(1, Math.min(SHARDS, entries.size()));
+        List<List<Path>> shards = new ArrayList<>();
+        long[] shardSizes = new long[count];
+        for (int i = 0; i < count; i++) {
+            shards.add(new ArrayList<>());
+        }
+        // Largest first into the smallest shard keeps the shards, and so the extraction threads, balanced
+        for (Path entry : entries) {
+            int smallest = 0;
+            for (int i = 1; i < count; i++) {
+                if (shardSizes[i] < shardSizes[smallest]) {
+                    smallest = i;
+                }
+            }
+            shards.get(smallest).add(entry);
+            shardSizes[smallest] += sizes.get(entry);
+        }
+        return shards;
+    }
+
+    /**
+     * Compress some entries of a packages folder into a shard
+     * @param packagesDir The packages folder
+     * @param entries The top level entries to compress
+     * @param shard The shard to write
+     * @return The uncompressed size of the files
+     */
+    private static long compress(Path packagesDir, List<Path> entries, Path shard) {
+        long bytes = 0;
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(shard)))) {
+            // Packages are mostly zips and assemblies already, so trade ratio for speed
+            zip.setLevel(Deflater.BEST_SPEED);
+            for (Path entry : entries) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(entry)) {
+                    files = walk.sorted().collect(Collectors.toList());
+                }
+                for (Path file : files) {
+                    String name = packagesDir.relativize(file).toString().replace('\\', '/');
+                    if (Files.isDirectory(file)) {
+                        zip.putNextEntry(new ZipEntry(name + "/"));
+                    } else {
+                        zip.putNextEntry(new ZipEntry(name));
+                        bytes += Files.copy(file, zip);
+                    }
+                    zip.closeEntry();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes;
+    }
+
+    /**
+     * Extract a shard into a packages folder
+     * @param shard The shard
+     * @param packagesDir The packages folder
+     * @return The number of bytes extracted
+     */
+    private static long extract(Path shard, Path packagesDir) {
+        Path base = packagesDir.toAbsolutePath().normalize();
+        long bytes = 0;
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(Files.newInputStream(shard)))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                Path target = base.resolve(entry.getName()).normalize();
+                if (!target.startsWith(base)) {
+                    throw new IOException(String.format("%s in %s is outside of the packages folder", entry.getName(), shard));
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    bytes += Files.copy(zip, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes;
+    }
+
+    private static long sizeOf(Path path) throws IOException {
+        try (Stream<Path> walk = Files.walk(path)) {
+            return walk.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).sum();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void deleteTree(Path path) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(path)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path each : paths) {
+            Files.deleteIfExists(each);
+        }
+    }
+
+    /**
+     * Work that reports I/O failures unchecked, as the batch workers must
+     */
+    private interface Work<T> {
+        T run() throws InterruptedException;
+    }
+
+    private static <T> T unchecked(Work<T> work) throws IOException, InterruptedException {
+        try {
+            return work.run();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package cd.go.contrib.task.nuget;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.thoughtworks.go.plugin.api.response.DefaultGoApiResponse;
@@ -28,6 +29,7 @@ public class Result {
     private boolean success;
     private String message;
     private Exception exception;
+    private final Map<String, Object> details = new LinkedHashMap<>();
 
     /**
      * Construct a result without an exception
@@ -50,6 +52,41 @@ public class Result {
         this.exception = exception;
     }
 
+    /**
+     * Attach additional detail to the result, e.g. which timeout fired
+     * @param key The key of the detail in the response
+     * @param value The detail
+     * @return This result
+     */
+    public Result withDetail(String key, Object value) {
+        details.put(key, value);
+        return this;
+    }
+
+    /**
+     * Did the NuGet process complete successfully?
+     * @return true if it did, false otherwise
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    /**
+     * Get the message to communicate back as the result of the NuGet execution
+     * @return The message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Get the additional details attached to the result
+     * @return The details, in the order they were attached
+     */
+    public Map<String, Object> getDetails() {
+        return details;
+    }
+
     /**
      * Convert this object to a Map (e.g. to send in a JSON response)
      * @return A Map representation of this Response
@@ -59,6 +96,7 @@ public class Result {
         result.put("success", success);
         result.put("message", message);
         result.put("exception", exception);
+        result.putAll(details);
         return result;
     }
 
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Masks secrets (API keys, passwords, secret environment variables) in console output. Every secret is compiled once
+ * into an Aho-Corasick automaton, which finds all of them, overlapping or not, in a single pass over the text. Text can
+ * be fed in chunks through a {@link Stream}, which holds back only the characters that could still turn out to be the
+ * start of a secret, so a secret split across chunks is masked too.
+ */
+public class SecretMasker {
+    /**
+     * What each run of secret characters is replaced with
+     */
+    public static final String MASK = "******";
+
+    /**
+     * Shorter values are not treated as secrets, as masking them would mangle ordinary output
+     */
+    static final int MIN_SECRET_CHARS = 4;
+
+    /**
+     * Environment variables whose names match are treated as secrets, as GoCD doesn't say which ones are secure
+     */
+    private static final Pattern SECRET_NAME = Pattern.compile("PASSWORD|PASSWD|SECRET|TOKEN|API_?KEY|ACCESS_?KEY|PRIVATE_?KEY|CREDENTIAL",
+        Pattern.CASE_INSENSITIVE);
+
+    private static final SecretMasker NONE = new SecretMasker(List.of());
+
+    // Characters that appear in no secret share class 0, which always leads back to the root
+    private final char[] classOf = new char[Character.MAX_VALUE + 1];
+    private final int classes;
+    // transitions[state * classes + class] is the next state
+    private final int[] transitions;
+    // The length of the longest secret that ends in each state
+    private final int[] matchLength;
+    // The number of characters matched so far in each state
+    private final int[] depth;
+
+    private SecretMasker(List<String> secrets) {
+        int classCount = 1;
+        int stateCount = 1;
+        for (String secret : secrets) {
+            for (char c : secret.toCharArray()) {
+                if (classOf[c] == 0) {
+                    classOf[c] = (char) classCount++;
+                }
+            }
+            stateCount += secret.length();
+        }
+        classes = classCount;
+
+        // Build the trie of the secrets, with -1 for missing edges
+        int[] trie = new int[stateCount * classes];
+        Arrays.fill(trie, -1);
+        int[] lengths = new int[stateCount];
+        int[] depths = new int[stateCount];
+        int states = 1;
+        for (String secret : secrets) {
+            int state = 0;
+            for (char c : secret.toCharArray()) {
+                int edge = state * classes + classOf[c];
+                if (trie[edge] < 0) {
+                    depths[states] = depths[state] + 1;
+                    trie[edge] = states++;
+                }
+                state = trie[edge];
+            }
+            lengths[state] = secret.length();
+        }
+
+        // Turn it into a complete automaton breadth first, following failure links for the missing edges
+        int[] fail = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < classes; c++) {
+            if (trie[c] < 0) {
+                trie[c] = 0;
+            } else {
+                fail[trie[c]] = 0;
+                queue.add(trie[c]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            // A secret that ends at the failure state also ends here
+            lengths[state] = Math.max(lengths[state], lengths[fail[state]]);
+            for (int c = 0; c < classes; c++) {
+                int next = trie[state * classes + c];
+                if (next < 0) {
+                    trie[state * classes + c] = trie[fail[state] * classes + c];
+                } else {
+                    fail[next] = trie[fail[state] * classes + c];
+                    queue.add(next);
+                }
+            }
+        }
+
+        transitions = Arrays.copyOf(trie, states * classes);
+        matchLength = Arrays.copyOf(lengths, states);
+        depth = Arrays.copyOf(depths, states);
+    }
+
+    /**
+     * Compile a masker for some secrets
+     * @param secrets The secret values; nulls, duplicates and values shorter than {@link #MIN_SECRET_CHARS} are ignored
+     * @return The masker
+     */
+    public static SecretMasker of(Collection<String> secrets) {
+        Set<String> kept = new LinkedHashSet<>();
+        for (String secret : secrets) {
+            if (secret != null && secret.length() >= MIN_SECRET_CHARS) {
+                kept.add(secret);
+            }
+        }
+        return kept.isEmpty() ? NONE : new SecretMasker(new ArrayList<>(kept));
+    }
+
+    /**
+     * Does an environment variable name look like it holds a secret?
+     * @param name The variable name, e.g. `NUGET_API_KEY`
+     * @return true if the name mentions a password, secret, token, key or credential, false otherwise
+     */
+    public static boolean isSecretName(String name) {
+        return name != null && SECRET_NAME.matcher(name).find();
+    }
+
+    /**
+     * Get a masker that masks nothing
+     * @return The masker
+     */
+    public static SecretMasker none() {
+        return NONE;
+    }
+
+    /**
+     * Does this masker have any secrets to mask?
+     * @return true if it has none, in which case text is passed through untouched
+     */
+    public boolean isEmpty() {
+        return this == NONE;
+    }
+
+    /**
+     * Mask every secret in a piece of text
+     * @param text The text, may be null
+     * @return The text with each run of secret characters replaced by {@link #MASK}
+     */
+    public String mask(String text) {
+        if (text == null || isEmpty()) {
+            return text;
+        }
+
+        // Most lines hold no secret, so look for one before copying anything
+        int state = 0;
+        boolean found = false;
+        for (int i = 0, length = text.length(); i < length && !found; i++) {
+            state = transitions[state * classes + classOf[text.charAt(i)]];
+            found = matchLength[state] > 0;
+        }
+        if (!found) {
+            return text;
+        }
+
+        StringBuilder masked = new StringBuilder(text.length());
+        Stream stream = stream();
+        stream.write(text, masked);
+        stream.flush(masked);
+        return masked.toString();
+    }
+
+    /**
+     * Start masking a stream of text
+     * @return A stream, to be fed from one thread
+     */
+    public Stream stream() {
+        return new Stream();
+    }
+
+    /**
+     * Masks text that arrives in chunks
+     */
+    public class Stream {
+        private int state;
+        // The characters not yet written out, which may still be part of a secret, and which of them are secret
+        private final StringBuilder pending = new StringBuilder();
+        private final BitSet secret = new BitSet();
+        private boolean lastWasMasked;
+
+        private Stream() {
+        }
+
+        /**
+         * Mask a chunk of text
+         * @param chunk The chunk
+         * @param out Receives the masked text that can no longer be part of a secret
+         */
+        public void write(CharSequence chunk, StringBuilder out) {
+            if (isEmpty()) {
+                out.append(chunk);
+                return;
+            }
+
+            int length = chunk.length();
+            // The start of a run of characters that can be written out as they are
+            int clean = 0;
+            for (int i = 0; i < length; i++) {
+                char c = chunk.charAt(i);
+                state = transitions[state * classes + classOf[c]];
+                if (state == 0 && pending.length() == 0) {
+                    // The common case: nothing held back and nothing matched
+                    continue;
+                }
+
+                if (clean < i) {
+                    out.append(chunk, clean, i);
+                    lastWasMasked = false;
+                }
+                clean = i + 1;
+                pending.append(c);
+                int matched = matchLength[state];
+                if (matched > 0) {
+                    secret.set(pending.length() - matched, pending.length());
+                }
+                // Only the last depth[state] characters can still be part of a secret
+                release(pending.length() - depth[state], out);
+            }
+            if (clean < length) {
+                out.append(chunk, clean, length);
+                lastWasMasked = false;
+            }
+        }
+
+        /**
+         * Write out everything held back, at the end of the text
+         * @param out Receives the rest of the masked text
+         */
+        public void flush(StringBuilder out) {
+            release(pending.length(), out);
+            state = 0;
+        }
+
+        private void release(int count, StringBuilder out) {
+            if (count <= 0) {
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                if (!secret.get(i)) {
+                    out.append(pending.charAt(i));
+                    lastWasMasked = false;
+                } else if (!lastWasMasked) {
+                    out.append(MASK);
+                    lastWasMasked = true;
+                }
+            }
+            pending.delete(0, count);
+            BitSet rest = secret.get(count, Math.max(count, secret.length()));
+            secret.clear();
+            secret.or(rest);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * The NuGet steps of a task (e.g. `sources add`, two restores, a pack and a push), run as a graph: each step waits for
+ * the steps it depends on, and steps that don't depend on each other run in parallel on a bounded pool
+ */
+public class StepGraph {
+    /**
+     * A step: the task properties it sets, and the steps it runs after
+     */
+    public static class Step {
+        private final String id;
+        private final List<String> dependsOn;
+        private final Map<String, Object> values;
+
+        Step(String id, List<String> dependsOn, Map<String, Object> values) {
+            this.id = id;
+            this.dependsOn = dependsOn;
+            this.values = values;
+        }
+
+        /**
+         * Get the step ID
+         * @return The `id` of the step, or its position in the list (from 1) when it has none
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Get the steps this step runs after
+         * @return The step IDs
+         */
+        public List<String> getDependsOn() {
+            return dependsOn;
+        }
+
+        /**
+         * Get the task properties this step sets
+         * @return The property values, by property name
+         */
+        public Map<String, Object> getValues() {
+            return values;
+        }
+
+        /**
+         * Get the configuration this step runs with
+         * @param taskConfig The configuration of the task the step is in
+         * @return The task configuration, with the properties this step sets replaced
+         */
+        public TaskConfig configure(TaskConfig taskConfig) {
+            return taskConfig.withValues(values);
+        }
+    }
+
+    /**
+     * Runs a step
+     */
+    public interface Runner {
+        /**
+         * Run the step
+         * @param step The step
+         * @return The result of the step
+         * @throws InterruptedException
+         */
+        Result run(Step step) throws InterruptedException;
+    }
+
+    private final List<Step> steps;
+
+    private StepGraph(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * Parse the steps property, e.g. `[{"id": "restore", "command": "restore", "argPackageIdOrFilePath": "App.sln"},
+     * {"command": "pack", "argPackageIdOrFilePath": "App.nuspec"}]`. A step without `dependsOn` runs after the step
+     * before it; `"dependsOn": []` lets it start straight away.
+     * @param json The property value
+     * @return The steps
+     * @throws IllegalArgumentException If the value is not a list of steps, or the steps don't form a graph
+     */
+    public static StepGraph parse(String json) {
+        JsonElement root;
+        try {
+            root = JsonParser.parseString(json == null ? "" : json);
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Steps must be a JSON list of steps: " + e.getMessage());
+        }
+        if (!root.isJsonArray() || root.getAsJsonArray().isEmpty()) {
+            throw new IllegalArgumentException("Steps must be a JSON list of steps, e.g. [{\"command\": \"restore\"}, {\"command\": \"pack\"}]");
+        }
+
+        List<Step> steps = new ArrayList<>();
+        Set<String> ids = new LinkedHashSet<>();
+        for (JsonElement element : root.getAsJsonArray()) {
+            if (!element.isJsonObject()) {
+                throw new IllegalArgumentException("Step " + (steps.size() + 1) + " must be a JSON object of task properties");
+            }
+            JsonObject object = element.getAsJsonObject();
+
+            String id = object.has("id") ? scalar(object.get("id"), String.valueOf(steps.size() + 1), "id") : String.valueOf(steps.size() + 1);
+            if (id == null || id.trim().isEmpty() || !ids.add(id)) {
+                throw new IllegalArgumentException("Step " + (steps.size() + 1) + " must have a unique id: " + id);
+            }
+
+            List<String> dependsOn = new ArrayList<>();
+            if (object.has("dependsOn")) {
+                if (!object.get("dependsOn").isJsonArray()) {
+                    throw new IllegalArgumentException("Step " + id + ": dependsOn must be a list of step ids");
+                }
+                for (JsonElement dependency : object.get("dependsOn").getAsJsonArray()) {
+                    dependsOn.add(scalar(dependency, id, "dependsOn"));
+                }
+            } else if (!steps.isEmpty()) {
+                dependsOn.add(steps.get(steps.size() - 1).getId());
+            }
+
+            Map<String, Object> values = new HashMap<>();
+            for (Map.Entry<String, JsonElement> property : object.entrySet()) {
+                String name = property.getKey();
+                if ("id".equals(name) || "dependsOn".equals(name)) {
+                    continue;
+                } else if (TaskPlugin.TASK_STEPS.equals(name)) {
+                    throw new IllegalArgumentException("Step " + id + ": steps can't have steps of their own");
+                }
+
+                JsonElement value = property.getValue();
+                // Like the request decoder: true/false stays a boolean, numbers are kept as text
+                Object parsed = value.isJsonPrimitive() && value.getAsJsonPrimitive().isBoolean()
+                    ? (Object) value.getAsBoolean()
+                    : scalar(value, id, name);
+                try {
+                    values.put(name, TaskConfig.checkValue(name, parsed));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Step " + id + ": " + e.getMessage());
+                }
+            }
+
+            steps.add(new Step(id, Collections.unmodifiableList(dependsOn), Collections.unmodifiableMap(values)));
+        }
+
+        for (Step step : steps) {
+            for (String dependency : step.getDependsOn()) {
+                if (!ids.contains(dependency) || dependency.equals(step.getId())) {
+                    throw new IllegalArgumentException("Step " + step.getId() + " depends on an unknown step: " + dependency);
+                }
+            }
+        }
+        List<String> cycle = findCycle(steps);
+        if (!cycle.isEmpty()) {
+            throw new IllegalArgumentException("Steps depend on each other in a cycle: " + String.join(", ", cycle));
+        }
+
+        return new StepGraph(Collections.unmodifiableList(steps));
+    }
+
+    private static String scalar(JsonElement value, String id, String property) {
+        if (value.isJsonNull()) {
+            return null;
+        } else if (value.isJsonPrimitive() && !value.getAsJsonPrimitive().isBoolean()) {
+            return value.getAsString();
+        }
+        throw new IllegalArgumentException("Step " + id + ": " + property + " must be text or a number");
+    }
+
+    /**
+     * Find the steps that can never run because they depend on each other
+     * @param steps The steps
+     * @return The IDs of the steps left over once every step that can run has been removed, in order
+     */
+    private static List<String> findCycle(List<Step> steps) {
+        Map<String, Integer> waiting = new LinkedHashMap<>();
+        steps.forEach(step -> waiting.put(step.getId(), step.getDependsOn().size()));
+
+        boolean removed = true;
+        while (removed) {
+            removed = false;
+            for (Step step : steps) {
+                if (Integer.valueOf(0).equals(waiting.get(step.getId()))) {
+                    waiting.remove(step.getId());
+                    for (Step other : steps) {
+                        if (waiting.containsKey(other.getId())) {
+                            waiting.merge(other.getId(), -Collections.frequency(other.getDependsOn(), step.getId()), Integer::sum);
+                        }
+                    }
+                    removed = true;
+                }
+            }
+        }
+        return new ArrayList<>(waiting.keySet());
+    }
+
+    /**
+     * Get the steps
+     * @return The steps, in the order they were listed
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * Run every step once the steps it depends on have succeeded, at most `concurrency` at a time. The steps that
+     * depend on a failed step, directly or not, are skipped.
+     * @param concurrency The most steps to run at once
+     * @param runner Runs a step
+     * @return The status of each step, in the order they were listed
+     * @throws InterruptedException If the run is interrupted, in which case running steps are interrupted too
+     */
+    public List<Map<String, Object>> run(int concurrency, Runner runner) throws InterruptedException {
+        Map<String, Map<String, Object>> statuses = new HashMap<>();
+        Map<String, Integer> waiting = new HashMap<>();
+        steps.forEach(step -> waiting.put(step.getId(), step.getDependsOn().size()));
+
+        AtomicInteger workers = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(concurrency, steps.size())), runnable -> {
+            Thread worker = new Thread(runnable, "nuget-step-" + workers.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+
+        try {
+            CompletionService<Map.Entry<Step, Result>> completion = new ExecutorCompletionService<>(pool);
+            int running = 0;
+            for (Step step : steps) {
+                if (step.getDependsOn().isEmpty()) {
+                    completion.submit(() -> Map.entry(step, runner.run(step)));
+                    running++;
+                }
+            }
+
+            while (running > 0) {
+                Map.Entry<Step, Result> done;
+                try {
+                    done = completion.take().get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof InterruptedException) {
+                        throw (InterruptedException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+                running--;
+
+                Step finished = done.getKey();
+                Result result = done.getValue();
+                statuses.put(finished.getId(), status(finished, result.isSuccess(), result.getMessage(), result.getDetails()));
+
+                for (Step step : steps) {
+                    if (!step.getDependsOn().contains(finished.getId()) || statuses.containsKey(step.getId())) {
+                        continue;
+                    }
+                    if (!result.isSuccess()) {
+                        skip(step, finished.getId(), statuses);
+                    } else if (waiting.merge(step.getId(), -Collections.frequency(step.getDependsOn(), finished.getId()), Integer::sum) == 0) {
+                        completion.submit(() -> Map.entry(step, runner.run(step)));
+                        running++;
+                    }
+                }
+            }
+        } finally {
+            // Interrupting the workers stops their NuGet processes
+            pool.shutdownNow();
+        }
+
+        List<Map<String, Object>> ordered = new ArrayList<>();
+        steps.forEach(step -> ordered.add(statuses.get(step.getId())));
+        return ordered;
+    }
+
+    /**
+     * Skip a step, and every step that depends on it
+     * @param step The step to skip
+     * @param failed The ID of the step it was waiting for
+     * @param statuses Receives the status of each skipped step
+     */
+    private void skip(Step step, String failed, Map<String, Map<String, Object>> statuses) {
+        Map<String, Object> status = status(step, false, "Skipped because step " + failed + " did not succeed", Map.of());
+        status.put("skipped", true);
+        statuses.put(step.getId(), status);
+
+        for (Step dependent : steps) {
+            if (dependent.getDependsOn().contains(step.getId()) && !statuses.containsKey(dependent.getId())) {
+                skip(dependent, step.getId(), statuses);
+            }
+        }
+    }
+
+    private static Map<String, Object> status(Step step, boolean success, String message, Map<String, Object> details) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("id", step.getId());
+        status.put("command", step.getValues().get(TaskPlugin.COMMAND_PROPERTY));
+        status.put("dependsOn", step.getDependsOn());
+        status.put("success", success);
+        status.put("message", message);
+        status.putAll(details);
+        return status;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emitted when the output of the NuGet process has been read to the end and written to the job console
+ */
+@Name("cd.go.contrib.task.nuget.StreamDrain")
+@Label("Stream Drain")
+@Description("Waiting for the remaining NuGet output to be written to the job console")
+public class StreamDrainEvent extends NuGetTaskEvent {
+    /**
+     * The exit code of the process, or -1 if it was stopped
+     */
+    @Label("Exit Code")
+    int exitCode;
+
+    /**
+     * The number of bytes the process wrote to stdout
+     */
+    @Label("Stdout Bytes")
+    @DataAmount
+    long stdoutBytes;
+
+    /**
+     * The number of bytes the process wrote to stderr
+     */
+    @Label("Stderr Bytes")
+    @DataAmount
+    long stderrBytes;
+
+    /**
+     * Whether all output was read before the drain timeout
+     */
+    @Label("Drained")
+    boolean drained;
+}
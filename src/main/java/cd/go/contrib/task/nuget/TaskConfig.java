@@ -16,7 +16,12 @@
 
 package cd.go.contrib.task.nuget;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Class to hold the NuGet Task Configuration data
@@ -132,155 +137,268 @@ public class TaskConfig {
     private final boolean optValidAuthenticationTypesFromEnv;
     private final boolean optIdFromEnv;
     private final boolean optRepositoryPathFromEnv;
+    private final String taskTimeout;
+    private final String taskIdleTimeout;
+    private final String taskConcurrency;
+    private final boolean taskIncrementalRestore;
+    private final String taskSnapshotCache;
+    private final String taskSnapshotCacheMaxSize;
+    private final String taskFeedProxyCache;
+    private final String taskFeedProxyCacheMaxSize;
+    private final String taskHedgeDelay;
+    private final boolean taskHttpPush;
+    private final boolean taskJavaPack;
+    private final boolean taskPackAndPush;
+    private final String taskPushConcurrency;
+    private final String taskSteps;
+    private final String taskRestoreShards;
+    private final String taskLogFile;
+    private final String taskLogTailLines;
+    private final String taskLogBufferSize;
+    private final String taskPackagesFile;
+    private final String taskBackend;
+    private final Function<String, Object> valueOf;
+
+    /**
+     * The type of each property, `String` or `boolean`, by property name (each property is held in the field named
+     * after it)
+     */
+    private static final Map<String, Class<?>> PROPERTY_TYPES = propertyTypes();
 
     /**
      * Construct a task configuration from a Map (e.g. derived from JSON request)
      * @param config The configuration map containing the task properties
      */
     public TaskConfig(Map config) {
-        command = getValue(config, TaskPlugin.COMMAND_PROPERTY);
-        argPackageIdOrFilePath = getValue(config, TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH);
-        argKey = getValue(config, TaskPlugin.ARG_KEY);
-        argPackageVersion = getValue(config, TaskPlugin.ARG_PACKAGE_VERSION);
-        argSource = getValue(config, TaskPlugin.ARG_SOURCE);
-        argDestination = getValue(config, TaskPlugin.ARG_DESTINATION);
-        argOperation = getValue(config, TaskPlugin.ARG_OPERATION);
-        optAllowInsecureConnections = getBooleanValue(config, TaskPlugin.OPT_ALLOW_INSECURE_CONNECTIONS);
-        optApiKey = getValue(config, TaskPlugin.OPT_API_KEY);
-        optAsPath = getValue(config, TaskPlugin.OPT_AS_PATH);
-        optBasePath = getValue(config, TaskPlugin.OPT_BASE_PATH);
-        optBuild = getBooleanValue(config, TaskPlugin.OPT_BUILD);
-        optConfigFile = getValue(config, TaskPlugin.OPT_CONFIG_FILE);
-        optDependencyVersion = getValue(config, TaskPlugin.OPT_DEPENDENCY_VERSION);
-        optDirectDownload = getBooleanValue(config, TaskPlugin.OPT_DIRECT_DOWNLOAD);
-        optDisableBuffering = getBooleanValue(config, TaskPlugin.OPT_DISABLE_BUFFERING);
-        optDisableParallelProcessing = getBooleanValue(config, TaskPlugin.OPT_DISABLE_PARALLEL_PROCESSING);
-        optExclude = getValue(config, TaskPlugin.OPT_EXCLUDE);
-        optExcludeEmptyDirectories = getBooleanValue(config, TaskPlugin.OPT_EXCLUDE_EMPTY_DIRECTORIES);
-        optExcludeVersion = getBooleanValue(config, TaskPlugin.OPT_EXCLUDE_VERSION);
-        optExpand = getBooleanValue(config, TaskPlugin.OPT_EXPAND);
-        optFallbackSource = getValue(config, TaskPlugin.OPT_FALLBACK_SOURCE);
-        optFileConflictAction = getValue(config, TaskPlugin.OPT_FILE_CONFLICT_ACTION);
-        optForce = getBooleanValue(config, TaskPlugin.OPT_FORCE);
-        optForceEnglishOutput = getBooleanValue(config, TaskPlugin.OPT_FORCE_ENGLISH_OUTPUT);
-        optForceEvaluate = getBooleanValue(config, TaskPlugin.OPT_FORCE_EVALUATE);
-        optFormat = getValue(config, TaskPlugin.OPT_FORMAT);
-        optFramework = getValue(config, TaskPlugin.OPT_FRAMEWORK);
-        optId = getValue(config, TaskPlugin.OPT_ID);
-        optIncludeReferencedProjects = getBooleanValue(config, TaskPlugin.OPT_INCLUDE_REFERENCED_PROJECTS);
-        optInstallPackageToOutputPath = getBooleanValue(config, TaskPlugin.OPT_INSTALL_PACKAGE_TO_OUTPUT_PATH);
-        optLockFilePath = getValue(config, TaskPlugin.OPT_LOCK_FILE_PATH);
-        optLockedMode = getBooleanValue(config, TaskPlugin.OPT_LOCKED_MODE);
-        optMinClientVersion = getValue(config, TaskPlugin.OPT_MIN_CLIENT_VERSION);
-        optMSBuildPath = getValue(config, TaskPlugin.OPT_MS_BUILD_PATH);
-        optMSBuildVersion = getValue(config, TaskPlugin.OPT_MS_BUILD_VERSION);
-        optName = getValue(config, TaskPlugin.OPT_NAME);
-        optNoDefaultExcludes = getBooleanValue(config, TaskPlugin.OPT_NO_DEFFAULT_EXCLUDES);
-        optNoHttpCache = getBooleanValue(config, TaskPlugin.OPT_NO_HTTP_CACHE);
-        optNoPackageAnalysis = getBooleanValue(config, TaskPlugin.OPT_NO_PACKAGE_ANALYSIS);
-        optNoPrompt = getBooleanValue(config, TaskPlugin.OPT_NO_PROMPT);
-        optNoServiceEndpoint = getBooleanValue(config, TaskPlugin.OPT_NO_SERVICE_ENDPOINT);
-        optNoSymbols = getBooleanValue(config, TaskPlugin.OPT_NO_SYMBOLS);
-        optOutputDirectory = getValue(config, TaskPlugin.OPT_OUTPUT_DIRECTORY);
-        optOutputFileNamesWithoutVersion = getBooleanValue(config, TaskPlugin.OPT_OUTPUT_FILE_NAMES_WITHOUT_VERSION);
-        optPackageSaveMode = getValue(config, TaskPlugin.OPT_PACKAGE_SAVE_MODE);
-        optPackagesDirectory = getValue(config, TaskPlugin.OPT_PACKAGES_DIRECTORY);
-        optPassword = getValue(config, TaskPlugin.OPT_PASSWORD);
-        optPreRelease = getBooleanValue(config, TaskPlugin.OPT_PRE_RELEASE);
-        optProject2ProjectTimeOut = getValue(config, TaskPlugin.OPT_PROJECT_2_PROJECT_TIME_OUT);
-        optProperties = getValue(config, TaskPlugin.OPT_PROPERTIES);
-        optProtocolVersion = getValue(config, TaskPlugin.OPT_PROTOCOL_VERSION);
-        optRecursive = getBooleanValue(config, TaskPlugin.OPT_RECURSIVE);
-        optRepositoryPath = getValue(config, TaskPlugin.OPT_REPOSITORY_PATH);
-        optRequireConsent = getBooleanValue(config, TaskPlugin.OPT_REQUIRE_CONSENT);
-        optSafe = getBooleanValue(config, TaskPlugin.OPT_SAFE);
-        optSelf = getBooleanValue(config, TaskPlugin.OPT_SELF);
-        optSet = getValue(config, TaskPlugin.OPT_SET);
-        optSkipDuplicate = getBooleanValue(config, TaskPlugin.OPT_SKIP_DUPLICATE);
-        optSolutionDirectory = getValue(config, TaskPlugin.OPT_SOLUTION_DIRECTORY);
-        optSource = getValue(config, TaskPlugin.OPT_SOURCE);
-        optStorePasswordInClearText = getBooleanValue(config, TaskPlugin.OPT_STORE_PASSWORD_IN_CLEAR_TEXT);
-        optSuffix = getValue(config, TaskPlugin.OPT_SUFFIX);
-        optSymbolApiKey = getValue(config, TaskPlugin.OPT_SYMBOL_API_KEY);
-        optSymbolPackageFormat = getValue(config, TaskPlugin.OPT_SYMBOL_PACKAGE_FORMAT);
-        optSymbolSource = getValue(config, TaskPlugin.OPT_SYMBOL_SOURCE);
-        optSymbols = getBooleanValue(config, TaskPlugin.OPT_SYMBOLS);
-        optTimeout = getValue(config, TaskPlugin.OPT_TIMEOUT);
-        optTool = getBooleanValue(config, TaskPlugin.OPT_TOOL);
-        optUseLockFile = getBooleanValue(config, TaskPlugin.OPT_USE_LOCK_FILE);
-        optUsername = getValue(config, TaskPlugin.OPT_USERNAME);
-        optValidAuthenticationTypes = getValue(config, TaskPlugin.OPT_VALID_AUTHENTICATION_TYPES);
-        optVerbosity = getValue(config, TaskPlugin.OPT_VERBOSITY);
-        optVersion = getValue(config, TaskPlugin.OPT_VERSION);
-
-        argPackageIdOrFilePathFromEnv = getBooleanValue(config, TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH_FROM_ENV);
-        argKeyFromEnv = getBooleanValue(config, TaskPlugin.ARG_KEY_FROM_ENV);
-        argPackageVersionFromEnv = getBooleanValue(config, TaskPlugin.ARG_PACKAGE_VERSION_FROM_ENV);
-        argSourceFromEnv = getBooleanValue(config, TaskPlugin.ARG_SOURCE_FROM_ENV);
-        argDestinationFromEnv = getBooleanValue(config, TaskPlugin.ARG_DESTINATION_FROM_ENV);
-        argOperationFromEnv = getBooleanValue(config, TaskPlugin.ARG_OPERATION_FROM_ENV);
-        optVersionFromEnv = getBooleanValue(config, TaskPlugin.OPT_VERSION_FROM_ENV);
-        optSourceFromEnv = getBooleanValue(config, TaskPlugin.OPT_SOURCE_FROM_ENV);
-        optOutputDirectoryFromEnv = getBooleanValue(config, TaskPlugin.OPT_OUTPUT_DIRECTORY_FROM_ENV);
-        optConfigFileFromEnv = getBooleanValue(config, TaskPlugin.OPT_CONFIG_FILE_FROM_ENV);
-        optSolutionDirectoryFromEnv = getBooleanValue(config, TaskPlugin.OPT_SOLUTION_DIRECTORY_FROM_ENV);
-        optFrameworkFromEnv = getBooleanValue(config, TaskPlugin.OPT_FRAMEWORK_FROM_ENV);
-        optBasePathFromEnv = getBooleanValue(config, TaskPlugin.OPT_BASE_PATH_FROM_ENV);
-        optExcludeFromEnv = getBooleanValue(config, TaskPlugin.OPT_EXCLUDE_FROM_ENV);
-        optMinClientVersionFromEnv = getBooleanValue(config, TaskPlugin.OPT_MIN_CLIENT_VERSION_FROM_ENV);
-        optPropertiesFromEnv = getBooleanValue(config, TaskPlugin.OPT_PROPERTIES_FROM_ENV);
-        optSuffixFromEnv = getBooleanValue(config, TaskPlugin.OPT_SUFFIX_FROM_ENV);
-        optFallbackSourceFromEnv = getBooleanValue(config, TaskPlugin.OPT_FALLBACK_SOURCE_FROM_ENV);
-        optMSBuildPathFromEnv = getBooleanValue(config, TaskPlugin.OPT_MS_BUILD_PATH_FROM_ENV);
-        optMSBuildVersionFromEnv = getBooleanValue(config, TaskPlugin.OPT_MS_BUILD_VERSION_FROM_ENV);
-        optPackagesDirectoryFromEnv = getBooleanValue(config, TaskPlugin.OPT_PACKAGES_DIRECTORY_FROM_ENV);
-        optApiKeyFromEnv = getBooleanValue(config, TaskPlugin.OPT_API_KEY_FROM_ENV);
-        optSymbolSourceFromEnv = getBooleanValue(config, TaskPlugin.OPT_SYMBOL_SOURCE_FROM_ENV);
-        optSymbolApiKeyFromEnv = getBooleanValue(config, TaskPlugin.OPT_SYMBOL_API_KEY_FROM_ENV);
-        optTimeoutFromEnv = getBooleanValue(config, TaskPlugin.OPT_TIMEOUT_FROM_ENV);
-        optSetFromEnv = getBooleanValue(config, TaskPlugin.OPT_SET_FROM_ENV);
-        optAsPathFromEnv = getBooleanValue(config, TaskPlugin.OPT_AS_PATH_FROM_ENV);
-        optLockFilePathFromEnv = getBooleanValue(config, TaskPlugin.OPT_LOCK_FILE_PATH_FROM_ENV);
-        optProject2ProjectTimeOutFromEnv = getBooleanValue(config, TaskPlugin.OPT_PROJECT_2_PROJECT_TIME_OUT_FROM_ENV);
-        optNameFromEnv = getBooleanValue(config, TaskPlugin.OPT_NAME_FROM_ENV);
-        optProtocolVersionFromEnv = getBooleanValue(config, TaskPlugin.OPT_PROTOCOL_VERSION_FROM_ENV);
-        optUsernameFromEnv = getBooleanValue(config, TaskPlugin.OPT_USERNAME_FROM_ENV);
-        optPasswordFromEnv = getBooleanValue(config, TaskPlugin.OPT_PASSWORD_FROM_ENV);
-        optValidAuthenticationTypesFromEnv = getBooleanValue(config, TaskPlugin.OPT_VALID_AUTHENTICATION_TYPES_FROM_ENV);
-        optIdFromEnv = getBooleanValue(config, TaskPlugin.OPT_ID_FROM_ENV);
-        optRepositoryPathFromEnv = getBooleanValue(config, TaskPlugin.OPT_REPOSITORY_PATH_FROM_ENV);
-    }
-
-    /**
-     * Get a string value in the config
+        this(property -> getRawValue(config, property));
+    }
+
+    /**
+     * Construct a task configuration from a lookup of property values (e.g. decoded from a streamed JSON request)
+     * @param valueOf Gets the value of a property, or null if the property is unset
+     */
+    TaskConfig(Function<String, Object> valueOf) {
+        this.valueOf = valueOf;
+        command = getValue(valueOf, TaskPlugin.COMMAND_PROPERTY);
+        argPackageIdOrFilePath = getValue(valueOf, TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH);
+        argKey = getValue(valueOf, TaskPlugin.ARG_KEY);
+        argPackageVersion = getValue(valueOf, TaskPlugin.ARG_PACKAGE_VERSION);
+        argSource = getValue(valueOf, TaskPlugin.ARG_SOURCE);
+        argDestination = getValue(valueOf, TaskPlugin.ARG_DESTINATION);
+        argOperation = getValue(valueOf, TaskPlugin.ARG_OPERATION);
+        optAllowInsecureConnections = getBooleanValue(valueOf, TaskPlugin.OPT_ALLOW_INSECURE_CONNECTIONS);
+        optApiKey = getValue(valueOf, TaskPlugin.OPT_API_KEY);
+        optAsPath = getValue(valueOf, TaskPlugin.OPT_AS_PATH);
+        optBasePath = getValue(valueOf, TaskPlugin.OPT_BASE_PATH);
+        optBuild = getBooleanValue(valueOf, TaskPlugin.OPT_BUILD);
+        optConfigFile = getValue(valueOf, TaskPlugin.OPT_CONFIG_FILE);
+        optDependencyVersion = getValue(valueOf, TaskPlugin.OPT_DEPENDENCY_VERSION);
+        optDirectDownload = getBooleanValue(valueOf, TaskPlugin.OPT_DIRECT_DOWNLOAD);
+        optDisableBuffering = getBooleanValue(valueOf, TaskPlugin.OPT_DISABLE_BUFFERING);
+        optDisableParallelProcessing = getBooleanValue(valueOf, TaskPlugin.OPT_DISABLE_PARALLEL_PROCESSING);
+        optExclude = getValue(valueOf, TaskPlugin.OPT_EXCLUDE);
+        optExcludeEmptyDirectories = getBooleanValue(valueOf, TaskPlugin.OPT_EXCLUDE_EMPTY_DIRECTORIES);
+        optExcludeVersion = getBooleanValue(valueOf, TaskPlugin.OPT_EXCLUDE_VERSION);
+        optExpand = getBooleanValue(valueOf, TaskPlugin.OPT_EXPAND);
+        optFallbackSource = getValue(valueOf, TaskPlugin.OPT_FALLBACK_SOURCE);
+        optFileConflictAction = getValue(valueOf, TaskPlugin.OPT_FILE_CONFLICT_ACTION);
+        optForce = getBooleanValue(valueOf, TaskPlugin.OPT_FORCE);
+        optForceEnglishOutput = getBooleanValue(valueOf, TaskPlugin.OPT_FORCE_ENGLISH_OUTPUT);
+        optForceEvaluate = getBooleanValue(valueOf, TaskPlugin.OPT_FORCE_EVALUATE);
+        optFormat = getValue(valueOf, TaskPlugin.OPT_FORMAT);
+        optFramework = getValue(valueOf, TaskPlugin.OPT_FRAMEWORK);
+        optId = getValue(valueOf, TaskPlugin.OPT_ID);
+        optIncludeReferencedProjects = getBooleanValue(valueOf, TaskPlugin.OPT_INCLUDE_REFERENCED_PROJECTS);
+        optInstallPackageToOutputPath = getBooleanValue(valueOf, TaskPlugin.OPT_INSTALL_PACKAGE_TO_OUTPUT_PATH);
+        optLockFilePath = getValue(valueOf, TaskPlugin.OPT_LOCK_FILE_PATH);
+        optLockedMode = getBooleanValue(valueOf, TaskPlugin.OPT_LOCKED_MODE);
+        optMinClientVersion = getValue(valueOf, TaskPlugin.OPT_MIN_CLIENT_VERSION);
+        optMSBuildPath = getValue(valueOf, TaskPlugin.OPT_MS_BUILD_PATH);
+        optMSBuildVersion = getValue(valueOf, TaskPlugin.OPT_MS_BUILD_VERSION);
+        optName = getValue(valueOf, TaskPlugin.OPT_NAME);
+        optNoDefaultExcludes = getBooleanValue(valueOf, TaskPlugin.OPT_NO_DEFFAULT_EXCLUDES);
+        optNoHttpCache = getBooleanValue(valueOf, TaskPlugin.OPT_NO_HTTP_CACHE);
+        optNoPackageAnalysis = getBooleanValue(valueOf, TaskPlugin.OPT_NO_PACKAGE_ANALYSIS);
+        optNoPrompt = getBooleanValue(valueOf, TaskPlugin.OPT_NO_PROMPT);
+        optNoServiceEndpoint = getBooleanValue(valueOf, TaskPlugin.OPT_NO_SERVICE_ENDPOINT);
+        optNoSymbols = getBooleanValue(valueOf, TaskPlugin.OPT_NO_SYMBOLS);
+        optOutputDirectory = getValue(valueOf, TaskPlugin.OPT_OUTPUT_DIRECTORY);
+        optOutputFileNamesWithoutVersion = getBooleanValue(valueOf, TaskPlugin.OPT_OUTPUT_FILE_NAMES_WITHOUT_VERSION);
+        optPackageSaveMode = getValue(valueOf, TaskPlugin.OPT_PACKAGE_SAVE_MODE);
+        optPackagesDirectory = getValue(valueOf, TaskPlugin.OPT_PACKAGES_DIRECTORY);
+        optPassword = getValue(valueOf, TaskPlugin.OPT_PASSWORD);
+        optPreRelease = getBooleanValue(valueOf, TaskPlugin.OPT_PRE_RELEASE);
+        optProject2ProjectTimeOut = getValue(valueOf, TaskPlugin.OPT_PROJECT_2_PROJECT_TIME_OUT);
+        optProperties = getValue(valueOf, TaskPlugin.OPT_PROPERTIES);
+        optProtocolVersion = getValue(valueOf, TaskPlugin.OPT_PROTOCOL_VERSION);
+        optRecursive = getBooleanValue(valueOf, TaskPlugin.OPT_RECURSIVE);
+        optRepositoryPath = getValue(valueOf, TaskPlugin.OPT_REPOSITORY_PATH);
+        optRequireConsent = getBooleanValue(valueOf, TaskPlugin.OPT_REQUIRE_CONSENT);
+        optSafe = getBooleanValue(valueOf, TaskPlugin.OPT_SAFE);
+        optSelf = getBooleanValue(valueOf, TaskPlugin.OPT_SELF);
+        optSet = getValue(valueOf, TaskPlugin.OPT_SET);
+        optSkipDuplicate = getBooleanValue(valueOf, TaskPlugin.OPT_SKIP_DUPLICATE);
+        optSolutionDirectory = getValue(valueOf, TaskPlugin.OPT_SOLUTION_DIRECTORY);
+        optSource = getValue(valueOf, TaskPlugin.OPT_SOURCE);
+        optStorePasswordInClearText = getBooleanValue(valueOf, TaskPlugin.OPT_STORE_PASSWORD_IN_CLEAR_TEXT);
+        optSuffix = getValue(valueOf, TaskPlugin.OPT_SUFFIX);
+        optSymbolApiKey = getValue(valueOf, TaskPlugin.OPT_SYMBOL_API_KEY);
+        optSymbolPackageFormat = getValue(valueOf, TaskPlugin.OPT_SYMBOL_PACKAGE_FORMAT);
+        optSymbolSource = getValue(valueOf, TaskPlugin.OPT_SYMBOL_SOURCE);
+        optSymbols = getBooleanValue(valueOf, TaskPlugin.OPT_SYMBOLS);
+        optTimeout = getValue(valueOf, TaskPlugin.OPT_TIMEOUT);
+        optTool = getBooleanValue(valueOf, TaskPlugin.OPT_TOOL);
+        optUseLockFile = getBooleanValue(valueOf, TaskPlugin.OPT_USE_LOCK_FILE);
+        optUsername = getValue(valueOf, TaskPlugin.OPT_USERNAME);
+        optValidAuthenticationTypes = getValue(valueOf, TaskPlugin.OPT_VALID_AUTHENTICATION_TYPES);
+        optVerbosity = getValue(valueOf, TaskPlugin.OPT_VERBOSITY);
+        optVersion = getValue(valueOf, TaskPlugin.OPT_VERSION);
+
+        argPackageIdOrFilePathFromEnv = getBooleanValue(valueOf, TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH_FROM_ENV);
+        argKeyFromEnv = getBooleanValue(valueOf, TaskPlugin.ARG_KEY_FROM_ENV);
+        argPackageVersionFromEnv = getBooleanValue(valueOf, TaskPlugin.ARG_PACKAGE_VERSION_FROM_ENV);
+        argSourceFromEnv = getBooleanValue(valueOf, TaskPlugin.ARG_SOURCE_FROM_ENV);
+        argDestinationFromEnv = getBooleanValue(valueOf, TaskPlugin.ARG_DESTINATION_FROM_ENV);
+        argOperationFromEnv = getBooleanValue(valueOf, TaskPlugin.ARG_OPERATION_FROM_ENV);
+        optVersionFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_VERSION_FROM_ENV);
+        optSourceFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_SOURCE_FROM_ENV);
+        optOutputDirectoryFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_OUTPUT_DIRECTORY_FROM_ENV);
+        optConfigFileFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_CONFIG_FILE_FROM_ENV);
+        optSolutionDirectoryFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_SOLUTION_DIRECTORY_FROM_ENV);
+        optFrameworkFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_FRAMEWORK_FROM_ENV);
+        optBasePathFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_BASE_PATH_FROM_ENV);
+        optExcludeFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_EXCLUDE_FROM_ENV);
+        optMinClientVersionFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_MIN_CLIENT_VERSION_FROM_ENV);
+        optPropertiesFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_PROPERTIES_FROM_ENV);
+        optSuffixFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_SUFFIX_FROM_ENV);
+        optFallbackSourceFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_FALLBACK_SOURCE_FROM_ENV);
+        optMSBuildPathFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_MS_BUILD_PATH_FROM_ENV);
+        optMSBuildVersionFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_MS_BUILD_VERSION_FROM_ENV);
+        optPackagesDirectoryFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_PACKAGES_DIRECTORY_FROM_ENV);
+        optApiKeyFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_API_KEY_FROM_ENV);
+        optSymbolSourceFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_SYMBOL_SOURCE_FROM_ENV);
+        optSymbolApiKeyFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_SYMBOL_API_KEY_FROM_ENV);
+        optTimeoutFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_TIMEOUT_FROM_ENV);
+        optSetFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_SET_FROM_ENV);
+        optAsPathFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_AS_PATH_FROM_ENV);
+        optLockFilePathFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_LOCK_FILE_PATH_FROM_ENV);
+        optProject2ProjectTimeOutFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_PROJECT_2_PROJECT_TIME_OUT_FROM_ENV);
+        optNameFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_NAME_FROM_ENV);
+        optProtocolVersionFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_PROTOCOL_VERSION_FROM_ENV);
+        optUsernameFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_USERNAME_FROM_ENV);
+        optPasswordFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_PASSWORD_FROM_ENV);
+        optValidAuthenticationTypesFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_VALID_AUTHENTICATION_TYPES_FROM_ENV);
+        optIdFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_ID_FROM_ENV);
+        optRepositoryPathFromEnv = getBooleanValue(valueOf, TaskPlugin.OPT_REPOSITORY_PATH_FROM_ENV);
+        taskTimeout = getValue(valueOf, TaskPlugin.TASK_TIMEOUT);
+        taskIdleTimeout = getValue(valueOf, TaskPlugin.TASK_IDLE_TIMEOUT);
+        taskConcurrency = getValue(valueOf, TaskPlugin.TASK_CONCURRENCY);
+        taskIncrementalRestore = getBooleanValue(valueOf, TaskPlugin.TASK_INCREMENTAL_RESTORE);
+        taskSnapshotCache = getValue(valueOf, TaskPlugin.TASK_SNAPSHOT_CACHE);
+        taskSnapshotCacheMaxSize = getValue(valueOf, TaskPlugin.TASK_SNAPSHOT_CACHE_MAX_SIZE);
+        taskFeedProxyCache = getValue(valueOf, TaskPlugin.TASK_FEED_PROXY_CACHE);
+        taskFeedProxyCacheMaxSize = getValue(valueOf, TaskPlugin.TASK_FEED_PROXY_CACHE_MAX_SIZE);
+        taskHedgeDelay = getValue(valueOf, TaskPlugin.TASK_HEDGE_DELAY);
+        taskHttpPush = getBooleanValue(valueOf, TaskPlugin.TASK_HTTP_PUSH);
+        taskJavaPack = getBooleanValue(valueOf, TaskPlugin.TASK_JAVA_PACK);
+        taskPackAndPush = getBooleanValue(valueOf, TaskPlugin.TASK_PACK_AND_PUSH);
+        taskPushConcurrency = getValue(valueOf, TaskPlugin.TASK_PUSH_CONCURRENCY);
+        taskSteps = getValue(valueOf, TaskPlugin.TASK_STEPS);
+        taskRestoreShards = getValue(valueOf, TaskPlugin.TASK_RESTORE_SHARDS);
+        taskLogFile = getValue(valueOf, TaskPlugin.TASK_LOG_FILE);
+        taskLogTailLines = getValue(valueOf, TaskPlugin.TASK_LOG_TAIL_LINES);
+        taskLogBufferSize = getValue(valueOf, TaskPlugin.TASK_LOG_BUFFER_SIZE);
+        taskPackagesFile = getValue(valueOf, TaskPlugin.TASK_PACKAGES_FILE);
+        taskBackend = getValue(valueOf, TaskPlugin.TASK_BACKEND);
+    }
+
+    /**
+     * Get the raw value of a property in a config Map
      * @param config
      * @param property
      * @return
      */
-    private String getValue(Map config, String property) {
+    private static Object getRawValue(Map config, String property) {
         Map propConfig = (Map) config.get(property);
 
         if (propConfig == null) {
             return null;
         }
 
-        return (String) ((Map) config.get(property)).get("value");
+        return propConfig.get("value");
     }
 
     /**
-     * Get a boolean value in the config
-     * @param config
-     * @param property
-     * @return
+     * Derive a task configuration with one property replaced (e.g. the argument of one item in a batch)
+     * @param property The property name
+     * @param value The new value of the property
+     * @return A new task configuration, leaving this one untouched
      */
-    private boolean getBooleanValue(Map config, String property) {
-        Map propConfig = (Map) config.get(property);
+    public TaskConfig withValue(String property, Object value) {
+        return new TaskConfig(name -> property.equals(name) ? value : valueOf.apply(name));
+    }
 
-        if (propConfig == null) {
-            return false;
+    /**
+     * Derive a task configuration with several properties replaced (e.g. by one step of a multi-step task)
+     * @param values The new values, by property name
+     * @return A new task configuration, leaving this one untouched
+     */
+    public TaskConfig withValues(Map<String, Object> values) {
+        return new TaskConfig(name -> values.containsKey(name) ? values.get(name) : valueOf.apply(name));
+    }
+
+    private static Map<String, Class<?>> propertyTypes() {
+        Map<String, Class<?>> types = new HashMap<>();
+        for (Field field : TaskConfig.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && (field.getType() == String.class || field.getType() == boolean.class)) {
+                types.put(field.getName(), field.getType());
+            }
+        }
+        return Collections.unmodifiableMap(types);
+    }
+
+    /**
+     * Check a property value that doesn't come from GoCD (e.g. one of a step's), which may be a Boolean
+     * @param property The property name
+     * @param value The value: text, a Boolean, or null
+     * @return The value
+     * @throws IllegalArgumentException If there is no such property, or the value doesn't fit its type
+     */
+    static Object checkValue(String property, Object value) {
+        Class<?> type = PROPERTY_TYPES.get(property);
+        if (type == null) {
+            throw new IllegalArgumentException("unknown property " + property);
+        } else if (value == null) {
+            return null;
+        } else if (type == boolean.class) {
+            if (value instanceof Boolean || "true".equals(value) || "false".equals(value)) {
+                return value;
+            }
+            throw new IllegalArgumentException(property + " must be true or false");
+        } else if (!(value instanceof String)) {
+            throw new IllegalArgumentException(property + " must be text or a number");
         }
+        return value;
+    }
+
+    /**
+     * Get a string value in the config
+     * @param valueOf
+     * @param property
+     * @return
+     */
+    private static String getValue(Function<String, Object> valueOf, String property) {
+        return (String) valueOf.apply(property);
+    }
 
-        Object value = (propConfig).get("value");
+    /**
+     * Get a boolean value in the config
+     * @param valueOf
+     * @param property
+     * @return
+     */
+    private static boolean getBooleanValue(Function<String, Object> valueOf, String property) {
+        Object value = valueOf.apply(property);
 
         if (value == null) {
             return false;
@@ -1170,4 +1288,164 @@ public class TaskConfig {
     public boolean isOptRepositoryPathFromEnv() {
         return optRepositoryPathFromEnv;
     }
+
+    /**
+     * Get the wall-clock timeout of the NuGet process
+     * @return The timeout in seconds, or null/empty for none
+     */
+    public String getTaskTimeout() {
+        return taskTimeout;
+    }
+
+    /**
+     * Get how long the NuGet process may go without writing any output
+     * @return The idle timeout in seconds, or null/empty for none
+     */
+    public String getTaskIdleTimeout() {
+        return taskIdleTimeout;
+    }
+
+    /**
+     * Get how many NuGet processes a batch may run at once
+     * @return The concurrency limit, or null/empty for the default
+     */
+    public String getTaskConcurrency() {
+        return taskConcurrency;
+    }
+
+    /**
+     * Should a restore be skipped when nothing changed since the last successful restore?
+     * @return true if restores are incremental, false otherwise
+     */
+    public boolean hasTaskIncrementalRestore() {
+        return taskIncrementalRestore;
+    }
+
+    /**
+     * Get the directory of the restore snapshot cache
+     * @return The cache directory, or null/empty if snapshots are disabled
+     */
+    public String getTaskSnapshotCache() {
+        return taskSnapshotCache;
+    }
+
+    /**
+     * Get the size the snapshot cache is evicted down to
+     * @return The size in megabytes, or null/empty for the default
+     */
+    public String getTaskSnapshotCacheMaxSize() {
+        return taskSnapshotCacheMaxSize;
+    }
+
+    /**
+     * Get the cache directory of the local feed proxy
+     * @return The cache directory, or null/empty if the proxy is disabled
+     */
+    public String getTaskFeedProxyCache() {
+        return taskFeedProxyCache;
+    }
+
+    /**
+     * Get the size the feed proxy cache is evicted down to
+     * @return The size in megabytes, or null/empty for the default
+     */
+    public String getTaskFeedProxyCacheMaxSize() {
+        return taskFeedProxyCacheMaxSize;
+    }
+
+    /**
+     * Get how long the feed proxy waits on a source before racing the others
+     * @return The delay in milliseconds, or null/empty if requests are not raced
+     */
+    public String getTaskHedgeDelay() {
+        return taskHedgeDelay;
+    }
+
+    /**
+     * Should packages be pushed with the built-in HTTP client?
+     * @return true to push over HTTP where the source allows, false to always use the nuget CLI
+     */
+    public boolean hasTaskHttpPush() {
+        return taskHttpPush;
+    }
+
+    /**
+     * Should nuspecs be packed with the built-in packer?
+     * @return true to pack nuspecs in process where the options allow, false to always use the nuget CLI
+     */
+    public boolean hasTaskJavaPack() {
+        return taskJavaPack;
+    }
+
+    /**
+     * Should a pack push each package as soon as it is packed?
+     * @return true to pipeline the pack into a push, false to only pack
+     */
+    public boolean hasTaskPackAndPush() {
+        return taskPackAndPush;
+    }
+
+    /**
+     * Get how many packages a pack-and-push uploads at once
+     * @return The concurrency limit, or null/empty for the default
+     */
+    public String getTaskPushConcurrency() {
+        return taskPushConcurrency;
+    }
+
+    /**
+     * Get the JSON list of steps to run instead of the single command
+     * @return The steps, or null to run the single command
+     */
+    public String getTaskSteps() {
+        return taskSteps;
+    }
+
+    /**
+     * Get how many nuget processes a recursive restore is split into
+     * @return The number of shards, or null to restore in one process
+     */
+    public String getTaskRestoreShards() {
+        return taskRestoreShards;
+    }
+
+    /**
+     * Get the gzip log file for the full NuGet output, relative to the working directory
+     * @return The log file, or blank to print all output to the job console
+     */
+    public String getTaskLogFile() {
+        return taskLogFile;
+    }
+
+    /**
+     * Get the number of output lines shown in the job console when a logged execution fails
+     * @return The number of lines, or blank for the default
+     */
+    public String getTaskLogTailLines() {
+        return taskLogTailLines;
+    }
+
+    /**
+     * Get the most output, in megabytes, held in memory while it waits to be written to the log file
+     * @return The size, or blank for the default
+     */
+    public String getTaskLogBufferSize() {
+        return taskLogBufferSize;
+    }
+
+    /**
+     * Get the JSON file receiving the packages found in the NuGet output, relative to the working directory
+     * @return The packages file, or blank for none
+     */
+    public String getTaskPackagesFile() {
+        return taskPackagesFile;
+    }
+
+    /**
+     * Get the backend that runs the NuGet commands
+     * @return The backend, i.e. nuget or dotnet, or blank for nuget
+     */
+    public String getTaskBackend() {
+        return taskBackend;
+    }
 }
@@ -146,6 +146,11 @@ public class TaskPlugin implements GoPlugin {
      */
     protected static final Set<String> CMDSET_PUSH_DELETE = Set.of(CMD_PUSH, CMD_DELETE);
 
+    /**
+     * Command Set: pack, push (the commands that accept a glob or list of files)
+     */
+    protected static final Set<String> CMDSET_BATCH = Set.of(CMD_PACK, CMD_PUSH);
+
     /**
      * Property name for the NuGet `Command` task configuration.
      */
@@ -696,6 +701,106 @@ public class TaskPlugin implements GoPlugin {
      */
     public static final String OPT_REPOSITORY_PATH_FROM_ENV = "optRepositoryPathFromEnv";
 
+    /**
+     * Property name for the wall-clock timeout of the NuGet process, in seconds (blank or 0 for none).
+     */
+    public static final String TASK_TIMEOUT = "taskTimeout";
+
+    /**
+     * Property name for the idle output timeout of the NuGet process, in seconds (blank or 0 for none).
+     */
+    public static final String TASK_IDLE_TIMEOUT = "taskIdleTimeout";
+
+    /**
+     * Property name for how many NuGet processes a batch (e.g. a push glob) may run at once (blank for the default).
+     */
+    public static final String TASK_CONCURRENCY = "taskConcurrency";
+
+    /**
+     * Property name to skip a restore when its inputs and packages are unchanged since the last successful restore.
+     */
+    public static final String TASK_INCREMENTAL_RESTORE = "taskIncrementalRestore";
+
+    /**
+     * Property name for the directory of the restore snapshot cache, e.g. on a shared filesystem (blank to disable).
+     */
+    public static final String TASK_SNAPSHOT_CACHE = "taskSnapshotCache";
+
+    /**
+     * Property name for the size the snapshot cache is evicted down to, in megabytes (blank for the default).
+     */
+    public static final String TASK_SNAPSHOT_CACHE_MAX_SIZE = "taskSnapshotCacheMaxSize";
+
+    /**
+     * Property name for the cache directory of the local feed proxy that restores and installs go through (blank to disable).
+     */
+    public static final String TASK_FEED_PROXY_CACHE = "taskFeedProxyCache";
+
+    /**
+     * Property name for the size the feed proxy cache is evicted down to, in megabytes (blank for the default).
+     */
+    public static final String TASK_FEED_PROXY_CACHE_MAX_SIZE = "taskFeedProxyCacheMaxSize";
+
+    /**
+     * Property name for how long, in milliseconds, the feed proxy waits on a source before racing the same request to the other sources (blank to disable).
+     */
+    public static final String TASK_HEDGE_DELAY = "taskHedgeDelay";
+
+    /**
+     * Property name for whether packages are pushed with the built-in HTTP client rather than the nuget CLI, where the source allows.
+     */
+    public static final String TASK_HTTP_PUSH = "taskHttpPush";
+
+    /**
+     * Property name for whether nuspecs are packed with the built-in packer rather than the nuget CLI, where the options allow.
+     */
+    public static final String TASK_JAVA_PACK = "taskJavaPack";
+
+    /**
+     * Property name for whether a pack pushes each package to the source as soon as it is packed.
+     */
+    public static final String TASK_PACK_AND_PUSH = "taskPackAndPush";
+
+    /**
+     * Property name for how many packages a pack-and-push uploads at once (blank for the default).
+     */
+    public static final String TASK_PUSH_CONCURRENCY = "taskPushConcurrency";
+
+    /**
+     * Property name for a JSON list of NuGet steps to run in one task, instead of the single command.
+     */
+    public static final String TASK_STEPS = "taskSteps";
+
+    /**
+     * Property name for how many nuget processes a recursive restore is split into (blank for one).
+     */
+    public static final String TASK_RESTORE_SHARDS = "taskRestoreShards";
+
+    /**
+     * Property name for the gzip log file receiving the full NuGet output, leaving only warnings, errors and a summary in the job console.
+     */
+    public static final String TASK_LOG_FILE = "taskLogFile";
+
+    /**
+     * Property name for the number of output lines shown in the job console when a logged execution fails.
+     */
+    public static final String TASK_LOG_TAIL_LINES = "taskLogTailLines";
+
+    /**
+     * Property name for the most output, in megabytes, held in memory while it waits to be written to the log file.
+     */
+    public static final String TASK_LOG_BUFFER_SIZE = "taskLogBufferSize";
+
+    /**
+     * Property name for the JSON file receiving the packages found in the NuGet output.
+     */
+    public static final String TASK_PACKAGES_FILE = "taskPackagesFile";
+
+    /**
+     * Property name for the backend that runs the NuGet commands: the nuget CLI or the dotnet CLI.
+     */
+    public static final String TASK_BACKEND = "taskBackend";
+
     /**
      * Gson instance for serializing and deserializing JSON.
      */
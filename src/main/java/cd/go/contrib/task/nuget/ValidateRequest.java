@@ -16,10 +16,11 @@
 
 package cd.go.contrib.task.nuget;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.function.Consumer;
 
-import com.google.gson.GsonBuilder;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
 import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
@@ -30,12 +31,11 @@ import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
 public class ValidateRequest {
     /**
      * Check if config var is not defined
-     * @param configMap
-     * @param property
+     * @param value
      * @return
      */
-    private boolean configVarIsNotDefined(Map configMap, String property) {
-        return !configMap.containsKey(property) || ((Map) configMap.get(property)).get("value") == null || ((String) ((Map) configMap.get(property)).get("value")).trim().isEmpty();
+    private boolean configVarIsNotDefined(String value) {
+        return value == null || value.trim().isEmpty();
     }
 
     /**
@@ -50,19 +50,31 @@ public class ValidateRequest {
     }
 
     /**
-     * This function receives a NuGet task configuration and validates it
-     * @param request The API request that contains the configuration to validate
-     * @return The validation result, including any errors found in the configuration
+     * Check that a property parses, e.g. that a timeout is blank or a whole, non-negative number of seconds
+     * @param errorMap Receives the error, if any
+     * @param property The property name
+     * @param value The property value
+     * @param parser Parses the value, throwing an IllegalArgumentException with the error if it's invalid
      */
-    public GoPluginApiResponse execute(GoPluginApiRequest request) {
-        Map configMap = (Map) new GsonBuilder().create().fromJson(request.requestBody(), Object.class);
-        HashMap errorMap = new HashMap<String, String>();
+    private void validateValue(HashMap<String, String> errorMap, String property, String value, Consumer<String> parser) {
+        try {
+            parser.accept(value);
+        } catch (IllegalArgumentException e) {
+            errorMap.put(property, e.getMessage());
+        }
+    }
 
-        if (configVarIsNotDefined(configMap, TaskPlugin.COMMAND_PROPERTY)) {
+    /**
+     * Check that the command is set, along with the arguments it needs
+     * @param errorMap Receives the errors, if any
+     * @param taskConfig The task configuration
+     */
+    private void validateCommand(HashMap<String, String> errorMap, TaskConfig taskConfig) {
+        if (configVarIsNotDefined(taskConfig.getCommand())) {
             errorMap.put(TaskPlugin.COMMAND_PROPERTY, "Command must be set to one of [install, pack, push, config, restore, add, delete, init, sources, update]");
         }
 
-        String command = ((String) ((Map) configMap.get(TaskPlugin.COMMAND_PROPERTY)).get("value")).trim();
+        String command = taskConfig.getCommand() == null ? "" : taskConfig.getCommand().trim();
 
         if (TaskPlugin.CMDSET_INSTALL_PACK_PUSH_RESTORE_ADD_DELETE_UPDATE.contains(command)) {
             HashMap<String, String> firstArgLookup = new HashMap<String, String>();
@@ -74,29 +86,91 @@ public class ValidateRequest {
             firstArgLookup.put(TaskPlugin.CMD_DELETE, "<packageID>");
             firstArgLookup.put(TaskPlugin.CMD_UPDATE, "<packageID>");
 
-            if (configVarIsNotDefined(configMap, TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH)) {
+            if (configVarIsNotDefined(taskConfig.getArgPackageIdOrFilePath())) {
                 errorMap.put(TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH, getMissingArgumentErrorMsg(command, TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH, firstArgLookup.get(command)));
             }
 
             if (TaskPlugin.CMD_DELETE.equals(command)) {
-                if (configVarIsNotDefined(configMap, TaskPlugin.ARG_PACKAGE_VERSION)) {
+                if (configVarIsNotDefined(taskConfig.getArgPackageVersion())) {
                     errorMap.put(TaskPlugin.ARG_PACKAGE_VERSION, getMissingArgumentErrorMsg(command, TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH, "<packageVersion>"));
                 }
             }
         } else if (TaskPlugin.CMD_INIT.equals(command)) {
-            if (configVarIsNotDefined(configMap, TaskPlugin.ARG_SOURCE)) {
+            if (configVarIsNotDefined(taskConfig.getArgSource())) {
                 errorMap.put(TaskPlugin.ARG_SOURCE, getMissingArgumentErrorMsg(command, TaskPlugin.ARG_SOURCE, "<source>"));
             }
 
-            if (configVarIsNotDefined(configMap, TaskPlugin.ARG_DESTINATION)) {
+            if (configVarIsNotDefined(taskConfig.getArgDestination())) {
                 errorMap.put(TaskPlugin.ARG_DESTINATION, getMissingArgumentErrorMsg(command, TaskPlugin.ARG_DESTINATION, "<destination>"));
             }
         } else if (TaskPlugin.CMD_SOURCES.equals(command)) {
-            if (configVarIsNotDefined(configMap, TaskPlugin.ARG_OPERATION)) {
+            if (configVarIsNotDefined(taskConfig.getArgOperation())) {
                 errorMap.put(TaskPlugin.ARG_OPERATION, getMissingArgumentErrorMsg(command, TaskPlugin.ARG_OPERATION, "<operation>"));
             }
         }
 
+        try {
+            NuGetBackend backend = NuGetBackend.forName(taskConfig.getTaskBackend());
+            if (!command.isEmpty() && !errorMap.containsKey(TaskPlugin.ARG_OPERATION)) {
+                backend.checkSupported(taskConfig);
+            }
+        } catch (IllegalArgumentException e) {
+            errorMap.put(TaskPlugin.TASK_BACKEND, e.getMessage());
+        }
+    }
+
+    /**
+     * Check that the steps parse, and that each step's command has the arguments it needs
+     * @param errorMap Receives the error, if any
+     * @param taskConfig The task configuration
+     */
+    private void validateSteps(HashMap<String, String> errorMap, TaskConfig taskConfig) {
+        StepGraph graph;
+        try {
+            graph = StepGraph.parse(taskConfig.getTaskSteps());
+        } catch (IllegalArgumentException e) {
+            errorMap.put(TaskPlugin.TASK_STEPS, e.getMessage());
+            return;
+        }
+
+        List<String> errors = new ArrayList<>();
+        TaskConfig baseConfig = taskConfig.withValue(TaskPlugin.TASK_STEPS, null);
+        for (StepGraph.Step step : graph.getSteps()) {
+            HashMap<String, String> stepErrors = new HashMap<>();
+            validateCommand(stepErrors, step.configure(baseConfig));
+            stepErrors.values().stream().sorted().forEach(error -> errors.add("Step " + step.getId() + ": " + error));
+        }
+        if (!errors.isEmpty()) {
+            errorMap.put(TaskPlugin.TASK_STEPS, String.join("; ", errors));
+        }
+    }
+
+    /**
+     * This function receives a NuGet task configuration and validates it
+     * @param request The API request that contains the configuration to validate
+     * @return The validation result, including any errors found in the configuration
+     */
+    public GoPluginApiResponse execute(GoPluginApiRequest request) {
+        TaskConfig taskConfig = RequestDecoder.decodeTaskConfig(request.requestBody());
+        HashMap<String, String> errorMap = new HashMap<String, String>();
+
+        if (configVarIsNotDefined(taskConfig.getTaskSteps())) {
+            validateCommand(errorMap, taskConfig);
+        } else {
+            validateSteps(errorMap, taskConfig);
+        }
+
+        validateValue(errorMap, TaskPlugin.TASK_TIMEOUT, taskConfig.getTaskTimeout(), ProcessWatchdog::parseSeconds);
+        validateValue(errorMap, TaskPlugin.TASK_IDLE_TIMEOUT, taskConfig.getTaskIdleTimeout(), ProcessWatchdog::parseSeconds);
+        validateValue(errorMap, TaskPlugin.TASK_CONCURRENCY, taskConfig.getTaskConcurrency(), value -> BatchRunner.parseConcurrency(value, 1));
+        validateValue(errorMap, TaskPlugin.TASK_PUSH_CONCURRENCY, taskConfig.getTaskPushConcurrency(), value -> BatchRunner.parseConcurrency(value, 1));
+        validateValue(errorMap, TaskPlugin.TASK_RESTORE_SHARDS, taskConfig.getTaskRestoreShards(), value -> BatchRunner.parseConcurrency(value, 1));
+        validateValue(errorMap, TaskPlugin.TASK_SNAPSHOT_CACHE_MAX_SIZE, taskConfig.getTaskSnapshotCacheMaxSize(), RestoreSnapshotCache::parseMaxSize);
+        validateValue(errorMap, TaskPlugin.TASK_FEED_PROXY_CACHE_MAX_SIZE, taskConfig.getTaskFeedProxyCacheMaxSize(), NuGetFeedProxy::parseMaxSize);
+        validateValue(errorMap, TaskPlugin.TASK_HEDGE_DELAY, taskConfig.getTaskHedgeDelay(), NuGetFeedProxy::parseHedgeDelay);
+        validateValue(errorMap, TaskPlugin.TASK_LOG_TAIL_LINES, taskConfig.getTaskLogTailLines(), LogFileConsoleLogger::parseTailLines);
+        validateValue(errorMap, TaskPlugin.TASK_LOG_BUFFER_SIZE, taskConfig.getTaskLogBufferSize(), LogFileConsoleLogger::parseBufferSize);
+
         HashMap<String, Object> validationResult = new HashMap<>();
         validationResult.put("errors", errorMap);
         return new DefaultGoPluginApiResponse(DefaultGoPluginApiResponse.SUCCESS_RESPONSE_CODE, TaskPlugin.GSON.toJson(validationResult));
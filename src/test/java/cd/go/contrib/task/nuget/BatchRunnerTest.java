@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class BatchRunnerTest {
+    @Test
+    void runsAtMostTheConcurrencyAtOnceAndKeepsTheInputOrder() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        List<String> results = BatchRunner.run(List.of("a", "b", "c", "d", "e"), 2, input -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            bothStarted.countDown();
+            bothStarted.await(10, TimeUnit.SECONDS);
+            // Later inputs finish first
+            Thread.sleep(("e".charAt(0) - input.charAt(0)) * 20L);
+            running.decrementAndGet();
+            return input.toUpperCase();
+        });
+
+        assertThat(results, equalTo(List.of("A", "B", "C", "D", "E")));
+        assertThat(mostRunning.get(), equalTo(2));
+    }
+
+    @Test
+    void rethrowsTheFailureOfAnItem() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> BatchRunner.run(List.of("a", "b"), 2, input -> {
+            if (input.equals("b")) {
+                throw new IllegalStateException("b is broken");
+            }
+            return input;
+        }));
+
+        assertThat(e.getMessage(), equalTo("b is broken"));
+    }
+
+    @Test
+    void parsesThePositiveConcurrency() {
+        assertThat(BatchRunner.parseConcurrency("", 4), equalTo(4));
+        assertThat(BatchRunner.parseConcurrency(" 3 ", 4), equalTo(3));
+        assertThrows(IllegalArgumentException.class, () -> BatchRunner.parseConcurrency("0", 4));
+        assertThrows(IllegalArgumentException.class, () -> BatchRunner.parseConcurrency("many", 4));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.GsonBuilder;
+import com.thoughtworks.go.plugin.api.response.DefaultGoApiResponse;
+import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
+
+public class CachedResponseTest {
+    @Test
+    void buildsAnErrorResponseAgainOnTheNextUse() {
+        AtomicInteger builds = new AtomicInteger();
+        CachedResponse.Holder holder = new CachedResponse.Holder(() -> builds.incrementAndGet() == 1
+            ? new CachedResponse(DefaultGoApiResponse.INTERNAL_ERROR, "{}")
+            : new CachedResponse(DefaultGoApiResponse.SUCCESS_RESPONSE_CODE, "{\"built\": " + builds.get() + "}"));
+
+        assertThat(holder.toResponse().responseCode(), equalTo(DefaultGoApiResponse.INTERNAL_ERROR));
+        assertThat(holder.toResponse().responseBody(), equalTo("{\"built\": 2}"));
+        assertThat(holder.toResponse().responseBody(), equalTo("{\"built\": 2}"));
+        assertThat(builds.get(), equalTo(2));
+    }
+
+    @Test
+    void servesTheSameConfigurationBodyEveryTime() {
+        GoPluginApiResponse first = new GetConfigRequest().execute();
+        GoPluginApiResponse second = new GetConfigRequest().execute();
+
+        assertThat(first.responseCode(), equalTo(DefaultGoApiResponse.SUCCESS_RESPONSE_CODE));
+        assertThat(first.responseBody() == second.responseBody(), equalTo(true));
+
+        Map config = (Map) new GsonBuilder().create().fromJson(first.responseBody(), Object.class);
+        Map command = (Map) config.get(TaskPlugin.COMMAND_PROPERTY);
+        assertThat(command.get("display-order"), equalTo("0"));
+        assertThat(command.get("required"), equalTo(true));
+        assertThat(((Map) config.get(TaskPlugin.OPT_API_KEY)).get("secure"), equalTo(true));
+    }
+
+    @Test
+    void servesTheSameViewBodyEveryTime() {
+        GoPluginApiResponse first = new GetViewRequest().execute();
+        GoPluginApiResponse second = new GetViewRequest().execute();
+
+        assertThat(first.responseCode(), equalTo(DefaultGoApiResponse.SUCCESS_RESPONSE_CODE));
+        assertThat(first.responseBody() == second.responseBody(), equalTo(true));
+
+        Map view = (Map) new GsonBuilder().create().fromJson(first.responseBody(), Object.class);
+        assertThat(view.get("displayValue"), equalTo("NuGet"));
+        assertThat(view.get("template"), equalTo(TestUtil.readResource("/task.template.html")));
+    }
+
+    @Test
+    void servesTheSameIconBodyEveryTime() {
+        GoPluginApiResponse first = new GetPluginSettingsIconExecutor().execute();
+        GoPluginApiResponse second = new GetPluginSettingsIconExecutor().execute();
+
+        assertThat(first.responseCode(), equalTo(DefaultGoApiResponse.SUCCESS_RESPONSE_CODE));
+        assertThat(first.responseBody() == second.responseBody(), equalTo(true));
+
+        Map icon = (Map) new GsonBuilder().create().fromJson(first.responseBody(), Object.class);
+        assertThat(icon.get("content_type"), equalTo("image/svg+xml"));
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+public class CommandPlanTest {
+    private static final String[] FIXTURES = {
+        "nuget-install-minimal",
+        "nuget-install-envvars",
+        "nuget-pack-minimal",
+        "nuget-config-minimal",
+        "nuget-config-cleanup",
+    };
+
+    private static final Set<String> BOOLEAN_PROPERTIES = Set.of(
+        TaskPlugin.OPT_ALLOW_INSECURE_CONNECTIONS, TaskPlugin.OPT_BUILD, TaskPlugin.OPT_DIRECT_DOWNLOAD, TaskPlugin.OPT_DISABLE_BUFFERING,
+        TaskPlugin.OPT_DISABLE_PARALLEL_PROCESSING, TaskPlugin.OPT_EXCLUDE_EMPTY_DIRECTORIES, TaskPlugin.OPT_EXCLUDE_VERSION, TaskPlugin.OPT_EXPAND,
+        TaskPlugin.OPT_FORCE, TaskPlugin.OPT_FORCE_ENGLISH_OUTPUT, TaskPlugin.OPT_FORCE_EVALUATE, TaskPlugin.OPT_INCLUDE_REFERENCED_PROJECTS,
+        TaskPlugin.OPT_INSTALL_PACKAGE_TO_OUTPUT_PATH, TaskPlugin.OPT_LOCKED_MODE, TaskPlugin.OPT_NO_DEFFAULT_EXCLUDES, TaskPlugin.OPT_NO_HTTP_CACHE,
+        TaskPlugin.OPT_NO_PACKAGE_ANALYSIS, TaskPlugin.OPT_NO_PROMPT, TaskPlugin.OPT_NO_SERVICE_ENDPOINT, TaskPlugin.OPT_NO_SYMBOLS,
+        TaskPlugin.OPT_OUTPUT_FILE_NAMES_WITHOUT_VERSION, TaskPlugin.OPT_PRE_RELEASE, TaskPlugin.OPT_RECURSIVE, TaskPlugin.OPT_REQUIRE_CONSENT,
+        TaskPlugin.OPT_SAFE, TaskPlugin.OPT_SELF, TaskPlugin.OPT_SKIP_DUPLICATE, TaskPlugin.OPT_STORE_PASSWORD_IN_CLEAR_TEXT, TaskPlugin.OPT_SYMBOLS,
+        TaskPlugin.OPT_TOOL, TaskPlugin.OPT_USE_LOCK_FILE
+    );
+
+    /**
+     * Every argv case covered by the golden file: each request fixture, and each command with every property set,
+     * once with literal values and once with every value expanded from the environment
+     */
+    static Map<String, ProcessBuilder> goldenCases() {
+        NuGetTaskExecutor executor = new NuGetTaskExecutor();
+        Map<String, ProcessBuilder> cases = new LinkedHashMap<>();
+
+        for (String fixture : FIXTURES) {
+            Map request = (Map) new GsonBuilder().create().fromJson(TestUtil.readResource("/fixtures/requests/" + fixture + ".json"), Object.class);
+            cases.put(fixture, executor.createNuGetProcessWithOptions(new Context((Map) request.get("context")), new TaskConfig((Map) request.get("config"))));
+        }
+
+        Context context = new Context(Map.of("GO_PIPELINE_NAME", "pipeline"), ".");
+        for (String command : CommandPlan.COMMANDS) {
+            cases.put(command + "-literal", executor.createNuGetProcessWithOptions(context, new TaskConfig(allProperties(command, false)::get)));
+            cases.put(command + "-env", executor.createNuGetProcessWithOptions(context, new TaskConfig(allProperties(command, true)::get)));
+        }
+
+        return cases;
+    }
+
+    /**
+     * Every argv case covered by the dotnet golden file: each command (and each sources operation) the dotnet backend
+     * runs, with every property it can translate set, once with literal values and once expanded from the environment
+     */
+    static Map<String, ProcessBuilder> dotnetGoldenCases() {
+        NuGetTaskExecutor executor = new NuGetTaskExecutor();
+        Map<String, ProcessBuilder> cases = new LinkedHashMap<>();
+
+        Context context = new Context(Map.of("GO_PIPELINE_NAME", "pipeline"), ".");
+        for (String command : List.of(TaskPlugin.CMD_RESTORE, TaskPlugin.CMD_PACK, TaskPlugin.CMD_PUSH, TaskPlugin.CMD_DELETE, TaskPlugin.CMD_SOURCES)) {
+            List<String> operations = command.equals(TaskPlugin.CMD_SOURCES) ? DotnetCliBackend.SOURCES_OPERATIONS : Collections.singletonList(null);
+            for (String operation : operations) {
+                String name = operation == null ? command : command + "-" + operation;
+                cases.put(name + "-literal", executor.createNuGetProcessWithOptions(context, new TaskConfig(dotnetProperties(command, operation, false)::get)));
+                cases.put(name + "-env", executor.createNuGetProcessWithOptions(context, new TaskConfig(dotnetProperties(command, operation, true)::get)));
+            }
+        }
+
+        return cases;
+    }
+
+    /**
+     * Every property set for a command, less the options the dotnet backend rejects
+     */
+    private static Map<String, Object> dotnetProperties(String command, String operation, boolean fromEnv) {
+        Map<String, Object> all = allProperties(command, fromEnv);
+        all.put(TaskPlugin.TASK_BACKEND, NuGetBackend.DOTNET);
+        if (operation != null) {
+            all.put(TaskPlugin.ARG_OPERATION, operation);
+            all.put(TaskPlugin.ARG_OPERATION_FROM_ENV, false);
+        }
+
+        Map<String, Object> base = new HashMap<>();
+        all.forEach((property, value) -> {
+            if (!property.startsWith("opt") || property.endsWith("FromEnv")) {
+                base.put(property, value);
+            }
+        });
+
+        Map<String, Object> values = new HashMap<>(base);
+        all.forEach((property, value) -> {
+            if (base.containsKey(property)) {
+                return;
+            }
+            Map<String, Object> alone = new HashMap<>(base);
+            alone.put(property, value);
+            try {
+                DotnetCliBackend.INSTANCE.checkSupported(new TaskConfig(alone::get));
+                values.put(property, value);
+            } catch (IllegalArgumentException e) {
+                // Not translated to dotnet
+            }
+        });
+        return values;
+    }
+
+    private static Map<String, Object> allProperties(String command, boolean fromEnv) {
+        Map<String, Object> values = new HashMap<>();
+        for (Field field : TaskPlugin.class.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) || field.getType() != String.class || !(field.getName().startsWith("OPT_") || field.getName().startsWith("ARG_"))) {
+                continue;
+            }
+
+            try {
+                String property = (String) field.get(null);
+                if (property.endsWith("FromEnv")) {
+                    values.put(property, fromEnv);
+                } else if (BOOLEAN_PROPERTIES.contains(property)) {
+                    values.put(property, true);
+                } else {
+                    values.put(property, fromEnv ? "${GO_PIPELINE_NAME}-" + property : property + "-value");
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        values.put(TaskPlugin.COMMAND_PROPERTY, command);
+        return values;
+    }
+
+    @Test
+    void matchesGoldenArgvForEveryCase() {
+        Map<String, List<String>> golden = new GsonBuilder().create().fromJson(
+            TestUtil.readResource("/fixtures/argv/golden.json"), new TypeToken<Map<String, List<String>>>() {}.getType());
+
+        Map<String, ProcessBuilder> cases = goldenCases();
+
+        assertThat(cases.keySet(), equalTo(golden.keySet()));
+        cases.forEach((name, nuget) -> assertThat(name, nuget.command(), equalTo(golden.get(name))));
+    }
+
+    @Test
+    void matchesDotnetGoldenArgvForEveryCase() {
+        Map<String, List<String>> golden = new GsonBuilder().create().fromJson(
+            TestUtil.readResource("/fixtures/argv/golden-dotnet.json"), new TypeToken<Map<String, List<String>>>() {}.getType());
+
+        Map<String, ProcessBuilder> cases = dotnetGoldenCases();
+
+        assertThat(cases.keySet(), equalTo(golden.keySet()));
+        cases.forEach((name, dotnet) -> assertThat(name, dotnet.command(), equalTo(golden.get(name))));
+    }
+
+    @Test
+    void rejectsWhatTheDotnetBackendCannotRun() {
+        Map<String, String> cases = new LinkedHashMap<>();
+        cases.put(TaskPlugin.CMD_INSTALL + " Newtonsoft.Json",
+            "The dotnet backend can't run `nuget install`, only restore, pack, push, delete and sources. Use the nuget backend for it.");
+        cases.put(TaskPlugin.CMD_PACK + " Package.nuspec",
+            "The dotnet backend only packs SDK projects, not Package.nuspec. Use the nuget backend for it.");
+        cases.put(TaskPlugin.CMD_RESTORE + " App.sln " + TaskPlugin.OPT_FALLBACK_SOURCE + " " + TaskPlugin.OPT_SOLUTION_DIRECTORY,
+            "The dotnet backend can't run `nuget restore` with -SolutionDirectory, -FallbackSource. Use the nuget backend for it.");
+        cases.put(TaskPlugin.CMD_SOURCES + " Clear",
+            "The dotnet backend can't run `nuget sources Clear`, only add, remove, enable, disable, update, list.");
+
+        cases.forEach((args, message) -> {
+            String[] words = args.split(" ");
+            Map<String, Object> values = new HashMap<>();
+            values.put(TaskPlugin.TASK_BACKEND, NuGetBackend.DOTNET);
+            values.put(TaskPlugin.COMMAND_PROPERTY, words[0]);
+            values.put(words[0].equals(TaskPlugin.CMD_SOURCES) ? TaskPlugin.ARG_OPERATION : TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH, words[1]);
+            for (int i = 2; i < words.length; i++) {
+                values.put(words[i], "set");
+            }
+            TaskConfig taskConfig = new TaskConfig(values::get);
+
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new NuGetTaskExecutor().createNuGetProcessWithOptions(new Context(Map.of(), "."), taskConfig));
+            assertThat(args, e.getMessage(), equalTo(message));
+            assertThat(args, assertThrows(IllegalArgumentException.class, () -> DotnetCliBackend.INSTANCE.checkSupported(taskConfig)).getMessage(),
+                equalTo(message));
+        });
+    }
+
+    @Test
+    void runsTheBackendsOwnExecutable() {
+        Map<String, Object> values = new HashMap<>(Map.of(TaskPlugin.COMMAND_PROPERTY, TaskPlugin.CMD_RESTORE, TaskPlugin.ARG_PACKAGE_ID_OR_FILE_PATH, "App.sln"));
+        Context context = new Context(Map.of(), ".");
+        assertThat(new NuGetTaskExecutor().createNuGetProcessWithOptions(context, new TaskConfig(values::get)).command(),
+            equalTo(List.of("nuget", "restore", "App.sln", "-NonInteractive")));
+
+        values.put(TaskPlugin.TASK_BACKEND, NuGetBackend.DOTNET);
+        assertThat(new NuGetTaskExecutor().createNuGetProcessWithOptions(context, new TaskConfig(values::get)).command(),
+            equalTo(List.of("dotnet", "restore", "App.sln")));
+        assertThat(assertThrows(IllegalArgumentException.class, () -> NuGetBackend.forName("mono")).getMessage(),
+            equalTo("Backend must be one of [nuget, dotnet]: mono"));
+    }
+
+    @Test
+    void compilesEachPlanOnce() {
+        for (String command : CommandPlan.COMMANDS) {
+            assertThat(CommandPlan.forCommand(command) == CommandPlan.forCommand(command), equalTo(true));
+            assertThat(CommandPlan.forCommand(command).getCommand(), equalTo(command));
+        }
+    }
+
+    @Test
+    void plansOnlyHoldTheOptionsTheirCommandUses() {
+        for (String command : CommandPlan.COMMANDS) {
+            for (NuGetOption option : CommandPlan.forCommand(command).getOptions()) {
+                assertThat(command + " " + option.getFlag(), option.appliesTo(command), equalTo(true));
+            }
+        }
+
+        List<String> configFlags = CommandPlan.forCommand(TaskPlugin.CMD_CONFIG).getOptions().stream().map(NuGetOption::getFlag).collect(Collectors.toList());
+        assertThat(configFlags, equalTo(List.of("-NonInteractive", "-ConfigFile", "-ForceEnglishOutput", "-Verbosity", "-Set", "-AsPath")));
+    }
+
+    @Test
+    void unknownCommandsOnlyGetGlobalOptions() {
+        List<String> flags = CommandPlan.forCommand("unknown").getOptions().stream().map(NuGetOption::getFlag).collect(Collectors.toList());
+
+        assertThat(flags, equalTo(List.of("-NonInteractive", "-ConfigFile", "-ForceEnglishOutput", "-Verbosity")));
+        assertThat(CommandPlan.forCommand(null).getOptions(), equalTo(CommandPlan.forCommand("unknown").getOptions()));
+    }
+}
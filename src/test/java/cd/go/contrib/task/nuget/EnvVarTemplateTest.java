@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import org.junit.jupiter.api.Test;
+
+public class EnvVarTemplateTest {
+    private static final Map<String, String> CONTEXT_ENV = Map.of(
+        "GO_PACKAGE_ID", "Newtonsoft.Json",
+        "GO_PACKAGE_VERSION", "13.0.3",
+        "SHADOWED", "from-context"
+    );
+
+    private static final Map<String, String> AGENT_ENV = Map.of(
+        "SHADOWED", "from-agent",
+        "AGENT_ONLY", "agent-value"
+    );
+
+    @Test
+    void leavesPlainTextUntouched() {
+        assertThat(EnvVarTemplate.compile("Newtonsoft.Json").expand(CONTEXT_ENV, AGENT_ENV), equalTo("Newtonsoft.Json"));
+        assertThat(EnvVarTemplate.compile("").expand(CONTEXT_ENV, AGENT_ENV), equalTo(""));
+        assertThat(EnvVarTemplate.compile("Newtonsoft.Json").hasVariables(), equalTo(false));
+    }
+
+    @Test
+    void expandsEveryReferenceInOnePass() {
+        EnvVarTemplate template = EnvVarTemplate.compile("./build/${GO_PACKAGE_VERSION}/${GO_PACKAGE_ID}/${GO_PACKAGE_ID}");
+
+        assertThat(template.hasVariables(), equalTo(true));
+        assertThat(template.expand(CONTEXT_ENV, AGENT_ENV), equalTo("./build/13.0.3/Newtonsoft.Json/Newtonsoft.Json"));
+    }
+
+    @Test
+    void prefersContextVariablesOverAgentVariables() {
+        assertThat(EnvVarTemplate.compile("${SHADOWED}-${AGENT_ONLY}").expand(CONTEXT_ENV, AGENT_ENV), equalTo("from-context-agent-value"));
+    }
+
+    @Test
+    void leavesUnknownAndUnterminatedReferencesAsIs() {
+        assertThat(EnvVarTemplate.compile("${UNKNOWN}/${GO_PACKAGE_ID}").expand(CONTEXT_ENV, AGENT_ENV), equalTo("${UNKNOWN}/Newtonsoft.Json"));
+        assertThat(EnvVarTemplate.compile("${GO_PACKAGE_ID}/${GO_PACKAGE_VERSION").expand(CONTEXT_ENV, AGENT_ENV), equalTo("Newtonsoft.Json/${GO_PACKAGE_VERSION"));
+        assertThat(EnvVarTemplate.compile("$GO_PACKAGE_ID{}").expand(CONTEXT_ENV, AGENT_ENV), equalTo("$GO_PACKAGE_ID{}"));
+    }
+
+    @Test
+    void insertsValuesLiterally() {
+        Map<String, String> env = Map.of("PRICE", "$1\\00", "NESTED", "${GO_PACKAGE_ID}");
+
+        assertThat(EnvVarTemplate.compile("${PRICE}").expand(env, null), equalTo("$1\\00"));
+        assertThat(EnvVarTemplate.compile("${NESTED}").expand(env, CONTEXT_ENV), equalTo("${GO_PACKAGE_ID}"));
+    }
+
+    @Test
+    void toleratesMissingMaps() {
+        assertThat(EnvVarTemplate.compile("${GO_PACKAGE_ID}").expand(null, CONTEXT_ENV), equalTo("Newtonsoft.Json"));
+        assertThat(EnvVarTemplate.compile("${GO_PACKAGE_ID}").expand(null, null), equalTo("${GO_PACKAGE_ID}"));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HttpPushEngineTest {
+    @TempDir
+    Path dir;
+
+    private StandInFeed feed;
+    private Path nupkg;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        feed = new StandInFeed();
+        byte[] content = new byte[100_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        nupkg = Files.write(dir.resolve("Foo.1.0.0.nupkg"), content);
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    @Test
+    void uploadsThePackageAsNuGetDoes() throws IOException, InterruptedException {
+        HttpPushEngine.Upload upload = new HttpPushEngine(Duration.ofSeconds(10)).push(nupkg, feed.url("/v3/index.json"), "secret", false);
+
+        StandInFeed.Upload received = feed.getUploads().get(0);
+        String boundary = received.contentType.replaceFirst(".*boundary=\"([^\"]+)\".*", "$1");
+        String preamble = "--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"package\"; filename=\"package.nupkg\"\r\n"
+            + "Content-Type: application/octet-stream\r\n\r\n";
+        String epilogue = "\r\n--" + boundary + "--\r\n";
+        byte[] body = received.body;
+
+        assertThat(received.path, equalTo("/api/v2/package"));
+        assertThat(received.apiKey, equalTo("secret"));
+        assertThat(received.contentType, startsWith("multipart/form-data; boundary="));
+        assertThat(new String(Arrays.copyOfRange(body, 0, preamble.length()), StandardCharsets.US_ASCII), equalTo(preamble));
+        assertThat(Arrays.equals(Arrays.copyOfRange(body, preamble.length(), body.length - epilogue.length()), Files.readAllBytes(nupkg)), equalTo(true));
+        assertThat(new String(Arrays.copyOfRange(body, body.length - epilogue.length(), body.length), StandardCharsets.US_ASCII), equalTo(epilogue));
+        assertThat(upload.toMap().get("bytes"), equalTo(100_000L));
+        assertThat(upload.isSkippedDuplicate(), equalTo(false));
+    }
+
+    @Test
+    void skipsADuplicateOnlyWhenAskedTo() throws IOException, InterruptedException {
+        feed.respondToPut("/api/v2/package", 409);
+        HttpPushEngine engine = new HttpPushEngine(Duration.ofSeconds(10));
+
+        assertThat(engine.push(nupkg, feed.url("/v3/index.json"), null, true).isSkippedDuplicate(), equalTo(true));
+        IOException e = assertThrows(IOException.class, () -> engine.push(nupkg, feed.url("/v3/index.json"), null, false));
+        assertThat(e.getMessage(), containsString("409"));
+    }
+
+    @Test
+    void pushesSymbolsToTheSymbolResource() throws IOException, InterruptedException {
+        Path snupkg = Files.writeString(dir.resolve("Foo.1.0.0.snupkg"), "symbols");
+        new HttpPushEngine(Duration.ofSeconds(10)).pushSymbols(snupkg, feed.url("/v3/index.json"), "symbol-key", false);
+
+        assertThat(feed.getUploads().get(0).path, equalTo("/api/v2/symbolpackage"));
+        assertThat(feed.getUploads().get(0).apiKey, equalTo("symbol-key"));
+    }
+
+    @Test
+    void keepsTheApiKeyOnlyForRedirectsToTheSameOrigin() throws IOException, InterruptedException {
+        feed.redirectPut("/api/v2/package", "/api/v2/moved");
+        HttpPushEngine engine = new HttpPushEngine(Duration.ofSeconds(10));
+
+        HttpPushEngine.Upload upload = engine.push(nupkg, feed.url("/v3/index.json"), "secret", false);
+
+        assertThat(upload.toMap().get("url"), equalTo(feed.url("/api/v2/moved")));
+        assertThat(feed.getUploads().get(1).apiKey, equalTo("secret"));
+    }
+
+    @Test
+    void dropsTheApiKeyWhenRedirectedToAnotherOrigin() throws IOException, InterruptedException {
+        try (StandInFeed other = new StandInFeed()) {
+            feed.redirectPut("/api/v2/package", other.url("/upload"));
+
+            HttpPushEngine.Upload upload = new HttpPushEngine(Duration.ofSeconds(10)).push(nupkg, feed.url("/v3/index.json"), "secret", false);
+
+            assertThat(upload.toMap().get("url"), equalTo(other.url("/upload")));
+            assertThat(other.getUploads().size(), equalTo(1));
+            assertThat(other.getUploads().get(0).apiKey, nullValue());
+            assertThat(other.getUploads().get(0).body.length, equalTo(feed.getUploads().get(0).body.length));
+        }
+    }
+
+    @Test
+    void onlySupportsV3Sources() {
+        assertThat(HttpPushEngine.supports("https://api.nuget.org/v3/index.json"), equalTo(true));
+        assertThat(HttpPushEngine.supports("https://www.nuget.org/api/v2"), equalTo(false));
+        assertThat(HttpPushEngine.supports("/srv/packages"), equalTo(false));
+        assertThat(HttpPushEngine.supports(null), equalTo(false));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    void isEmptyUntilSomethingIsRecorded() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat(histogram.getCount(), equalTo(0L));
+        assertThat(histogram.getPercentile(95), equalTo(0L));
+    }
+
+    @Test
+    void reportsTheBucketEachPercentileFallsIn() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(20);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(700);
+        }
+
+        assertThat(histogram.getCount(), equalTo(100L));
+        assertThat(histogram.getPercentile(50), equalTo(32L));
+        assertThat(histogram.getPercentile(90), equalTo(32L));
+        assertThat(histogram.getPercentile(95), equalTo(1024L));
+        assertThat(histogram.toMap().get("p99"), equalTo(1024L));
+    }
+
+    @Test
+    void clampsLatenciesToItsBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        assertThat(histogram.getPercentile(100), equalTo(1L));
+
+        histogram.record(Long.MAX_VALUE);
+        assertThat(histogram.getPercentile(100), equalTo(1L << 24));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogFileConsoleLoggerTest {
+    @TempDir
+    Path tempDir;
+
+    private static class CollectingConsole extends JobConsoleLogger {
+        private final List<String> lines = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void printLine(String line) {
+            lines.add(line);
+        }
+    }
+
+    private static InputStream text(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> gunzip(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void logsAllOutputAndShowsOnlyWarningsAndErrors() throws Exception {
+        CollectingConsole console = new CollectingConsole();
+        Path logFile = tempDir.resolve("logs/nuget.log.gz");
+        LogFileConsoleLogger log = new LogFileConsoleLogger(console, logFile, 5, 1024, 60_000);
+
+        log.printLine("Running nuget");
+        OutputPump pump = new OutputPump(log, "nuget");
+        pump.start(text("Restoring packages\nWARNING: NU1603 Newtonsoft.Json 13.0.1 was not found\nAdded package A.1.0.0\n"), text(""));
+        pump.await(10_000);
+        pump = new OutputPump(log, "nuget");
+        pump.start(text(""), text("Unable to find version 2.0.0\n"));
+        pump.await(10_000);
+        Map<String, Object> statistics = log.finish(true);
+
+        assertThat(gunzip(logFile), equalTo(List.of("Running nuget", "Restoring packages",
+            "WARNING: NU1603 Newtonsoft.Json 13.0.1 was not found", "Added package A.1.0.0", "STDERR: Unable to find version 2.0.0")));
+        assertThat(console.lines.subList(0, 3), equalTo(List.of("Running nuget",
+            "WARNING: NU1603 Newtonsoft.Json 13.0.1 was not found", "STDERR: Unable to find version 2.0.0")));
+        assertThat(console.lines.get(3), equalTo("NuGet output: 4 lines written to " + logFile));
+        assertThat(statistics.get("lines"), equalTo(4L));
+        assertThat(statistics.get("shownLines"), equalTo(2L));
+        assertThat(Files.list(logFile.getParent()).count(), equalTo(1L));
+    }
+
+    @Test
+    void showsTheLastLinesWhenTheExecutionFails() throws Exception {
+        CollectingConsole console = new CollectingConsole();
+        Path logFile = tempDir.resolve("nuget.log.gz");
+        LogFileConsoleLogger log = new LogFileConsoleLogger(console, logFile, 3, 1024, 60_000);
+
+        IntStream.rangeClosed(1, 10).forEach(i -> log.printOutputLine("line " + i, false));
+        log.finish(false);
+
+        assertThat(console.lines, equalTo(List.of("NuGet output: the last 3 of 10 lines", "line 8", "line 9", "line 10",
+            "NuGet output: 10 lines written to " + logFile)));
+        assertThat(gunzip(logFile).size(), equalTo(11));
+    }
+
+    @Test
+    void keepsEveryLineOfAFloodWithinTheBuffer() throws Exception {
+        CollectingConsole console = new CollectingConsole();
+        Path logFile = tempDir.resolve("nuget.log.gz");
+        LogFileConsoleLogger log = new LogFileConsoleLogger(console, logFile, 0, 4096, 60_000);
+
+        String output = IntStream.range(0, 50_000).mapToObj(i -> "  GET https://api.nuget.org/v3-flatcontainer/p" + i + "/index.json")
+            .collect(Collectors.joining("\n", "", "\n"));
+        OutputPump pump = new OutputPump(log, "nuget");
+        pump.start(text(output), text(""));
+        pump.await(30_000);
+        Map<String, Object> statistics = log.finish(true);
+
+        assertThat(gunzip(logFile), equalTo(output.lines().collect(Collectors.toList())));
+        assertThat(console.lines.size(), equalTo(1));
+        assertThat((Long) statistics.get("peakBufferedBytes") <= 4096 + 400, equalTo(true));
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThat(LogFileConsoleLogger.parseTailLines(""), equalTo(LogFileConsoleLogger.DEFAULT_TAIL_LINES));
+        assertThat(LogFileConsoleLogger.parseBufferSize("2"), equalTo(2L * 1024 * 1024));
+        assertThat(assertThrows(IllegalArgumentException.class, () -> LogFileConsoleLogger.parseTailLines("-1")).getMessage(),
+            containsString("Log tail lines must be a whole number"));
+        assertThat(assertThrows(IllegalArgumentException.class, () -> LogFileConsoleLogger.parseBufferSize("0")).getMessage(),
+            containsString("Log buffer size must be"));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class NuGetFeedProxyTest {
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    @TempDir
+    Path cacheDir;
+
+    private StandInFeed feed;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        feed = new StandInFeed();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    @Test
+    void rewritesTheServiceIndexToPointAtTheProxy() throws IOException, InterruptedException {
+        try (NuGetFeedProxy proxy = NuGetFeedProxy.start(cacheDir, Long.MAX_VALUE)) {
+            String source = proxy.rewriteSources(feed.url("/v3/index.json"));
+            String index = get(source).body();
+
+            assertThat(source, startsWith(proxy.getAddress() + "/o/"));
+            assertThat(index, containsString("\"" + proxy.getAddress() + "/o/0/v3-flatcontainer/\""));
+            assertThat(index, not(containsString(feed.getBaseUrl())));
+            assertThat(get(proxy.getAddress() + "/o/0/v3-flatcontainer/foo/index.json").body(), equalTo("{\"versions\": [\"1.0.0\"]}"));
+        }
+    }
+
+    @Test
+    void revalidatesMetadataWithItsETagOncePerProxy() throws IOException, InterruptedException {
+        try (NuGetFeedProxy proxy = NuGetFeedProxy.start(cacheDir, Long.MAX_VALUE)) {
+            String source = proxy.rewriteSources(feed.url("/v3/index.json"));
+            get(source);
+            get(source);
+            assertThat(proxy.getStatistics().get("metadataMisses"), equalTo(1L));
+            assertThat(proxy.getStatistics().get("metadataHits"), equalTo(1L));
+        }
+
+        try (NuGetFeedProxy proxy = NuGetFeedProxy.start(cacheDir, Long.MAX_VALUE)) {
+            HttpResponse<String> index = get(proxy.rewriteSources(feed.url("/v3/index.json")));
+            assertThat(index.statusCode(), equalTo(200));
+            assertThat(index.body(), containsString(proxy.getAddress() + "/o/0/v3-flatcontainer/"));
+            assertThat(proxy.getStatistics().get("metadataRevalidated"), equalTo(1L));
+        }
+
+        assertThat(feed.getRequests("/v3/index.json"), equalTo(2));
+        assertThat(feed.getNotModified(), equalTo(1));
+    }
+
+    @Test
+    void servesPackagesFromDiskOnceDownloaded() throws IOException, InterruptedException {
+        for (int i = 0; i < 2; i++) {
+            try (NuGetFeedProxy proxy = NuGetFeedProxy.start(cacheDir, Long.MAX_VALUE)) {
+                get(proxy.rewriteSources(feed.url("/v3/index.json")));
+                HttpResponse<String> nupkg = get(proxy.getAddress() + "/o/0/v3-flatcontainer/foo/1.0.0/foo.1.0.0.nupkg");
+
+                assertThat(nupkg.body(), equalTo("not really a zip"));
+                assertThat(proxy.getStatistics().get("packageHits"), equalTo((long) i));
+            }
+        }
+        assertThat(feed.getRequests("/v3-flatcontainer/foo/1.0.0/foo.1.0.0.nupkg"), equalTo(1));
+    }
+
+    @Test
+    void evictsTheCacheDownToItsSizeWhenItCloses() throws IOException, InterruptedException {
+        NuGetFeedProxy proxy = NuGetFeedProxy.start(cacheDir, 1);
+        get(proxy.rewriteSources(feed.url("/v3/index.json")));
+        get(proxy.getAddress() + "/o/0/v3-flatcontainer/foo/1.0.0/foo.1.0.0.nupkg");
+        proxy.close();
+
+        assertThat(proxy.getStatistics().get("evicted"), equalTo(2));
+        assertThat(Files.list(cacheDir.resolve("packages")).count(), equalTo(0L));
+    }
+
+    @Test
+    void leavesLocalAndV2SourcesAlone() throws IOException {
+        try (NuGetFeedProxy proxy = NuGetFeedProxy.start(cacheDir, Long.MAX_VALUE)) {
+            String sources = proxy.rewriteSources("/opt/feed;" + feed.url("/api/v2") + ";" + feed.url("/v3/index.json"));
+
+            assertThat(sources, equalTo("/opt/feed;" + feed.url("/api/v2") + ";" + proxy.getAddress() + "/o/0/v3/index.json"));
+        }
+    }
+
+    @Test
+    void racesTheOtherSourcesWhenTheFirstIsSlow() throws IOException, InterruptedException {
+        try (StandInFeed fallback = new StandInFeed(); NuGetFeedProxy proxy = NuGetFeedProxy.start(cacheDir, Long.MAX_VALUE)) {
+            fallback.serve("/v3-flatcontainer/foo/1.0.0/foo.1.0.0.nupkg", "from the fallback", null);
+            proxy.hedge(List.of(feed.url("/v3/index.json"), fallback.url("/v3/index.json")), 50);
+            feed.setDelay(3000);
+
+            long started = System.nanoTime();
+            HttpResponse<String> nupkg = get(proxy.getAddress() + "/o/0/v3-flatcontainer/foo/1.0.0/foo.1.0.0.nupkg");
+
+            assertThat(nupkg.body(), equalTo("from the fallback"));
+            assertThat(System.nanoTime() - started < 2_000_000_000L, equalTo(true));
+            assertThat(proxy.getStatistics().get("hedgedRequests"), equalTo(1L));
+            assertThat(proxy.getStatistics().get("hedgeWins"), equalTo(1L));
+        }
+    }
+
+    @Test
+    void leavesAFastSourceUnraced() throws IOException, InterruptedException {
+        try (StandInFeed fallback = new StandInFeed(); NuGetFeedProxy proxy = NuGetFeedProxy.start(cacheDir, Long.MAX_VALUE)) {
+            proxy.hedge(List.of(feed.url("/v3/index.json"), fallback.url("/v3/index.json")), 2000);
+
+            assertThat(get(proxy.getAddress() + "/o/0/v3-flatcontainer/foo/index.json").statusCode(), equalTo(200));
+            assertThat(fallback.getRequests("/v3-flatcontainer/foo/index.json"), equalTo(0));
+            assertThat(proxy.getStatistics().get("hedgedRequests"), equalTo(0L));
+            assertThat(((Map) ((Map) proxy.getStatistics().get("sources")).get(feed.url("/v3/index.json"))).get("count"), equalTo(1L));
+        }
+    }
+
+    @Test
+    void racesAtOnceWhenTheFirstSourceDoesNotHaveIt() throws IOException, InterruptedException {
+        try (StandInFeed fallback = new StandInFeed(); NuGetFeedProxy proxy = NuGetFeedProxy.start(cacheDir, Long.MAX_VALUE)) {
+            fallback.serve("/v3-flatcontainer/bar/index.json", "{\"versions\": [\"2.0.0\"]}", null);
+            proxy.hedge(List.of(feed.url("/v3/index.json"), fallback.url("/v3/index.json")), 10_000);
+
+            long started = System.nanoTime();
+            HttpResponse<String> versions = get(proxy.getAddress() + "/o/0/v3-flatcontainer/bar/index.json");
+
+            assertThat(versions.body(), equalTo("{\"versions\": [\"2.0.0\"]}"));
+            assertThat(System.nanoTime() - started < 5_000_000_000L, equalTo(true));
+            assertThat(get(proxy.getAddress() + "/o/0/v3-flatcontainer/baz/index.json").statusCode(), equalTo(404));
+        }
+    }
+
+    @Test
+    void adaptsTheHedgeDelayToTheSourceLatency() throws IOException, InterruptedException {
+        try (NuGetFeedProxy proxy = NuGetFeedProxy.start(cacheDir, Long.MAX_VALUE)) {
+            proxy.hedge(List.of(), 1000);
+            LatencyHistogram latency = new LatencyHistogram();
+            assertThat(proxy.hedgeDelayOf(latency), equalTo(1000L));
+
+            for (int i = 0; i < NuGetFeedProxy.MIN_ADAPTIVE_SAMPLES; i++) {
+                latency.record(12);
+            }
+            assertThat(proxy.hedgeDelayOf(latency), equalTo(16L));
+        }
+    }
+
+    private static HttpResponse<String> get(String url) throws IOException, InterruptedException {
+        return CLIENT.send(HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
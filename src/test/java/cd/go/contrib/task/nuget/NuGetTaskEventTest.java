@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.GsonBuilder;
+import com.thoughtworks.go.plugin.api.request.DefaultGoPluginApiRequest;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+public class NuGetTaskEventTest {
+    private static final List<String> EVENT_NAMES = List.of(
+        "cd.go.contrib.task.nuget.RequestDecode",
+        "cd.go.contrib.task.nuget.CommandPlanBuild",
+        "cd.go.contrib.task.nuget.EnvExpansion",
+        "cd.go.contrib.task.nuget.ProcessSpawn",
+        "cd.go.contrib.task.nuget.ProcessWait",
+        "cd.go.contrib.task.nuget.StreamDrain"
+    );
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void emitsAnEventForEachExecutionPhase() throws IOException, InterruptedException {
+        Path nuget = StubNuGet.install(tempDir, StubNuGet.FAIL);
+
+        String requestBody = TestUtil.readResource("/fixtures/requests/nuget-install-envvars.json");
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+        CountDownLatch drained = new CountDownLatch(1);
+
+        try (RecordingStream recording = new RecordingStream()) {
+            for (String name : EVENT_NAMES) {
+                recording.enable(name).withoutThreshold();
+                recording.onEvent(name, events::add);
+            }
+            recording.onEvent("cd.go.contrib.task.nuget.StreamDrain", event -> drained.countDown());
+            recording.startAsync();
+
+            DefaultGoPluginApiRequest request = new DefaultGoPluginApiRequest("task", "1.0", "execute");
+            request.setRequestBody(requestBody);
+            Map context = (Map) new GsonBuilder().create().fromJson(requestBody, Map.class).get("context");
+            new ExecuteRequest(new NuGetTaskExecutor(nuget.toString()), new MockConsoleLogger(context)).execute(request);
+
+            assertThat(drained.await(30, TimeUnit.SECONDS), equalTo(true));
+        }
+
+        List<String> names = events.stream().map(event -> event.getEventType().getName()).distinct().sorted().collect(Collectors.toList());
+        assertThat(names, equalTo(EVENT_NAMES.stream().sorted().collect(Collectors.toList())));
+        for (RecordedEvent event : events) {
+            assertThat(event.getString("command"), equalTo("install"));
+        }
+
+        RecordedEvent wait = find(events, "cd.go.contrib.task.nuget.ProcessWait");
+        assertThat(wait.getInt("exitCode"), equalTo(3));
+        assertThat(wait.getDuration().compareTo(Duration.ZERO) > 0, equalTo(true));
+
+        RecordedEvent drain = find(events, "cd.go.contrib.task.nuget.StreamDrain");
+        assertThat(drain.getInt("exitCode"), equalTo(3));
+        assertThat(drain.getLong("stdoutBytes"), equalTo((long) "Restoring packages...\n".length()));
+        assertThat(drain.getLong("stderrBytes"), equalTo((long) "warning\n".length()));
+        assertThat(drain.getBoolean("drained"), equalTo(true));
+
+        RecordedEvent expansion = find(events, "cd.go.contrib.task.nuget.EnvExpansion");
+        assertThat(expansion.getInt("outputLength"), greaterThan(0));
+        assertThat(find(events, "cd.go.contrib.task.nuget.RequestDecode").getLong("requestLength"), equalTo((long) requestBody.length()));
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class NuspecPackerTest {
+    private static final Path FIXTURE = Paths.get("./src/test/resources/fixtures/FixturePackage/FixturePackage.nuspec");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void packsTheFixtureLikeTheGoldenPackage() throws IOException, InterruptedException {
+        NuspecPacker.Packed packed = new NuspecPacker(FIXTURE).pack(dir);
+
+        Map<String, Object> golden = TaskPlugin.GSON.fromJson(TestUtil.readResource("/fixtures/pack/FixturePackage.golden.json"), Map.class);
+        Map<String, String> expected = new LinkedHashMap<>();
+        for (Map<String, String> entry : (List<Map<String, String>>) golden.get("entries")) {
+            expected.put(entry.get("name"), entry.get("content"));
+        }
+        assertThat(packed.getPath(), equalTo(dir.resolve("FixturePackage.1.0.0.nupkg")));
+        assertThat(entries(packed.getPath()), equalTo(expected));
+    }
+
+    @Test
+    void identicalInputsGiveByteIdenticalPackages() throws IOException, InterruptedException {
+        Path nuspec = Files.writeString(dir.resolve("Same.nuspec"), nuspec("Same", "1.0.0", "<files><file src=\"lib\\**\" target=\"lib\" /></files>"));
+        Path dll = Files.createDirectories(dir.resolve("lib/net48")).resolve("Same.dll");
+        Files.writeString(dll, "assembly");
+
+        Path first = new NuspecPacker(nuspec).pack(dir.resolve("first")).getPath();
+        Files.setLastModifiedTime(dll, FileTime.fromMillis(System.currentTimeMillis() - 3_600_000));
+        Path second = new NuspecPacker(nuspec).withConcurrency(1).pack(dir.resolve("second")).getPath();
+
+        assertThat(digest(first), equalTo(digest(second)));
+    }
+
+    @Test
+    void expandsTokensAndAppliesTheVersionOptions() throws IOException, InterruptedException {
+        Path nuspec = Files.writeString(dir.resolve("Tokens.nuspec"), nuspec("$id$", "1.2", "<files><file src=\"bin\\$configuration$\\*.dll\" target=\"lib\\net48\" /></files>"));
+        Files.createDirectories(dir.resolve("bin/Release"));
+        Files.writeString(dir.resolve("bin/Release/Tokens.dll"), "assembly");
+
+        NuspecPacker.Packed packed = new NuspecPacker(nuspec)
+            .withProperties(Map.of("ID", "Tokens", "Configuration", "Release"))
+            .withVersion(null, "beta")
+            .withMinClientVersion("5.0")
+            .pack(dir.resolve("out"));
+
+        assertThat(packed.getPath().getFileName().toString(), equalTo("Tokens.1.2.0-beta.nupkg"));
+        Map<String, String> entries = entries(packed.getPath());
+        assertThat(entries.get("lib/net48/Tokens.dll"), equalTo("assembly"));
+        assertThat(entries.get("Tokens.nuspec"), containsString("<version>1.2.0-beta</version>"));
+        assertThat(entries.get("Tokens.nuspec"), containsString("minClientVersion=\"5.0\""));
+    }
+
+    @Test
+    void failsOnATokenWithoutAValue() throws IOException, InterruptedException {
+        Path nuspec = Files.writeString(dir.resolve("Tokens.nuspec"), nuspec("Tokens", "$version$", ""));
+
+        IOException e = assertThrows(IOException.class, () -> new NuspecPacker(nuspec).pack(dir));
+        assertThat(e.getMessage(), containsString("The replacement token 'version'"));
+    }
+
+    @Test
+    void appliesTheExcludes() throws IOException, InterruptedException {
+        Path nuspec = Files.writeString(Files.createDirectories(dir.resolve("src")).resolve("Content.nuspec"), nuspec("Content", "1.0.0", ""));
+        for (String file : List.of("content/readme.txt", "content/debug.log", "content/.hidden/secret.txt", ".gitignore", "old/Content.0.9.0.nupkg")) {
+            Files.createDirectories(dir.resolve("src").resolve(file).getParent());
+            Files.writeString(dir.resolve("src").resolve(file), file);
+        }
+        Files.createDirectories(dir.resolve("src/content/empty"));
+
+        List<String> files = fileEntries(new NuspecPacker(nuspec).withExcludes(List.of("**\\*.log")).pack(dir.resolve("out")).getPath());
+        assertThat(files, equalTo(List.of("content/empty/_._", "content/readme.txt")));
+
+        files = fileEntries(new NuspecPacker(nuspec).withSwitches(true, true, true).pack(dir.resolve("all")).getPath());
+        assertThat(files, equalTo(List.of(".gitignore", "content/.hidden/secret.txt", "content/debug.log", "content/readme.txt", "old/Content.0.9.0.nupkg")));
+    }
+
+    @Test
+    void resolvesFilesAgainstTheBasePath() throws IOException, InterruptedException {
+        Path nuspec = Files.writeString(dir.resolve("Based.nuspec"), nuspec("Based", "1.0.0", "<files><file src=\"tools\\install.ps1\" target=\"tools\" /><file src=\"readme.md\" target=\"docs\\README.md\" /></files>"));
+        Files.createDirectories(dir.resolve("build/tools"));
+        Files.writeString(dir.resolve("build/tools/install.ps1"), "install");
+        Files.writeString(dir.resolve("build/readme.md"), "read me");
+
+        Path nupkg = new NuspecPacker(nuspec).withBasePath(dir.resolve("build")).pack(dir.resolve("out")).getPath();
+
+        assertThat(fileEntries(nupkg), equalTo(List.of("docs/README.md", "tools/install.ps1")));
+    }
+
+    @Test
+    void verifyReportsWhatIsMissing() throws IOException, InterruptedException {
+        Path zip = dir.resolve("Broken.nupkg");
+        ParallelZipWriter writer = new ParallelZipWriter(9);
+        writer.addBytes("lib/Broken.dll", "assembly".getBytes(StandardCharsets.UTF_8), ParallelZipWriter.ZIP_EPOCH);
+        writer.write(zip, 2);
+
+        IOException e = assertThrows(IOException.class, () -> NuspecPacker.verify(zip));
+        assertThat(e.getMessage(), containsString("the package must have one .nuspec at its root, it has 0"));
+        assertThat(e.getMessage(), containsString("the package has no [Content_Types].xml"));
+        assertThat(e.getMessage(), containsString("the package has no _rels/.rels"));
+    }
+
+    @Test
+    void normalizesVersions() throws IOException {
+        assertThat(NuspecPacker.normalizeVersion("1.0", null), equalTo("1.0.0"));
+        assertThat(NuspecPacker.normalizeVersion("01.2.3.0", null), equalTo("1.2.3"));
+        assertThat(NuspecPacker.normalizeVersion("1.2.3.4-rc.1+abc", null), equalTo("1.2.3.4-rc.1+abc"));
+        assertThat(NuspecPacker.normalizeVersion("1.2.3-rc", "ci"), equalTo("1.2.3-ci"));
+    }
+
+    private static String nuspec(String id, String version, String files) {
+        return "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+            + "<package xmlns=\"http://schemas.microsoft.com/packaging/2013/05/nuspec.xsd\">\n"
+            + "  <metadata>\n"
+            + "    <id>" + id + "</id>\n"
+            + "    <version>" + version + "</version>\n"
+            + "    <description>A package for unit tests.</description>\n"
+            + "    <authors>Volusion</authors>\n"
+            + "  </metadata>\n"
+            + "  " + files + "\n"
+            + "</package>\n";
+    }
+
+    private static String digest(Path file) throws IOException {
+        return RestoreFingerprint.toHex(RestoreFingerprint.sha256().digest(Files.readAllBytes(file)));
+    }
+
+    private static Map<String, String> entries(Path nupkg) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipFile zip = new ZipFile(nupkg.toFile())) {
+            for (ZipEntry entry : Collections.list(zip.entries())) {
+                entries.put(entry.getName(), new String(zip.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private static List<String> fileEntries(Path nupkg) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (String name : entries(nupkg).keySet()) {
+            if (name.contains("/") && !name.startsWith("_rels/") && !name.startsWith("package/")) {
+                files.add(name);
+            } else if (!name.contains("/") && !name.endsWith(".nuspec") && !name.equals("[Content_Types].xml")) {
+                files.add(name);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+}
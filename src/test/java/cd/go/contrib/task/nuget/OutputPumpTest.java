@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.thoughtworks.go.plugin.api.task.JobConsoleLogger;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import org.junit.jupiter.api.Test;
+
+public class OutputPumpTest {
+    private static class CollectingConsole extends JobConsoleLogger {
+        private final List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        private final long firstLineDelayMillis;
+
+        CollectingConsole(long firstLineDelayMillis) {
+            this.firstLineDelayMillis = firstLineDelayMillis;
+        }
+
+        @Override
+        public void printLine(String line) {
+            if (lines.isEmpty() && firstLineDelayMillis > 0) {
+                try {
+                    Thread.sleep(firstLineDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            lines.add(line);
+        }
+    }
+
+    private static InputStream text(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String numberedLines(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Test
+    void writesEveryLineBeforeAwaitReturns() throws InterruptedException {
+        CollectingConsole console = new CollectingConsole(0);
+        OutputPump pump = new OutputPump(console, "test");
+
+        pump.start(text(numberedLines(100000)), text("warning\r\nno line break at the end"));
+
+        assertThat(pump.await(5000), equalTo(true));
+        List<String> stdout = new ArrayList<>(console.lines);
+        stdout.removeIf(line -> line.startsWith(OutputPump.STDERR_LABEL));
+        assertThat(stdout.size(), equalTo(100000));
+        assertThat(stdout.get(99999), equalTo("line 99999"));
+        assertThat(console.lines.contains("STDERR: warning"), equalTo(true));
+        assertThat(console.lines.contains("STDERR: no line break at the end"), equalTo(true));
+        Map<String, Object> statistics = pump.getStatistics();
+        assertThat(statistics.get("stdoutLines"), equalTo(100000L));
+        assertThat(statistics.get("stderrLines"), equalTo(2L));
+    }
+
+    @Test
+    void makesTheReadersWaitForASlowConsole() throws InterruptedException {
+        CollectingConsole console = new CollectingConsole(200);
+        OutputPump pump = new OutputPump(console, "test", 10, 2, OutputPump.QUEUE_CHARS);
+
+        pump.start(text(numberedLines(1000)), text(""));
+
+        assertThat(pump.await(5000), equalTo(true));
+        assertThat(console.lines.size(), equalTo(1000));
+        assertThat(console.lines.get(999), equalTo("line 999"));
+        assertThat((Long) pump.getStatistics().get("blockedMillis"), greaterThan(0L));
+        assertThat((Integer) pump.getStatistics().get("peakQueuedBatches"), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    void boundsTheCharactersWaitingForASlowConsole() throws InterruptedException {
+        CollectingConsole console = new CollectingConsole(200);
+        OutputPump pump = new OutputPump(console, "test", 10, 100, 50);
+
+        pump.start(text(numberedLines(1000)), text(""));
+
+        assertThat(pump.await(5000), equalTo(true));
+        assertThat(console.lines.size(), equalTo(1000));
+        assertThat((Long) pump.getStatistics().get("blockedMillis"), greaterThan(0L));
+        assertThat((Integer) pump.getStatistics().get("peakQueuedChars"), lessThanOrEqualTo(50));
+    }
+
+    @Test
+    void splitsLinesLongerThanTheLimit() throws InterruptedException {
+        CollectingConsole console = new CollectingConsole(0);
+        OutputPump pump = new OutputPump(console, "test");
+
+        pump.start(text("x".repeat(OutputPump.MAX_LINE_CHARS * 2 + 5)), text(""));
+
+        assertThat(pump.await(5000), equalTo(true));
+        assertThat(console.lines.size(), equalTo(3));
+        assertThat(console.lines.get(2), equalTo("xxxxx"));
+    }
+
+    @Test
+    void masksASecretAcrossASplitLine() throws InterruptedException {
+        CollectingConsole console = new CollectingConsole(0);
+        MaskingConsoleLogger masking = new MaskingConsoleLogger(console, SecretMasker.of(List.of("correct-horse")));
+        OutputPump pump = new OutputPump(masking, "test");
+
+        // The secret starts 5 characters before the split
+        pump.start(text("x".repeat(OutputPump.MAX_LINE_CHARS - 5) + "correct-horse and more\n"), text("correct-horse\n"));
+
+        assertThat(pump.await(5000), equalTo(true));
+        List<String> stdout = new ArrayList<>(console.lines);
+        stdout.removeIf(line -> line.startsWith(OutputPump.STDERR_LABEL));
+        // The masked line is the one that is split
+        assertThat(String.join("", stdout), equalTo("x".repeat(OutputPump.MAX_LINE_CHARS - 5) + SecretMasker.MASK + " and more"));
+        assertThat(stdout.size(), equalTo(2));
+        assertThat(console.lines.contains(OutputPump.STDERR_LABEL + SecretMasker.MASK), equalTo(true));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PackFingerprintTest {
+    private static final List<String> COMMAND = List.of("nuget", "pack", "Fingerprinted.nuspec", "packer:java");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void isUpToDateOnlyAfterTheSamePackWasSaved() throws IOException, InterruptedException {
+        NuspecPacker packer = packer();
+        PackFingerprint fingerprint = PackFingerprint.of(COMMAND, packer.plan(), dir.resolve("out"));
+        assertThat(fingerprint.isUpToDate(), equalTo(false));
+
+        packer.pack(dir.resolve("out"));
+        assertThat(fingerprint.isUpToDate(), equalTo(false));
+
+        fingerprint.save();
+        assertThat(fingerprint.getSidecar(), equalTo(dir.resolve("out/Fingerprinted.1.0.0.nupkg" + PackFingerprint.SIDECAR_SUFFIX)));
+        assertThat(PackFingerprint.of(COMMAND, packer().plan(), dir.resolve("out")).isUpToDate(), equalTo(true));
+    }
+
+    @Test
+    void changesWithTheFilesAndTheCommandLine() throws IOException {
+        String digest = PackFingerprint.of(COMMAND, packer().plan(), dir).getInputsDigest();
+
+        assertThat(PackFingerprint.of(List.of("nuget", "pack", "Fingerprinted.nuspec", "packer:cli"), packer().plan(), dir).getInputsDigest(), not(equalTo(digest)));
+        assertThat(PackFingerprint.of(COMMAND, packer().withProperties(Map.of("unused", "value")).plan(), dir).getInputsDigest(), equalTo(digest));
+
+        Files.writeString(dir.resolve("content/readme.txt"), "changed");
+        assertThat(PackFingerprint.of(COMMAND, packer().plan(), dir).getInputsDigest(), not(equalTo(digest)));
+    }
+
+    @Test
+    void isNotUpToDateWhenThePackageWasReplaced() throws IOException, InterruptedException {
+        NuspecPacker packer = packer();
+        PackFingerprint fingerprint = PackFingerprint.of(COMMAND, packer.plan(), dir.resolve("out"));
+        packer.pack(dir.resolve("out"));
+        fingerprint.save();
+
+        Files.writeString(fingerprint.getPackage(), "not the package that was packed");
+
+        assertThat(fingerprint.isUpToDate(), equalTo(false));
+    }
+
+    private NuspecPacker packer() throws IOException {
+        if (!Files.exists(dir.resolve("Fingerprinted.nuspec"))) {
+            Files.writeString(dir.resolve("Fingerprinted.nuspec"), "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+                + "<package><metadata><id>Fingerprinted</id><version>1.0</version><description>Fingerprinted.</description><authors>Volusion</authors></metadata>"
+                + "<files><file src=\"content\\*.txt\" target=\"content\" /></files></package>\n");
+            Files.createDirectories(dir.resolve("content"));
+            Files.writeString(dir.resolve("content/readme.txt"), "read me");
+        }
+        return new NuspecPacker(dir.resolve("Fingerprinted.nuspec"));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import org.junit.jupiter.api.Test;
+
+public class PackPushPipelineTest {
+    private static final List<String> INPUTS = List.of("A", "B", "C", "D");
+
+    @Test
+    void startsTheSecondStageBeforeTheFirstIsDone() throws InterruptedException {
+        AtomicLong firstPushStarted = new AtomicLong(Long.MAX_VALUE);
+        AtomicLong lastPackFinished = new AtomicLong();
+
+        PackPushPipeline.Outcome outcome = new PackPushPipeline(1, 2, 2).run(INPUTS,
+            (input, sink) -> {
+                Thread.sleep(100);
+                sink.put(input + ".nupkg");
+                lastPackFinished.set(System.nanoTime());
+                return Map.of("input", input, "success", true);
+            },
+            output -> {
+                firstPushStarted.accumulateAndGet(System.nanoTime(), Math::min);
+                return Map.of("input", output, "success", true);
+            });
+
+        assertThat(outcome.getUpstream().size(), equalTo(4));
+        assertThat(outcome.getDownstream().size(), equalTo(4));
+        assertThat(firstPushStarted.get(), lessThan(lastPackFinished.get()));
+    }
+
+    @Test
+    void makesTheFirstStageWaitWhenTheSecondFallsBehind() throws InterruptedException {
+        PackPushPipeline.Outcome outcome = new PackPushPipeline(4, 1, 1).run(INPUTS,
+            (input, sink) -> {
+                sink.put(input + ".nupkg");
+                return Map.of("input", input, "success", true);
+            },
+            output -> {
+                Thread.sleep(50);
+                return Map.of("input", output, "success", true);
+            });
+
+        assertThat(outcome.getDownstream().size(), equalTo(4));
+        assertThat(((Number) outcome.getStatistics().get("packBlockedMillis")).longValue(), greaterThan(0L));
+    }
+
+    @Test
+    void reportsASecondStageFailureAndKeepsGoing() throws InterruptedException {
+        PackPushPipeline.Outcome outcome = new PackPushPipeline(2, 1, 1).run(INPUTS,
+            (input, sink) -> {
+                sink.put(input + ".nupkg");
+                return Map.of("input", input, "success", true);
+            },
+            output -> {
+                if (output.startsWith("B")) {
+                    throw new IllegalStateException("upload failed");
+                }
+                return Map.of("input", output, "success", true);
+            });
+
+        assertThat(outcome.getDownstream().size(), equalTo(4));
+        assertThat(outcome.getDownstream().stream().filter(item -> !(Boolean) item.get("success")).count(), equalTo(1L));
+    }
+}
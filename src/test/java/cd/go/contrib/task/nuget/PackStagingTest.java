@@ -0,0 +1,76 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PackStagingTest {
+    private static final String SIDECAR = "A.1.0.0.nupkg" + PackFingerprint.SIDECAR_SUFFIX;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void movesThePackagesOfEachPackIntoTheOutputDirectory() throws IOException {
+        try (PackStaging staging = new PackStaging(dir.resolve("out"))) {
+            Path a = staging.newStagingDir();
+            Files.writeString(a.resolve("A.1.0.0.nupkg"), "A");
+            Files.writeString(a.resolve(SIDECAR), "{}");
+            Path b = staging.newStagingDir();
+            Files.writeString(b.resolve("B.1.0.0.nupkg"), "B");
+
+            assertThat(staging.publish("src/A/A.nuspec", a), equalTo(List.of("A.1.0.0.nupkg")));
+            assertThat(staging.publish("src/B/B.csproj", b), equalTo(List.of("B.1.0.0.nupkg")));
+        }
+
+        assertThat(list(dir.resolve("out")), equalTo(List.of("A.1.0.0.nupkg", SIDECAR, "B.1.0.0.nupkg")));
+    }
+
+    @Test
+    void reportsTwoPacksOfTheSamePackage() throws IOException {
+        try (PackStaging staging = new PackStaging(dir.resolve("out"))) {
+            Path first = staging.newStagingDir();
+            Files.writeString(first.resolve("A.1.0.0.nupkg"), "src/A/A.nuspec");
+            Path second = staging.newStagingDir();
+            Files.writeString(second.resolve("A.1.0.0.nupkg"), "legacy/A.nuspec");
+            staging.publish("src/A/A.nuspec", first);
+
+            IOException e = assertThrows(IOException.class, () -> staging.publish("legacy/A.nuspec", second));
+
+            assertThat(e.getMessage(), equalTo("A.1.0.0.nupkg collides with the package of the same name packed from src/A/A.nuspec"));
+        }
+
+        assertThat(Files.readString(dir.resolve("out/A.1.0.0.nupkg")), equalTo("src/A/A.nuspec"));
+    }
+
+    private static List<String> list(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+}
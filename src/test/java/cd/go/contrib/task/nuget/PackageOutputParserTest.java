@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PackageOutputParserTest {
+    @TempDir
+    Path tempDir;
+
+    private static Map<String, Object> pkg(String id, String version, String outcome, Long size, long durationMillis) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", id);
+        map.put("version", version);
+        map.put("outcome", outcome);
+        map.put("size", size);
+        map.put("durationMillis", durationMillis);
+        return map;
+    }
+
+    private void write(String file, int size) throws IOException {
+        Path path = tempDir.resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[size]);
+    }
+
+    private PackageOutputParser parse(String fixture) {
+        PackageOutputParser parser = new PackageOutputParser(tempDir);
+        TestUtil.readResource(fixture).lines().forEach(parser::accept);
+        return parser;
+    }
+
+    @Test
+    void followsTheInstalledAndDownloadedPackagesOfARestore() throws IOException {
+        write("packages/Newtonsoft.Json.13.0.1/Newtonsoft.Json.13.0.1.nupkg", 2048);
+        PackageOutputParser parser = parse("/fixtures/output/nuget-restore.txt");
+
+        assertThat(parser.getPackages(), equalTo(List.of(
+            pkg("Serilog", "3.1.1", PackageOutputParser.INSTALLED, null, 84),
+            pkg("Newtonsoft.Json", "13.0.1", PackageOutputParser.ADDED, 2048L, 152),
+            pkg("Castle.Core", "5.1.1", PackageOutputParser.ALREADY_INSTALLED, null, 0))));
+    }
+
+    @Test
+    void followsThePushedAndExistingPackagesOfAPush() throws IOException {
+        write("A.1.0.0.nupkg", 512);
+        PackageOutputParser parser = parse("/fixtures/output/nuget-push.txt");
+
+        assertThat(parser.getPackages(), equalTo(List.of(
+            pkg("A", "1.0.0", PackageOutputParser.PUSHED, 512L, 1234),
+            pkg("B", "2.0.0-beta.1", PackageOutputParser.ALREADY_EXISTS, null, 0),
+            pkg("C", "3.0.0", PackageOutputParser.ALREADY_EXISTS, null, 0))));
+    }
+
+    @Test
+    void tellsTheOutputOfConcurrentStepsApart() {
+        PackageOutputParser parser = new PackageOutputParser(tempDir);
+        Arrays.asList(
+            "[a] Pushing A.1.0.0.nupkg to 'https://nuget.example.com/'...",
+            "[b] Pushing B.1.0.0.nupkg to 'https://nuget.example.com/'...",
+            "[b]   Created https://nuget.example.com/ 20ms",
+            "[a]   Created https://nuget.example.com/ 10ms",
+            "[b] STDERR: Response status code does not indicate success: 409 (Conflict).",
+            "[a] Your package was pushed."
+        ).forEach(parser::accept);
+
+        assertThat(parser.getPackages(), equalTo(List.of(
+            pkg("A", "1.0.0", PackageOutputParser.PUSHED, null, 10),
+            pkg("B", "1.0.0", PackageOutputParser.ALREADY_EXISTS, null, 20))));
+    }
+
+    @Test
+    void keepsTheCasingOfTheOutcomeLineOverADownloadUrl() {
+        PackageOutputParser parser = new PackageOutputParser(tempDir);
+        parser.accept("Successfully installed 'Serilog 3.1.1' to packages");
+        parser.accept("  OK https://api.nuget.org/v3-flatcontainer/serilog/3.1.1/serilog.3.1.1.nupkg 84ms");
+
+        assertThat(parser.getPackages(), equalTo(List.of(pkg("Serilog", "3.1.1", PackageOutputParser.INSTALLED, null, 84))));
+    }
+
+    @Test
+    void countsThePackagesBeyondTheCap() {
+        PackageOutputParser parser = new PackageOutputParser(tempDir);
+        for (int i = 0; i < PackageOutputParser.MAX_PACKAGES + 5; i++) {
+            parser.accept("Added package 'P" + i + ".1.0.0' to folder 'packages'");
+        }
+
+        assertThat(parser.getPackages().size(), equalTo(PackageOutputParser.MAX_PACKAGES));
+        assertThat(parser.getUntracked(), equalTo(5L));
+    }
+
+    @Test
+    void savesThePackagesAsJson() throws IOException {
+        PackageOutputParser parser = new PackageOutputParser(tempDir);
+        parser.accept("Successfully installed 'Serilog 3.1.1' to packages");
+        Path file = tempDir.resolve("reports/packages.json");
+        parser.save(file);
+
+        Map saved = TaskPlugin.GSON.fromJson(Files.readString(file, StandardCharsets.UTF_8), Map.class);
+        assertThat(((Map) ((List) saved.get("packages")).get(0)).get("outcome"), equalTo(PackageOutputParser.INSTALLED));
+        assertThat(saved.get("untracked"), equalTo(0.0));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PathGlobTest {
+    @TempDir
+    Path workingDir;
+
+    @BeforeEach
+    void createPackages() throws IOException {
+        for (String file : List.of("build/A.1.0.0.nupkg", "build/A.1.0.0.symbols.nupkg", "build/x/B.2.0.0.nupkg", "build/x/y/C.3.0.0.nupkg", "build/x/notes.txt", "other/D.1.0.0.nupkg")) {
+            Path path = workingDir.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, file);
+        }
+    }
+
+    @Test
+    void recognizesGlobs() {
+        assertThat(PathGlob.isGlob("build/**/*.nupkg"), equalTo(true));
+        assertThat(PathGlob.isGlob("build/Package.{1,2}.nupkg"), equalTo(true));
+        assertThat(PathGlob.isGlob("build/Package.1.0.0.nupkg"), equalTo(false));
+        assertThat(PathGlob.isGlob(null), equalTo(false));
+    }
+
+    @Test
+    void matchesAnyNumberOfDirectories() throws IOException {
+        assertThat(relative(PathGlob.resolve("build/**/*.nupkg", workingDir.toString())), equalTo(List.of(
+            "build/A.1.0.0.nupkg", "build/A.1.0.0.symbols.nupkg", "build/x/B.2.0.0.nupkg", "build/x/y/C.3.0.0.nupkg")));
+        assertThat(relative(PathGlob.resolve("**/D.*.nupkg", workingDir.toString())), equalTo(List.of("other/D.1.0.0.nupkg")));
+    }
+
+    @Test
+    void matchesWithinOneDirectory() throws IOException {
+        assertThat(relative(PathGlob.resolve("build/*.nupkg", workingDir.toString())), equalTo(List.of("build/A.1.0.0.nupkg", "build/A.1.0.0.symbols.nupkg")));
+        assertThat(relative(PathGlob.resolve("build/x/?.2.0.0.nupkg", workingDir.toString())), equalTo(List.of("build/x/B.2.0.0.nupkg")));
+        assertThat(relative(PathGlob.resolve("build/{x,x/y}/[BC].*.nupkg", workingDir.toString())), equalTo(List.of("build/x/B.2.0.0.nupkg", "build/x/y/C.3.0.0.nupkg")));
+    }
+
+    @Test
+    void matchesNothingOutsideTheWorkingDirectoryTree() throws IOException {
+        assertThat(PathGlob.resolve("missing/**/*.nupkg", workingDir.toString()), equalTo(List.of()));
+        assertThat(PathGlob.resolve("build/**/*.snupkg", workingDir.toString()), equalTo(List.of()));
+    }
+
+    @Test
+    void resolvesListsOfPathsAndGlobs() throws IOException {
+        String list = "build/x/B.2.0.0.nupkg\r\n\n  build/*.nupkg  \nbuild/A.1.0.0.nupkg\nbuild/missing.nupkg\n";
+
+        assertThat(PathGlob.isList(list), equalTo(true));
+        assertThat(PathGlob.isList("build/*.nupkg\n"), equalTo(false));
+        assertThat(relative(PathGlob.resolveList(list, workingDir.toString())), equalTo(List.of(
+            "build/x/B.2.0.0.nupkg", "build/A.1.0.0.nupkg", "build/A.1.0.0.symbols.nupkg", "build/missing.nupkg")));
+    }
+
+    private List<String> relative(List<String> paths) {
+        return paths.stream().map(path -> workingDir.relativize(Path.of(path)).toString().replace('\\', '/')).collect(Collectors.toList());
+    }
+}
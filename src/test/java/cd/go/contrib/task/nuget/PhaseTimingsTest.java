@@ -0,0 +1,62 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import org.junit.jupiter.api.Test;
+
+public class PhaseTimingsTest {
+    @Test
+    void reportsRecordedPhasesInExecutionOrder() {
+        PhaseTimings timings = new PhaseTimings();
+        long startedAt = System.nanoTime();
+        timings.record(PhaseTimings.Phase.RUN, startedAt);
+        timings.record(PhaseTimings.Phase.DECODE, startedAt);
+
+        assertThat(timings.toMap().keySet().toString(), equalTo("[decode, run, total]"));
+    }
+
+    @Test
+    void addsUpRepeatedPhases() throws InterruptedException {
+        PhaseTimings timings = new PhaseTimings();
+        for (int i = 0; i < 2; i++) {
+            long startedAt = System.nanoTime();
+            Thread.sleep(5);
+            timings.record(PhaseTimings.Phase.DRAIN, startedAt);
+        }
+
+        assertThat(timings.getNanos(PhaseTimings.Phase.DRAIN), greaterThan(10_000_000L - 1));
+        assertThat((Double) timings.toMap().get("drain"), greaterThan(9.999));
+    }
+
+    @Test
+    void summarizesOnOneLine() {
+        PhaseTimings timings = new PhaseTimings();
+        timings.record(PhaseTimings.Phase.SPAWN, System.nanoTime());
+
+        String summary = timings.summary();
+        Map<String, Object> map = timings.toMap();
+
+        assertThat(summary.startsWith("NuGet timings: spawn "), equalTo(true));
+        assertThat(summary.contains("\n"), equalTo(false));
+        assertThat(summary.split(", ").length, equalTo(map.size()));
+    }
+}
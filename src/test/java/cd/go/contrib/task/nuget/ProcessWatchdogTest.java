@@ -0,0 +1,100 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ProcessWatchdogTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void firesTheIdleTimeoutWhenTheProcessGoesQuiet() throws IOException, InterruptedException {
+        Process process = StubNuGet.start(dir, StubNuGet.SLEEP).start();
+        try {
+            ProcessWatchdog watchdog = new ProcessWatchdog(60, 1);
+            watchdog.track(process.getInputStream());
+
+            assertThat(watchdog.await(process), equalTo(ProcessWatchdog.Timeout.IDLE));
+            assertThat(watchdog.getLimitSeconds(ProcessWatchdog.Timeout.IDLE), equalTo(1L));
+            assertThat(watchdog.getWaitedMillis(), greaterThan(999L));
+            assertThat(watchdog.getWaitedMillis(), lessThan(10000L));
+        } finally {
+            ProcessTree.destroy(process, ProcessTree.TERMINATION_GRACE);
+        }
+    }
+
+    @Test
+    void firesTheWallClockTimeoutAndStopsTheProcessTree() throws IOException, InterruptedException {
+        Process process = StubNuGet.start(dir, StubNuGet.HANG).start();
+        long childPid = childPid();
+
+        ProcessWatchdog watchdog = new ProcessWatchdog(1, 0);
+        assertThat(watchdog.await(process), equalTo(ProcessWatchdog.Timeout.WALL_CLOCK));
+        assertThat(watchdog.getLimitSeconds(ProcessWatchdog.Timeout.WALL_CLOCK), equalTo(1L));
+        ProcessTree.destroy(process, ProcessTree.TERMINATION_GRACE);
+
+        assertThat(process.isAlive(), equalTo(false));
+        Optional<ProcessHandle> child = ProcessHandle.of(childPid);
+        assertThat(child.isPresent() && child.get().isAlive(), equalTo(false));
+    }
+
+    @Test
+    void returnsNoTimeoutWhenTheProcessExitsFirst() throws IOException, InterruptedException {
+        Process process = StubNuGet.start(dir, StubNuGet.FAIL).start();
+
+        ProcessWatchdog watchdog = new ProcessWatchdog(60, 60);
+
+        assertThat(watchdog.await(process), nullValue());
+        assertThat(process.exitValue(), equalTo(3));
+    }
+
+    @Test
+    void parsesTimeoutsInWholeSeconds() {
+        assertThat(ProcessWatchdog.parseSeconds(""), equalTo(0L));
+        assertThat(ProcessWatchdog.parseSeconds(" 90 "), equalTo(90L));
+        assertThrows(IllegalArgumentException.class, () -> ProcessWatchdog.parseSeconds("-1"));
+        assertThrows(IllegalArgumentException.class, () -> ProcessWatchdog.parseSeconds("soon"));
+    }
+
+    private long childPid() throws IOException, InterruptedException {
+        Path pidFile = dir.resolve("child.pid");
+        for (int i = 0; i < 200 && !Files.exists(pidFile); i++) {
+            Thread.sleep(50);
+        }
+        // The file may exist before its content is written
+        String pid = "";
+        for (int i = 0; i < 20 && pid.isEmpty(); i++) {
+            pid = Files.readString(pidFile).trim();
+            Thread.sleep(i == 0 ? 0 : 50);
+        }
+        return Long.parseLong(pid);
+    }
+}
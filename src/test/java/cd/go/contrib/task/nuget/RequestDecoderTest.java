@@ -0,0 +1,117 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.GsonBuilder;
+
+public class RequestDecoderTest {
+    private static final String[] FIXTURES = {
+        "nuget-install-minimal",
+        "nuget-install-envvars",
+        "nuget-pack-minimal",
+        "nuget-config-minimal",
+        "nuget-config-cleanup",
+    };
+
+    @Test
+    void decodesTheSameCommandAsTheMapTree() {
+        NuGetTaskExecutor executor = new NuGetTaskExecutor();
+
+        for (String fixture : FIXTURES) {
+            String requestBody = TestUtil.readResource("/fixtures/requests/" + fixture + ".json");
+
+            Map executionRequest = (Map) new GsonBuilder().create().fromJson(requestBody, Object.class);
+            Context mapContext = new Context((Map) executionRequest.get("context"));
+            ProcessBuilder fromMap = executor.createNuGetProcessWithOptions(mapContext, new TaskConfig((Map) executionRequest.get("config")));
+
+            RequestDecoder.ExecuteRequestBody decoded = RequestDecoder.decodeExecuteRequest(requestBody);
+            ProcessBuilder fromStream = executor.createNuGetProcessWithOptions(decoded.getContext(), decoded.getTaskConfig());
+
+            assertThat(fixture, fromStream.command(), equalTo(fromMap.command()));
+            assertThat(fixture, decoded.getContext().getWorkingDir(), equalTo(mapContext.getWorkingDir()));
+            assertThat(fixture, decoded.getContext().getEnvironmentVariables(), equalTo(mapContext.getEnvironmentVariables()));
+        }
+    }
+
+    @Test
+    void decodesStringAndBooleanValues() {
+        TaskConfig taskConfig = RequestDecoder.decodeTaskConfig("{"
+            + "\"command\": {\"secure\": false, \"value\": \"restore\", \"required\": true},"
+            + "\"optRecursive\": {\"value\": true},"
+            + "\"optForce\": {\"value\": \"true\"},"
+            + "\"optNoHttpCache\": {\"value\": null},"
+            + "\"optTimeout\": {\"value\": 300},"
+            + "\"optUnknown\": {\"value\": {\"nested\": [1, 2, 3]}}"
+            + "}");
+
+        assertThat(taskConfig.getCommand(), equalTo("restore"));
+        assertThat(taskConfig.hasOptRecursive(), equalTo(true));
+        assertThat(taskConfig.hasOptForce(), equalTo(true));
+        assertThat(taskConfig.hasOptNoHttpCache(), equalTo(false));
+        assertThat(taskConfig.getOptTimeout(), equalTo("300"));
+        assertThat(taskConfig.getOptSource(), equalTo(null));
+    }
+
+    @Test
+    void allocatesFarLessThanTheMapTree() {
+        String requestBody = TestUtil.readResource("/fixtures/requests/nuget-install-envvars.json");
+        int iterations = 2_000;
+
+        // Warm up both paths so that class loading and JIT compilation are not counted
+        for (int i = 0; i < iterations; i++) {
+            decodeAsMapTree(requestBody);
+            RequestDecoder.decodeExecuteRequest(requestBody);
+        }
+
+        long mapTreeBytes = allocatedBytes(() -> {
+            for (int i = 0; i < iterations; i++) {
+                decodeAsMapTree(requestBody);
+            }
+        });
+        long streamingBytes = allocatedBytes(() -> {
+            for (int i = 0; i < iterations; i++) {
+                RequestDecoder.decodeExecuteRequest(requestBody);
+            }
+        });
+
+        // The streaming decoder allocates about 2.6 times less for this request
+        String allocated = String.format("Bytes allocated per request: map tree %d, streaming %d", mapTreeBytes / iterations, streamingBytes / iterations);
+        assertThat(allocated, (double) mapTreeBytes / streamingBytes, greaterThan(2.5));
+    }
+
+    private static TaskConfig decodeAsMapTree(String requestBody) {
+        Map executionRequest = (Map) new GsonBuilder().create().fromJson(requestBody, Object.class);
+        new Context((Map) executionRequest.get("context"));
+        return new TaskConfig((Map) executionRequest.get("config"));
+    }
+
+    private static long allocatedBytes(Runnable runnable) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        runnable.run();
+        return threadMXBean.getThreadAllocatedBytes(threadId) - before;
+    }
+}
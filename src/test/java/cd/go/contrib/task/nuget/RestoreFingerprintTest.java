@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RestoreFingerprintTest {
+    private static final List<String> COMMAND = List.of("nuget", "restore", "App.csproj", "-NonInteractive");
+
+    @TempDir
+    Path dir;
+
+    private Path project;
+    private Path packages;
+
+    @BeforeEach
+    void createProject() throws IOException {
+        project = Files.writeString(dir.resolve("App.csproj"), "<Project />");
+        Files.writeString(dir.resolve("packages.lock.json"), "{\"version\": 1}");
+        packages = Files.createDirectories(dir.resolve("packages/newtonsoft.json/13.0.3"));
+        Files.writeString(packages.resolve("newtonsoft.json.13.0.3.nupkg"), "package");
+        packages = dir.resolve("packages");
+    }
+
+    @Test
+    void isUpToDateAfterASave() throws IOException {
+        assertThat(fingerprint().isUpToDate(), equalTo(false));
+
+        fingerprint().save();
+
+        assertThat(fingerprint().isUpToDate(), equalTo(true));
+        assertThat(Files.exists(dir.resolve("obj/App.csproj.nuget-task-restore.json")), equalTo(true));
+    }
+
+    @Test
+    void changesWithTheLockFileAndCommandLine() throws IOException {
+        fingerprint().save();
+        String saved = fingerprint().getInputsDigest();
+
+        Files.writeString(dir.resolve("packages.lock.json"), "{\"version\": 2}");
+        assertThat(fingerprint().getInputsDigest(), not(equalTo(saved)));
+        assertThat(fingerprint().isUpToDate(), equalTo(false));
+
+        Files.writeString(dir.resolve("packages.lock.json"), "{\"version\": 1}");
+        assertThat(fingerprint().isUpToDate(), equalTo(true));
+        assertThat(RestoreFingerprint.of(List.of("nuget", "restore", "App.csproj", "-Force"), project.toString(), null, null, packages.toString()).isUpToDate(), equalTo(false));
+    }
+
+    @Test
+    void noticesChangedPackagesOnDisk() throws IOException {
+        fingerprint().save();
+
+        Path nupkg = packages.resolve("newtonsoft.json/13.0.3/newtonsoft.json.13.0.3.nupkg");
+        Files.setLastModifiedTime(nupkg, FileTime.fromMillis(0));
+        assertThat(fingerprint().isUpToDate(), equalTo(false));
+
+        fingerprint().save();
+        Files.delete(nupkg);
+        assertThat(fingerprint().isUpToDate(), equalTo(false));
+    }
+
+    @Test
+    void hashesFileContents() throws Exception {
+        byte[] content = new byte[200_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        Path file = Files.write(dir.resolve("large.bin"), content);
+
+        assertThat(MessageDigest.isEqual(RestoreFingerprint.hashFile(file), MessageDigest.getInstance("SHA-256").digest(content)), equalTo(true));
+    }
+
+    private RestoreFingerprint fingerprint() throws IOException {
+        return RestoreFingerprint.of(COMMAND, project.toString(), null, null, packages.toString());
+    }
+}
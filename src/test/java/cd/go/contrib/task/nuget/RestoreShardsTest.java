@@ -0,0 +1,71 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RestoreShardsTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsProjectsOutsideBuildAndHiddenFolders() throws IOException {
+        for (String file : List.of("App/App.csproj", "Lib/Lib.fsproj", "Lib/obj/Lib.csproj", ".git/Old.csproj",
+                "packages/Tool/Tool.csproj", "App/bin/Copy.vbproj", "docs/readme.md", "Legacy/Legacy.vbproj")) {
+            Files.createDirectories(dir.resolve(file).getParent());
+            Files.writeString(dir.resolve(file), "<Project />");
+        }
+
+        assertThat(RestoreShards.load(dir).discover(), equalTo(List.of("App/App.csproj", "Legacy/Legacy.vbproj", "Lib/Lib.fsproj")));
+    }
+
+    @Test
+    void balancesShardsByTheLastRestoreTimes() throws IOException {
+        RestoreShards saved = RestoreShards.load(dir);
+        saved.record("A.csproj", 100);
+        saved.record("B.csproj", 60);
+        saved.record("C.csproj", 50);
+        saved.record("D.csproj", 10);
+        saved.save();
+
+        RestoreShards shards = RestoreShards.load(dir);
+        List<RestoreShards.Shard> partition = shards.partition(List.of("A.csproj", "B.csproj", "C.csproj", "D.csproj", "E.csproj"), 2);
+
+        // E has no time yet, so it is expected to take the average (55ms)
+        assertThat(partition.stream().map(RestoreShards.Shard::getProjects).collect(Collectors.toList()),
+            equalTo(List.of(List.of("A.csproj", "C.csproj"), List.of("B.csproj", "E.csproj", "D.csproj"))));
+        assertThat(partition.get(0).getEstimatedMillis(), equalTo(150L));
+        assertThat(partition.get(1).getEstimatedMillis(), equalTo(125L));
+    }
+
+    @Test
+    void makesNoMoreShardsThanProjects() throws IOException {
+        List<RestoreShards.Shard> partition = RestoreShards.load(dir).partition(List.of("A.csproj", "B.csproj"), 8);
+
+        assertThat(partition.size(), equalTo(2));
+        assertThat(partition.get(0).getProjects(), equalTo(List.of("A.csproj")));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RestoreSnapshotCacheTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void extractsWhatWasPublished() throws IOException, InterruptedException {
+        Path packages = dir.resolve("packages");
+        for (int i = 0; i < 5; i++) {
+            Files.createDirectories(packages.resolve("Package" + i + ".1.0.0/lib/net48"));
+            Files.writeString(packages.resolve("Package" + i + ".1.0.0/lib/net48/Package" + i + ".dll"), "assembly " + i);
+        }
+        RestoreSnapshotCache cache = new RestoreSnapshotCache(dir.resolve("cache"), Long.MAX_VALUE);
+
+        assertThat(cache.restore("key", dir.resolve("restored")), equalTo(-1L));
+        assertThat(cache.publish("key", packages), equalTo(true));
+        assertThat(cache.publish("key", packages), equalTo(false));
+        assertThat(cache.restore("key", dir.resolve("restored")), equalTo(50L));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(Files.readString(dir.resolve("restored/Package" + i + ".1.0.0/lib/net48/Package" + i + ".dll")), equalTo("assembly " + i));
+        }
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedSnapshotsFirst() throws IOException, InterruptedException {
+        Path packages = dir.resolve("packages");
+        Files.createDirectories(packages);
+        Files.write(packages.resolve("Package.nupkg"), new byte[64 * 1024]);
+        RestoreSnapshotCache cache = new RestoreSnapshotCache(dir.resolve("cache"), 1);
+
+        for (String key : List.of("old", "recent", "newest")) {
+            cache.publish(key, packages);
+        }
+        Files.setLastModifiedTime(dir.resolve("cache/old/snapshot.json"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(dir.resolve("cache/recent/snapshot.json"), FileTime.fromMillis(3000));
+        Files.setLastModifiedTime(dir.resolve("cache/newest/snapshot.json"), FileTime.fromMillis(2000));
+        cache.restore("newest", dir.resolve("restored"));
+
+        assertThat(cache.evict(), equalTo(List.of("old", "recent", "newest")));
+        assertThat(Files.exists(dir.resolve("cache/old")), equalTo(false));
+        assertThat(new RestoreSnapshotCache(dir.resolve("cache"), Long.MAX_VALUE).evict(), equalTo(List.of()));
+    }
+
+    @Test
+    void keysSnapshotsByTheLockFileContents() throws IOException {
+        Path lockFile = Files.writeString(dir.resolve("packages.lock.json"), "{\"version\": 1}");
+        String key = RestoreSnapshotCache.key(TaskPlugin.CMD_RESTORE, lockFile);
+
+        assertThat(RestoreSnapshotCache.key(TaskPlugin.CMD_INSTALL, lockFile), not(equalTo(key)));
+        Files.writeString(lockFile, "{\"version\": 2}");
+        assertThat(RestoreSnapshotCache.key(TaskPlugin.CMD_RESTORE, lockFile), not(equalTo(key)));
+    }
+
+    @Test
+    void findsTheLockFileNextToTheProject() throws IOException {
+        Path project = Files.writeString(dir.resolve("App.csproj"), "<Project />");
+        assertThat(RestoreSnapshotCache.findLockFile(project.toString(), null), equalTo(null));
+
+        Path packagesConfig = Files.writeString(dir.resolve("packages.config"), "<packages />");
+        assertThat(RestoreSnapshotCache.findLockFile(project.toString(), null), equalTo(packagesConfig));
+        assertThat(RestoreSnapshotCache.findLockFile(packagesConfig.toString(), null), equalTo(packagesConfig));
+
+        Path lockFile = Files.writeString(dir.resolve("packages.lock.json"), "{}");
+        assertThat(RestoreSnapshotCache.findLockFile(project.toString(), null), equalTo(lockFile));
+        assertThat(RestoreSnapshotCache.findLockFile(project.toString(), packagesConfig.toString()), equalTo(packagesConfig));
+    }
+
+    @Test
+    void rejectsInvalidMaxSizes() {
+        assertThat(RestoreSnapshotCache.parseMaxSize(""), equalTo(RestoreSnapshotCache.DEFAULT_MAX_MEGABYTES * 1024 * 1024));
+        assertThat(RestoreSnapshotCache.parseMaxSize("5"), equalTo(5L * 1024 * 1024));
+        assertThrows(IllegalArgumentException.class, () -> RestoreSnapshotCache.parseMaxSize("0"));
+        assertThrows(IllegalArgumentException.class, () -> RestoreSnapshotCache.parseMaxSize("big"));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import org.junit.jupiter.api.Test;
+
+public class SecretMaskerTest {
+    @Test
+    void masksEveryOccurrenceOfEachSecret() {
+        SecretMasker masker = SecretMasker.of(List.of("oy2abcdefgh", "hunter22"));
+
+        assertThat(masker.mask("[nuget, push, A.nupkg, -ApiKey, oy2abcdefgh] as hunter22, again oy2abcdefgh."),
+            equalTo("[nuget, push, A.nupkg, -ApiKey, ******] as ******, again ******."));
+    }
+
+    @Test
+    void masksOverlappingSecretsAsOneRun() {
+        SecretMasker masker = SecretMasker.of(List.of("abcdef", "cdefgh", "defg"));
+
+        assertThat(masker.mask("xxabcdefghyy abcdefzz"), equalTo("xx******yy ******zz"));
+    }
+
+    @Test
+    void leavesTheStartOfASecretAlone() {
+        SecretMasker masker = SecretMasker.of(List.of("secret-value"));
+
+        assertThat(masker.mask("a secret-valu"), equalTo("a secret-valu"));
+        assertThat(masker.mask("secret-secret-value!"), equalTo("secret-******!"));
+    }
+
+    @Test
+    void masksASecretSplitAcrossChunks() {
+        SecretMasker.Stream stream = SecretMasker.of(List.of("p4ssw0rd")).stream();
+        StringBuilder out = new StringBuilder();
+
+        stream.write("password is p4s", out);
+        assertThat(out.toString(), equalTo("password is "));
+        stream.write("sw", out);
+        stream.write("0rd\nnext line", out);
+        stream.flush(out);
+
+        assertThat(out.toString(), equalTo("password is ******\nnext line"));
+    }
+
+    @Test
+    void ignoresShortAndMissingSecrets() {
+        SecretMasker masker = SecretMasker.of(Arrays.asList(null, "", "abc"));
+
+        assertThat(masker.isEmpty(), equalTo(true));
+        assertThat(masker.mask("abc"), equalTo("abc"));
+    }
+
+    @Test
+    void agreesWithSearchingForEachSecretEverywhere() {
+        List<String> secrets = List.of("kx9q", "zzyzx", "q0q0q0", "m1m2m3m4", "9qzz");
+        SecretMasker masker = SecretMasker.of(secrets);
+        Random random = new Random(42);
+        String alphabet = "kx9qzy0m1234 \n";
+
+        for (int run = 0; run < 200; run++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                text.append(random.nextInt(20) == 0 ? secrets.get(random.nextInt(secrets.size())) : String.valueOf(alphabet.charAt(random.nextInt(alphabet.length()))));
+            }
+
+            // Mark every character of every occurrence, overlapping or not, then collapse each run of them
+            boolean[] secret = new boolean[text.length()];
+            for (String value : secrets) {
+                for (int at = text.indexOf(value); at >= 0; at = text.indexOf(value, at + 1)) {
+                    Arrays.fill(secret, at, at + value.length(), true);
+                }
+            }
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < text.length(); i++) {
+                if (!secret[i]) {
+                    expected.append(text.charAt(i));
+                } else if (i == 0 || !secret[i - 1]) {
+                    expected.append(SecretMasker.MASK);
+                }
+            }
+
+            assertThat(masker.mask(text.toString()), equalTo(expected.toString()));
+        }
+    }
+}
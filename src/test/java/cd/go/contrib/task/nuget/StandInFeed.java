@@ -0,0 +1,169 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A NuGet v3 feed on localhost, serving canned responses and counting the requests it gets, so that tests never need
+ * the network
+ */
+public class StandInFeed implements AutoCloseable {
+    private final HttpServer server;
+    private final String baseUrl;
+    private final Map<String, byte[]> bodies = new ConcurrentHashMap<>();
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private volatile long delayMillis;
+    private final Map<String, Integer> putStatus = new ConcurrentHashMap<>();
+    private final Map<String, String> putRedirects = new ConcurrentHashMap<>();
+    private final List<Upload> uploads = new CopyOnWriteArrayList<>();
+
+    /**
+     * A PUT the feed received
+     */
+    public static class Upload {
+        public final String path;
+        public final String contentType;
+        public final String apiKey;
+        public final byte[] body;
+
+        Upload(String path, String contentType, String apiKey, byte[] body) {
+            this.path = path;
+            this.contentType = contentType;
+            this.apiKey = apiKey;
+            this.body = body;
+        }
+    }
+
+    public StandInFeed() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort();
+
+        serve("/v3/index.json", "{\"version\": \"3.0.0\", \"resources\": ["
+            + "{\"@id\": \"" + baseUrl + "/v3-flatcontainer/\", \"@type\": \"PackageBaseAddress/3.0.0\"},"
+            + "{\"@id\": \"" + baseUrl + "/v3/registration/\", \"@type\": \"RegistrationsBaseUrl/3.6.0\"},"
+            + "{\"@id\": \"" + baseUrl + "/api/v2/package\", \"@type\": \"PackagePublish/2.0.0\"},"
+            + "{\"@id\": \"" + baseUrl + "/api/v2/symbolpackage\", \"@type\": \"SymbolPackagePublish/4.9.0\"}]}", "\"index-1\"");
+        serve("/v3-flatcontainer/foo/index.json", "{\"versions\": [\"1.0.0\"]}", "\"foo-1\"");
+        serve("/v3-flatcontainer/foo/1.0.0/foo.1.0.0.nupkg", "not really a zip", null);
+    }
+
+    public String url(String path) {
+        return baseUrl + path;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public void serve(String path, String body, String etag) {
+        bodies.put(path, body.getBytes(StandardCharsets.UTF_8));
+        if (etag != null) {
+            etags.put(path, etag);
+        }
+    }
+
+    public void setDelay(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    public void respondToPut(String path, int status) {
+        putStatus.put(path, status);
+    }
+
+    public void redirectPut(String path, String location) {
+        putRedirects.put(path, location);
+    }
+
+    public List<Upload> getUploads() {
+        return uploads;
+    }
+
+    public int getRequests(String path) {
+        AtomicInteger count = requests.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    public int getNotModified() {
+        return notModified.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] body = bodies.get(path);
+        String etag = etags.get(path);
+
+        if ("PUT".equals(exchange.getRequestMethod())) {
+            uploads.add(new Upload(path, exchange.getRequestHeaders().getFirst("Content-Type"),
+                exchange.getRequestHeaders().getFirst("X-NuGet-ApiKey"), exchange.getRequestBody().readAllBytes()));
+            String location = putRedirects.get(path);
+            if (location != null) {
+                exchange.getResponseHeaders().set("Location", location);
+                exchange.sendResponseHeaders(307, -1);
+            } else {
+                exchange.sendResponseHeaders(putStatus.getOrDefault(path, 201), -1);
+            }
+        } else if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+        } else if (etag != null && etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModified.incrementAndGet();
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            if (etag != null) {
+                exchange.getResponseHeaders().set("ETag", etag);
+            }
+            exchange.getResponseHeaders().set("Content-Type", path.endsWith(".json") ? "application/json" : "application/octet-stream");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class StepGraphTest {
+    @Test
+    void runsEachStepAfterTheOneBeforeItByDefault() {
+        StepGraph graph = StepGraph.parse("[{\"command\": \"restore\"}, {\"id\": \"pack\", \"command\": \"pack\", \"taskTimeout\": 60}, {\"dependsOn\": [], \"optNoHttpCache\": true}]");
+
+        assertThat(graph.getSteps().get(0).getId(), equalTo("1"));
+        assertThat(graph.getSteps().get(0).getDependsOn(), equalTo(List.of()));
+        assertThat(graph.getSteps().get(1).getDependsOn(), equalTo(List.of("1")));
+        assertThat(graph.getSteps().get(1).getValues(), equalTo(Map.of("command", "pack", "taskTimeout", "60")));
+        assertThat(graph.getSteps().get(2).getDependsOn(), equalTo(List.of()));
+        assertThat(graph.getSteps().get(2).getValues(), equalTo(Map.of("optNoHttpCache", true)));
+    }
+
+    @Test
+    void rejectsStepsThatCanNeverRun() {
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+            () -> StepGraph.parse("[{\"id\": \"a\", \"dependsOn\": [\"b\"]}]"));
+        IllegalArgumentException cycle = assertThrows(IllegalArgumentException.class,
+            () -> StepGraph.parse("[{\"id\": \"a\", \"dependsOn\": [\"c\"]}, {\"id\": \"b\"}, {\"id\": \"c\"}, {\"id\": \"d\", \"dependsOn\": []}]"));
+        IllegalArgumentException duplicate = assertThrows(IllegalArgumentException.class,
+            () -> StepGraph.parse("[{\"id\": \"a\"}, {\"id\": \"a\"}]"));
+
+        assertThat(unknown.getMessage(), equalTo("Step a depends on an unknown step: b"));
+        assertThat(cycle.getMessage(), equalTo("Steps depend on each other in a cycle: a, b, c"));
+        assertThat(duplicate.getMessage(), equalTo("Step 2 must have a unique id: a"));
+    }
+
+    @Test
+    void rejectsPropertiesThatDontFitTheTask() {
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+            () -> StepGraph.parse("[{\"id\": \"a\", \"optNoCache\": true}]"));
+        IllegalArgumentException text = assertThrows(IllegalArgumentException.class,
+            () -> StepGraph.parse("[{\"id\": \"a\", \"optVersion\": true}]"));
+        IllegalArgumentException toggle = assertThrows(IllegalArgumentException.class,
+            () -> StepGraph.parse("[{\"id\": \"a\", \"optNoHttpCache\": \"yes\"}]"));
+
+        assertThat(unknown.getMessage(), equalTo("Step a: unknown property optNoCache"));
+        assertThat(text.getMessage(), equalTo("Step a: optVersion must be text or a number"));
+        assertThat(toggle.getMessage(), equalTo("Step a: optNoHttpCache must be true or false"));
+        assertThat(StepGraph.parse("[{\"optNoHttpCache\": \"true\"}]").getSteps().get(0).getValues(), equalTo(Map.of("optNoHttpCache", "true")));
+    }
+
+    @Test
+    void runsIndependentStepsTogetherAndSkipsTheDependentsOfAFailure() throws InterruptedException {
+        StepGraph graph = StepGraph.parse("[{\"id\": \"sources\"}, {\"id\": \"restoreA\"}, {\"id\": \"restoreB\", \"dependsOn\": [\"sources\"]},"
+            + " {\"id\": \"pack\", \"dependsOn\": [\"restoreA\", \"restoreB\"]}, {\"id\": \"push\"}]");
+        // Each restore only finishes once the other has started
+        CountDownLatch restores = new CountDownLatch(2);
+
+        List<Map<String, Object>> statuses = graph.run(4, step -> {
+            if (step.getId().startsWith("restore")) {
+                restores.countDown();
+                if (!restores.await(10, TimeUnit.SECONDS)) {
+                    return new Result(false, "The restores did not run together");
+                }
+            }
+            return new Result(!"restoreB".equals(step.getId()), step.getId() + " ran").withDetail("ran", true);
+        });
+
+        assertThat(statuses.get(0).get("message"), equalTo("sources ran"));
+        assertThat(statuses.get(1).get("success"), equalTo(true));
+        assertThat(statuses.get(2).get("success"), equalTo(false));
+        assertThat(statuses.get(2).get("message"), equalTo("restoreB ran"));
+        assertThat(statuses.get(3).get("message"), equalTo("Skipped because step restoreB did not succeed"));
+        assertThat(statuses.get(4).get("message"), equalTo("Skipped because step pack did not succeed"));
+        assertThat(statuses.get(4).get("skipped"), equalTo(true));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2025 Volusion, LLC.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cd.go.contrib.task.nuget;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A stand-in for the NuGet CLI: a Java main behind a `nuget` shell script, or a `nuget.cmd` batch file on Windows, so
+ * that tests can run the executor end to end on every platform without a real NuGet. The first argument of the
+ * launcher picks what the stand-in does; the rest are the NuGet arguments. It records its working directory in
+ * `pwd.log`, next to the launcher.
+ */
+public class StubNuGet {
+    /**
+     * Prints the output of a push, using the -ApiKey argument and the FEED_PASSWORD variable, and exits 0
+     */
+    public static final String PUSH = "push";
+    /**
+     * Prints a line to each stream and exits 3
+     */
+    public static final String FAIL = "fail";
+    /**
+     * Starts a child that outlives the stand-in unless the whole tree is stopped, records its pid in `child.pid`,
+     * and waits for it
+     */
+    public static final String HANG = "hang";
+    /**
+     * Sleeps for ten minutes without output
+     */
+    public static final String SLEEP = "sleep";
+
+    private static final String DIR_PROPERTY = "stub.dir";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path dir = Paths.get(System.getProperty(DIR_PROPERTY));
+        Files.writeString(dir.resolve("pwd.log"), Paths.get("").toAbsolutePath().toString());
+        List<String> nugetArgs = Arrays.asList(args).subList(1, args.length);
+        // Write LF line endings on every platform, so that tests can count the bytes
+        PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        PrintStream err = new PrintStream(System.err, true, StandardCharsets.UTF_8);
+
+        switch (args[0]) {
+            case PUSH:
+                int apiKey = nugetArgs.indexOf("-ApiKey");
+                out.print("Pushing " + nugetArgs.get(1) + " to 'https://nuget.example.com/'...\n");
+                out.print("pushing with " + (apiKey < 0 ? "" : nugetArgs.get(apiKey + 1))
+                    + " to https://feed-user:" + System.getenv("FEED_PASSWORD") + "@example.invalid\n");
+                err.print("warn : the feed is slow\n");
+                out.print("Your package was pushed.\n");
+                break;
+            case FAIL:
+                out.print("Restoring packages...\n");
+                err.print("warning\n");
+                System.exit(3);
+                break;
+            case HANG:
+                Process child = start(dir, SLEEP).inheritIO().start();
+                Files.writeString(dir.resolve("child.pid"), String.valueOf(child.pid()));
+                child.waitFor();
+                break;
+            case SLEEP:
+                Thread.sleep(600_000);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + args[0]);
+        }
+    }
+
+    /**
+     * Write a launcher for the stand-in
+     * @param dir The directory to write the launcher to
+     * @param mode What the stand-in does, e.g. {@link #PUSH}
+     * @return The launcher, to use as the NuGet executable
+     * @throws IOException
+     */
+    public static Path install(Path dir, String mode) throws IOException {
+        String command = String.join(" ", quoted(start(dir, mode).command()));
+        if (System.getProperty("os.name").startsWith("Windows")) {
+            return Files.writeString(dir.resolve("nuget.cmd"), "@echo off\r\n" + command + " %*\r\n");
+        }
+
+        Path nuget = Files.writeString(dir.resolve("nuget"), "#!/bin/sh\nexec " + command + " \"$@\"\n");
+        nuget.toFile().setExecutable(true);
+        return nuget;
+    }
+
+    /**
+     * Build the command that runs the stand-in directly, without a launcher
+     * @param dir The directory the stand-in records its files in
+     * @param mode What the stand-in does
+     * @return The command
+     */
+    public static ProcessBuilder start(Path dir, String mode) {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", classPath(), "-D" + DIR_PROPERTY + "=" + dir, StubNuGet.class.getName(), mode);
+    }
+
+    private static String classPath() {
+        try {
+            return Paths.get(StubNuGet.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> quoted(List<String> command) {
+        return command.stream().map(arg -> "\"" + arg + "\"").collect(Collectors.toList());
+    }
+}